@@ -0,0 +1,19 @@
+package com.googlecode.totallylazy;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs every benchmark on the classpath with the GC profiler attached so allocation rates are reported alongside throughput.
+ * Accepts the usual JMH command line, e.g. "SequenceBenchmark -f 1 -wi 3 -i 5".
+ */
+public class Benchmarks {
+    public static void main(String... args) throws Exception {
+        new Runner(new OptionsBuilder().
+                parent(new CommandLineOptions(args)).
+                addProfiler(GCProfiler.class).
+                build()).run();
+    }
+}
@@ -0,0 +1,74 @@
+package com.googlecode.totallylazy;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.googlecode.totallylazy.Sequences.sequence;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ComputationBenchmark {
+    @Param({"100", "10000"})
+    public int size;
+
+    private Sequence<Integer> numbers;
+    private Sequence<Integer> memorised;
+    private Sequence<Integer> chunked;
+
+    @Setup
+    public void setup() {
+        Integer[] values = new Integer[size];
+        for (int i = 0; i < size; i++) values[i] = i;
+        numbers = sequence(values);
+        memorised = Computation.memorise(numbers);
+        memorised.size();
+        chunked = Computation.memorise(numbers, 64);
+        chunked.size();
+    }
+
+    @Benchmark
+    public int memoriseAndRealise() {
+        return Computation.memorise(numbers).size();
+    }
+
+    @Benchmark
+    public int iterateRealised() {
+        return memorised.size();
+    }
+
+    @Benchmark
+    public int memoriseChunkedAndRealise() {
+        return Computation.memorise(numbers, 64).size();
+    }
+
+    @Benchmark
+    public int iterateRealisedChunks() {
+        return chunked.size();
+    }
+
+    @Benchmark
+    public Integer walkSegments() {
+        Segment<Integer> segment = Computation.memorise(numbers);
+        Integer last = null;
+        while (!segment.isEmpty()) {
+            last = segment.head();
+            segment = segment.tail();
+        }
+        return last;
+    }
+}
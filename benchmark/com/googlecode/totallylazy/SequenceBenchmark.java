@@ -0,0 +1,124 @@
+package com.googlecode.totallylazy;
+
+import com.googlecode.totallylazy.comparators.Comparators;
+import com.googlecode.totallylazy.numbers.IntSequence;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.googlecode.totallylazy.Sequences.sequence;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SequenceBenchmark {
+    @Param({"100", "10000"})
+    public int size;
+
+    private Sequence<Integer> numbers;
+    private Sequence<Integer> shuffled;
+
+    private static final Callable1<Integer, Integer> increment = value -> value + 1;
+    private static final Callable1<Integer, Integer> square = value -> value * value;
+    private static final Predicate<Integer> even = value -> value % 2 == 0;
+    private static final Predicate<Integer> positive = value -> value > 0;
+    private static final Callable2<Long, Integer, Long> sum = (total, value) -> total + value;
+    private static final ReducerCombiner<Integer, Long> total = new ReducerCombiner<Integer, Long>() {
+        @Override
+        public Long call(Long total, Integer value) {
+            return total + value;
+        }
+
+        @Override
+        public Long combine(Long a, Long b) {
+            return a + b;
+        }
+
+        @Override
+        public Long identity() {
+            return 0L;
+        }
+    };
+
+    @Setup
+    public void setup() {
+        Integer[] values = new Integer[size];
+        for (int i = 0; i < size; i++) values[i] = i;
+        numbers = sequence(values);
+        shuffled = numbers.shuffle().realise();
+    }
+
+    @Benchmark
+    public Long fold() {
+        return numbers.fold(0L, sum);
+    }
+
+    @Benchmark
+    public Long mapFold() {
+        return numbers.map(increment).fold(0L, sum);
+    }
+
+    @Benchmark
+    public Long mapFilterFold() {
+        return numbers.map(increment).filter(even).fold(0L, sum);
+    }
+
+    @Benchmark
+    public Long parallelMapFilterFold() {
+        return numbers.parallel().map(increment).filter(even).fold(0L, total);
+    }
+
+    @Benchmark
+    public long intSequenceMapFilterSum() {
+        return IntSequence.range(0, size - 1).map(value -> value + 1).filter(value -> value % 2 == 0).sum();
+    }
+
+    @Benchmark
+    public Long sixStageChain() {
+        return numbers.map(increment).filter(even).map(square).filter(positive).map(increment).take(size / 2).fold(0L, sum);
+    }
+
+    @Benchmark
+    public List<Integer> mapFilterToList() {
+        return numbers.map(increment).filter(even).toList();
+    }
+
+    @Benchmark
+    public int mapSize() {
+        return numbers.map(increment).size();
+    }
+
+    @Benchmark
+    public Integer mapLast() {
+        return numbers.map(increment).last();
+    }
+
+    @Benchmark
+    public Long windowedFold() {
+        return numbers.windowed(16).fold(0L, (total, window) -> total + window.last());
+    }
+
+    @Benchmark
+    public List<Integer> sortThenTake() {
+        return shuffled.sortBy(Comparators.<Integer>descending()).take(10).toList();
+    }
+
+    @Benchmark
+    public List<Integer> topK() {
+        return shuffled.topK(10, Comparators.<Integer>ascending()).toList();
+    }
+}
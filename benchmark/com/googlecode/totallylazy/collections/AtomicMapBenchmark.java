@@ -0,0 +1,53 @@
+package com.googlecode.totallylazy.collections;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class AtomicMapBenchmark {
+    @Param({"AtomicMap", "ShardedAtomicMap"})
+    public String implementation;
+
+    @Param({"10000"})
+    public int keys;
+
+    private ConcurrentMap<Integer, Integer> map;
+
+    @Setup
+    public void setup() {
+        PersistentMap<Integer, Integer> empty = PersistentMap.constructors.map();
+        if (implementation.equals("AtomicMap")) map = AtomicMap.atomicMap(empty);
+        else if (implementation.equals("ShardedAtomicMap")) map = ShardedAtomicMap.shardedAtomicMap(empty);
+        else throw new IllegalArgumentException(implementation);
+    }
+
+    @Benchmark
+    public Integer put() {
+        return map.put(ThreadLocalRandom.current().nextInt(keys), 1);
+    }
+
+    @Benchmark
+    public Integer get() {
+        return map.get(ThreadLocalRandom.current().nextInt(keys));
+    }
+}
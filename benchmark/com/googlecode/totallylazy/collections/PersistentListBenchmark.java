@@ -0,0 +1,71 @@
+package com.googlecode.totallylazy.collections;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static com.googlecode.totallylazy.numbers.Numbers.range;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PersistentListBenchmark {
+    @Param({"Vector", "TreeList", "LinkedList"})
+    public String implementation;
+
+    @Param({"1000", "100000"})
+    public int size;
+
+    private PersistentList<Integer> list;
+    private int[] indexes;
+    private int index;
+
+    @Setup
+    public void setup() {
+        Iterable<Integer> values = range(0, size - 1).safeCast(Integer.class).realise();
+        if (implementation.equals("Vector")) list = Vector.vector(values);
+        else if (implementation.equals("TreeList")) list = TreeList.treeList(values);
+        else if (implementation.equals("LinkedList")) list = PersistentList.constructors.list(values);
+        else throw new IllegalArgumentException(implementation);
+        indexes = new Random(42).ints(1024, 0, size).toArray();
+    }
+
+    @Benchmark
+    public Integer get() {
+        return list.get(indexes[index++ & 1023]);
+    }
+
+    @Benchmark
+    public PersistentList<Integer> cons() {
+        return list.cons(-1);
+    }
+
+    @Benchmark
+    public PersistentList<Integer> append() {
+        return list.append(-1);
+    }
+
+    @Benchmark
+    public PersistentList<Integer> tail() {
+        return list.tail();
+    }
+
+    @Benchmark
+    public PersistentList<Integer> delete() {
+        return list.delete(indexes[index++ & 1023]);
+    }
+}
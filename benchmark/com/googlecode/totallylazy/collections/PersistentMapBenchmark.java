@@ -0,0 +1,96 @@
+package com.googlecode.totallylazy.collections;
+
+import com.googlecode.totallylazy.Option;
+import com.googlecode.totallylazy.Pair;
+import com.googlecode.totallylazy.Sequence;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static com.googlecode.totallylazy.Pair.pair;
+import static com.googlecode.totallylazy.Sequences.sequence;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PersistentMapBenchmark {
+    @Param({"AVLTree", "CompactAVLTree", "HashTreeMap", "HashTrieMap"})
+    public String implementation;
+
+    @Param({"1000", "100000"})
+    public int size;
+
+    private PersistentMap<Integer, Integer> map;
+    private Sequence<Pair<Integer, Integer>> pairs;
+    private int[] keys;
+    private int index;
+
+    @Setup
+    public void setup() {
+        List<Pair<Integer, Integer>> values = new ArrayList<Pair<Integer, Integer>>(size);
+        for (int i = 0; i < size; i++) values.add(pair(i, i));
+        pairs = sequence(values);
+        map = create(pairs);
+        keys = new Random(42).ints(1024, 0, size).toArray();
+    }
+
+    private PersistentMap<Integer, Integer> create(Iterable<Pair<Integer, Integer>> values) {
+        if (implementation.equals("AVLTree")) return AVLTree.constructors.<Integer, Integer>factory().map(values);
+        if (implementation.equals("CompactAVLTree")) return PersistentSortedMap.constructors.sortedMap(values);
+        if (implementation.equals("HashTreeMap")) return HashTreeMap.hashTreeMap(values);
+        if (implementation.equals("HashTrieMap")) return HashTrieMap.hashTrieMap(values);
+        throw new IllegalArgumentException(implementation);
+    }
+
+    private Integer nextKey() {
+        return keys[index++ & 1023];
+    }
+
+    @Benchmark
+    public PersistentMap<Integer, Integer> build() {
+        return create(pairs);
+    }
+
+    @Benchmark
+    public Option<Integer> lookup() {
+        return map.lookup(nextKey());
+    }
+
+    @Benchmark
+    public PersistentMap<Integer, Integer> insert() {
+        return map.insert(size + 1, size + 1);
+    }
+
+    @Benchmark
+    public PersistentMap<Integer, Integer> replace() {
+        return map.insert(nextKey(), -1);
+    }
+
+    @Benchmark
+    public PersistentMap<Integer, Integer> delete() {
+        return map.delete(nextKey());
+    }
+
+    @Benchmark
+    public int iterate() {
+        int count = 0;
+        for (Pair<Integer, Integer> ignore : map) count++;
+        return count;
+    }
+}
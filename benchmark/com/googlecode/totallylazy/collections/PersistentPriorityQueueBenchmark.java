@@ -0,0 +1,64 @@
+package com.googlecode.totallylazy.collections;
+
+import com.googlecode.totallylazy.Pair;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/** A timer wheel's steady state: pop the earliest deadline and schedule a later one */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PersistentPriorityQueueBenchmark {
+    @Param({"1000", "100000"})
+    public int size;
+
+    private PersistentPriorityQueue<Long> queue;
+    private PersistentSortedMap<Long, Long> map;
+    private long[] delays;
+    private int index;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        queue = PersistentPriorityQueue.constructors.priorityQueue();
+        map = PersistentSortedMap.constructors.sortedMap();
+        for (int i = 0; i < size; i++) {
+            long deadline = random.nextInt(size) * (long) size + i;
+            queue = queue.cons(deadline);
+            map = map.insert(deadline, deadline);
+        }
+        delays = random.ints(1024, 1, size).asLongStream().toArray();
+    }
+
+    private long nextDelay() {
+        return delays[index++ & 1023] * size;
+    }
+
+    @Benchmark
+    public PersistentPriorityQueue<Long> priorityQueue() {
+        Long earliest = queue.head();
+        return queue = queue.tail().cons(earliest + nextDelay());
+    }
+
+    @Benchmark
+    public PersistentSortedMap<Long, Long> sortedMap() {
+        Pair<? extends PersistentSortedMap<Long, Long>, Pair<Long, Long>> removed = map.removeFirst();
+        long deadline = removed.second().first() + nextDelay();
+        return map = removed.first().insert(deadline, deadline);
+    }
+}
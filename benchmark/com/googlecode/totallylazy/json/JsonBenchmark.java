@@ -0,0 +1,53 @@
+package com.googlecode.totallylazy.json;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static com.googlecode.totallylazy.Sequences.repeat;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonBenchmark {
+    private static final String record = "{\"name\":\"Dan\",\"age\":12,\"admin\":true,\"tags\":[\"a\",\"b\",\"c\"],\"address\":{\"street\":\"Main\",\"number\":1.5}}";
+
+    private String small;
+    private String large;
+    private Map<String, Object> parsed;
+
+    @Setup
+    public void setup() {
+        small = record;
+        large = "{\"records\":[" + repeat(record).take(100).toString(",") + "]}";
+        parsed = Json.map(large);
+    }
+
+    @Benchmark
+    public Map<String, Object> parseSmall() {
+        return Json.map(small);
+    }
+
+    @Benchmark
+    public Map<String, Object> parseLarge() {
+        return Json.map(large);
+    }
+
+    @Benchmark
+    public String write() {
+        return JsonWriter.write(parsed, new StringBuilder()).toString();
+    }
+}
@@ -0,0 +1,58 @@
+package com.googlecode.totallylazy.parser;
+
+import com.googlecode.totallylazy.Characters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.googlecode.totallylazy.Sequences.repeat;
+import static com.googlecode.totallylazy.parser.Parsers.characters;
+import static com.googlecode.totallylazy.parser.Parsers.isChar;
+import static com.googlecode.totallylazy.parser.Parsers.string;
+import static com.googlecode.totallylazy.parser.Parsers.ws;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParsersBenchmark {
+    private static final Parser<CharSequence> word = characters(Characters.alphaNumeric);
+    private static final Parser<List<CharSequence>> words = ws(word).many();
+    private static final Parser<List<CharSequence>> separated = word.sepBy(isChar(','));
+    private static final Parser<String> keyword = Parsers.or(string("select"), string("from"), string("where"));
+    private static final Parser<String> date = Parsers.pattern("\\d{4}/\\d{1,2}/\\d{1,2}");
+
+    private final String sentence = repeat("lorem ipsum dolor sit amet ").take(50).toString("");
+    private final String csv = repeat("alpha,beta,gamma,").take(50).toString("") + "delta";
+
+    @Benchmark
+    public Result<List<CharSequence>> many() {
+        return words.parse(sentence);
+    }
+
+    @Benchmark
+    public Result<List<CharSequence>> sepBy() {
+        return separated.parse(csv);
+    }
+
+    @Benchmark
+    public Result<String> or() {
+        return keyword.parse("where");
+    }
+
+    @Benchmark
+    public Result<String> pattern() {
+        return date.parse("1977/1/10ABC");
+    }
+}
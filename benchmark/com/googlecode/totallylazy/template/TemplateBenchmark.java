@@ -0,0 +1,44 @@
+package com.googlecode.totallylazy.template;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static com.googlecode.totallylazy.Maps.map;
+import static com.googlecode.totallylazy.Sequences.repeat;
+import static com.googlecode.totallylazy.template.Template.template;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TemplateBenchmark {
+    private static final String source = "Hello $first$ $last$, $users:{ user, index | $index$: $user$\n}$";
+
+    private final Template template = template(source);
+    private final Map<String, Object> context = map(
+            "first", "Dan",
+            "last", "Bodart",
+            "users", repeat("Bob").take(100).toList());
+
+    @Benchmark
+    public Template parse() {
+        return template(source);
+    }
+
+    @Benchmark
+    public String render() throws Exception {
+        return template.render(context);
+    }
+}
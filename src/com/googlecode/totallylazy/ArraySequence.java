@@ -0,0 +1,51 @@
+package com.googlecode.totallylazy;
+
+import com.googlecode.totallylazy.iterators.ArrayIterator;
+
+import java.util.Iterator;
+
+import static com.googlecode.totallylazy.Pair.pair;
+
+public class ArraySequence<T> extends IndexedSequence<T> {
+    private final T[] items;
+    private final int start;
+    private final int end;
+
+    ArraySequence(T[] items, int start, int end) {
+        this.items = items;
+        this.start = start;
+        this.end = end;
+    }
+
+    /** A view of part of the array, which must not change afterwards */
+    public static <T> ArraySequence<T> arraySequence(Object[] items, int start, int end) {
+        return new ArraySequence<T>(Unchecked.<T[]>cast(items), start, end);
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new ArrayIterator<T>(items, start, end);
+    }
+
+    @Override
+    public int size() {
+        return end - start;
+    }
+
+    @Override
+    protected T element(int index) {
+        return items[start + index];
+    }
+
+    @Override
+    protected ArraySequence<T> slice(int start, int end) {
+        int from = (int) Math.min((long) this.start + start, this.end);
+        return new ArraySequence<T>(items, from, (int) Math.max(Math.min((long) this.start + end, this.end), from));
+    }
+
+    @Override
+    public Pair<ArraySequence<T>, ArraySequence<T>> split() {
+        int middle = start + size() / 2;
+        return pair(new ArraySequence<T>(items, start, middle), new ArraySequence<T>(items, middle, end));
+    }
+}
@@ -3,32 +3,65 @@ package com.googlecode.totallylazy;
 import java.util.concurrent.Callable;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
 
 import static com.googlecode.totallylazy.Callables.returns;
 import static com.googlecode.totallylazy.Callers.call;
 import static com.googlecode.totallylazy.Functions.function;
 import static com.googlecode.totallylazy.Predicates.always;
+import static com.googlecode.totallylazy.Unchecked.cast;
 
 public interface Atomic<T> extends Value<T> {
     Atomic<T> modify(Callable1<? super T, ? extends T> callable);
     <R> R modifyReturn(Callable1<? super T, ? extends Pair<? extends T, ? extends R>> callable);
 
     class constructors {
-        public static <T> Atomic<T> atomic(final T t) {
+        public static <T> RetryingAtomic<T> atomic(final T t) {
             return atomic(t, returns(always(Integer.class)));
         }
 
-        public static <T> Atomic<T> atomic(final T t, final Callable<? extends Predicate<? super Integer>> retryPredicate) {
+        public static <T> RetryingAtomic<T> atomic(final T t, final Callable<? extends Predicate<? super Integer>> retryPredicate) {
             return new RetryingAtomic<T>(t, retryPredicate);
         }
+
+        public static <T> RetryingAtomic<T> atomic(final T t, final Backoff backoff) {
+            return atomic(t, returns(always(Integer.class)), backoff);
+        }
+
+        public static <T> RetryingAtomic<T> atomic(final T t, final Callable<? extends Predicate<? super Integer>> retryPredicate, final Backoff backoff) {
+            return new RetryingAtomic<T>(t, retryPredicate, backoff, false);
+        }
+
+        /** Concurrent modifications queue up and one thread applies them all with a single compareAndSet */
+        public static <T> RetryingAtomic<T> combining(final T t, final Backoff backoff) {
+            return combining(t, returns(always(Integer.class)), backoff);
+        }
+
+        public static <T> RetryingAtomic<T> combining(final T t, final Callable<? extends Predicate<? super Integer>> retryPredicate, final Backoff backoff) {
+            return new RetryingAtomic<T>(t, retryPredicate, backoff, true);
+        }
     }
 
     static class RetryingAtomic<T> implements Atomic<T> {
         private final AtomicReference<T> reference;
         private final Callable<? extends Predicate<? super Integer>> retryPredicate;
+        private final Backoff backoff;
+        private final AtomicReference<Request<T>> pending;
+        private final LongAdder attempts = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder rejections = new LongAdder();
+        private final LongAdder combined = new LongAdder();
+        private final LongAccumulator maxRetries = new LongAccumulator(Math::max, 0);
 
         public RetryingAtomic(T t, Callable<? extends Predicate<? super Integer>> retryPredicate) {
+            this(t, retryPredicate, Backoff.constructors.none(), false);
+        }
+
+        public RetryingAtomic(T t, Callable<? extends Predicate<? super Integer>> retryPredicate, Backoff backoff, boolean combining) {
             this.retryPredicate = retryPredicate;
+            this.backoff = backoff;
+            this.pending = combining ? new AtomicReference<Request<T>>() : null;
             reference = new AtomicReference<T>(t);
         }
 
@@ -39,18 +72,124 @@ public interface Atomic<T> extends Value<T> {
 
         @Override
         public <R> R modifyReturn(Callable1<? super T, ? extends Pair<? extends T, ? extends R>> callable) {
+            if (pending != null) return combine(callable);
             Predicate<? super Integer> retry = call(retryPredicate);
             for (int i = 0; retry.matches(i); i++) {
+                attempts.increment();
                 T current = reference.get();
                 Pair<? extends T, ? extends R> modified = call(callable, current);
-                if (reference.compareAndSet(current, modified.first())) return modified.second() ;
+                if (reference.compareAndSet(current, modified.first())) {
+                    maxRetries.accumulate(i);
+                    return modified.second();
+                }
+                failures.increment();
+                backoff.backoff(i + 1);
             }
+            rejections.increment();
             throw new RejectedExecutionException(String.format("Atomic operation could not be applied due to %s", retry));
         }
 
+        /** Pushes the request and, until it is done, takes whatever is pending and applies it as one batch */
+        private <R> R combine(Callable1<? super T, ? extends Pair<? extends T, ? extends R>> callable) {
+            Request<T> request = new Request<T>(callable);
+            do request.next = pending.get();
+            while (!pending.compareAndSet(request.next, request));
+            for (int waits = 1; !request.done; ) {
+                Request<T> batch = pending.getAndSet(null);
+                if (batch != null) apply(batch);
+                else backoff.backoff(waits++);
+            }
+            if (request.failure instanceof RuntimeException) throw (RuntimeException) request.failure;
+            if (request.failure instanceof Error) throw (Error) request.failure;
+            return cast(request.result);
+        }
+
+        private void apply(Request<T> batch) {
+            Request<T> first = null;
+            for (Request<T> request = batch; request != null; ) {
+                Request<T> next = request.next;
+                request.next = first;
+                first = request;
+                request = next;
+            }
+            Predicate<? super Integer> retry = call(retryPredicate);
+            for (int i = 0; retry.matches(i); i++) {
+                attempts.increment();
+                T current = reference.get();
+                T value = current;
+                for (Request<T> request = first; request != null; request = request.next) {
+                    request.failure = null;
+                    try {
+                        Pair<? extends T, ?> modified = call(request.callable, value);
+                        value = modified.first();
+                        request.result = modified.second();
+                    } catch (RuntimeException | Error e) {
+                        request.failure = e;
+                    }
+                }
+                if (reference.compareAndSet(current, value)) {
+                    maxRetries.accumulate(i);
+                    complete(first, null);
+                    return;
+                }
+                failures.increment();
+                backoff.backoff(i + 1);
+            }
+            rejections.increment();
+            complete(first, new RejectedExecutionException(String.format("Atomic operation could not be applied due to %s", retry)));
+        }
+
+        private void complete(Request<T> first, RuntimeException failure) {
+            for (Request<T> request = first; request != null; ) {
+                Request<T> next = request.next;
+                if (failure == null) combined.increment();
+                else request.failure = failure;
+                request.done = true;
+                request = next;
+            }
+        }
+
         @Override
         public T value() {
             return reference.get();
         }
+
+        /** Number of times a modification has been applied, successful or not */
+        public long attempts() {
+            return attempts.sum();
+        }
+
+        /** Number of attempts that lost the compareAndSet and had to be retried or rejected */
+        public long failures() {
+            return failures.sum();
+        }
+
+        /** Number of modifications given up on once the retry predicate stopped matching */
+        public long rejections() {
+            return rejections.sum();
+        }
+
+        /** The most retries any single successful modification (or batch when combining) needed */
+        public long maxRetries() {
+            return maxRetries.get();
+        }
+
+        /** Number of modifications applied as part of a combined batch */
+        public long combined() {
+            return combined.sum();
+        }
+
+        /** A modification waiting to be applied by whichever thread is combining, published through done */
+        private static class Request<T> {
+            private final Callable1<? super T, ? extends Pair<? extends T, ?>> callable;
+            private Request<T> next;
+            private Object result;
+            private Throwable failure;
+            private volatile boolean done;
+
+            private Request(Callable1<? super T, ? extends Pair<? extends T, ?>> callable) {
+                this.callable = callable;
+            }
+        }
     }
-}
\ No newline at end of file
+}
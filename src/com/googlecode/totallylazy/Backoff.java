@@ -0,0 +1,61 @@
+package com.googlecode.totallylazy;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+
+/** How long to wait before retrying after losing a race, see {@link Atomic.RetryingAtomic} */
+public interface Backoff {
+    /** Called after each failed attempt with the number of failures so far, starting at 1 */
+    void backoff(int failures);
+
+    class constructors {
+        private static final Backoff NONE = failures -> {};
+        private static final MethodHandle ON_SPIN_WAIT = onSpinWait();
+
+        public static Backoff none() {
+            return NONE;
+        }
+
+        public static Backoff yielding() {
+            return failures -> Thread.yield();
+        }
+
+        /** Busy waits for a number of iterations that grows with each failure, using Thread.onSpinWait where the JVM has it */
+        public static Backoff spinning(final int iterations) {
+            return failures -> {
+                int spins = iterations * Math.min(failures, 32);
+                for (int i = 0; i < spins; i++) spinWait();
+            };
+        }
+
+        /** Parks for a random time up to a limit that doubles with each failure, so contending threads spread out */
+        public static Backoff exponential(final long minimumNanos, final long maximumNanos) {
+            if (minimumNanos < 1 || maximumNanos < minimumNanos) throw new IllegalArgumentException("need 0 < minimumNanos <= maximumNanos");
+            return failures -> {
+                int shift = failures - 1;
+                long limit = shift >= Long.numberOfLeadingZeros(minimumNanos) - 1 ? maximumNanos : Math.min(maximumNanos, minimumNanos << shift);
+                LockSupport.parkNanos(ThreadLocalRandom.current().nextLong(minimumNanos, limit + 1));
+            };
+        }
+
+        private static void spinWait() {
+            if (ON_SPIN_WAIT == null) return;
+            try {
+                ON_SPIN_WAIT.invokeExact();
+            } catch (Throwable e) {
+                throw LazyException.lazyException(e);
+            }
+        }
+
+        private static MethodHandle onSpinWait() {
+            try {
+                return MethodHandles.lookup().findStatic(Thread.class, "onSpinWait", MethodType.methodType(void.class));
+            } catch (Exception e) {
+                return null;
+            }
+        }
+    }
+}
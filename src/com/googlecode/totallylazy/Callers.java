@@ -8,28 +8,37 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 
 import static com.googlecode.totallylazy.Sequences.sequence;
 
 public final class Callers {
     public static <T> Function<T> callConcurrently(Callable<? extends T> callable) {
-        ExecutorService service = executorService();
-        try {
-            final Future<? extends T> future = service.submit(callable);
-            return new Function<T>() {
-                @Override
-                public T call() throws Exception {
-                    return future.get();
-                }
-            };
-        } finally {
-            service.shutdown();
-        }
+        final Future<? extends T> future = sharedExecutor().submit(callable);
+        return new Function<T>() {
+            @Override
+            public T call() throws Exception {
+                return future.get();
+            }
+        };
     }
 
-    private static ExecutorService executorService() {
-        return NamedExecutors.newCachedThreadPool(Callers.class);
+    /** A cached pool of daemon threads shared by every concurrent call that is not given its own Executor */
+    public static ExecutorService sharedExecutor() {
+        return SharedExecutor.executor;
+    }
+
+    private static class SharedExecutor {
+        private static final ExecutorService executor = Executors.newCachedThreadPool(daemon(NamedExecutors.namedThreadFactory(Callers.class)));
+
+        private static ThreadFactory daemon(final ThreadFactory threadFactory) {
+            return runnable -> {
+                Thread thread = threadFactory.newThread(runnable);
+                thread.setDaemon(true);
+                return thread;
+            };
+        }
     }
 
     public static <T> Sequence<T> callConcurrently(final Callable<? extends T> first, final Callable<? extends T> second) {
@@ -53,12 +62,7 @@ public final class Callers {
     }
 
     public static <T> Sequence<T> callConcurrently(final Iterable<? extends Callable<? extends T>> callables) {
-        ExecutorService service = executorService();
-        try {
-            return callConcurrently(callables, service);
-        } finally {
-            service.shutdown();
-        }
+        return callConcurrently(callables, sharedExecutor());
     }
 
     public static <T> Sequence<T> callConcurrently(final Iterable<? extends Callable<? extends T>> callables, final Executor executor) {
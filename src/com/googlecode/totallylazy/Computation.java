@@ -1,33 +1,41 @@
 package com.googlecode.totallylazy;
 
-import com.googlecode.totallylazy.callables.LazyCallable;
-import com.googlecode.totallylazy.callables.LazyCallable1;
+import com.googlecode.totallylazy.iterators.ReadOnlyIterator;
 import com.googlecode.totallylazy.iterators.SegmentIterator;
 
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 import java.util.concurrent.Callable;
 
-import static com.googlecode.totallylazy.Computation.memorise;
+import static com.googlecode.totallylazy.Closeables.safeClose;
 import static com.googlecode.totallylazy.Functions.returns;
+import static com.googlecode.totallylazy.LazyException.lazyException;
 import static com.googlecode.totallylazy.Unchecked.cast;
-import static com.googlecode.totallylazy.callables.LazyCallable1.lazy;
 
-public class Computation<T> extends Sequence<T> implements Segment<T>, Memory {
-    private final LazyCallable<T> head;
-    private final LazyCallable1<T, Computation<T>> tail;
+/**
+ * A memoising linked sequence. Every cell is a single object: the realised head and tail are published through
+ * volatile fields, so reads after realisation never lock and the cell's own monitor is only taken to realise it once.
+ */
+public abstract class Computation<T> extends Sequence<T> implements Segment<T>, Memory {
+    private static final Object UNREALISED = new Object();
+    private static final Object EMPTY = new Object();
+    private volatile Object head = UNREALISED;
+    private volatile Computation<T> tail;
 
-    private Computation(Callable<T> head, Callable1<T, Computation<T>> tail) {
-        this.head = LazyCallable.lazy(head);
-        this.tail = lazy(tail);
+    private Computation() {
     }
 
+    abstract T computeHead() throws Exception;
+
+    abstract Computation<T> computeTail(T head) throws Exception;
+
     public static <T> Computation<T> computation1(T value, Callable1<T, Computation<T>> next) {
         return computation1(returns(value), next);
     }
 
     public static <T> Computation<T> computation1(Callable<T> callable, Callable1<T, Computation<T>> next) {
-        return new Computation<T>(callable, next);
+        return new Generated<T>(callable, next);
     }
 
     public static <T> Computation<T> computation(Callable<T> callable, Callable1<? super T, ? extends T> next) {
@@ -35,7 +43,7 @@ public class Computation<T> extends Sequence<T> implements Segment<T>, Memory {
     }
 
     public static <T> Computation<T> computation(T value, Callable1<? super T, ? extends T> callable) {
-        return computation1(value, generate(callable));
+        return new Iterated<T>(callable, value, false);
     }
 
     public static <T> Computation<T> computation(T value, Computation<T> next) {
@@ -51,51 +59,31 @@ public class Computation<T> extends Sequence<T> implements Segment<T>, Memory {
     }
 
     public static <T> Computation<T> memorise(final Iterable<? extends T> iterable) {
-        final Callable<Iterator<T>> iterator = lazyIterator(iterable);
-        return Computation.<T>computation1(lazyHead(iterator), generate(lazyTail(iterator)));
+        return new Memorised<T>(new Source<T>(iterable));
     }
 
     public static <T> Computation<T> memoize(final Iterator<? extends T> values) {
         return memorise(values);
     }
-    
+
     public static <T> Computation<T> memorise(final Iterator<? extends T> values) {
-        final Function<Iterator<T>> iterator = returns(Unchecked.<Iterator<T>>cast(values));
-        return Computation.<T>computation1(lazyHead(iterator), generate(lazyTail(iterator)));
+        return new Memorised<T>(new Source<T>(values));
     }
 
-    private static <T> UnaryFunction<T> lazyTail(final Callable<? extends Iterator<? extends T>> iterator) {
-        return new UnaryFunction<T>() {
-            @Override
-            public T call(T t) throws Exception {
-                return iterator.call().next();
-            }
-        };
+    /** Memorises in arrays of chunkSize elements instead of one cell per element */
+    public static <T> Chunked<T> memorise(final Iterable<? extends T> iterable, final int chunkSize) {
+        return new Chunked<T>(new Source<T>(iterable), chunkSize);
     }
 
-    private static <T> Function<T> lazyHead(final Callable<? extends Iterator<? extends T>> iterator) {
-        return new Function<T>() {
-            @Override
-            public T call() throws Exception {
-                return iterator.call().next();
-            }
-        };
-    }
-
-    private static <T> Function<Iterator<T>> lazyIterator(final Iterable<? extends T> iterable) {
-        return new Function<Iterator<T>>() {
-            @Override
-            public Iterator<T> call() throws Exception {
-                return Unchecked.cast(iterable.iterator());
-            }
-        }.lazy();
+    public static <T> Chunked<T> memorise(final Iterator<? extends T> values, final int chunkSize) {
+        return new Chunked<T>(new Source<T>(values), chunkSize);
     }
 
     public static <T> Callable1<T, Computation<T>> generate(final Callable1<? super T, ? extends T> callable) {
         return new Callable1<T, Computation<T>>() {
             @Override
             public Computation<T> call(T value) throws Exception {
-                return computation1(Callables.deferApply(callable, value), this);
+                return new Iterated<T>(callable, value, true);
             }
         };
     }
@@ -117,25 +105,50 @@ public class Computation<T> extends Sequence<T> implements Segment<T>, Memory {
 
     @Override
     public boolean isEmpty() {
-        try {
-            head.call();
-            return false;
-        } catch (NoSuchElementException e) {
-            return true;
-        }
-        catch (Exception e) {
-            throw LazyException.lazyException(e);
-        }
+        return realisedHead() == EMPTY;
     }
 
     @Override
     public T head() {
-        return head.value();
+        Object value = realisedHead();
+        if (value == EMPTY) throw new NoSuchElementException();
+        return cast(value);
     }
 
     @Override
     public Computation<T> tail() throws NoSuchElementException {
-        return tail.apply(head.value());
+        Computation<T> value = tail;
+        return value != null ? value : realiseTail();
+    }
+
+    private Object realisedHead() {
+        Object value = head;
+        return value != UNREALISED ? value : realiseHead();
+    }
+
+    private synchronized Object realiseHead() {
+        if (head == UNREALISED) {
+            try {
+                head = computeHead();
+            } catch (NoSuchElementException e) {
+                head = EMPTY;
+            } catch (Exception e) {
+                throw lazyException(e);
+            }
+        }
+        return head;
+    }
+
+    private synchronized Computation<T> realiseTail() {
+        if (tail == null) {
+            T value = head();
+            try {
+                tail = computeTail(value);
+            } catch (Exception e) {
+                throw lazyException(e);
+            }
+        }
+        return tail;
     }
 
     @Override
@@ -148,9 +161,220 @@ public class Computation<T> extends Sequence<T> implements Segment<T>, Memory {
         close();
     }
 
+    /** Walks the realised cells instead of recursing so long chains can be forgotten */
     @Override
     public void close() {
-        head.close();
-        tail.close();
+        Computation<T> cell = this;
+        while (cell != null) cell = cell.reset();
+    }
+
+    private synchronized Computation<T> reset() {
+        Object value = head;
+        Computation<T> next = tail;
+        head = UNREALISED;
+        tail = null;
+        if (value != UNREALISED && value != EMPTY) safeClose(value);
+        return next;
+    }
+
+    private static class Generated<T> extends Computation<T> {
+        private final Callable<? extends T> head;
+        private final Callable1<? super T, ? extends Computation<T>> tail;
+
+        private Generated(Callable<? extends T> head, Callable1<? super T, ? extends Computation<T>> tail) {
+            this.head = head;
+            this.tail = tail;
+        }
+
+        @Override
+        T computeHead() throws Exception {
+            return head.call();
+        }
+
+        @Override
+        Computation<T> computeTail(T head) throws Exception {
+            return tail.call(head);
+        }
+    }
+
+    private static class Iterated<T> extends Computation<T> {
+        private final Callable1<? super T, ? extends T> callable;
+        private final T seed;
+        private final boolean apply;
+
+        private Iterated(Callable1<? super T, ? extends T> callable, T seed, boolean apply) {
+            this.callable = callable;
+            this.seed = seed;
+            this.apply = apply;
+        }
+
+        @Override
+        T computeHead() throws Exception {
+            return apply ? callable.call(seed) : seed;
+        }
+
+        @Override
+        Computation<T> computeTail(T head) throws Exception {
+            return new Iterated<T>(callable, head, true);
+        }
+    }
+
+    private static class Memorised<T> extends Computation<T> {
+        private volatile Source<T> source;
+
+        private Memorised(Source<T> source) {
+            this.source = source;
+        }
+
+        /** Forgetting starts again from a fresh iterator, so the values are read again rather than skipped */
+        @Override
+        public void close() {
+            super.close();
+            source = source.restart();
+        }
+
+        @Override
+        T computeHead() throws Exception {
+            return source.next();
+        }
+
+        @Override
+        Computation<T> computeTail(T head) throws Exception {
+            return new Memorised<T>(source);
+        }
+    }
+
+    /** The iterator behind a memorised sequence, only created on first use and shared by every cell */
+    private static class Source<T> {
+        private final Iterable<? extends T> iterable;
+        private Iterator<? extends T> iterator;
+        private RuntimeException failure;
+
+        private Source(Iterable<? extends T> iterable) {
+            this.iterable = iterable;
+        }
+
+        private Source(Iterator<? extends T> iterator) {
+            this.iterable = null;
+            this.iterator = iterator;
+        }
+
+        private synchronized T next() {
+            if (iterator == null) iterator = iterable.iterator();
+            if (!iterator.hasNext()) throw new NoSuchElementException();
+            return iterator.next();
+        }
+
+        /**
+         * Fills the next chunk. If the iterator fails part way through, the values already taken are kept in this
+         * chunk and the failure is thrown when the following chunk is pulled.
+         */
+        private synchronized Chunk chunk(int chunkSize) {
+            if (failure != null) {
+                RuntimeException e = failure;
+                failure = null;
+                throw e;
+            }
+            if (iterator == null) iterator = iterable.iterator();
+            Object[] values = new Object[chunkSize];
+            int size = 0;
+            try {
+                while (size < chunkSize && iterator.hasNext()) {
+                    values[size] = iterator.next();
+                    size++;
+                }
+            } catch (RuntimeException e) {
+                if (size == 0) throw e;
+                failure = e;
+            }
+            return new Chunk(this, size == chunkSize ? values : Arrays.copyOf(values, size), size, size < chunkSize && failure == null);
+        }
+
+        /** A source that reads from the start again, or this one if it was given an iterator that cannot be restarted */
+        private synchronized Source<T> restart() {
+            if (iterable == null) return this;
+            safeClose(iterator);
+            return new Source<T>(iterable);
+        }
+    }
+
+    public static class Chunked<T> extends Sequence<T> implements Memory {
+        private final int chunkSize;
+        private Source<T> source;
+        private volatile Chunk first;
+
+        private Chunked(Source<T> source, int chunkSize) {
+            if (chunkSize < 1) throw new IllegalArgumentException("chunkSize must be at least 1");
+            this.source = source;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return new ReadOnlyIterator<T>() {
+                private Chunk chunk = firstChunk();
+                private int index = 0;
+
+                @Override
+                public boolean hasNext() {
+                    if (index < chunk.size) return true;
+                    if (chunk.last) return false;
+                    chunk = chunk.next(chunkSize);
+                    index = 0;
+                    return chunk.size > 0;
+                }
+
+                @Override
+                public T next() {
+                    if (!hasNext()) throw new NoSuchElementException();
+                    return cast(chunk.values[index++]);
+                }
+            };
+        }
+
+        private Chunk firstChunk() {
+            Chunk value = first;
+            if (value != null) return value;
+            synchronized (this) {
+                if (first == null) first = source.chunk(chunkSize);
+                return first;
+            }
+        }
+
+        @Override
+        public void forget() {
+            close();
+        }
+
+        /** Drops the chunks and starts again from a fresh iterator; iterators already handed out keep their own chain */
+        @Override
+        public synchronized void close() {
+            first = null;
+            source = source.restart();
+        }
+    }
+
+    private static class Chunk {
+        private final Source<?> source;
+        private final Object[] values;
+        private final int size;
+        private final boolean last;
+        private volatile Chunk next;
+
+        private Chunk(Source<?> source, Object[] values, int size, boolean last) {
+            this.source = source;
+            this.values = values;
+            this.size = size;
+            this.last = last;
+        }
+
+        private Chunk next(int chunkSize) {
+            Chunk value = next;
+            if (value != null) return value;
+            synchronized (this) {
+                if (next == null) next = source.chunk(chunkSize);
+                return next;
+            }
+        }
     }
 }
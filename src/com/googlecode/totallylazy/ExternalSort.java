@@ -0,0 +1,255 @@
+package com.googlecode.totallylazy;
+
+import com.googlecode.totallylazy.iterators.MergeIterator;
+import com.googlecode.totallylazy.iterators.ReadOnlyIterator;
+import com.googlecode.totallylazy.iterators.StatefulIterator;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import static com.googlecode.totallylazy.Closeables.safeClose;
+
+/**
+ * Sorts sequences that do not fit in memory.
+ * The source is read in runs of at most runSize elements, each run is sorted and written to a temporary file with
+ * the serializer, and the files are merged lazily as the result is iterated. Sources that fit in a single run are
+ * sorted in memory and never touch the disk.
+ * With a pool, runs are sorted and written on the pool while the next one is read, so up to parallelism + 1 runs
+ * are held in memory at once.
+ * Like Collections.sort the result is stable. Run files are deleted once they have been read. The iterator of a
+ * merged result is Closeable, and closing it part way through closes and deletes the runs still being read.
+ * If reading the source or writing a run fails, the runs already written are deleted before the failure is rethrown.
+ */
+public class ExternalSort<T> {
+    public static final int FAN_IN = 64;
+    private static final int BUFFER = 64 * 1024;
+    private static final int INITIAL_CAPACITY = 16;
+    private final Comparator<? super T> comparator;
+    private final int runSize;
+    private final Serializer<T> serializer;
+    private final File directory;
+    private final Option<ForkJoinPool> pool;
+
+    private ExternalSort(Comparator<? super T> comparator, int runSize, Serializer<T> serializer, File directory, Option<ForkJoinPool> pool) {
+        if (runSize < 1) throw new IllegalArgumentException("Run size must be positive but was " + runSize);
+        this.comparator = comparator;
+        this.runSize = runSize;
+        this.serializer = serializer;
+        this.directory = directory;
+        this.pool = pool;
+    }
+
+    public static <T> ExternalSort<T> externalSort(Comparator<? super T> comparator, int runSize, Serializer<T> serializer) {
+        return externalSort(comparator, runSize, serializer, Files.temporaryDirectory(ExternalSort.class.getSimpleName()), Option.<ForkJoinPool>none());
+    }
+
+    public static <T> ExternalSort<T> externalSort(Comparator<? super T> comparator, int runSize, Serializer<T> serializer, File directory, Option<ForkJoinPool> pool) {
+        return new ExternalSort<T>(comparator, runSize, serializer, directory, pool);
+    }
+
+    public ExternalSort<T> parallel(ForkJoinPool pool) {
+        return externalSort(comparator, runSize, serializer, directory, Option.some(pool));
+    }
+
+    public Sequence<T> sort(final Iterable<? extends T> iterable) {
+        return new Sequence<T>() {
+            @Override
+            public Iterator<T> iterator() {
+                return ExternalSort.this.iterator(iterable.iterator());
+            }
+        };
+    }
+
+    private Iterator<T> iterator(Iterator<? extends T> source) {
+        Object[] first = read(source);
+        if (!source.hasNext()) {
+            Arrays.sort(first, Unchecked.<Comparator<Object>>cast(comparator));
+            return ArraySequence.<T>arraySequence(first, 0, first.length).iterator();
+        }
+        List<Run> runs = runs(first, source);
+        while (runs.size() > FAN_IN) runs = mergeRuns(runs);
+        return merge(runs);
+    }
+
+    /** Grows the run as elements arrive so a large runSize is only paid for by sources that fill it */
+    private Object[] read(Iterator<? extends T> source) {
+        Object[] run = new Object[Math.min(runSize, INITIAL_CAPACITY)];
+        int size = 0;
+        while (size < runSize && source.hasNext()) {
+            if (size == run.length) run = Arrays.copyOf(run, (int) Math.min(2L * run.length, runSize));
+            run[size++] = source.next();
+        }
+        return size == run.length ? run : Arrays.copyOf(run, size);
+    }
+
+    private List<Run> runs(Object[] first, Iterator<? extends T> source) {
+        List<Run> runs = new ArrayList<Run>();
+        Deque<ForkJoinTask<Run>> pending = new ArrayDeque<ForkJoinTask<Run>>();
+        boolean written = false;
+        try {
+            Object[] run = first;
+            while (true) {
+                if (pool.isEmpty()) runs.add(spill(run));
+                else {
+                    final Object[] items = run;
+                    if (pending.size() >= pool.get().getParallelism()) runs.add(pending.removeFirst().join());
+                    pending.addLast(pool.get().submit(() -> spill(items)));
+                }
+                if (!source.hasNext()) break;
+                run = read(source);
+            }
+            while (!pending.isEmpty()) runs.add(pending.removeFirst().join());
+            written = true;
+            return runs;
+        } finally {
+            if (!written) {
+                for (ForkJoinTask<Run> task : pending) {
+                    task.quietlyJoin();
+                    if (task.isCompletedNormally()) runs.add(task.getRawResult());
+                }
+                delete(runs);
+            }
+        }
+    }
+
+    private void delete(List<Run> runs) {
+        for (Run run : runs) run.close();
+    }
+
+    private Run spill(Object[] items) {
+        Arrays.sort(items, Unchecked.<Comparator<Object>>cast(comparator));
+        return write(ArraySequence.<T>arraySequence(items, 0, items.length).iterator());
+    }
+
+    /** Merges consecutive groups of FAN_IN runs into longer runs so no merge opens too many files */
+    private List<Run> mergeRuns(List<Run> runs) {
+        List<Run> result = new ArrayList<Run>();
+        boolean merged = false;
+        try {
+            for (int start = 0; start < runs.size(); start += FAN_IN) {
+                List<Run> group = runs.subList(start, Math.min(start + FAN_IN, runs.size()));
+                if (group.size() == 1) {
+                    result.add(group.get(0));
+                    continue;
+                }
+                Merge merge = merge(group);
+                try {
+                    result.add(write(merge));
+                } finally {
+                    merge.close();
+                }
+            }
+            merged = true;
+            return result;
+        } finally {
+            if (!merged) {
+                delete(runs);
+                delete(result);
+            }
+        }
+    }
+
+    private Merge merge(List<Run> runs) {
+        return new Merge(new ArrayList<Run>(runs));
+    }
+
+    private Run write(Iterator<? extends T> values) {
+        File file = Files.temporaryFile(directory);
+        long count = 0;
+        boolean written = false;
+        DataOutputStream output = null;
+        try {
+            output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), BUFFER));
+            while (values.hasNext()) {
+                serializer.write(values.next(), output);
+                count++;
+            }
+            output.close();
+            written = true;
+        } catch (IOException e) {
+            throw LazyException.lazyException(e);
+        } finally {
+            safeClose(output);
+            if (!written) file.delete();
+        }
+        return new Run(file, count);
+    }
+
+    /** Merges runs lazily, closing (and so deleting) every run that is still open when it is closed */
+    private class Merge extends ReadOnlyIterator<T> implements Closeable {
+        private final List<Run> runs;
+        private final Iterator<T> merged;
+
+        private Merge(List<Run> runs) {
+            this.runs = runs;
+            List<Iterator<T>> iterators = new ArrayList<Iterator<T>>();
+            for (Run run : runs) iterators.add(run.iterator());
+            this.merged = new MergeIterator<T>(iterators, comparator);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return merged.hasNext();
+        }
+
+        @Override
+        public T next() {
+            return merged.next();
+        }
+
+        @Override
+        public void close() {
+            for (Run run : runs) run.close();
+        }
+    }
+
+    private class Run implements Closeable {
+        private final File file;
+        private final long count;
+        private DataInputStream input;
+
+        private Run(File file, long count) {
+            this.file = file;
+            this.count = count;
+        }
+
+        private Iterator<T> iterator() {
+            return new StatefulIterator<T>() {
+                private long remaining = count;
+
+                @Override
+                protected T getNext() throws Exception {
+                    if (remaining == 0) {
+                        close();
+                        return finished();
+                    }
+                    if (input == null) input = new DataInputStream(new BufferedInputStream(new FileInputStream(file), BUFFER));
+                    remaining--;
+                    return serializer.read(input);
+                }
+            };
+        }
+
+        @Override
+        public void close() {
+            safeClose(input);
+            file.delete();
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.googlecode.totallylazy;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.googlecode.totallylazy.Callers.call;
+import static com.googlecode.totallylazy.Closeables.safeClose;
+
+/**
+ * Groups by key and folds each group as it goes, so only one accumulator per key is held rather than every element.
+ * Keys come out in the order they were first seen.
+ * A spilling aggregate also bounds the number of keys: when more than maxKeys are held, the partial results are
+ * written to one of PARTITIONS temporary files by the hash of their key and the map is cleared. At the end each
+ * partition is read back on its own and its partial results combined, so only about 1 / PARTITIONS of the keys are
+ * in memory at once. Keys of a spilled aggregate come out grouped by partition instead of in the order seen.
+ */
+public class HashAggregate<T, K, R> {
+    public static final int PARTITIONS = 64;
+    private static final int BUFFER = 8 * 1024;
+    private final Callable1<? super T, ? extends K> key;
+    private final Reducer<? super T, R> reducer;
+
+    private HashAggregate(Callable1<? super T, ? extends K> key, Reducer<? super T, R> reducer) {
+        this.key = key;
+        this.reducer = reducer;
+    }
+
+    public static <T, K, R> HashAggregate<T, K, R> hashAggregate(Callable1<? super T, ? extends K> key, Reducer<? super T, R> reducer) {
+        return new HashAggregate<T, K, R>(key, reducer);
+    }
+
+    public static <T, K, R> HashAggregate<T, K, R> hashAggregate(Callable1<? super T, ? extends K> key, ReducerCombiner<? super T, R> reducer, int maxKeys, Serializer<K> keys, Serializer<R> values) {
+        return hashAggregate(key, reducer, maxKeys, keys, values, Files.temporaryDirectory(HashAggregate.class.getSimpleName()));
+    }
+
+    public static <T, K, R> HashAggregate<T, K, R> hashAggregate(Callable1<? super T, ? extends K> key, ReducerCombiner<? super T, R> reducer, int maxKeys, Serializer<K> keys, Serializer<R> values, File directory) {
+        return new Spilling<T, K, R>(key, reducer, maxKeys, keys, values, directory);
+    }
+
+    public Sequence<Pair<K, R>> aggregate(final Iterable<? extends T> iterable) {
+        return new Sequence<Pair<K, R>>() {
+            @Override
+            public Iterator<Pair<K, R>> iterator() {
+                return HashAggregate.this.iterator(iterable.iterator());
+            }
+        };
+    }
+
+    protected Iterator<Pair<K, R>> iterator(Iterator<? extends T> iterator) {
+        return Maps.pairs(accumulate(new LinkedHashMap<K, R>(), iterator)).iterator();
+    }
+
+    /** Folds every element into the accumulator of its key, adding keys to the map as they are seen */
+    public Map<K, R> accumulate(Map<K, R> accumulators, Iterator<? extends T> iterator) {
+        while (iterator.hasNext()) add(accumulators, iterator.next());
+        return accumulators;
+    }
+
+    protected void add(Map<K, R> accumulators, T value) {
+        K k = call(key, value);
+        R accumulator = accumulators.get(k);
+        if (accumulator == null && !accumulators.containsKey(k)) accumulator = reducer.identity();
+        accumulators.put(k, call(reducer, accumulator, value));
+    }
+
+    private static class Spilling<T, K, R> extends HashAggregate<T, K, R> {
+        private final ReducerCombiner<? super T, R> reducer;
+        private final int maxKeys;
+        private final Serializer<K> keys;
+        private final Serializer<R> values;
+        private final File directory;
+
+        private Spilling(Callable1<? super T, ? extends K> key, ReducerCombiner<? super T, R> reducer, int maxKeys, Serializer<K> keys, Serializer<R> values, File directory) {
+            super(key, reducer);
+            if (maxKeys < 1) throw new IllegalArgumentException("Maximum keys must be positive but was " + maxKeys);
+            this.reducer = reducer;
+            this.maxKeys = maxKeys;
+            this.keys = keys;
+            this.values = values;
+            this.directory = directory;
+        }
+
+        @Override
+        protected Iterator<Pair<K, R>> iterator(Iterator<? extends T> iterator) {
+            Map<K, R> accumulators = new LinkedHashMap<K, R>();
+            Partitions partitions = null;
+            while (iterator.hasNext()) {
+                add(accumulators, iterator.next());
+                if (accumulators.size() <= maxKeys) continue;
+                if (partitions == null) partitions = new Partitions();
+                partitions.write(accumulators);
+                accumulators.clear();
+            }
+            if (partitions == null) return Maps.pairs(accumulators).iterator();
+            partitions.write(accumulators);
+            return partitions.close();
+        }
+
+        private class Partitions {
+            private final File[] files = new File[PARTITIONS];
+            private final DataOutputStream[] outputs = new DataOutputStream[PARTITIONS];
+
+            private void write(Map<K, R> accumulators) {
+                try {
+                    for (Map.Entry<K, R> entry : accumulators.entrySet()) {
+                        DataOutputStream output = output(partition(entry.getKey()));
+                        output.writeBoolean(true);
+                        keys.write(entry.getKey(), output);
+                        values.write(entry.getValue(), output);
+                    }
+                } catch (IOException e) {
+                    safeClose(outputs);
+                    throw LazyException.lazyException(e);
+                }
+            }
+
+            private DataOutputStream output(int partition) throws IOException {
+                if (outputs[partition] == null) {
+                    files[partition] = Files.temporaryFile(directory);
+                    outputs[partition] = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(files[partition]), BUFFER));
+                }
+                return outputs[partition];
+            }
+
+            /** Ends every partition and reads them back one at a time as the result is iterated */
+            private Iterator<Pair<K, R>> close() {
+                try {
+                    for (DataOutputStream output : outputs) {
+                        if (output == null) continue;
+                        output.writeBoolean(false);
+                        output.close();
+                    }
+                } catch (IOException e) {
+                    safeClose(outputs);
+                    throw LazyException.lazyException(e);
+                }
+                return Iterators.flatMap(Sequences.sequence(files).filter(Predicates.notNullValue()).iterator(), this::read);
+            }
+
+            private Sequence<Pair<K, R>> read(File file) throws IOException {
+                Map<K, R> accumulators = new LinkedHashMap<K, R>();
+                DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file), BUFFER));
+                try {
+                    while (input.readBoolean()) {
+                        K k = keys.read(input);
+                        R value = values.read(input);
+                        R accumulator = accumulators.get(k);
+                        accumulators.put(k, accumulator == null && !accumulators.containsKey(k) ? value : reducer.combine(accumulator, value));
+                    }
+                } catch (Exception e) {
+                    throw LazyException.lazyException(e);
+                } finally {
+                    safeClose(input);
+                    file.delete();
+                }
+                return Maps.pairs(accumulators);
+            }
+        }
+
+        private static int partition(Object key) {
+            int hash = key == null ? 0 : key.hashCode();
+            return (hash ^ (hash >>> 16)) & (PARTITIONS - 1);
+        }
+    }
+}
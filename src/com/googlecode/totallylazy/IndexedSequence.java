@@ -0,0 +1,280 @@
+package com.googlecode.totallylazy;
+
+import com.googlecode.totallylazy.iterators.PairIterator;
+import com.googlecode.totallylazy.iterators.ReadOnlyIterator;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+import static com.googlecode.totallylazy.Callers.call;
+import static com.googlecode.totallylazy.Pair.pair;
+import static com.googlecode.totallylazy.Unchecked.cast;
+
+/**
+ * A Sequence over a source with a known size and random access, such as an array or an ArrayList.
+ * size, get, last, isEmpty, take and drop answer from the index instead of walking the sequence, and map, zip,
+ * zipWithIndex and reverse return views that keep that ability. Views read the source when asked, so they stay
+ * as lazy as the pipelines they replace, and a mapped view hands its map to any {@link Pipeline} built on it.
+ */
+public abstract class IndexedSequence<T> extends Sequence<T> implements Splittable<T> {
+    @Override
+    public abstract int size();
+
+    /** Only called with 0 <= index < size() */
+    protected abstract T element(int index);
+
+    public static <T> IndexedSequence<T> indexed(List<T> list) {
+        return new ListSequence<T>(list);
+    }
+
+    /** Lists are only indexed when they are RandomAccess, anything else keeps walking its iterator */
+    public static boolean isIndexed(Iterable<?> iterable) {
+        return iterable instanceof IndexedSequence || (iterable instanceof List && iterable instanceof RandomAccess);
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new ReadOnlyIterator<T>() {
+            private int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return index < size();
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return element(index++);
+            }
+        };
+    }
+
+    @Override
+    public T get(int index) {
+        if (index < 0 || index >= size()) return super.get(index);
+        return element(index);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public T last() {
+        int size = size();
+        if (size == 0) throw new NoSuchElementException();
+        return element(size - 1);
+    }
+
+    @Override
+    public Option<T> lastOption() {
+        int size = size();
+        return size == 0 ? Option.<T>none() : Option.some(element(size - 1));
+    }
+
+    @Override
+    public IndexedSequence<T> take(int count) {
+        return slice(0, Math.max(count, 0));
+    }
+
+    @Override
+    public IndexedSequence<T> drop(int count) {
+        return slice(Math.max(count, 0), Integer.MAX_VALUE);
+    }
+
+    /** The elements from start up to end, clamped to the size at the time they are read */
+    protected IndexedSequence<T> slice(int start, int end) {
+        return new Slice<T>(this, start, end);
+    }
+
+    @Override
+    public IndexedSequence<T> reverse() {
+        return new Reversed<T>(this);
+    }
+
+    @Override
+    public <S> IndexedSequence<S> map(Callable1<? super T, ? extends S> callable) {
+        return new Mapped<T, S>(this, callable);
+    }
+
+    @Override
+    public <S> Sequence<Pair<T, S>> zip(Iterable<? extends S> second) {
+        if (!isIndexed(second)) return super.zip(second);
+        return new Zipped<T, S>(this, second instanceof IndexedSequence ? Unchecked.<IndexedSequence<S>>cast(second) : indexed(Unchecked.<List<S>>cast(second)));
+    }
+
+    @Override
+    public Sequence<Pair<Number, T>> zipWithIndex() {
+        return new WithIndex<T>(this);
+    }
+
+    @Override
+    public Pair<? extends Splittable<T>, ? extends Splittable<T>> split() {
+        int middle = size() / 2;
+        return pair(slice(0, middle), slice(middle, size()));
+    }
+
+    private static class ListSequence<T> extends IndexedSequence<T> {
+        private final List<T> list;
+
+        private ListSequence(List<T> list) {
+            this.list = list;
+        }
+
+        @Override
+        public int size() {
+            return list.size();
+        }
+
+        @Override
+        protected T element(int index) {
+            return list.get(index);
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return list.iterator();
+        }
+
+        /** Lists that split themselves (trees, vectors) do it better than by index */
+        @Override
+        public Pair<? extends Splittable<T>, ? extends Splittable<T>> split() {
+            if (list instanceof Splittable) return Unchecked.<Splittable<T>>cast(list).split();
+            return super.split();
+        }
+    }
+
+    private static class Slice<T> extends IndexedSequence<T> {
+        private final IndexedSequence<T> source;
+        private final int start;
+        private final int end;
+
+        private Slice(IndexedSequence<T> source, int start, int end) {
+            this.source = source;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public int size() {
+            return Math.max(Math.min(source.size(), end) - start, 0);
+        }
+
+        @Override
+        protected T element(int index) {
+            return source.element(start + index);
+        }
+
+        @Override
+        protected IndexedSequence<T> slice(int start, int end) {
+            int newStart = (int) Math.min((long) this.start + start, this.end);
+            int newEnd = (int) Math.max(Math.min((long) this.start + end, this.end), newStart);
+            return new Slice<T>(source, newStart, newEnd);
+        }
+    }
+
+    private static class Reversed<T> extends IndexedSequence<T> {
+        private final IndexedSequence<T> source;
+
+        private Reversed(IndexedSequence<T> source) {
+            this.source = source;
+        }
+
+        @Override
+        public int size() {
+            return source.size();
+        }
+
+        @Override
+        protected T element(int index) {
+            return source.element(source.size() - 1 - index);
+        }
+
+        @Override
+        public IndexedSequence<T> reverse() {
+            return source;
+        }
+    }
+
+    private static class Mapped<T, S> extends IndexedSequence<S> implements Pipeline.Source<S> {
+        private final IndexedSequence<T> source;
+        private final Callable1<? super T, ? extends S> callable;
+
+        private Mapped(IndexedSequence<T> source, Callable1<? super T, ? extends S> callable) {
+            this.source = source;
+            this.callable = callable;
+        }
+
+        @Override
+        public int size() {
+            return source.size();
+        }
+
+        @Override
+        protected S element(int index) {
+            return call(callable, source.element(index));
+        }
+
+        @Override
+        public Iterator<S> iterator() {
+            return Iterators.map(source.iterator(), callable);
+        }
+
+        @Override
+        public <R> IndexedSequence<R> map(Callable1<? super S, ? extends R> next) {
+            return new Mapped<T, R>(source, Callables.compose(callable, next));
+        }
+
+        @Override
+        public <R> Sequence<R> then(Pipeline.Stage<S, R> next) {
+            return Pipeline.then(source, Pipeline.Stage.compose(Pipeline.stages.<T, S>map(callable), next));
+        }
+    }
+
+    private static class Zipped<T, S> extends IndexedSequence<Pair<T, S>> {
+        private final IndexedSequence<T> first;
+        private final IndexedSequence<S> second;
+
+        private Zipped(IndexedSequence<T> first, IndexedSequence<S> second) {
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        public int size() {
+            return Math.min(first.size(), second.size());
+        }
+
+        @Override
+        protected Pair<T, S> element(int index) {
+            return pair(first.element(index), second.element(index));
+        }
+
+        @Override
+        public Iterator<Pair<T, S>> iterator() {
+            return cast(new PairIterator<T, S>(first.iterator(), second.iterator()));
+        }
+    }
+
+    private static class WithIndex<T> extends IndexedSequence<Pair<Number, T>> {
+        private final IndexedSequence<T> source;
+
+        private WithIndex(IndexedSequence<T> source) {
+            this.source = source;
+        }
+
+        @Override
+        public int size() {
+            return source.size();
+        }
+
+        @Override
+        protected Pair<Number, T> element(int index) {
+            return Pair.<Number, T>pair(index, source.element(index));
+        }
+    }
+}
@@ -6,6 +6,7 @@ import com.googlecode.totallylazy.iterators.FlattenIterator;
 import com.googlecode.totallylazy.iterators.InitIterator;
 import com.googlecode.totallylazy.iterators.IterateIterator;
 import com.googlecode.totallylazy.iterators.MapIterator;
+import com.googlecode.totallylazy.iterators.MergeJoinIterator;
 import com.googlecode.totallylazy.iterators.PartitionIterator;
 import com.googlecode.totallylazy.iterators.PeekingIterator;
 import com.googlecode.totallylazy.iterators.RangerIterator;
@@ -18,12 +19,16 @@ import com.googlecode.totallylazy.predicates.LogicalPredicate;
 
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Queue;
+import java.util.Set;
 import java.util.concurrent.Callable;
 
 import static com.googlecode.totallylazy.Appendables.append;
@@ -414,6 +419,50 @@ public class Iterators {
         return new WindowedIterator<T>(iterator, size);
     }
 
+    public static <T> Iterator<Sequence<T>> sliding(final Iterator<? extends T> iterator, final int size, final int step) {
+        return new WindowedIterator<T>(iterator, size, step, false);
+    }
+
+    public static <T> Iterator<Sequence<T>> grouped(final Iterator<? extends T> iterator, final int size) {
+        return new WindowedIterator<T>(iterator, size, size, true);
+    }
+
+    /** Hashes the build side by key then streams the probe side through it, in probe order */
+    public static <T, S, K> Iterator<Pair<T, S>> join(final Iterator<? extends T> probe, final Iterator<? extends S> build, final Callable1<? super T, ? extends K> probeKey, final Callable1<? super S, ? extends K> buildKey) {
+        final Map<K, List<S>> table = Maps.multiMap(new HashMap<K, List<S>>(), build, buildKey);
+        return flatMap(probe, new Callable1<T, Iterable<Pair<T, S>>>() {
+            @Override
+            public Iterable<Pair<T, S>> call(T value) throws Exception {
+                List<S> matches = table.get(probeKey.call(value));
+                if (matches == null) return Sequences.empty();
+                return sequence(matches).map(Pair.<T, S>pair().apply(value));
+            }
+        });
+    }
+
+    public static <T, S, K> Iterator<T> semiJoin(final Iterator<? extends T> probe, final Iterator<? extends S> build, final Callable1<? super T, ? extends K> probeKey, final Callable1<? super S, ? extends K> buildKey) {
+        return filter(probe, keyIn(build, probeKey, buildKey));
+    }
+
+    public static <T, S, K> Iterator<T> antiJoin(final Iterator<? extends T> probe, final Iterator<? extends S> build, final Callable1<? super T, ? extends K> probeKey, final Callable1<? super S, ? extends K> buildKey) {
+        return filter(probe, not(keyIn(build, probeKey, buildKey)));
+    }
+
+    private static <T, S, K> LogicalPredicate<T> keyIn(final Iterator<? extends S> build, final Callable1<? super T, ? extends K> probeKey, final Callable1<? super S, ? extends K> buildKey) {
+        final Set<K> keys = new HashSet<K>();
+        while (build.hasNext()) keys.add(call(buildKey, build.next()));
+        return new LogicalPredicate<T>() {
+            @Override
+            public boolean matches(T value) {
+                return keys.contains(Callers.call(probeKey, value));
+            }
+        };
+    }
+
+    public static <T, S, K> Iterator<Pair<T, S>> mergeJoin(final Iterator<? extends T> left, final Iterator<? extends S> right, final Callable1<? super T, ? extends K> leftKey, final Callable1<? super S, ? extends K> rightKey, final Comparator<? super K> comparator) {
+        return new MergeJoinIterator<T, S, K>(left, right, leftKey, rightKey, comparator);
+    }
+
     public static <T> LogicalPredicate<Iterator<T>> hasNext() {
         return new LogicalPredicate<Iterator<T>>() {
             public boolean matches(Iterator<T> iterator) {
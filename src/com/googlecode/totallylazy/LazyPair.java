@@ -0,0 +1,49 @@
+package com.googlecode.totallylazy;
+
+import java.util.concurrent.Callable;
+
+import static com.googlecode.totallylazy.callables.LazyCallable.lazy;
+
+/** A Pair whose values are only computed (once) when first asked for */
+public class LazyPair<F, S> extends Pair<F, S> {
+    private final Lazy<F> first;
+    private final Lazy<S> second;
+
+    protected LazyPair(final Callable<? extends F> first, final Callable<? extends S> second) {
+        this.first = lazy(first);
+        this.second = lazy(second);
+    }
+
+    public static <F, S> LazyPair<F, S> lazyPair(final Callable<? extends F> first, final Callable<? extends S> second) {
+        return new LazyPair<F, S>(first, second);
+    }
+
+    @Override
+    public F first() {
+        return first.value();
+    }
+
+    @Override
+    public S second() {
+        return second.value();
+    }
+
+    @Override
+    public <R> Pair<R, S> first(Callable1<? super F, ? extends R> map) {
+        return mapFirst(first, second, map);
+    }
+
+    @Override
+    public <R> Pair<F, R> second(Callable1<? super S, ? extends R> map) {
+        return mapSecond(first, second, map);
+    }
+
+    /** Mapping the first or second value of any lazy tuple gives a LazyPair that still defers both */
+    static <F, S, R> Pair<R, S> mapFirst(Lazy<F> first, Lazy<S> second, Callable1<? super F, ? extends R> map) {
+        return lazyPair(first.then(map), second);
+    }
+
+    static <F, S, R> Pair<F, R> mapSecond(Lazy<F> first, Lazy<S> second, Callable1<? super S, ? extends R> map) {
+        return lazyPair(first, second.then(map));
+    }
+}
@@ -0,0 +1,54 @@
+package com.googlecode.totallylazy;
+
+import java.util.concurrent.Callable;
+
+import static com.googlecode.totallylazy.callables.LazyCallable.lazy;
+
+/** A Quadruple whose values are only computed (once) when first asked for */
+public class LazyQuadruple<F, S, T, Fo> extends Quadruple<F, S, T, Fo> {
+    private final Lazy<F> first;
+    private final Lazy<S> second;
+    private final Lazy<T> third;
+    private final Lazy<Fo> fourth;
+
+    protected LazyQuadruple(final Callable<? extends F> first, final Callable<? extends S> second, final Callable<? extends T> third, final Callable<? extends Fo> fourth) {
+        this.first = lazy(first);
+        this.second = lazy(second);
+        this.third = lazy(third);
+        this.fourth = lazy(fourth);
+    }
+
+    public static <F, S, T, Fo> LazyQuadruple<F, S, T, Fo> lazyQuadruple(final Callable<? extends F> first, final Callable<? extends S> second, final Callable<? extends T> third, final Callable<? extends Fo> fourth) {
+        return new LazyQuadruple<F, S, T, Fo>(first, second, third, fourth);
+    }
+
+    @Override
+    public F first() {
+        return first.value();
+    }
+
+    @Override
+    public S second() {
+        return second.value();
+    }
+
+    @Override
+    public T third() {
+        return third.value();
+    }
+
+    @Override
+    public Fo fourth() {
+        return fourth.value();
+    }
+
+    @Override
+    public <R> Pair<R, S> first(Callable1<? super F, ? extends R> map) {
+        return LazyPair.mapFirst(first, second, map);
+    }
+
+    @Override
+    public <R> Pair<F, R> second(Callable1<? super S, ? extends R> map) {
+        return LazyPair.mapSecond(first, second, map);
+    }
+}
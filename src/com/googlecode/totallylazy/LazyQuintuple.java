@@ -0,0 +1,61 @@
+package com.googlecode.totallylazy;
+
+import java.util.concurrent.Callable;
+
+import static com.googlecode.totallylazy.callables.LazyCallable.lazy;
+
+/** A Quintuple whose values are only computed (once) when first asked for */
+public class LazyQuintuple<F, S, T, Fo, Fi> extends Quintuple<F, S, T, Fo, Fi> {
+    private final Lazy<F> first;
+    private final Lazy<S> second;
+    private final Lazy<T> third;
+    private final Lazy<Fo> fourth;
+    private final Lazy<Fi> fifth;
+
+    protected LazyQuintuple(final Callable<? extends F> first, final Callable<? extends S> second, final Callable<? extends T> third, final Callable<? extends Fo> fourth, final Callable<? extends Fi> fifth) {
+        this.first = lazy(first);
+        this.second = lazy(second);
+        this.third = lazy(third);
+        this.fourth = lazy(fourth);
+        this.fifth = lazy(fifth);
+    }
+
+    public static <F, S, T, Fo, Fi> LazyQuintuple<F, S, T, Fo, Fi> lazyQuintuple(final Callable<? extends F> first, final Callable<? extends S> second, final Callable<? extends T> third, final Callable<? extends Fo> fourth, final Callable<? extends Fi> fifth) {
+        return new LazyQuintuple<F, S, T, Fo, Fi>(first, second, third, fourth, fifth);
+    }
+
+    @Override
+    public F first() {
+        return first.value();
+    }
+
+    @Override
+    public S second() {
+        return second.value();
+    }
+
+    @Override
+    public T third() {
+        return third.value();
+    }
+
+    @Override
+    public Fo fourth() {
+        return fourth.value();
+    }
+
+    @Override
+    public Fi fifth() {
+        return fifth.value();
+    }
+
+    @Override
+    public <R> Pair<R, S> first(Callable1<? super F, ? extends R> map) {
+        return LazyPair.mapFirst(first, second, map);
+    }
+
+    @Override
+    public <R> Pair<F, R> second(Callable1<? super S, ? extends R> map) {
+        return LazyPair.mapSecond(first, second, map);
+    }
+}
@@ -0,0 +1,47 @@
+package com.googlecode.totallylazy;
+
+import java.util.concurrent.Callable;
+
+import static com.googlecode.totallylazy.callables.LazyCallable.lazy;
+
+/** A Triple whose values are only computed (once) when first asked for */
+public class LazyTriple<F, S, T> extends Triple<F, S, T> {
+    private final Lazy<F> first;
+    private final Lazy<S> second;
+    private final Lazy<T> third;
+
+    protected LazyTriple(final Callable<? extends F> first, final Callable<? extends S> second, final Callable<? extends T> third) {
+        this.first = lazy(first);
+        this.second = lazy(second);
+        this.third = lazy(third);
+    }
+
+    public static <F, S, T> LazyTriple<F, S, T> lazyTriple(final Callable<? extends F> first, final Callable<? extends S> second, final Callable<? extends T> third) {
+        return new LazyTriple<F, S, T>(first, second, third);
+    }
+
+    @Override
+    public F first() {
+        return first.value();
+    }
+
+    @Override
+    public S second() {
+        return second.value();
+    }
+
+    @Override
+    public T third() {
+        return third.value();
+    }
+
+    @Override
+    public <R> Pair<R, S> first(Callable1<? super F, ? extends R> map) {
+        return LazyPair.mapFirst(first, second, map);
+    }
+
+    @Override
+    public <R> Pair<F, R> second(Callable1<? super S, ? extends R> map) {
+        return LazyPair.mapSecond(first, second, map);
+    }
+}
@@ -4,25 +4,24 @@ import java.util.Map;
 import java.util.concurrent.Callable;
 
 import static com.googlecode.totallylazy.Callers.call;
-import static com.googlecode.totallylazy.Functions.returns;
 import static com.googlecode.totallylazy.Sequences.sequence;
-import static com.googlecode.totallylazy.callables.LazyCallable.lazy;
 
-public class Pair<F, S> implements First<F>, Second<S>, Value<F>, Functor<F>, Map.Entry<F,S> {
-    private final Lazy<F> first;
-    private final Lazy<S> second;
-
-    protected Pair(final Callable<? extends F> first, final Callable<? extends S> second) {
-        this.first = lazy(first);
-        this.second = lazy(second);
+/**
+ * Holds its values strictly, {@link LazyPair} defers them. Pair is abstract and no longer has the protected
+ * constructor taking Callables, so subclasses that called it extend {@link LazyPair} instead. The same goes for
+ * Triple, Quadruple and Quintuple and their Lazy subtypes.
+ */
+public abstract class Pair<F, S> implements First<F>, Second<S>, Value<F>, Functor<F>, Map.Entry<F,S> {
+    protected Pair() {
     }
 
     public static <F, S> Pair<F, S> pair(final F first, final S second) {
-        return new Pair<F, S>(returns(first), returns(second));
+        return new Strict<F, S>(first, second);
     }
 
+    /** Defers (and memorises) each value until it is first asked for, see {@link LazyPair} */
     public static <F, S> Pair<F, S> pair(final Callable<? extends F> first, final Callable<? extends S> second) {
-        return new Pair<F, S>(first, second);
+        return LazyPair.lazyPair(first, second);
     }
 
     public static <F, S> Function2<F, S, Pair<F, S>> pair() {
@@ -34,13 +33,9 @@ public class Pair<F, S> implements First<F>, Second<S>, Value<F>, Functor<F>, Ma
         };
     }
 
-    public final F first() {
-        return first.value();
-    }
+    public abstract F first();
 
-    public final S second() {
-        return second.value();
-    }
+    public abstract S second();
 
     @Override
     public F value() {
@@ -131,17 +126,36 @@ public class Pair<F, S> implements First<F>, Second<S>, Value<F>, Functor<F>, Ma
     }
 
     @Override
-    @SuppressWarnings("unchecked")
     public <NewF> Pair<NewF, S> map(final Callable1<? super F, ? extends NewF> callable) {
-        return pair(first.map(callable), second);
+        return first(callable);
     }
 
     public <R> Pair<R, S> first(Callable1<? super F, ? extends R> map) {
-        return pair(first.then(map), second);
+        return pair(call(map, first()), second());
     }
 
     public <R> Pair<F,R> second(Callable1<? super S, ? extends R> map) {
-        return pair(first, second.then(map));
+        return pair(first(), call(map, second()));
+    }
+
+    private static class Strict<F, S> extends Pair<F, S> {
+        private final F first;
+        private final S second;
+
+        private Strict(final F first, final S second) {
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        public F first() {
+            return first;
+        }
+
+        @Override
+        public S second() {
+            return second;
+        }
     }
 
     public static class functions {
@@ -0,0 +1,192 @@
+package com.googlecode.totallylazy;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import static com.googlecode.totallylazy.Callers.call;
+import static com.googlecode.totallylazy.Pipeline.pipeline;
+import static com.googlecode.totallylazy.Unchecked.cast;
+
+/**
+ * A parallel view of a source and its map/filter stages.
+ * toList, size, groupBy, aggregateBy, sortBy, topK, bottomK and folds/reduces with a ReducerCombiner split the source into chunks,
+ * run the chunks on a ForkJoinPool and merge the results in encounter order. Like their sequential versions,
+ * aggregateBy, topK and bottomK only do that work when their result is iterated.
+ * Every other operation (and folds with plain functions) runs sequentially.
+ */
+public class ParallelSequence<S, T> extends Sequence<T> {
+    private static final int MINIMUM_CHUNK = 32;
+    private final Iterable<? extends S> source;
+    private final Pipeline.Stage<S, T> stage;
+    private final ForkJoinPool pool;
+
+    private ParallelSequence(Iterable<? extends S> source, Pipeline.Stage<S, T> stage, ForkJoinPool pool) {
+        this.source = source;
+        this.stage = stage;
+        this.pool = pool;
+    }
+
+    public static <S, T> ParallelSequence<S, T> parallel(Iterable<? extends S> source, Pipeline.Stage<S, T> stage, ForkJoinPool pool) {
+        return new ParallelSequence<S, T>(source, stage, pool);
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return stage.iterator(source.iterator());
+    }
+
+    public Sequence<T> sequential() {
+        return pipeline(source, stage);
+    }
+
+    @Override
+    public Sequence<T> parallel(ForkJoinPool pool) {
+        return parallel(source, stage, pool);
+    }
+
+    @Override
+    public <R> Sequence<R> map(Callable1<? super T, ? extends R> callable) {
+        return parallel(source, Pipeline.Stage.compose(stage, Pipeline.stages.<T, R>map(callable)), pool);
+    }
+
+    @Override
+    public Sequence<T> filter(Predicate<? super T> predicate) {
+        return parallel(source, Pipeline.Stage.compose(stage, Pipeline.stages.<T>filter(predicate)), pool);
+    }
+
+    @Override
+    public <R> R fold(final R seed, final Callable2<? super R, ? super T, ? extends R> callable) {
+        if (!(callable instanceof ReducerCombiner)) return sequential().fold(seed, callable);
+        final ReducerCombiner<T, R> reducer = cast(callable);
+        return parallel(chunk -> pipeline(chunk, stage).foldLeft(seed, reducer), chunk -> pipeline(chunk, stage).foldLeft(reducer.identity(), reducer), reducer::combine);
+    }
+
+    @Override
+    public <R> R reduce(final Callable2<? super R, ? super T, ? extends R> callable) {
+        if (!(callable instanceof ReducerCombiner)) return sequential().reduce(callable);
+        final ReducerCombiner<T, R> reducer = cast(callable);
+        return parallel(chunk -> pipeline(chunk, stage).foldLeft(reducer.identity(), reducer), reducer::combine);
+    }
+
+    @Override
+    public List<T> toList() {
+        return parallel(chunk -> pipeline(chunk, stage).toList(), (List<T> left, List<T> right) -> {
+            left.addAll(right);
+            return left;
+        });
+    }
+
+    @Override
+    public int size() {
+        return parallel(chunk -> pipeline(chunk, stage).size(), (Integer left, Integer right) -> left + right);
+    }
+
+    @Override
+    public <K> Sequence<Group<K, T>> groupBy(final Callable1<? super T, ? extends K> callable) {
+        Map<K, List<T>> groups = parallel(chunk -> Maps.multiMap(pipeline(chunk, stage).iterator(), callable), (Map<K, List<T>> left, Map<K, List<T>> right) -> {
+            for (Map.Entry<K, List<T>> entry : right.entrySet()) {
+                List<T> values = left.get(entry.getKey());
+                if (values == null) left.put(entry.getKey(), entry.getValue());
+                else values.addAll(entry.getValue());
+            }
+            return left;
+        });
+        return Maps.entries(groups).map(entry -> new Group<K, T>(entry.getKey(), entry.getValue()));
+    }
+
+    /** With a ReducerCombiner each chunk aggregates on its own and the partial results are combined per key */
+    @Override
+    public <K, R> Sequence<Pair<K, R>> aggregateBy(final Callable1<? super T, ? extends K> key, final Reducer<? super T, R> reducer) {
+        if (!(reducer instanceof ReducerCombiner)) return sequential().aggregateBy(key, reducer);
+        final ReducerCombiner<? super T, R> combiner = cast(reducer);
+        final HashAggregate<T, K, R> aggregate = HashAggregate.hashAggregate(key, reducer);
+        return new Sequence<Pair<K, R>>() {
+            @Override
+            public Iterator<Pair<K, R>> iterator() {
+                Map<K, R> accumulators = ParallelSequence.this.parallel(chunk -> aggregate.accumulate(new LinkedHashMap<K, R>(), pipeline(chunk, stage).iterator()), (Map<K, R> left, Map<K, R> right) -> {
+                    for (Map.Entry<K, R> entry : right.entrySet()) {
+                        R value = left.get(entry.getKey());
+                        if (value == null && !left.containsKey(entry.getKey())) left.put(entry.getKey(), entry.getValue());
+                        else left.put(entry.getKey(), combiner.combine(value, entry.getValue()));
+                    }
+                    return left;
+                });
+                return Maps.pairs(accumulators).iterator();
+            }
+        };
+    }
+
+    /** Uses Arrays.parallelSort which is stable but always runs on the common pool */
+    @Override
+    public Sequence<T> sortBy(Comparator<? super T> comparator) {
+        T[] array = cast(toList().toArray());
+        Arrays.parallelSort(array, comparator);
+        return parallel(new ArraySequence<T>(array, 0, array.length), Pipeline.stages.<T>identity(), pool);
+    }
+
+    /** Each chunk keeps its own bounded heap and the heaps are merged in encounter order */
+    @Override
+    public Sequence<T> bottomK(final int k, final Comparator<? super T> comparator) {
+        return new Sequence<T>() {
+            @Override
+            public Iterator<T> iterator() {
+                return ParallelSequence.this.parallel(chunk -> PartialSort.<T>partialSort(k, comparator).addAll(pipeline(chunk, stage).iterator()), PartialSort<T>::merge).toSequence().iterator();
+            }
+        };
+    }
+
+    @Override
+    public Sequence<T> topK(int k, Comparator<? super T> comparator) {
+        return bottomK(k, (T a, T b) -> comparator.compare(b, a));
+    }
+
+    /** Sorts and spills the runs on this pool while the next run is read */
+    @Override
+    public Sequence<T> sortBy(Comparator<? super T> comparator, int runSize, Serializer<T> serializer) {
+        return ExternalSort.externalSort(comparator, runSize, serializer).parallel(pool).sort(sequential());
+    }
+
+    private <R> R parallel(Callable1<? super Splittable<S>, ? extends R> leaf, Callable2<? super R, ? super R, ? extends R> merge) {
+        return parallel(leaf, leaf, merge);
+    }
+
+    /** The first chunk in encounter order is computed with first and every other one with leaf */
+    private <R> R parallel(Callable1<? super Splittable<S>, ? extends R> first, Callable1<? super Splittable<S>, ? extends R> leaf, Callable2<? super R, ? super R, ? extends R> merge) {
+        Splittable<S> splittable = Splittable.constructors.splittable(source);
+        int threshold = Math.max(MINIMUM_CHUNK, splittable.size() / (pool.getParallelism() * 4));
+        return pool.invoke(new Chunk<S, R>(splittable, threshold, first, leaf, merge));
+    }
+
+    private static class Chunk<S, R> extends RecursiveTask<R> {
+        private static final long serialVersionUID = 8022649625794637188L;
+        private final Splittable<S> splittable;
+        private final int threshold;
+        private final Callable1<? super Splittable<S>, ? extends R> first;
+        private final Callable1<? super Splittable<S>, ? extends R> leaf;
+        private final Callable2<? super R, ? super R, ? extends R> merge;
+
+        private Chunk(Splittable<S> splittable, int threshold, Callable1<? super Splittable<S>, ? extends R> first, Callable1<? super Splittable<S>, ? extends R> leaf, Callable2<? super R, ? super R, ? extends R> merge) {
+            this.splittable = splittable;
+            this.threshold = threshold;
+            this.first = first;
+            this.leaf = leaf;
+            this.merge = merge;
+        }
+
+        @Override
+        protected R compute() {
+            if (splittable.size() <= threshold) return call(first, splittable);
+            Pair<? extends Splittable<S>, ? extends Splittable<S>> halves = splittable.split();
+            Chunk<S, R> left = new Chunk<S, R>(halves.first(), threshold, first, leaf, merge);
+            left.fork();
+            R right = new Chunk<S, R>(halves.second(), threshold, leaf, leaf, merge).compute();
+            return call(merge, left.join(), right);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.googlecode.totallylazy;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+
+/**
+ * The first k elements in comparator order, found with a heap of at most k elements: O(n log k) time and O(k) memory
+ * instead of sorting everything.
+ * The heap keeps its worst element on top so each new element only has to beat that one, replacing it in place.
+ * Ties go to the element added first, so the result is the same as a stable sortBy(comparator).take(k).
+ * Two partial sorts can be merged, the other one's elements counting as added after this one's, which lets parallel
+ * chunks each keep their own heap.
+ */
+public class PartialSort<T> {
+    private final int k;
+    private final Comparator<? super T> comparator;
+    private Object[] values;
+    private long[] order;
+    private int size = 0;
+    private long added = 0;
+
+    private PartialSort(int k, Comparator<? super T> comparator) {
+        this.k = k;
+        this.comparator = comparator;
+        int capacity = Math.min(k, 16);
+        this.values = new Object[capacity];
+        this.order = new long[capacity];
+    }
+
+    private PartialSort(PartialSort<T> other) {
+        this.k = other.k;
+        this.comparator = other.comparator;
+        this.values = Arrays.copyOf(other.values, other.size);
+        this.order = Arrays.copyOf(other.order, other.size);
+        this.size = other.size;
+        this.added = other.added;
+    }
+
+    public static <T> PartialSort<T> partialSort(int k, Comparator<? super T> comparator) {
+        return new PartialSort<T>(Math.max(k, 0), comparator);
+    }
+
+    public PartialSort<T> add(T value) {
+        long index = added++;
+        if (size < k) {
+            if (size == values.length) grow();
+            values[size] = value;
+            order[size] = index;
+            siftUp(size++);
+        } else if (k > 0 && comparator.compare(value, value(0)) < 0) {
+            values[0] = value;
+            order[0] = index;
+            siftDown(0, size);
+        }
+        return this;
+    }
+
+    public PartialSort<T> addAll(Iterator<? extends T> iterator) {
+        while (iterator.hasNext()) add(iterator.next());
+        return this;
+    }
+
+    public PartialSort<T> merge(PartialSort<T> other) {
+        for (Object value : other.sorted()) add(Unchecked.<T>cast(value));
+        return this;
+    }
+
+    public Sequence<T> toSequence() {
+        Object[] sorted = sorted();
+        return ArraySequence.arraySequence(sorted, 0, sorted.length);
+    }
+
+    /** Best first, ties in the order they were added, by heap sorting a copy */
+    private Object[] sorted() {
+        PartialSort<T> copy = new PartialSort<T>(this);
+        for (int end = copy.size - 1; end > 0; end--) {
+            copy.swap(0, end);
+            copy.siftDown(0, end);
+        }
+        return copy.values;
+    }
+
+    private void grow() {
+        int capacity = (int) Math.max(Math.min((long) values.length * 2, k), 1);
+        values = Arrays.copyOf(values, capacity);
+        order = Arrays.copyOf(order, capacity);
+    }
+
+    private void siftUp(int child) {
+        while (child > 0) {
+            int parent = (child - 1) >>> 1;
+            if (worse(parent, child)) return;
+            swap(parent, child);
+            child = parent;
+        }
+    }
+
+    private void siftDown(int parent, int end) {
+        while (true) {
+            int child = 2 * parent + 1;
+            if (child >= end) return;
+            if (child + 1 < end && worse(child + 1, child)) child++;
+            if (worse(parent, child)) return;
+            swap(parent, child);
+            parent = child;
+        }
+    }
+
+    /** Whether the element at a comes after the element at b, or is the same one */
+    private boolean worse(int a, int b) {
+        int result = comparator.compare(value(a), value(b));
+        return result != 0 ? result > 0 : order[a] >= order[b];
+    }
+
+    private T value(int index) {
+        return Unchecked.cast(values[index]);
+    }
+
+    private void swap(int a, int b) {
+        Object value = values[a];
+        values[a] = values[b];
+        values[b] = value;
+        long index = order[a];
+        order[a] = order[b];
+        order[b] = index;
+    }
+}
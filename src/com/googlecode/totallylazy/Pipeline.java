@@ -0,0 +1,400 @@
+package com.googlecode.totallylazy;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
+
+import static com.googlecode.totallylazy.Callers.call;
+import static com.googlecode.totallylazy.Option.some;
+import static com.googlecode.totallylazy.Unchecked.cast;
+
+/**
+ * A Sequence made of a source and a chain of map/filter/take/drop stages.
+ * Iterating stays lazy and builds the usual iterator chain, but terminal operations push every source element
+ * through all the stages in a single loop without any intermediate iterators.
+ */
+public class Pipeline<S, T> extends Sequence<T> {
+    private final Iterable<? extends S> source;
+    private final Stage<S, T> stage;
+
+    private Pipeline(Iterable<? extends S> source, Stage<S, T> stage) {
+        this.source = source;
+        this.stage = stage;
+    }
+
+    public static <S, T> Pipeline<S, T> pipeline(Iterable<? extends S> source, Stage<S, T> stage) {
+        return new Pipeline<S, T>(source, stage);
+    }
+
+    public static <S, T> Sequence<T> then(Iterable<? extends S> iterable, Stage<S, T> stage) {
+        if (iterable instanceof Pipeline) return Unchecked.<Pipeline<?, S>>cast(iterable).then(stage);
+        if (iterable instanceof Source) return Unchecked.<Source<S>>cast(iterable).then(stage);
+        return pipeline(iterable, stage);
+    }
+
+    public <R> Pipeline<S, R> then(Stage<T, R> next) {
+        return pipeline(source, Stage.compose(stage, next));
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return stage.iterator(source.iterator());
+    }
+
+    @Override
+    public Sequence<T> parallel(ForkJoinPool pool) {
+        if (stage.stateless()) return ParallelSequence.parallel(source, stage, pool);
+        return super.parallel(pool);
+    }
+
+    /** Always closes a Closeable source iterator, so concurrent sources can cancel their work when the sink stops early or fails */
+    public void push(Sink<? super T> terminal) {
+        if (stage.empty()) return;
+        Sink<S> sink = stage.sink(terminal);
+        Iterator<? extends S> iterator = source.iterator();
+        try {
+            while (iterator.hasNext()) {
+                if (!sink.push(iterator.next())) return;
+            }
+        } finally {
+            if (iterator instanceof Closeable) Closeables.safeClose((Closeable) iterator);
+        }
+    }
+
+    @Override
+    public void forEach(final Callable1<? super T, ?> runnable) {
+        push(value -> {
+            call(runnable, value);
+            return true;
+        });
+    }
+
+    @Override
+    public <R> R fold(R seed, Callable2<? super R, ? super T, ? extends R> callable) {
+        return foldLeft(seed, callable);
+    }
+
+    @Override
+    public <R> R foldLeft(final R seed, final Callable2<? super R, ? super T, ? extends R> callable) {
+        Fold<R, T> fold = new Fold<R, T>(seed, callable);
+        push(fold);
+        return fold.accumulator;
+    }
+
+    @Override
+    public <R> R reduce(Callable2<? super R, ? super T, ? extends R> callable) {
+        return reduceLeft(callable);
+    }
+
+    @Override
+    public <R> R reduceLeft(final Callable2<? super R, ? super T, ? extends R> callable) {
+        if (callable instanceof Identity) return foldLeft(Unchecked.<Identity<R>>cast(callable).identity(), callable);
+        Reduce<R, T> reduce = new Reduce<R, T>(callable);
+        push(reduce);
+        if (reduce.empty) throw new NoSuchElementException();
+        return reduce.accumulator;
+    }
+
+    @Override
+    public List<T> toList() {
+        final List<T> result = new ArrayList<T>();
+        push(value -> {
+            result.add(value);
+            return true;
+        });
+        return result;
+    }
+
+    @Override
+    public int size() {
+        Count count = new Count();
+        push(count);
+        return count.count;
+    }
+
+    @Override
+    public boolean exists(final Predicate<? super T> predicate) {
+        Find<T> find = new Find<T>(predicate);
+        push(find);
+        return find.found;
+    }
+
+    @Override
+    public boolean forAll(final Predicate<? super T> predicate) {
+        return !exists(Predicates.<T>not(predicate));
+    }
+
+    @Override
+    public Option<T> find(final Predicate<? super T> predicate) {
+        Find<T> find = new Find<T>(predicate);
+        push(find);
+        return find.found ? some(find.value) : Option.<T>none();
+    }
+
+    /** Sequences that are stages over another source, so further stages join them in one pipeline instead of iterating them */
+    public interface Source<T> {
+        <R> Sequence<R> then(Stage<T, R> next);
+    }
+
+    public interface Sink<T> {
+        /** @return false once no more values are wanted */
+        boolean push(T value);
+    }
+
+    public static abstract class Stage<A, B> {
+        public abstract Iterator<B> iterator(Iterator<? extends A> iterator);
+
+        /** Called once per run so stateful stages (take, drop) start afresh */
+        public abstract Sink<A> sink(Sink<? super B> downstream);
+
+        /** Stateless stages treat every element on its own, so they can run over chunks of the source in parallel */
+        public boolean stateless() {
+            return false;
+        }
+
+        /** Stages that can never let a value through (take(0)), so push does not pull anything from the source */
+        public boolean empty() {
+            return false;
+        }
+
+        public static <A, B, C> Stage<A, C> compose(final Stage<A, B> first, final Stage<B, C> second) {
+            return new Stage<A, C>() {
+                @Override
+                public Iterator<C> iterator(Iterator<? extends A> iterator) {
+                    return second.iterator(first.iterator(iterator));
+                }
+
+                @Override
+                public Sink<A> sink(Sink<? super C> downstream) {
+                    return first.sink(second.sink(downstream));
+                }
+
+                @Override
+                public boolean stateless() {
+                    return first.stateless() && second.stateless();
+                }
+
+                @Override
+                public boolean empty() {
+                    return first.empty() || second.empty();
+                }
+            };
+        }
+    }
+
+    public static class stages {
+        public static <T> Stage<T, T> identity() {
+            return new Stage<T, T>() {
+                @Override
+                public Iterator<T> iterator(Iterator<? extends T> iterator) {
+                    return cast(iterator);
+                }
+
+                @Override
+                public Sink<T> sink(Sink<? super T> downstream) {
+                    return cast(downstream);
+                }
+
+                @Override
+                public boolean stateless() {
+                    return true;
+                }
+            };
+        }
+
+        public static <A, B> Stage<A, B> map(final Callable1<? super A, ? extends B> callable) {
+            return new Stage<A, B>() {
+                @Override
+                public Iterator<B> iterator(Iterator<? extends A> iterator) {
+                    return Iterators.map(iterator, callable);
+                }
+
+                @Override
+                public Sink<A> sink(final Sink<? super B> downstream) {
+                    return value -> downstream.push(call(callable, value));
+                }
+
+                @Override
+                public boolean stateless() {
+                    return true;
+                }
+            };
+        }
+
+        public static <T> Stage<T, T> filter(final Predicate<? super T> predicate) {
+            return new Stage<T, T>() {
+                @Override
+                public Iterator<T> iterator(Iterator<? extends T> iterator) {
+                    return Iterators.filter(iterator, predicate);
+                }
+
+                @Override
+                public Sink<T> sink(final Sink<? super T> downstream) {
+                    return value -> !predicate.matches(value) || downstream.push(value);
+                }
+
+                @Override
+                public boolean stateless() {
+                    return true;
+                }
+            };
+        }
+
+        public static <T> Stage<T, T> takeWhile(final Predicate<? super T> predicate) {
+            return new Stage<T, T>() {
+                @Override
+                public Iterator<T> iterator(Iterator<? extends T> iterator) {
+                    return Iterators.takeWhile(iterator, predicate);
+                }
+
+                @Override
+                public Sink<T> sink(final Sink<? super T> downstream) {
+                    return value -> predicate.matches(value) && downstream.push(value);
+                }
+            };
+        }
+
+        public static <T> Stage<T, T> take(final int count) {
+            return new Stage<T, T>() {
+                @Override
+                public Iterator<T> iterator(Iterator<? extends T> iterator) {
+                    return Iterators.take(iterator, count);
+                }
+
+                @Override
+                public Sink<T> sink(final Sink<? super T> downstream) {
+                    return new Sink<T>() {
+                        private int remaining = count;
+
+                        @Override
+                        public boolean push(T value) {
+                            if (remaining <= 0) return false;
+                            return downstream.push(value) && --remaining > 0;
+                        }
+                    };
+                }
+
+                @Override
+                public boolean empty() {
+                    return count <= 0;
+                }
+            };
+        }
+
+        public static <T> Stage<T, T> dropWhile(final Predicate<? super T> predicate) {
+            return new Stage<T, T>() {
+                @Override
+                public Iterator<T> iterator(Iterator<? extends T> iterator) {
+                    return Iterators.dropWhile(iterator, predicate);
+                }
+
+                @Override
+                public Sink<T> sink(final Sink<? super T> downstream) {
+                    return new Sink<T>() {
+                        private boolean dropping = true;
+
+                        @Override
+                        public boolean push(T value) {
+                            if (dropping && predicate.matches(value)) return true;
+                            dropping = false;
+                            return downstream.push(value);
+                        }
+                    };
+                }
+            };
+        }
+
+        public static <T> Stage<T, T> drop(final int count) {
+            return new Stage<T, T>() {
+                @Override
+                public Iterator<T> iterator(Iterator<? extends T> iterator) {
+                    return Iterators.drop(iterator, count);
+                }
+
+                @Override
+                public Sink<T> sink(final Sink<? super T> downstream) {
+                    return new Sink<T>() {
+                        private int remaining = count;
+
+                        @Override
+                        public boolean push(T value) {
+                            if (remaining > 0) {
+                                remaining--;
+                                return true;
+                            }
+                            return downstream.push(value);
+                        }
+                    };
+                }
+            };
+        }
+    }
+
+    private static class Fold<R, T> implements Sink<T> {
+        private final Callable2<? super R, ? super T, ? extends R> callable;
+        private R accumulator;
+
+        private Fold(R seed, Callable2<? super R, ? super T, ? extends R> callable) {
+            this.accumulator = seed;
+            this.callable = callable;
+        }
+
+        @Override
+        public boolean push(T value) {
+            accumulator = call(callable, accumulator, value);
+            return true;
+        }
+    }
+
+    private static class Reduce<R, T> implements Sink<T> {
+        private final Callable2<? super R, ? super T, ? extends R> callable;
+        private boolean empty = true;
+        private R accumulator;
+
+        private Reduce(Callable2<? super R, ? super T, ? extends R> callable) {
+            this.callable = callable;
+        }
+
+        @Override
+        public boolean push(T value) {
+            if (empty) {
+                empty = false;
+                accumulator = cast(value);
+            } else {
+                accumulator = call(callable, accumulator, value);
+            }
+            return true;
+        }
+    }
+
+    private static class Count implements Sink<Object> {
+        private int count;
+
+        @Override
+        public boolean push(Object value) {
+            count++;
+            return true;
+        }
+    }
+
+    private static class Find<T> implements Sink<T> {
+        private final Predicate<? super T> predicate;
+        private boolean found;
+        private T value;
+
+        private Find(Predicate<? super T> predicate) {
+            this.predicate = predicate;
+        }
+
+        @Override
+        public boolean push(T value) {
+            if (!predicate.matches(value)) return true;
+            this.found = true;
+            this.value = value;
+            return false;
+        }
+    }
+}
@@ -2,32 +2,57 @@ package com.googlecode.totallylazy;
 
 import java.util.concurrent.Callable;
 
-import static com.googlecode.totallylazy.Functions.returns;
-import static com.googlecode.totallylazy.callables.LazyCallable.lazy;
-
-public class Quadruple<F, S, T, Fo> extends Triple<F, S, T> implements Fourth<Fo> {
-    private final Value<? extends Fo> fourth;
-
+/** Holds its values strictly like {@link Pair}, {@link LazyQuadruple} defers them */
+public abstract class Quadruple<F, S, T, Fo> extends Triple<F, S, T> implements Fourth<Fo> {
     public static <F, S, T, Fo> Quadruple<F, S, T, Fo> quadruple(final F first, final S second, final T third, final Fo fourth) {
-        return new Quadruple<F, S, T, Fo>(returns(first), returns(second), returns(third), returns(fourth));
+        return new Strict<F, S, T, Fo>(first, second, third, fourth);
     }
 
     public static <F, S, T, Fo> Quadruple<F, S, T, Fo> quadruple(final Callable<? extends F> first, final Callable<? extends S> second, final Callable<? extends T> third, final Callable<? extends Fo> fourth) {
-        return new Quadruple<F, S, T, Fo>(first, second, third, fourth);
+        return LazyQuadruple.lazyQuadruple(first, second, third, fourth);
     }
 
-    protected Quadruple(final Callable<? extends F> first, final Callable<? extends S> second, final Callable<? extends T> third, final Callable<? extends Fo> fourth) {
-        super(first, second, third);
-        this.fourth = lazy(fourth);
+    protected Quadruple() {
     }
 
-    public final Fo fourth() {
-        return fourth.value();
-    }
+    public abstract Fo fourth();
 
     @Override
     public Sequence<Object> values() {
         return super.values().append(fourth());
     }
 
+    private static class Strict<F, S, T, Fo> extends Quadruple<F, S, T, Fo> {
+        private final F first;
+        private final S second;
+        private final T third;
+        private final Fo fourth;
+
+        private Strict(final F first, final S second, final T third, final Fo fourth) {
+            this.first = first;
+            this.second = second;
+            this.third = third;
+            this.fourth = fourth;
+        }
+
+        @Override
+        public F first() {
+            return first;
+        }
+
+        @Override
+        public S second() {
+            return second;
+        }
+
+        @Override
+        public T third() {
+            return third;
+        }
+
+        @Override
+        public Fo fourth() {
+            return fourth;
+        }
+    }
 }
@@ -2,31 +2,64 @@ package com.googlecode.totallylazy;
 
 import java.util.concurrent.Callable;
 
-import static com.googlecode.totallylazy.Functions.returns;
-import static com.googlecode.totallylazy.callables.LazyCallable.lazy;
-
-public class Quintuple<F, S, T, Fo, Fi> extends Quadruple<F, S, T, Fo> implements Fifth<Fi> {
-    private final Value<? extends Fi> fifth;
-
+/** Holds its values strictly like {@link Pair}, {@link LazyQuintuple} defers them */
+public abstract class Quintuple<F, S, T, Fo, Fi> extends Quadruple<F, S, T, Fo> implements Fifth<Fi> {
     public static <F, S, T, Fo, Fi> Quintuple<F, S, T, Fo, Fi> quintuple(final F first, final S second, final T third, final Fo fourth, final Fi fifth) {
-        return new Quintuple<F, S, T, Fo, Fi>(returns(first), returns(second), returns(third), returns(fourth), returns(fifth));
+        return new Strict<F, S, T, Fo, Fi>(first, second, third, fourth, fifth);
     }
 
     public static <F, S, T, Fo, Fi> Quintuple<F, S, T, Fo, Fi> quintuple(final Callable<? extends F> first, final Callable<? extends S> second, final Callable<? extends T> third, final Callable<? extends Fo> fourth, final Callable<? extends Fi> fifth) {
-        return new Quintuple<F, S, T, Fo, Fi>(first, second, third, fourth, fifth);
+        return LazyQuintuple.lazyQuintuple(first, second, third, fourth, fifth);
     }
 
-    protected Quintuple(final Callable<? extends F> first, final Callable<? extends S> second, final Callable<? extends T> third, final Callable<? extends Fo> fourth, final Callable<? extends Fi> fifth) {
-        super(first, second, third, fourth);
-        this.fifth = lazy(fifth);
+    protected Quintuple() {
     }
 
-    public final Fi fifth() {
-        return fifth.value();
-    }
+    public abstract Fi fifth();
 
     @Override
     public Sequence<Object> values() {
         return super.values().append(fifth());
     }
+
+    private static class Strict<F, S, T, Fo, Fi> extends Quintuple<F, S, T, Fo, Fi> {
+        private final F first;
+        private final S second;
+        private final T third;
+        private final Fo fourth;
+        private final Fi fifth;
+
+        private Strict(final F first, final S second, final T third, final Fo fourth, final Fi fifth) {
+            this.first = first;
+            this.second = second;
+            this.third = third;
+            this.fourth = fourth;
+            this.fifth = fifth;
+        }
+
+        @Override
+        public F first() {
+            return first;
+        }
+
+        @Override
+        public S second() {
+            return second;
+        }
+
+        @Override
+        public T third() {
+            return third;
+        }
+
+        @Override
+        public Fo fourth() {
+            return fourth;
+        }
+
+        @Override
+        public Fi fifth() {
+            return fifth;
+        }
+    }
 }
@@ -4,6 +4,9 @@ import com.googlecode.totallylazy.collections.AbstractCollection;
 import com.googlecode.totallylazy.collections.Indexed;
 import com.googlecode.totallylazy.collections.PersistentCollection;
 import com.googlecode.totallylazy.collections.PersistentList;
+import com.googlecode.totallylazy.numbers.DoubleSequence;
+import com.googlecode.totallylazy.numbers.IntSequence;
+import com.googlecode.totallylazy.numbers.LongSequence;
 
 import java.util.Collection;
 import java.util.Comparator;
@@ -13,6 +16,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
 
 import static com.googlecode.totallylazy.Callables.ascending;
 import static com.googlecode.totallylazy.Callables.returnArgument;
@@ -67,6 +74,42 @@ public abstract class Sequence<T> extends AbstractCollection<T> implements Itera
         return Sequences.mapConcurrently(this, callable, executor);
     }
 
+    public <S> Sequence<S> mapConcurrently(final Callable1<? super T, S> callable, final int concurrency) {
+        return Sequences.mapConcurrently(this, callable, concurrency);
+    }
+
+    public <S> Sequence<S> mapConcurrently(final Callable1<? super T, S> callable, final Executor executor, final int concurrency) {
+        return Sequences.mapConcurrently(this, callable, executor, concurrency);
+    }
+
+    public <S> Sequence<S> mapConcurrentlyUnordered(final Callable1<? super T, S> callable, final int concurrency) {
+        return Sequences.mapConcurrentlyUnordered(this, callable, concurrency);
+    }
+
+    public <S> Sequence<S> mapConcurrentlyUnordered(final Callable1<? super T, S> callable, final Executor executor, final int concurrency) {
+        return Sequences.mapConcurrentlyUnordered(this, callable, executor, concurrency);
+    }
+
+    public IntSequence mapToInt(final ToIntFunction<? super T> callable) {
+        return IntSequence.intSequence(this, callable);
+    }
+
+    public LongSequence mapToLong(final ToLongFunction<? super T> callable) {
+        return LongSequence.longSequence(this, callable);
+    }
+
+    public DoubleSequence mapToDouble(final ToDoubleFunction<? super T> callable) {
+        return DoubleSequence.doubleSequence(this, callable);
+    }
+
+    public Sequence<T> parallel() {
+        return parallel(ForkJoinPool.commonPool());
+    }
+
+    public Sequence<T> parallel(final ForkJoinPool pool) {
+        return ParallelSequence.parallel(this, Pipeline.stages.<T>identity(), pool);
+    }
+
     @Override
     public <S> Sequence<S> map(final Callable1<? super T, ? extends S> callable) {
         return Sequences.map(this, callable);
@@ -324,6 +367,10 @@ public abstract class Sequence<T> extends AbstractCollection<T> implements Itera
         return Sequences.memorise(this);
     }
 
+    public Sequence<T> memorise(int chunkSize) {
+        return Sequences.memorise(this, chunkSize);
+    }
+
     public ForwardOnlySequence<T> forwardOnly() {
         return Sequences.forwardOnly(this);
     }
@@ -368,6 +415,27 @@ public abstract class Sequence<T> extends AbstractCollection<T> implements Itera
         return Sequences.sortBy(this, comparator);
     }
 
+    public <R extends Comparable<? super R>> Sequence<T> topK(final int k, final Callable1<? super T, ? extends R> callable) {
+        return topK(k, ascending(callable));
+    }
+
+    public Sequence<T> topK(final int k, final Comparator<? super T> comparator) {
+        return Sequences.topK(this, k, comparator);
+    }
+
+    public <R extends Comparable<? super R>> Sequence<T> bottomK(final int k, final Callable1<? super T, ? extends R> callable) {
+        return bottomK(k, ascending(callable));
+    }
+
+    public Sequence<T> bottomK(final int k, final Comparator<? super T> comparator) {
+        return Sequences.bottomK(this, k, comparator);
+    }
+
+    /** Sorts in runs of at most runSize elements, spilling them to disk with the serializer, see ExternalSort */
+    public Sequence<T> sortBy(final Comparator<? super T> comparator, final int runSize, final Serializer<T> serializer) {
+        return Sequences.sortBy(this, comparator, runSize, serializer);
+    }
+
     public <S> Sequence<S> safeCast(final Class<? extends S> aClass) {
         return Sequences.safeCast(this, aClass);
     }
@@ -396,6 +464,16 @@ public abstract class Sequence<T> extends AbstractCollection<T> implements Itera
         return Sequences.groupBy(this, callable);
     }
 
+    /** Folds each group as it is built instead of keeping its elements, see HashAggregate */
+    public <K, R> Sequence<Pair<K, R>> aggregateBy(final Callable1<? super T, ? extends K> key, final Reducer<? super T, R> reducer) {
+        return Sequences.aggregateBy(this, key, reducer);
+    }
+
+    /** Like aggregateBy but spills partial results to disk whenever more than maxKeys keys are held */
+    public <K, R> Sequence<Pair<K, R>> aggregateBy(final Callable1<? super T, ? extends K> key, final ReducerCombiner<? super T, R> reducer, final int maxKeys, final Serializer<K> keys, final Serializer<R> values) {
+        return Sequences.aggregateBy(this, key, reducer, maxKeys, keys, values);
+    }
+
     public Sequence<Sequence<T>> recursive(final Callable1<Sequence<T>, Pair<Sequence<T>, Sequence<T>>> callable) {
         return Sequences.recursive(this, callable);
     }
@@ -440,6 +518,28 @@ public abstract class Sequence<T> extends AbstractCollection<T> implements Itera
         return Sequences.cartesianProduct(this, other);
     }
 
+    /** Hash join keeping this side lazy, so other should be the smaller one */
+    public <S, K> Sequence<Pair<T, S>> join(final Iterable<? extends S> other, final Callable1<? super T, ? extends K> key, final Callable1<? super S, ? extends K> otherKey) {
+        return Sequences.join(this, other, key, otherKey);
+    }
+
+    public <S, K> Sequence<T> semiJoin(final Iterable<? extends S> other, final Callable1<? super T, ? extends K> key, final Callable1<? super S, ? extends K> otherKey) {
+        return Sequences.semiJoin(this, other, key, otherKey);
+    }
+
+    public <S, K> Sequence<T> antiJoin(final Iterable<? extends S> other, final Callable1<? super T, ? extends K> key, final Callable1<? super S, ? extends K> otherKey) {
+        return Sequences.antiJoin(this, other, key, otherKey);
+    }
+
+    /** Both sides must already be sorted by their key */
+    public <S, K extends Comparable<? super K>> Sequence<Pair<T, S>> mergeJoin(final Iterable<? extends S> other, final Callable1<? super T, ? extends K> key, final Callable1<? super S, ? extends K> otherKey) {
+        return Sequences.mergeJoin(this, other, key, otherKey);
+    }
+
+    public <S, K> Sequence<Pair<T, S>> mergeJoin(final Iterable<? extends S> other, final Callable1<? super T, ? extends K> key, final Callable1<? super S, ? extends K> otherKey, final Comparator<? super K> comparator) {
+        return Sequences.mergeJoin(this, other, key, otherKey, comparator);
+    }
+
     public T get(int index) {
         return drop(index).head();
     }
@@ -448,6 +548,10 @@ public abstract class Sequence<T> extends AbstractCollection<T> implements Itera
         return Sequences.windowed(this, size);
     }
 
+    public Sequence<Sequence<T>> sliding(int size, int step) {
+        return Sequences.sliding(this, size, step);
+    }
+
     public Sequence<T> intersperse(T separator) {
         return Sequences.intersperse(this, separator);
     }
@@ -462,7 +566,7 @@ public abstract class Sequence<T> extends AbstractCollection<T> implements Itera
     }
 
     public Sequence<Sequence<T>> grouped(int size) {
-        return recursive(Sequences.<T>splitAt(size));
+        return Sequences.grouped(this, size);
     }
 
     public static class functions {
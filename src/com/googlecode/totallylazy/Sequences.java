@@ -2,8 +2,8 @@ package com.googlecode.totallylazy;
 
 import com.googlecode.totallylazy.collections.PersistentList;
 import com.googlecode.totallylazy.comparators.Comparators;
-import com.googlecode.totallylazy.iterators.ArrayIterator;
 import com.googlecode.totallylazy.iterators.CharacterIterator;
+import com.googlecode.totallylazy.iterators.ConcurrentMapIterator;
 import com.googlecode.totallylazy.iterators.EmptyIterator;
 import com.googlecode.totallylazy.iterators.EnumerationIterator;
 import com.googlecode.totallylazy.iterators.IntersperseIterator;
@@ -14,6 +14,7 @@ import com.googlecode.totallylazy.iterators.TransposeIterator;
 import com.googlecode.totallylazy.iterators.TripleIterator;
 import com.googlecode.totallylazy.predicates.UniquePredicate;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Deque;
@@ -22,6 +23,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 import static com.googlecode.totallylazy.Callables.ascending;
 import static com.googlecode.totallylazy.Callables.deferReturn;
@@ -53,10 +55,38 @@ public class Sequences {
 
         if (iterable instanceof Sequence) return cast(iterable);
 
+        if (IndexedSequence.isIndexed(iterable)) return IndexedSequence.indexed(Unchecked.<List<T>>cast(iterable));
+
+        if (iterable instanceof Collection) return new Sequence<T>() {
+            public final Iterator<T> iterator() {
+                return cast(iterable.iterator());
+            }
+
+            @Override
+            public int size() {
+                return ((Collection<?>) iterable).size();
+            }
+
+            @Override
+            public boolean isEmpty() {
+                return ((Collection<?>) iterable).isEmpty();
+            }
+
+            @Override
+            public Sequence<T> parallel(ForkJoinPool pool) {
+                return ParallelSequence.parallel(iterable, Pipeline.stages.<T>identity(), pool);
+            }
+        };
+
         return new Sequence<T>() {
             public final Iterator<T> iterator() {
                 return cast(iterable.iterator());
             }
+
+            @Override
+            public Sequence<T> parallel(ForkJoinPool pool) {
+                return ParallelSequence.parallel(iterable, Pipeline.stages.<T>identity(), pool);
+            }
         };
     }
 
@@ -103,11 +133,7 @@ public class Sequences {
         if (items == null || items.length == 0) {
             return empty();
         }
-        return new Sequence<T>() {
-            public final Iterator<T> iterator() {
-                return new ArrayIterator<T>(items);
-            }
-        };
+        return new ArraySequence<T>(items, 0, items.length);
     }
 
     public static <T> Sequence<T> memoize(final Enumeration<T> enumeration) {
@@ -146,6 +172,10 @@ public class Sequences {
         return Computation.memorise(iterator);
     }
 
+    public static <T> Sequence<T> memorise(final Iterator<? extends T> iterator, final int chunkSize) {
+        return Computation.memorise(iterator, chunkSize);
+    }
+
     public static <T> ForwardOnlySequence<T> forwardOnly(final Iterator<? extends T> iterator) {
         return new ForwardOnlySequence<T>(iterator);
     }
@@ -168,11 +198,7 @@ public class Sequences {
     }
 
     public static <T, S> Sequence<S> map(final Iterable<? extends T> iterable, final Callable1<? super T, ? extends S> callable) {
-        return new Sequence<S>() {
-            public final Iterator<S> iterator() {
-                return Iterators.map(iterable.iterator(), callable);
-            }
-        };
+        return Pipeline.then(iterable, Pipeline.stages.<T, S>map(callable));
     }
 
     public static <T> Pair<Sequence<T>, Sequence<T>> partition(final Iterable<? extends T> iterable, final Predicate<? super T> predicate) {
@@ -180,11 +206,7 @@ public class Sequences {
     }
 
     public static <T> Sequence<T> filter(final Iterable<? extends T> iterable, final Predicate<? super T> predicate) {
-        return new Sequence<T>() {
-            public final Iterator<T> iterator() {
-                return Iterators.filter(iterable.iterator(), predicate);
-            }
-        };
+        return Pipeline.then(iterable, Pipeline.stages.<T>filter(predicate));
     }
 
     public static <T, S> Sequence<S> flatMap(final Iterable<? extends T> iterable, final Callable1<? super T, ? extends Iterable<? extends S>> callable) {
@@ -429,35 +451,19 @@ public class Sequences {
     }
 
     public static <T> Sequence<T> take(final Iterable<? extends T> iterable, final int count) {
-        return new Sequence<T>() {
-            public final Iterator<T> iterator() {
-                return Iterators.take(iterable.iterator(), count);
-            }
-        };
+        return Pipeline.then(iterable, Pipeline.stages.<T>take(count));
     }
 
     public static <T> Sequence<T> takeWhile(final Iterable<? extends T> iterable, final Predicate<? super T> predicate) {
-        return new Sequence<T>() {
-            public final Iterator<T> iterator() {
-                return Iterators.takeWhile(iterable.iterator(), predicate);
-            }
-        };
+        return Pipeline.then(iterable, Pipeline.stages.<T>takeWhile(predicate));
     }
 
     public static <T> Sequence<T> drop(final Iterable<? extends T> iterable, final int count) {
-        return new Sequence<T>() {
-            public final Iterator<T> iterator() {
-                return Iterators.drop(iterable.iterator(), count);
-            }
-        };
+        return Pipeline.then(iterable, Pipeline.stages.<T>drop(count));
     }
 
     public static <T> Sequence<T> dropWhile(final Iterable<? extends T> iterable, final Predicate<? super T> predicate) {
-        return new Sequence<T>() {
-            public final Iterator<T> iterator() {
-                return Iterators.dropWhile(iterable.iterator(), predicate);
-            }
-        };
+        return Pipeline.then(iterable, Pipeline.stages.<T>dropWhile(predicate));
     }
 
     public static <T> boolean forAll(final Iterable<? extends T> iterable, final Predicate<? super T> predicate) {
@@ -537,6 +543,10 @@ public class Sequences {
         return Computation.memorise(iterable);
     }
 
+    public static <T> Sequence<T> memorise(final Iterable<? extends T> iterable, final int chunkSize) {
+        return Computation.memorise(iterable, chunkSize);
+    }
+
     public static <F, S> Sequence<Pair<F, S>> zip(final Iterable<? extends F> first, final Iterable<? extends S> second) {
         return new Sequence<Pair<F, S>>() {
             public final Iterator<Pair<F, S>> iterator() {
@@ -621,6 +631,25 @@ public class Sequences {
         return sequence(toSortedList(iterable, comparator));
     }
 
+    public static <T> Sequence<T> sortBy(final Iterable<? extends T> iterable, final Comparator<? super T> comparator, final int runSize, final Serializer<T> serializer) {
+        return ExternalSort.externalSort(comparator, runSize, serializer).sort(iterable);
+    }
+
+    /** The k least elements, least first, like sortBy(comparator).take(k) but without sorting everything, see PartialSort */
+    public static <T> Sequence<T> bottomK(final Iterable<? extends T> iterable, final int k, final Comparator<? super T> comparator) {
+        return new Sequence<T>() {
+            @Override
+            public Iterator<T> iterator() {
+                return PartialSort.<T>partialSort(k, comparator).addAll(iterable.iterator()).toSequence().iterator();
+            }
+        };
+    }
+
+    /** The k greatest elements, greatest first */
+    public static <T> Sequence<T> topK(final Iterable<? extends T> iterable, final int k, final Comparator<? super T> comparator) {
+        return bottomK(iterable, k, (T a, T b) -> comparator.compare(b, a));
+    }
+
     public static <T extends Comparable<? super T>> Sequence<T> sort(final Iterable<? extends T> iterable) {
         return sort(iterable, Comparators.<T>ascending());
     }
@@ -669,10 +698,46 @@ public class Sequences {
         return callConcurrently(sequence(iterable).map(deferReturn(callable)), executor);
     }
 
+    public static <T, S> Sequence<S> mapConcurrently(final Iterable<? extends T> iterable, final Callable1<? super T, ? extends S> callable, final int concurrency) {
+        return mapConcurrently(iterable, callable, Callers.sharedExecutor(), concurrency);
+    }
+
+    /** Lazy and bounded: at most 'concurrency' results are in flight, closing the iterator cancels them */
+    public static <T, S> Sequence<S> mapConcurrently(final Iterable<? extends T> iterable, final Callable1<? super T, ? extends S> callable, final Executor executor, final int concurrency) {
+        return new Sequence<S>() {
+            @Override
+            public Iterator<S> iterator() {
+                return new ConcurrentMapIterator<T, S>(iterable.iterator(), callable, executor, concurrency, true);
+            }
+        };
+    }
+
+    public static <T, S> Sequence<S> mapConcurrentlyUnordered(final Iterable<? extends T> iterable, final Callable1<? super T, ? extends S> callable, final int concurrency) {
+        return mapConcurrentlyUnordered(iterable, callable, Callers.sharedExecutor(), concurrency);
+    }
+
+    /** Like the bounded mapConcurrently but yields results as they complete */
+    public static <T, S> Sequence<S> mapConcurrentlyUnordered(final Iterable<? extends T> iterable, final Callable1<? super T, ? extends S> callable, final Executor executor, final int concurrency) {
+        return new Sequence<S>() {
+            @Override
+            public Iterator<S> iterator() {
+                return new ConcurrentMapIterator<T, S>(iterable.iterator(), callable, executor, concurrency, false);
+            }
+        };
+    }
+
     public static <T, K> Sequence<Group<K, T>> groupBy(final Iterable<? extends T> iterable, final Callable1<? super T, ? extends K> callable) {
         return Iterators.groupBy(iterable.iterator(), callable);
     }
 
+    public static <T, K, R> Sequence<Pair<K, R>> aggregateBy(final Iterable<? extends T> iterable, final Callable1<? super T, ? extends K> key, final Reducer<? super T, R> reducer) {
+        return HashAggregate.<T, K, R>hashAggregate(key, reducer).aggregate(iterable);
+    }
+
+    public static <T, K, R> Sequence<Pair<K, R>> aggregateBy(final Iterable<? extends T> iterable, final Callable1<? super T, ? extends K> key, final ReducerCombiner<? super T, R> reducer, final int maxKeys, final Serializer<K> keys, final Serializer<R> values) {
+        return HashAggregate.hashAggregate(key, reducer, maxKeys, keys, values).aggregate(iterable);
+    }
+
     public static boolean equalTo(Iterable<?> iterable, Iterable<?> other) {
         return Iterators.equalsTo(iterable.iterator(), other.iterator());
     }
@@ -805,6 +870,50 @@ public class Sequences {
         });
     }
 
+    /** Inner hash join: build is read into a table when iteration starts, probe is streamed through it */
+    public static <T, S, K> Sequence<Pair<T, S>> join(final Iterable<? extends T> probe, final Iterable<? extends S> build, final Callable1<? super T, ? extends K> probeKey, final Callable1<? super S, ? extends K> buildKey) {
+        return new Sequence<Pair<T, S>>() {
+            @Override
+            public Iterator<Pair<T, S>> iterator() {
+                return Iterators.join(probe.iterator(), build.iterator(), probeKey, buildKey);
+            }
+        };
+    }
+
+    /** The probe elements with at least one match in build, each returned once */
+    public static <T, S, K> Sequence<T> semiJoin(final Iterable<? extends T> probe, final Iterable<? extends S> build, final Callable1<? super T, ? extends K> probeKey, final Callable1<? super S, ? extends K> buildKey) {
+        return new Sequence<T>() {
+            @Override
+            public Iterator<T> iterator() {
+                return Iterators.semiJoin(probe.iterator(), build.iterator(), probeKey, buildKey);
+            }
+        };
+    }
+
+    /** The probe elements with no match in build */
+    public static <T, S, K> Sequence<T> antiJoin(final Iterable<? extends T> probe, final Iterable<? extends S> build, final Callable1<? super T, ? extends K> probeKey, final Callable1<? super S, ? extends K> buildKey) {
+        return new Sequence<T>() {
+            @Override
+            public Iterator<T> iterator() {
+                return Iterators.antiJoin(probe.iterator(), build.iterator(), probeKey, buildKey);
+            }
+        };
+    }
+
+    public static <T, S, K extends Comparable<? super K>> Sequence<Pair<T, S>> mergeJoin(final Iterable<? extends T> left, final Iterable<? extends S> right, final Callable1<? super T, ? extends K> leftKey, final Callable1<? super S, ? extends K> rightKey) {
+        return mergeJoin(left, right, leftKey, rightKey, Comparators.<K>ascending());
+    }
+
+    /** Inner join of two sequences already sorted by key with the comparator, reading both lazily */
+    public static <T, S, K> Sequence<Pair<T, S>> mergeJoin(final Iterable<? extends T> left, final Iterable<? extends S> right, final Callable1<? super T, ? extends K> leftKey, final Callable1<? super S, ? extends K> rightKey, final Comparator<? super K> comparator) {
+        return new Sequence<Pair<T, S>>() {
+            @Override
+            public Iterator<Pair<T, S>> iterator() {
+                return Iterators.mergeJoin(left.iterator(), right.iterator(), leftKey, rightKey, comparator);
+            }
+        };
+    }
+
     public static <T> Sequence<Sequence<T>> windowed(final Iterable<? extends T> sequence, final int size) {
         return new Sequence<Sequence<T>>() {
             @Override
@@ -814,6 +923,26 @@ public class Sequences {
         };
     }
 
+    /** Full windows of size elements, starting every step elements */
+    public static <T> Sequence<Sequence<T>> sliding(final Iterable<? extends T> sequence, final int size, final int step) {
+        return new Sequence<Sequence<T>>() {
+            @Override
+            public Iterator<Sequence<T>> iterator() {
+                return Iterators.<T>sliding(sequence.iterator(), size, step);
+            }
+        };
+    }
+
+    /** Consecutive chunks of size elements, the last one holding whatever is left */
+    public static <T> Sequence<Sequence<T>> grouped(final Iterable<? extends T> sequence, final int size) {
+        return new Sequence<Sequence<T>>() {
+            @Override
+            public Iterator<Sequence<T>> iterator() {
+                return Iterators.<T>grouped(sequence.iterator(), size);
+            }
+        };
+    }
+
     public static <T> Sequence<T> intersperse(final Iterable<? extends T> iterable, final T separator) {
         return new Sequence<T>() {
             @Override
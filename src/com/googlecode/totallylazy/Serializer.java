@@ -0,0 +1,61 @@
+package com.googlecode.totallylazy;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+
+import static com.googlecode.totallylazy.Unchecked.cast;
+
+/**
+ * Writes values to and reads them back from a stream, one after another.
+ * Used when values have to leave the heap, such as the runs of an external sort.
+ */
+public interface Serializer<T> {
+    void write(T value, DataOutputStream output) throws IOException;
+
+    T read(DataInputStream input) throws IOException;
+
+    class constructors {
+        public static Serializer<String> strings() {
+            return new Serializer<String>() {
+                @Override
+                public void write(String value, DataOutputStream output) throws IOException {
+                    byte[] bytes = value.getBytes(Strings.UTF8);
+                    output.writeInt(bytes.length);
+                    output.write(bytes);
+                }
+
+                @Override
+                public String read(DataInputStream input) throws IOException {
+                    byte[] bytes = new byte[input.readInt()];
+                    input.readFully(bytes);
+                    return new String(bytes, Strings.UTF8);
+                }
+            };
+        }
+
+        /** Java serialization, one object stream per value so nothing is retained between values */
+        public static <T extends Serializable> Serializer<T> serializable() {
+            return new Serializer<T>() {
+                @Override
+                public void write(T value, DataOutputStream output) throws IOException {
+                    ObjectOutputStream objects = new ObjectOutputStream(output);
+                    objects.writeObject(value);
+                    objects.flush();
+                }
+
+                @Override
+                public T read(DataInputStream input) throws IOException {
+                    try {
+                        return cast(new ObjectInputStream(input).readObject());
+                    } catch (ClassNotFoundException e) {
+                        throw LazyException.lazyException(e);
+                    }
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.googlecode.totallylazy;
+
+import com.googlecode.totallylazy.collections.TreeMap;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.RandomAccess;
+
+import static com.googlecode.totallylazy.Pair.pair;
+import static com.googlecode.totallylazy.Unchecked.cast;
+
+/**
+ * An Iterable of known size that can be cut into two ordered halves, used to hand chunks of work to a ForkJoinPool.
+ */
+public interface Splittable<T> extends Iterable<T> {
+    int size();
+
+    /** Only called when size() > 1, both halves are non empty and iterating left then right keeps the original order */
+    Pair<? extends Splittable<T>, ? extends Splittable<T>> split();
+
+    class constructors {
+        /** Uses the natural split of arrays, random access lists, ranges and trees, anything else is realised into a list first */
+        public static <T> Splittable<T> splittable(Iterable<? extends T> iterable) {
+            if (iterable instanceof Splittable) return cast(iterable);
+            if (iterable instanceof List && iterable instanceof RandomAccess) {
+                List<T> list = cast(iterable);
+                return slice(list, 0, list.size());
+            }
+            List<T> list = new ArrayList<T>();
+            for (T t : iterable) list.add(t);
+            return slice(list, 0, list.size());
+        }
+
+        public static <T> Splittable<T> slice(T[] array, int start, int end) {
+            return new ArraySequence<T>(array, start, end);
+        }
+
+        public static <T> Splittable<T> slice(List<T> list, int start, int end) {
+            return new ListSlice<T>(list, start, end);
+        }
+
+        public static <T> Splittable<T> join(Splittable<T> left, Splittable<T> right) {
+            return new Join<T>(left, right);
+        }
+
+        public static <K, V> Splittable<Pair<K, V>> tree(TreeMap<K, V> tree) {
+            return new Tree<K, V>(tree);
+        }
+
+        public static <A, B> Splittable<B> map(Splittable<A> splittable, Callable1<? super A, ? extends B> callable) {
+            return new Mapped<A, B>(splittable, callable);
+        }
+
+        private static class ListSlice<T> implements Splittable<T> {
+            private final List<T> list;
+            private final int start;
+            private final int end;
+
+            private ListSlice(List<T> list, int start, int end) {
+                this.list = list;
+                this.start = start;
+                this.end = end;
+            }
+
+            @Override
+            public int size() {
+                return end - start;
+            }
+
+            @Override
+            public Pair<? extends Splittable<T>, ? extends Splittable<T>> split() {
+                int middle = start + size() / 2;
+                return pair(slice(list, start, middle), slice(list, middle, end));
+            }
+
+            @Override
+            public Iterator<T> iterator() {
+                return list.subList(start, end).iterator();
+            }
+        }
+
+        private static class Join<T> implements Splittable<T> {
+            private final Splittable<T> left;
+            private final Splittable<T> right;
+
+            private Join(Splittable<T> left, Splittable<T> right) {
+                this.left = left;
+                this.right = right;
+            }
+
+            @Override
+            public int size() {
+                return left.size() + right.size();
+            }
+
+            @Override
+            public Pair<? extends Splittable<T>, ? extends Splittable<T>> split() {
+                return pair(left, right);
+            }
+
+            @Override
+            public Iterator<T> iterator() {
+                return Iterators.join(left.iterator(), right.iterator());
+            }
+        }
+
+        private static class Tree<K, V> implements Splittable<Pair<K, V>> {
+            private final TreeMap<K, V> tree;
+
+            private Tree(TreeMap<K, V> tree) {
+                this.tree = tree;
+            }
+
+            @Override
+            public int size() {
+                return tree.size();
+            }
+
+            @Override
+            public Pair<? extends Splittable<Pair<K, V>>, ? extends Splittable<Pair<K, V>>> split() {
+                Splittable<Pair<K, V>> root = ArraySequence.<Pair<K, V>>arraySequence(new Object[]{pair(tree.key(), tree.value())}, 0, 1);
+                if (tree.right().isEmpty()) return pair(tree(tree.left()), root);
+                if (tree.left().isEmpty()) return pair(root, tree(tree.right()));
+                return pair(join(tree(tree.left()), root), tree(tree.right()));
+            }
+
+            @Override
+            public Iterator<Pair<K, V>> iterator() {
+                return tree.iterator();
+            }
+        }
+
+        private static class Mapped<A, B> implements Splittable<B> {
+            private final Splittable<A> splittable;
+            private final Callable1<? super A, ? extends B> callable;
+
+            private Mapped(Splittable<A> splittable, Callable1<? super A, ? extends B> callable) {
+                this.splittable = splittable;
+                this.callable = callable;
+            }
+
+            @Override
+            public int size() {
+                return splittable.size();
+            }
+
+            @Override
+            public Pair<? extends Splittable<B>, ? extends Splittable<B>> split() {
+                Pair<? extends Splittable<A>, ? extends Splittable<A>> halves = splittable.split();
+                return pair(map(halves.first(), callable), map(halves.second(), callable));
+            }
+
+            @Override
+            public Iterator<B> iterator() {
+                return Iterators.map(splittable.iterator(), callable);
+            }
+        }
+    }
+}
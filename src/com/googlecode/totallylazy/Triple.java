@@ -2,28 +2,20 @@ package com.googlecode.totallylazy;
 
 import java.util.concurrent.Callable;
 
-import static com.googlecode.totallylazy.Functions.returns;
-import static com.googlecode.totallylazy.callables.LazyCallable.lazy;
-
-public class Triple<F, S, T> extends Pair<F, S> implements Third<T> {
-    private final Value<? extends T> third;
-
+/** Holds its values strictly like {@link Pair}, {@link LazyTriple} defers them */
+public abstract class Triple<F, S, T> extends Pair<F, S> implements Third<T> {
     public static <F, S, T> Triple<F, S, T> triple(final F first, final S second, final T third) {
-        return new Triple<F, S, T>(returns(first), returns(second), returns(third));
+        return new Strict<F, S, T>(first, second, third);
     }
 
     public static <F, S, T> Triple<F, S, T> triple(final Callable<? extends F> first, final Callable<? extends S> second, final Callable<? extends T> third) {
-        return new Triple<F, S, T>(first, second, third);
+        return LazyTriple.lazyTriple(first, second, third);
     }
 
-    protected Triple(final Callable<? extends F> first, final Callable<? extends S> second, final Callable<? extends T> third) {
-        super(first, second);
-        this.third = lazy(third);
+    protected Triple() {
     }
 
-    public final T third() {
-        return third.value();
-    }
+    public abstract T third();
 
     @Override
     public Sequence<Object> values() {
@@ -43,5 +35,30 @@ public class Triple<F, S, T> extends Pair<F, S> implements Third<T> {
         return Triple.triple(triple.second(), triple.third(), d);
     }
 
+    private static class Strict<F, S, T> extends Triple<F, S, T> {
+        private final F first;
+        private final S second;
+        private final T third;
+
+        private Strict(final F first, final S second, final T third) {
+            this.first = first;
+            this.second = second;
+            this.third = third;
+        }
 
+        @Override
+        public F first() {
+            return first;
+        }
+
+        @Override
+        public S second() {
+            return second;
+        }
+
+        @Override
+        public T third() {
+            return third;
+        }
+    }
 }
@@ -142,6 +142,13 @@ public interface AVLTree<K, V> extends TreeMap<K, V> {
             AVLTree<K, V> four = parent.right().left().right(five);
             return balanceRightRight(parent.right(four));
         }
+
+        /** Descends the taller tree until the heights are within one, so each level only needs a single rebalance */
+        static <K, V> AVLTree<K, V> join(Comparator<K> comparator, AVLTree<K, V> left, K key, V value, AVLTree<K, V> right) {
+            if (left.height() > right.height() + 1) return constructors.factory.create(comparator, left.key(), left.value(), left.left(), join(comparator, left.right(), key, value, right));
+            if (right.height() > left.height() + 1) return constructors.factory.create(comparator, right.key(), right.value(), join(comparator, left, key, value, right.left()), right.right());
+            return constructors.factory.create(comparator, key, value, left, right);
+        }
     }
 
     final class Empty<K, V> extends AbstractEmptyTreeMap<K, V, AVLTree<K, V>> implements AVLTree<K, V> {
@@ -189,5 +196,10 @@ public interface AVLTree<K, V> extends TreeMap<K, V> {
         public <NewV> AVLTree<K, NewV> map(Callable1<? super V, ? extends NewV> transformer) {
             return cast(TreeMap.methods.map(transformer, factory, this));
         }
+
+        @Override
+        protected AVLTree<K, V> join(AVLTree<K, V> left, K key, V value, AVLTree<K, V> right) {
+            return AVLTree.methods.join(comparator, left, key, value, right);
+        }
     }
 }
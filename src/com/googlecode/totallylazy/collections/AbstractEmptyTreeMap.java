@@ -28,6 +28,11 @@ public abstract class AbstractEmptyTreeMap<K, V, Self extends TreeMap<K, V>> ext
         this.comparator = comparator;
     }
 
+    @Override
+    public TransientSortedMap<K, V> asTransient() {
+        return new TransientTreeMap<K, V>(this);
+    }
+
     @Override
     public TreeFactory factory() {
         return treeFactory;
@@ -78,6 +83,51 @@ public abstract class AbstractEmptyTreeMap<K, V, Self extends TreeMap<K, V>> ext
         return cast(this);
     }
 
+    @Override
+    public Self subMap(K fromKey, K toKey) {
+        return cast(this);
+    }
+
+    @Override
+    public Self headMap(K toKey) {
+        return cast(this);
+    }
+
+    @Override
+    public Self tailMap(K fromKey) {
+        return cast(this);
+    }
+
+    @Override
+    public Option<Pair<K, V>> floor(K key) {
+        return none();
+    }
+
+    @Override
+    public Option<Pair<K, V>> ceiling(K key) {
+        return none();
+    }
+
+    @Override
+    public Option<Pair<K, V>> lower(K key) {
+        return none();
+    }
+
+    @Override
+    public Option<Pair<K, V>> higher(K key) {
+        return none();
+    }
+
+    @Override
+    public Sequence<Pair<K, V>> range(K fromKey, K toKey) {
+        return Sequences.empty();
+    }
+
+    @Override
+    public Sequence<Pair<K, V>> descending() {
+        return Sequences.empty();
+    }
+
     @Override
     public <S> S fold(S seed, Callable2<? super S, ? super Pair<K, V>, ? extends S> callable) {
         return seed;
@@ -33,6 +33,11 @@ public abstract class AbstractList<T> extends ReadOnlyList<T> implements Persist
         return ListZipper.zipper(this);
     }
 
+    @Override
+    public TransientList<T> asTransient() {
+        return TransientList.constructors.transientList(this);
+    }
+
     @Override
     public PersistentList<T> reverse() {
         return PersistentList.constructors.reverse(this);
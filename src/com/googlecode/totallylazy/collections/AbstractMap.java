@@ -28,6 +28,11 @@ public abstract class AbstractMap<K, V> extends ReadOnlyMap<K,V> implements Pers
         return AtomicMap.atomicMap(this);
     }
 
+    @Override
+    public TransientMap<K, V> asTransient() {
+        return TransientMap.constructors.transientMap(this);
+    }
+
     @Override
     public Sequence<Pair<K, V>> toSequence() {
         return Sequences.sequence(this);
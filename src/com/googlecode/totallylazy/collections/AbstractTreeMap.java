@@ -8,18 +8,25 @@ import com.googlecode.totallylazy.Pair;
 import com.googlecode.totallylazy.Predicate;
 import com.googlecode.totallylazy.Predicates;
 import com.googlecode.totallylazy.Segment;
+import com.googlecode.totallylazy.Sequence;
+import com.googlecode.totallylazy.Splittable;
 import com.googlecode.totallylazy.Unchecked;
+import com.googlecode.totallylazy.iterators.ReadOnlyIterator;
 import com.googlecode.totallylazy.predicates.LogicalPredicate;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.Deque;
 import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
 
 import static com.googlecode.totallylazy.Functions.call;
 import static com.googlecode.totallylazy.Option.some;
 import static com.googlecode.totallylazy.Unchecked.cast;
 
-public abstract class AbstractTreeMap<K, V, Self extends TreeMap<K, V>> extends AbstractMap<K,V> implements TreeMap<K, V> {
+public abstract class AbstractTreeMap<K, V, Self extends TreeMap<K, V>> extends AbstractMap<K,V> implements TreeMap<K, V>, Splittable<Pair<K, V>> {
     protected final Comparator<K> comparator;
     protected final K key;
     protected final V value;
@@ -38,6 +45,16 @@ public abstract class AbstractTreeMap<K, V, Self extends TreeMap<K, V>> extends
         size = left.size() + right.size() + 1;
     }
 
+    @Override
+    public Pair<? extends Splittable<Pair<K, V>>, ? extends Splittable<Pair<K, V>>> split() {
+        return Splittable.constructors.tree(this).split();
+    }
+
+    @Override
+    public TransientSortedMap<K, V> asTransient() {
+        return new TransientTreeMap<K, V>(this);
+    }
+
     @Override
     public TreeFactory factory() {
         return factory;
@@ -121,11 +138,36 @@ public abstract class AbstractTreeMap<K, V, Self extends TreeMap<K, V>> extends
         return left;
     }
 
+    /** Bulk loads the surviving entries into a balanced tree in O(n) */
     @Override
     public Self filter(Predicate<? super Pair<K, V>> predicate) {
-        if (predicate.matches(pair()))
-            return create(comparator, key, value, left.filter(predicate), right.filter(predicate));
-        return left.filter(predicate).joinTo(self(right.filter(predicate)));
+        List<Pair<K, V>> kept = new ArrayList<Pair<K, V>>();
+        for (Pair<K, V> pair : this) if (predicate.matches(pair)) kept.add(pair);
+        if (kept.size() == size) return self(this);
+        return self(TreeMap.methods.treeMap(factory, comparator, kept));
+    }
+
+    @Override
+    public Self subMap(final K fromKey, final K toKey) {
+        return cast(tailMap(fromKey).headMap(toKey));
+    }
+
+    /** Only rebuilds the nodes on the path to toKey, every subtree wholly inside the range is shared */
+    @Override
+    public Self headMap(final K toKey) {
+        if (comparator.compare(key, toKey) >= 0) return cast(left.headMap(toKey));
+        Self newRight = cast(right.headMap(toKey));
+        if (newRight == right) return self(this);
+        return join(left, key, value, newRight);
+    }
+
+    /** Only rebuilds the nodes on the path to fromKey, every subtree wholly inside the range is shared */
+    @Override
+    public Self tailMap(final K fromKey) {
+        if (comparator.compare(key, fromKey) < 0) return cast(right.tailMap(fromKey));
+        Self newLeft = cast(left.tailMap(fromKey));
+        if (newLeft == left) return self(this);
+        return join(newLeft, key, value, right);
     }
 
     @Override
@@ -138,6 +180,60 @@ public abstract class AbstractTreeMap<K, V, Self extends TreeMap<K, V>> extends
         return filter(Predicates.<V>second(predicate));
     }
 
+    @Override
+    public Option<Pair<K, V>> floor(K key) {
+        return closest(key, true, true);
+    }
+
+    @Override
+    public Option<Pair<K, V>> ceiling(K key) {
+        return closest(key, false, true);
+    }
+
+    @Override
+    public Option<Pair<K, V>> lower(K key) {
+        return closest(key, true, false);
+    }
+
+    @Override
+    public Option<Pair<K, V>> higher(K key) {
+        return closest(key, false, false);
+    }
+
+    /** Remembers the last node passed on the wanted side of key while descending towards it */
+    private Option<Pair<K, V>> closest(K key, boolean below, boolean inclusive) {
+        TreeMap<K, V> closest = null;
+        for (TreeMap<K, V> node = this; !node.isEmpty(); ) {
+            int difference = comparator.compare(key, node.key());
+            if (difference == 0 && inclusive) return some(Pair.pair(node.key(), node.value()));
+            if (below ? difference > 0 : difference < 0) {
+                closest = node;
+                node = below ? node.right() : node.left();
+            } else node = below ? node.left() : node.right();
+        }
+        return closest == null ? Option.<Pair<K, V>>none() : some(Pair.pair(closest.key(), closest.value()));
+    }
+
+    @Override
+    public Sequence<Pair<K, V>> range(final K fromKey, final K toKey) {
+        return new Sequence<Pair<K, V>>() {
+            @Override
+            public Iterator<Pair<K, V>> iterator() {
+                return new Path<K, V>(AbstractTreeMap.this, false).seek(comparator, fromKey);
+            }
+        }.takeWhile(pair -> comparator.compare(pair.first(), toKey) < 0);
+    }
+
+    @Override
+    public Sequence<Pair<K, V>> descending() {
+        return new Sequence<Pair<K, V>>() {
+            @Override
+            public Iterator<Pair<K, V>> iterator() {
+                return new Path<K, V>(AbstractTreeMap.this, true);
+            }
+        };
+    }
+
     @Override
     public <S> S fold(S seed, Callable2<? super S, ? super Pair<K, V>, ? extends S> callable) {
         return right.fold(left.fold(Functions.call(callable, seed, pair()), callable), callable);
@@ -289,8 +385,53 @@ public abstract class AbstractTreeMap<K, V, Self extends TreeMap<K, V>> extends
         return cast(treeMap);
     }
 
+    /** Joins trees whose keys are all less than and all greater than key; balanced trees override this to rebalance */
+    protected Self join(Self left, K key, V value, Self right) {
+        return create(comparator, key, value, left, right);
+    }
+
     protected Self create(Comparator<K> comparator, K key, V value, TreeMap<K, V> left, TreeMap<K, V> right) {
         return self(factory.create(comparator, key, value, left, right));
     }
 
-}
\ No newline at end of file
+    /** The nodes still to visit on the way back up, so iteration can start from any key in O(log n) */
+    private static final class Path<K, V> extends ReadOnlyIterator<Pair<K, V>> {
+        private final Deque<TreeMap<K, V>> stack = new ArrayDeque<TreeMap<K, V>>();
+        private final TreeMap<K, V> root;
+        private final boolean descending;
+
+        private Path(TreeMap<K, V> root, boolean descending) {
+            this.root = root;
+            this.descending = descending;
+            push(root);
+        }
+
+        private void push(TreeMap<K, V> node) {
+            for (; !node.isEmpty(); node = descending ? node.right() : node.left()) stack.push(node);
+        }
+
+        private Path<K, V> seek(Comparator<K> comparator, K key) {
+            stack.clear();
+            for (TreeMap<K, V> node = root; !node.isEmpty(); ) {
+                if (comparator.compare(node.key(), key) >= 0) {
+                    stack.push(node);
+                    node = node.left();
+                } else node = node.right();
+            }
+            return this;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !stack.isEmpty();
+        }
+
+        @Override
+        public Pair<K, V> next() {
+            if (stack.isEmpty()) throw new NoSuchElementException();
+            TreeMap<K, V> node = stack.pop();
+            push(descending ? node.left() : node.right());
+            return Pair.pair(node.key(), node.value());
+        }
+    }
+}
@@ -0,0 +1,476 @@
+package com.googlecode.totallylazy.collections;
+
+import com.googlecode.totallylazy.Callable1;
+import com.googlecode.totallylazy.Callable2;
+import com.googlecode.totallylazy.Option;
+import com.googlecode.totallylazy.Pair;
+import com.googlecode.totallylazy.Predicate;
+import com.googlecode.totallylazy.Predicates;
+import com.googlecode.totallylazy.Sequence;
+import com.googlecode.totallylazy.Sequences;
+import com.googlecode.totallylazy.Unchecked;
+import com.googlecode.totallylazy.annotations.multimethod;
+import com.googlecode.totallylazy.iterators.ReadOnlyIterator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import static com.googlecode.totallylazy.Callers.call;
+import static com.googlecode.totallylazy.Unchecked.cast;
+
+/**
+ * A PersistentSortedMap for a handful of entries, keys and values are kept in two sorted arrays and found with a
+ * binary search. Inserting past {@link #THRESHOLD} entries promotes the map to a {@link CompactAVLTree}.
+ */
+public class ArraySortedMap<K, V> extends AbstractMap<K, V> implements PersistentSortedMap<K, V> {
+    public static final int THRESHOLD = 16;
+    private static final Object[] EMPTY = new Object[0];
+    private final Comparator<K> comparator;
+    private final Object[] keys;
+    private final Object[] values;
+
+    private ArraySortedMap(Comparator<K> comparator, Object[] keys, Object[] values) {
+        this.comparator = comparator;
+        this.keys = keys;
+        this.values = values;
+    }
+
+    public static <K, V> ArraySortedMap<K, V> arraySortedMap(Comparator<K> comparator) {
+        return new ArraySortedMap<K, V>(comparator, EMPTY, EMPTY);
+    }
+
+    /** Uses arrays up to the threshold and a CompactAVLTree above it, the pairs must already be sorted by key without duplicates */
+    public static <K, V> PersistentSortedMap<K, V> sortedMap(Comparator<K> comparator, List<Pair<K, V>> sortedList) {
+        int size = sortedList.size();
+        if (size > THRESHOLD) return CompactAVLTree.constructors.compactAVLTree(comparator, sortedList);
+        if (size == 0) return arraySortedMap(comparator);
+        Object[] keys = new Object[size];
+        Object[] values = new Object[size];
+        for (int i = 0; i < size; i++) {
+            Pair<K, V> pair = sortedList.get(i);
+            keys[i] = pair.first();
+            values[i] = pair.second();
+        }
+        return new ArraySortedMap<K, V>(comparator, keys, values);
+    }
+
+    @Override
+    public Comparator<K> comparator() {
+        return comparator;
+    }
+
+    private K key(int index) {
+        return cast(keys[index]);
+    }
+
+    private V value(int index) {
+        return cast(values[index]);
+    }
+
+    private Pair<K, V> pair(int index) {
+        return Pair.pair(key(index), value(index));
+    }
+
+    /** The index of the first key greater than or equal to key */
+    private int position(K key) {
+        int index = search(key);
+        return index < 0 ? -(index + 1) : index;
+    }
+
+    /** Same contract as Arrays.binarySearch: the index when found, otherwise -(insertion point) - 1 */
+    private int search(K key) {
+        int low = 0;
+        int high = keys.length - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int difference = comparator.compare(key(middle), key);
+            if (difference < 0) low = middle + 1;
+            else if (difference > 0) high = middle - 1;
+            else return middle;
+        }
+        return -(low + 1);
+    }
+
+    @Override
+    public Option<V> lookup(K key) {
+        int index = search(key);
+        if (index < 0) return Option.none();
+        return Option.option(value(index));
+    }
+
+    @Override
+    public V get(Object key) {
+        int index = search(Unchecked.<K>cast(key));
+        return index < 0 ? null : value(index);
+    }
+
+    @Override
+    public boolean contains(Object other) {
+        return search(Unchecked.<K>cast(other)) >= 0;
+    }
+
+    @Override
+    public boolean exists(Predicate<? super K> predicate) {
+        for (Object key : keys) if (predicate.matches(cast(key))) return true;
+        return false;
+    }
+
+    @Override
+    public PersistentSortedMap<K, V> insert(K key, V value) {
+        int index = search(key);
+        if (index >= 0) {
+            Object[] newValues = values.clone();
+            newValues[index] = value;
+            return new ArraySortedMap<K, V>(comparator, keys, newValues);
+        }
+        int position = -(index + 1);
+        if (keys.length == THRESHOLD) return promote(position, key, value);
+        return new ArraySortedMap<K, V>(comparator, inserted(keys, position, key), inserted(values, position, value));
+    }
+
+    private PersistentSortedMap<K, V> promote(int position, K key, V value) {
+        List<Pair<K, V>> pairs = new ArrayList<Pair<K, V>>(keys.length + 1);
+        for (int i = 0; i < keys.length; i++) {
+            if (i == position) pairs.add(Pair.pair(key, value));
+            pairs.add(pair(i));
+        }
+        if (position == keys.length) pairs.add(Pair.pair(key, value));
+        return CompactAVLTree.constructors.compactAVLTree(comparator, pairs);
+    }
+
+    private static Object[] inserted(Object[] array, int position, Object value) {
+        Object[] result = new Object[array.length + 1];
+        System.arraycopy(array, 0, result, 0, position);
+        result[position] = value;
+        System.arraycopy(array, position, result, position + 1, array.length - position);
+        return result;
+    }
+
+    private static Object[] removed(Object[] array, int position) {
+        if (array.length == 1) return EMPTY;
+        Object[] result = new Object[array.length - 1];
+        System.arraycopy(array, 0, result, 0, position);
+        System.arraycopy(array, position + 1, result, position, array.length - position - 1);
+        return result;
+    }
+
+    @Override
+    public ArraySortedMap<K, V> delete(K key) {
+        int index = search(key);
+        if (index < 0) return this;
+        return removed(index);
+    }
+
+    private ArraySortedMap<K, V> removed(int index) {
+        return new ArraySortedMap<K, V>(comparator, removed(keys, index), removed(values, index));
+    }
+
+    @Override
+    public ArraySortedMap<K, V> filter(Predicate<? super Pair<K, V>> predicate) {
+        Object[] newKeys = new Object[keys.length];
+        Object[] newValues = new Object[values.length];
+        int size = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (!predicate.matches(pair(i))) continue;
+            newKeys[size] = keys[i];
+            newValues[size++] = values[i];
+        }
+        if (size == keys.length) return this;
+        if (size == 0) return empty();
+        return new ArraySortedMap<K, V>(comparator, Arrays.copyOf(newKeys, size), Arrays.copyOf(newValues, size));
+    }
+
+    @Override
+    public ArraySortedMap<K, V> subMap(K fromKey, K toKey) {
+        int from = position(fromKey);
+        return range(from, Math.max(from, position(toKey)));
+    }
+
+    @Override
+    public ArraySortedMap<K, V> headMap(K toKey) {
+        return range(0, position(toKey));
+    }
+
+    @Override
+    public ArraySortedMap<K, V> tailMap(K fromKey) {
+        return range(position(fromKey), keys.length);
+    }
+
+    private ArraySortedMap<K, V> range(int from, int to) {
+        if (from == 0 && to == keys.length) return this;
+        if (from == to) return empty();
+        return new ArraySortedMap<K, V>(comparator, Arrays.copyOfRange(keys, from, to), Arrays.copyOfRange(values, from, to));
+    }
+
+    @Override
+    public ArraySortedMap<K, V> filterKeys(Predicate<? super K> predicate) {
+        return filter(Predicates.<K>first(predicate));
+    }
+
+    @Override
+    public ArraySortedMap<K, V> filterValues(Predicate<? super V> predicate) {
+        return filter(Predicates.<V>second(predicate));
+    }
+
+    /** The keys are unchanged so the array is shared with the new map */
+    @Override
+    public <NewV> ArraySortedMap<K, NewV> map(Callable1<? super V, ? extends NewV> transformer) {
+        Object[] newValues = new Object[values.length];
+        for (int i = 0; i < values.length; i++) newValues[i] = call(transformer, value(i));
+        return new ArraySortedMap<K, NewV>(comparator, keys, newValues);
+    }
+
+    @Override
+    public <S> S fold(S seed, Callable2<? super S, ? super Pair<K, V>, ? extends S> callable) {
+        S result = seed;
+        for (int i = 0; i < keys.length; i++) result = call(callable, result, pair(i));
+        return result;
+    }
+
+    @Override
+    public Pair<K, V> first() throws NoSuchElementException {
+        if (isEmpty()) throw new NoSuchElementException();
+        return pair(0);
+    }
+
+    @Override
+    public Pair<K, V> last() throws NoSuchElementException {
+        if (isEmpty()) throw new NoSuchElementException();
+        return pair(keys.length - 1);
+    }
+
+    @Override
+    public Pair<ArraySortedMap<K, V>, Pair<K, V>> removeFirst() {
+        Pair<K, V> first = first();
+        return Pair.pair(removed(0), first);
+    }
+
+    @Override
+    public Pair<ArraySortedMap<K, V>, Pair<K, V>> removeLast() {
+        Pair<K, V> last = last();
+        return Pair.pair(removed(keys.length - 1), last);
+    }
+
+    @Override
+    public Pair<K, V> get(int i) throws IndexOutOfBoundsException {
+        if (i < 0 || i >= keys.length) throw new IndexOutOfBoundsException();
+        return pair(i);
+    }
+
+    @Override
+    public int indexOf(Object pair) {
+        int index = search(Unchecked.<Pair<K, V>>cast(pair).first());
+        return index < 0 ? -1 : index;
+    }
+
+    @Override
+    public ArraySortedMap<K, V> empty() {
+        return arraySortedMap(comparator);
+    }
+
+    @Override
+    public PersistentSortedMap<K, V> cons(Pair<K, V> head) {
+        return insert(head.first(), head.second());
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return keys.length == 0;
+    }
+
+    @Override
+    public int size() {
+        return keys.length;
+    }
+
+    /** The middle entry, matching the root of a tree bulk loaded from the same pairs */
+    @Override
+    public Pair<K, V> head() throws NoSuchElementException {
+        if (isEmpty()) throw new NoSuchElementException();
+        return pair(keys.length >>> 1);
+    }
+
+    @Override
+    public Option<Pair<K, V>> headOption() {
+        return isEmpty() ? Option.<Pair<K, V>>none() : Option.some(head());
+    }
+
+    @Override
+    public ArraySortedMap<K, V> tail() throws NoSuchElementException {
+        if (isEmpty()) throw new NoSuchElementException();
+        return removed(keys.length >>> 1);
+    }
+
+    @Override
+    public Sequence<K> keys() {
+        return Sequences.sequence(Unchecked.<K[]>cast(keys));
+    }
+
+    @Override
+    public Sequence<V> values() {
+        return Sequences.sequence(Unchecked.<V[]>cast(values));
+    }
+
+    @Override
+    public Option<Pair<K, V>> floor(K key) {
+        int index = search(key);
+        return entry(index < 0 ? -(index + 1) - 1 : index);
+    }
+
+    @Override
+    public Option<Pair<K, V>> ceiling(K key) {
+        return entry(position(key));
+    }
+
+    @Override
+    public Option<Pair<K, V>> lower(K key) {
+        return entry(position(key) - 1);
+    }
+
+    @Override
+    public Option<Pair<K, V>> higher(K key) {
+        int index = search(key);
+        return entry(index < 0 ? -(index + 1) : index + 1);
+    }
+
+    private Option<Pair<K, V>> entry(int index) {
+        return index < 0 || index >= keys.length ? Option.<Pair<K, V>>none() : Option.some(pair(index));
+    }
+
+    @Override
+    public Sequence<Pair<K, V>> range(final K fromKey, final K toKey) {
+        return new Sequence<Pair<K, V>>() {
+            @Override
+            public Iterator<Pair<K, V>> iterator() {
+                int from = position(fromKey);
+                return ArraySortedMap.this.iterator(from, Math.max(from, position(toKey)), 1);
+            }
+        };
+    }
+
+    @Override
+    public Sequence<Pair<K, V>> descending() {
+        return new Sequence<Pair<K, V>>() {
+            @Override
+            public Iterator<Pair<K, V>> iterator() {
+                return ArraySortedMap.this.iterator(keys.length - 1, -1, -1);
+            }
+        };
+    }
+
+    @Override
+    public Iterator<Pair<K, V>> iterator() {
+        return iterator(0, keys.length, 1);
+    }
+
+    private Iterator<Pair<K, V>> iterator(final int from, final int to, final int step) {
+        return new ReadOnlyIterator<Pair<K, V>>() {
+            private int index = from;
+
+            @Override
+            public boolean hasNext() {
+                return index != to;
+            }
+
+            @Override
+            public Pair<K, V> next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                Pair<K, V> pair = pair(index);
+                index += step;
+                return pair;
+            }
+        };
+    }
+
+    @Override
+    public TransientSortedMap<K, V> asTransient() {
+        return new Transient<K, V>(this);
+    }
+
+    @Override
+    public int hashCode() {
+        int hashCode = 0;
+        for (Pair<K, V> pair : this) hashCode += pair.hashCode();
+        return hashCode;
+    }
+
+    @multimethod
+    public boolean equals(ArraySortedMap<K, V> other) {
+        return Arrays.equals(keys, other.keys) && Arrays.equals(values, other.values);
+    }
+
+    @multimethod
+    public boolean equals(CompactAVLTree<K, V> other) {
+        return other.equals(this);
+    }
+
+    @Override
+    public String toString() {
+        return toSequence().toString("");
+    }
+
+    /** Buffers changes in a mutable sorted map, persistent() picks arrays or a tree depending on the final size */
+    private static class Transient<K, V> implements TransientSortedMap<K, V> {
+        private final Comparator<K> comparator;
+        private java.util.TreeMap<K, V> map;
+
+        private Transient(ArraySortedMap<K, V> original) {
+            comparator = original.comparator;
+            map = new java.util.TreeMap<K, V>(comparator);
+            for (int i = 0; i < original.keys.length; i++) map.put(original.key(i), original.value(i));
+        }
+
+        @Override
+        public TransientSortedMap<K, V> insert(K key, V value) {
+            map().put(key, value);
+            return this;
+        }
+
+        @Override
+        public TransientSortedMap<K, V> insertAll(Iterable<? extends Pair<? extends K, ? extends V>> pairs) {
+            for (Pair<? extends K, ? extends V> pair : pairs) insert(pair.first(), pair.second());
+            return this;
+        }
+
+        @Override
+        public TransientSortedMap<K, V> delete(K key) {
+            map().remove(key);
+            return this;
+        }
+
+        @Override
+        public Option<V> lookup(K key) {
+            java.util.TreeMap<K, V> map = map();
+            return map.containsKey(key) ? Option.option(map.get(key)) : Option.<V>none();
+        }
+
+        @Override
+        public boolean contains(Object key) {
+            return map().containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            return map().size();
+        }
+
+        @Override
+        public PersistentSortedMap<K, V> persistent() {
+            java.util.TreeMap<K, V> map = map();
+            this.map = null;
+            List<Pair<K, V>> pairs = new ArrayList<Pair<K, V>>(map.size());
+            for (Map.Entry<K, V> entry : map.entrySet()) pairs.add(Pair.pair(entry.getKey(), entry.getValue()));
+            return sortedMap(comparator, pairs);
+        }
+
+        private java.util.TreeMap<K, V> map() {
+            if (map == null) throw new IllegalStateException("Transient used after persistent()");
+            return map;
+        }
+    }
+}
@@ -5,7 +5,6 @@ import com.googlecode.totallylazy.Mapper;
 import com.googlecode.totallylazy.Maps;
 import com.googlecode.totallylazy.Option;
 import com.googlecode.totallylazy.Pair;
-import com.googlecode.totallylazy.Segment;
 import com.googlecode.totallylazy.UnaryFunction;
 import com.googlecode.totallylazy.Unchecked;
 
@@ -77,7 +76,7 @@ public class AtomicMap<K, V> implements ConcurrentMap<K, V> {
         atomic.modify(new UnaryFunction<PersistentMap<K, V>>() {
             @Override
             public PersistentMap<K, V> call(PersistentMap<K, V> map) throws Exception {
-                return Maps.pairs(m).<Pair<K, V>>unsafeCast().fold(map, Segment.functions.<Pair<K, V>, PersistentMap<K, V>>cons());
+                return map.asTransient().insertAll(Maps.pairs(m)).persistent();
             }
         });
     }
@@ -0,0 +1,175 @@
+package com.googlecode.totallylazy.collections;
+
+import com.googlecode.totallylazy.Option;
+import com.googlecode.totallylazy.Predicate;
+import com.googlecode.totallylazy.Segment;
+import com.googlecode.totallylazy.Sequence;
+import com.googlecode.totallylazy.Unchecked;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import static com.googlecode.totallylazy.Unchecked.cast;
+
+/**
+ * Okasaki's banker's deque: a front list in order and a rear list in reverse, neither allowed to grow past
+ * three times the other (plus one). Once that breaks, both halves are rebuilt from the middle. So cons, tail,
+ * append and init are O(1) amortised, while size and reverse are O(1). join copies the shorter deque onto the
+ * longer one.
+ */
+public class BankersDeque<T> implements PersistentDeque<T> {
+    private static final int BALANCE = 3;
+    private static final BankersDeque<?> EMPTY = new BankersDeque<Object>(PersistentList.constructors.empty(), PersistentList.constructors.empty());
+    private final PersistentList<T> front;
+    private final PersistentList<T> rear;
+
+    private BankersDeque(PersistentList<T> front, PersistentList<T> rear) {
+        this.front = front;
+        this.rear = rear;
+    }
+
+    public static <T> BankersDeque<T> bankersDeque() {
+        return cast(EMPTY);
+    }
+
+    public static <T> BankersDeque<T> bankersDeque(Iterable<? extends T> values) {
+        PersistentList<T> reversed = PersistentList.constructors.empty();
+        for (T value : values) reversed = reversed.cons(value);
+        return balanced(PersistentList.constructors.<T>empty(), reversed);
+    }
+
+    @Override
+    public BankersDeque<T> empty() {
+        return bankersDeque();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return front.isEmpty() && rear.isEmpty();
+    }
+
+    @Override
+    public int size() {
+        return front.size() + rear.size();
+    }
+
+    @Override
+    public T head() throws NoSuchElementException {
+        if (front.isEmpty()) return rear.head();
+        return front.head();
+    }
+
+    @Override
+    public Option<T> headOption() {
+        return isEmpty() ? Option.<T>none() : Option.some(head());
+    }
+
+    @Override
+    public T last() throws NoSuchElementException {
+        if (rear.isEmpty()) return front.head();
+        return rear.head();
+    }
+
+    @Override
+    public Option<T> lastOption() {
+        return isEmpty() ? Option.<T>none() : Option.some(last());
+    }
+
+    @Override
+    public BankersDeque<T> cons(T head) {
+        return balanced(front.cons(head), rear);
+    }
+
+    @Override
+    public BankersDeque<T> append(T last) {
+        return balanced(front, rear.cons(last));
+    }
+
+    @Override
+    public BankersDeque<T> tail() throws NoSuchElementException {
+        if (front.isEmpty()) return balanced(front, rear.tail());
+        return balanced(front.tail(), rear);
+    }
+
+    @Override
+    public BankersDeque<T> init() throws NoSuchElementException {
+        if (rear.isEmpty()) return balanced(front.tail(), rear);
+        return balanced(front, rear.tail());
+    }
+
+    @Override
+    public BankersDeque<T> join(PersistentDeque<T> other) {
+        if (other.isEmpty()) return this;
+        if (isEmpty() && other instanceof BankersDeque) return (BankersDeque<T>) other;
+        if (other.size() <= size()) {
+            BankersDeque<T> result = this;
+            for (T value : other) result = result.append(value);
+            return result;
+        }
+        BankersDeque<T> result = other instanceof BankersDeque ? (BankersDeque<T>) other : bankersDeque(other);
+        for (T value : reverse()) result = result.cons(value);
+        return result;
+    }
+
+    @Override
+    public BankersDeque<T> reverse() {
+        return new BankersDeque<T>(rear, front);
+    }
+
+    @Override
+    public <C extends Segment<T>> C joinTo(C rest) {
+        return reverse().toSequence().joinTo(rest);
+    }
+
+    @Override
+    public boolean contains(Object other) {
+        return front.contains(other) || rear.contains(other);
+    }
+
+    @Override
+    public boolean exists(Predicate<? super T> predicate) {
+        return front.exists(predicate) || rear.exists(predicate);
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return toSequence().iterator();
+    }
+
+    @Override
+    public Sequence<T> toSequence() {
+        return front.toSequence().join(rear.toSequence().reverse());
+    }
+
+    @Override
+    public int hashCode() {
+        return toSequence().hashCode();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof BankersDeque && size() == ((BankersDeque) other).size() && toSequence().equals(((BankersDeque) other).toSequence());
+    }
+
+    @Override
+    public String toString() {
+        return toSequence().toString();
+    }
+
+    private static <T> BankersDeque<T> balanced(PersistentList<T> front, PersistentList<T> rear) {
+        int frontSize = front.size(), rearSize = rear.size();
+        if (frontSize <= BALANCE * rearSize + 1 && rearSize <= BALANCE * frontSize + 1) return new BankersDeque<T>(front, rear);
+        int size = frontSize + rearSize;
+        Object[] values = new Object[size];
+        int index = 0;
+        for (T value : front) values[index++] = value;
+        index = size;
+        for (T value : rear) values[--index] = value;
+        int half = size / 2;
+        PersistentList<T> newFront = PersistentList.constructors.empty();
+        for (int i = half - 1; i >= 0; i--) newFront = newFront.cons(Unchecked.<T>cast(values[i]));
+        PersistentList<T> newRear = PersistentList.constructors.empty();
+        for (int i = half; i < size; i++) newRear = newRear.cons(Unchecked.<T>cast(values[i]));
+        return new BankersDeque<T>(newFront, newRear);
+    }
+}
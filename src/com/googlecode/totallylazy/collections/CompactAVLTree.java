@@ -0,0 +1,629 @@
+package com.googlecode.totallylazy.collections;
+
+import com.googlecode.totallylazy.ArraySequence;
+import com.googlecode.totallylazy.Callable1;
+import com.googlecode.totallylazy.Callable2;
+import com.googlecode.totallylazy.Option;
+import com.googlecode.totallylazy.Pair;
+import com.googlecode.totallylazy.Predicate;
+import com.googlecode.totallylazy.Predicates;
+import com.googlecode.totallylazy.Sequence;
+import com.googlecode.totallylazy.Splittable;
+import com.googlecode.totallylazy.Unchecked;
+import com.googlecode.totallylazy.annotations.multimethod;
+import com.googlecode.totallylazy.comparators.Comparators;
+import com.googlecode.totallylazy.iterators.ReadOnlyIterator;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+import static com.googlecode.totallylazy.Callers.call;
+
+/**
+ * An AVL tree whose comparator is held once by this root wrapper, the nodes underneath only carry key, value,
+ * children, height and the subtree size needed by {@link Indexed}. Rebalancing builds the rotated nodes directly.
+ * It backs the sorted maps too large for {@link ArraySortedMap}, so filter and map hand small results back to arrays.
+ */
+public class CompactAVLTree<K, V> extends AbstractMap<K, V> implements PersistentSortedMap<K, V>, Splittable<Pair<K, V>> {
+    private final Comparator<K> comparator;
+    private final Node<K, V> root;
+
+    private CompactAVLTree(Comparator<K> comparator, Node<K, V> root) {
+        this.comparator = comparator;
+        this.root = root;
+    }
+
+    public static class constructors {
+        public static <K extends Comparable<? super K>, V> CompactAVLTree<K, V> compactAVLTree() {
+            return new CompactAVLTree<K, V>(Comparators.<K>ascending(), null);
+        }
+
+        public static <K extends Comparable<? super K>, V> CompactAVLTree<K, V> compactAVLTree(K key, V value) {
+            return new CompactAVLTree<K, V>(Comparators.<K>ascending(), new Node<K, V>(key, value, null, null));
+        }
+
+        /** Builds a balanced tree in O(n) from pairs already sorted by key without duplicates */
+        public static <K, V> CompactAVLTree<K, V> compactAVLTree(Comparator<K> comparator, List<Pair<K, V>> sortedList) {
+            List<Pair<K, V>> list = sortedList instanceof RandomAccess ? sortedList : new ArrayList<Pair<K, V>>(sortedList);
+            return new CompactAVLTree<K, V>(comparator, build(list, 0, list.size()));
+        }
+
+        public static <K, V> MapFactory<K, V, CompactAVLTree<K, V>> factory(final Comparator<K> comparator) {
+            return new AbstractMapFactory<K, V, CompactAVLTree<K, V>>() {
+                @Override
+                public CompactAVLTree<K, V> empty() {
+                    return new CompactAVLTree<K, V>(comparator, null);
+                }
+
+                @Override
+                public CompactAVLTree<K, V> map(Iterable<? extends Pair<K, V>> values) {
+                    return compactAVLTree(comparator, TreeMap.methods.sortedList(comparator, values));
+                }
+            };
+        }
+
+        public static <K extends Comparable<? super K>, V> MapFactory<K, V, CompactAVLTree<K, V>> factory() {
+            return factory(Comparators.<K>ascending());
+        }
+    }
+
+    private CompactAVLTree<K, V> tree(Node<K, V> node) {
+        return node == root ? this : new CompactAVLTree<K, V>(comparator, node);
+    }
+
+    private Node<K, V> node(K key) {
+        Node<K, V> node = root;
+        while (node != null) {
+            int difference = comparator.compare(key, node.key);
+            if (difference == 0) return node;
+            node = difference < 0 ? node.left : node.right;
+        }
+        return null;
+    }
+
+    @Override
+    public Option<V> lookup(K key) {
+        Node<K, V> node = node(key);
+        return node == null ? Option.<V>none() : Option.option(node.value);
+    }
+
+    @Override
+    public V get(Object key) {
+        Node<K, V> node = node(Unchecked.<K>cast(key));
+        return node == null ? null : node.value;
+    }
+
+    @Override
+    public boolean contains(Object other) {
+        return node(Unchecked.<K>cast(other)) != null;
+    }
+
+    @Override
+    public boolean exists(Predicate<? super K> predicate) {
+        for (Pair<K, V> pair : this) if (predicate.matches(pair.first())) return true;
+        return false;
+    }
+
+    @Override
+    public CompactAVLTree<K, V> insert(K key, V value) {
+        return tree(insert(comparator, root, key, value));
+    }
+
+    @Override
+    public CompactAVLTree<K, V> delete(K key) {
+        return tree(delete(comparator, root, key));
+    }
+
+    @Override
+    public CompactAVLTree<K, V> cons(Pair<K, V> head) {
+        return insert(head.first(), head.second());
+    }
+
+    @Override
+    public PersistentSortedMap<K, V> filter(Predicate<? super Pair<K, V>> predicate) {
+        List<Pair<K, V>> kept = new ArrayList<Pair<K, V>>();
+        for (Pair<K, V> pair : this) if (predicate.matches(pair)) kept.add(pair);
+        if (kept.size() == size()) return this;
+        return sortedMap(comparator, build(kept, 0, kept.size()));
+    }
+
+    @Override
+    public PersistentSortedMap<K, V> filterKeys(Predicate<? super K> predicate) {
+        return filter(Predicates.<K>first(predicate));
+    }
+
+    @Override
+    public PersistentSortedMap<K, V> filterValues(Predicate<? super V> predicate) {
+        return filter(Predicates.<V>second(predicate));
+    }
+
+    @Override
+    public <NewV> PersistentSortedMap<K, NewV> map(Callable1<? super V, ? extends NewV> transformer) {
+        return sortedMap(comparator, map(root, transformer));
+    }
+
+    @Override
+    public <S> S fold(S seed, Callable2<? super S, ? super Pair<K, V>, ? extends S> callable) {
+        S result = seed;
+        for (Pair<K, V> pair : this) result = call(callable, result, pair);
+        return result;
+    }
+
+    @Override
+    public Pair<K, V> first() throws NoSuchElementException {
+        if (root == null) throw new NoSuchElementException();
+        return first(root).pair();
+    }
+
+    @Override
+    public Pair<K, V> last() throws NoSuchElementException {
+        if (root == null) throw new NoSuchElementException();
+        return last(root).pair();
+    }
+
+    @Override
+    public Pair<CompactAVLTree<K, V>, Pair<K, V>> removeFirst() {
+        Pair<K, V> first = first();
+        return Pair.<CompactAVLTree<K, V>, Pair<K, V>>pair(tree(removeFirst(root)), first);
+    }
+
+    @Override
+    public Pair<CompactAVLTree<K, V>, Pair<K, V>> removeLast() {
+        Pair<K, V> last = last();
+        return Pair.<CompactAVLTree<K, V>, Pair<K, V>>pair(tree(removeLast(root)), last);
+    }
+
+    @Override
+    public Pair<K, V> get(int i) throws IndexOutOfBoundsException {
+        if (i < 0 || i >= size()) throw new IndexOutOfBoundsException();
+        Node<K, V> node = root;
+        while (true) {
+            int left = size(node.left);
+            if (i == left) return node.pair();
+            if (i < left) node = node.left;
+            else {
+                i -= left + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    @Override
+    public int indexOf(Object pair) {
+        K key = Unchecked.<Pair<K, V>>cast(pair).first();
+        int index = 0;
+        Node<K, V> node = root;
+        while (node != null) {
+            int difference = comparator.compare(key, node.key);
+            if (difference == 0) return index + size(node.left);
+            if (difference < 0) node = node.left;
+            else {
+                index += size(node.left) + 1;
+                node = node.right;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public CompactAVLTree<K, V> empty() {
+        return root == null ? this : new CompactAVLTree<K, V>(comparator, null);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    @Override
+    public int size() {
+        return size(root);
+    }
+
+    @Override
+    public Pair<K, V> head() throws NoSuchElementException {
+        if (root == null) throw new NoSuchElementException();
+        return root.pair();
+    }
+
+    @Override
+    public Option<Pair<K, V>> headOption() {
+        return root == null ? Option.<Pair<K, V>>none() : Option.some(root.pair());
+    }
+
+    @Override
+    public CompactAVLTree<K, V> tail() throws NoSuchElementException {
+        if (root == null) throw new NoSuchElementException();
+        return tree(concat(root.left, root.right));
+    }
+
+    @Override
+    public CompactAVLTree<K, V> subMap(K fromKey, K toKey) {
+        return tailMap(fromKey).headMap(toKey);
+    }
+
+    @Override
+    public CompactAVLTree<K, V> headMap(K toKey) {
+        return tree(split(comparator, root, toKey).left);
+    }
+
+    @Override
+    public CompactAVLTree<K, V> tailMap(K fromKey) {
+        Split<K, V> split = split(comparator, root, fromKey);
+        if (split.found == null) return tree(split.right);
+        return tree(join(null, split.found.key, split.found.value, split.right));
+    }
+
+    @Override
+    public Option<Pair<K, V>> floor(K key) {
+        return closest(key, true, true);
+    }
+
+    @Override
+    public Option<Pair<K, V>> ceiling(K key) {
+        return closest(key, false, true);
+    }
+
+    @Override
+    public Option<Pair<K, V>> lower(K key) {
+        return closest(key, true, false);
+    }
+
+    @Override
+    public Option<Pair<K, V>> higher(K key) {
+        return closest(key, false, false);
+    }
+
+    /** Remembers the last node passed on the wanted side of key while descending towards it */
+    private Option<Pair<K, V>> closest(K key, boolean below, boolean inclusive) {
+        Node<K, V> closest = null;
+        for (Node<K, V> node = root; node != null; ) {
+            int difference = comparator.compare(key, node.key);
+            if (difference == 0 && inclusive) return Option.some(node.pair());
+            if (below ? difference > 0 : difference < 0) {
+                closest = node;
+                node = below ? node.right : node.left;
+            } else node = below ? node.left : node.right;
+        }
+        return closest == null ? Option.<Pair<K, V>>none() : Option.some(closest.pair());
+    }
+
+    @Override
+    public Sequence<Pair<K, V>> range(final K fromKey, final K toKey) {
+        return new Sequence<Pair<K, V>>() {
+            @Override
+            public Iterator<Pair<K, V>> iterator() {
+                return new InOrder<K, V>(root, false).seek(comparator, root, fromKey);
+            }
+        }.takeWhile(pair -> comparator.compare(pair.first(), toKey) < 0);
+    }
+
+    @Override
+    public Sequence<Pair<K, V>> descending() {
+        return new Sequence<Pair<K, V>>() {
+            @Override
+            public Iterator<Pair<K, V>> iterator() {
+                return new InOrder<K, V>(root, true);
+            }
+        };
+    }
+
+    @Override
+    public Iterator<Pair<K, V>> iterator() {
+        return new InOrder<K, V>(root, false);
+    }
+
+    /** Bulk loads back through ArraySortedMap, so a transient that shrinks the map ends up as arrays */
+    @Override
+    public TransientSortedMap<K, V> asTransient() {
+        return new TransientTreeMap<K, V>(this, pairs -> ArraySortedMap.sortedMap(comparator, pairs));
+    }
+
+    /** The left subtree with the root entry and the right subtree */
+    @Override
+    public Pair<? extends Splittable<Pair<K, V>>, ? extends Splittable<Pair<K, V>>> split() {
+        Splittable<Pair<K, V>> middle = ArraySequence.<Pair<K, V>>arraySequence(new Object[]{root.pair()}, 0, 1);
+        if (root.right == null) return Pair.pair(tree(root.left), middle);
+        if (root.left == null) return Pair.pair(middle, tree(root.right));
+        return Pair.pair(Splittable.constructors.join(tree(root.left), middle), tree(root.right));
+    }
+
+    @Override
+    public Comparator<K> comparator() {
+        return comparator;
+    }
+
+    public int height() {
+        return height(root);
+    }
+
+    @Override
+    public int hashCode() {
+        int hashCode = 0;
+        for (Pair<K, V> pair : this) hashCode += pair.hashCode();
+        return hashCode;
+    }
+
+    @multimethod
+    public boolean equals(CompactAVLTree<K, V> other) {
+        return sameEntries(other);
+    }
+
+    /** Small maps start out as arrays, so equal to one holding the same entries */
+    @multimethod
+    public boolean equals(ArraySortedMap<K, V> other) {
+        return sameEntries(other);
+    }
+
+    private boolean sameEntries(PersistentSortedMap<K, V> other) {
+        if (size() != other.size()) return false;
+        Iterator<Pair<K, V>> others = other.iterator();
+        for (Pair<K, V> pair : this) if (!pair.equals(others.next())) return false;
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return toString(root);
+    }
+
+    private static String toString(Node<?, ?> node) {
+        if (node == null) return "";
+        return String.format("(%s %s=%s %s)", toString(node.left), node.key, node.value, toString(node.right));
+    }
+
+    private static int height(Node<?, ?> node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static int size(Node<?, ?> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    static <K, V> PersistentSortedMap<K, V> merge(PersistentSortedMap<K, V> left, PersistentSortedMap<K, V> right, Callable2<? super V, ? super V, ? extends V> combiner) {
+        Comparator<K> comparator = left.comparator();
+        return sortedMap(comparator, merge(comparator, nodes(left, comparator), nodes(right, comparator), combiner));
+    }
+
+    static <K, V> PersistentSortedMap<K, V> intersection(PersistentSortedMap<K, V> left, PersistentSortedMap<K, V> right) {
+        Comparator<K> comparator = left.comparator();
+        return sortedMap(comparator, intersection(comparator, nodes(left, comparator), nodes(right, comparator)));
+    }
+
+    static <K, V> PersistentSortedMap<K, V> difference(PersistentSortedMap<K, V> left, PersistentSortedMap<K, V> right) {
+        Comparator<K> comparator = left.comparator();
+        return sortedMap(comparator, difference(comparator, nodes(left, comparator), nodes(right, comparator)));
+    }
+
+    /** Other implementations are bulk loaded in O(n), or re-sorted when they use a different comparator */
+    private static <K, V> Node<K, V> nodes(PersistentSortedMap<K, V> map, Comparator<K> comparator) {
+        boolean sameOrder = map.comparator().equals(comparator);
+        if (map instanceof CompactAVLTree && sameOrder) return Unchecked.<CompactAVLTree<K, V>>cast(map).root;
+        List<Pair<K, V>> pairs = new ArrayList<Pair<K, V>>(map.size());
+        for (Pair<K, V> pair : map) pairs.add(pair);
+        if (!sameOrder) pairs = TreeMap.methods.sortedList(comparator, pairs);
+        return build(pairs, 0, pairs.size());
+    }
+
+    /** Small results go back to arrays like any other map of that size */
+    private static <K, V> PersistentSortedMap<K, V> sortedMap(Comparator<K> comparator, Node<K, V> root) {
+        if (size(root) > ArraySortedMap.THRESHOLD) return new CompactAVLTree<K, V>(comparator, root);
+        List<Pair<K, V>> pairs = new ArrayList<Pair<K, V>>(size(root));
+        for (Iterator<Pair<K, V>> iterator = new InOrder<K, V>(root, false); iterator.hasNext(); ) pairs.add(iterator.next());
+        return ArraySortedMap.sortedMap(comparator, pairs);
+    }
+
+    /** Splits the right tree around each left key, so subtrees only one side has are kept as they are */
+    private static <K, V> Node<K, V> merge(Comparator<K> comparator, Node<K, V> left, Node<K, V> right, Callable2<? super V, ? super V, ? extends V> combiner) {
+        if (left == null) return right;
+        if (right == null) return left;
+        Split<K, V> split = split(comparator, right, left.key);
+        Node<K, V> smaller = merge(comparator, left.left, split.left, combiner);
+        Node<K, V> larger = merge(comparator, left.right, split.right, combiner);
+        V value = split.found == null ? left.value : call(combiner, left.value, split.found.value);
+        return join(smaller, left.key, value, larger);
+    }
+
+    private static <K, V> Node<K, V> intersection(Comparator<K> comparator, Node<K, V> left, Node<K, V> right) {
+        if (left == null || right == null) return null;
+        Split<K, V> split = split(comparator, right, left.key);
+        Node<K, V> smaller = intersection(comparator, left.left, split.left);
+        Node<K, V> larger = intersection(comparator, left.right, split.right);
+        if (split.found == null) return concat(smaller, larger);
+        return join(smaller, left.key, left.value, larger);
+    }
+
+    private static <K, V> Node<K, V> difference(Comparator<K> comparator, Node<K, V> left, Node<K, V> right) {
+        if (left == null) return null;
+        if (right == null) return left;
+        Split<K, V> split = split(comparator, left, right.key);
+        return concat(difference(comparator, split.left, right.left), difference(comparator, split.right, right.right));
+    }
+
+    /** Rebuilds only the O(log n) nodes along the path to key, everything either side of it is shared */
+    private static <K, V> Split<K, V> split(Comparator<K> comparator, Node<K, V> node, K key) {
+        if (node == null) return new Split<K, V>(null, null, null);
+        int difference = comparator.compare(key, node.key);
+        if (difference == 0) return new Split<K, V>(node.left, node, node.right);
+        if (difference < 0) {
+            Split<K, V> split = split(comparator, node.left, key);
+            return new Split<K, V>(split.left, split.found, join(split.right, node.key, node.value, node.right));
+        }
+        Split<K, V> split = split(comparator, node.right, key);
+        return new Split<K, V>(join(node.left, node.key, node.value, split.left), split.found, split.right);
+    }
+
+    private static <K, V> Node<K, V> build(List<Pair<K, V>> sortedList, int from, int to) {
+        if (from == to) return null;
+        int middle = (from + to) >>> 1;
+        Pair<K, V> pair = sortedList.get(middle);
+        return new Node<K, V>(pair.first(), pair.second(), build(sortedList, from, middle), build(sortedList, middle + 1, to));
+    }
+
+    private static <K, V> Node<K, V> insert(Comparator<K> comparator, Node<K, V> node, K key, V value) {
+        if (node == null) return new Node<K, V>(key, value, null, null);
+        int difference = comparator.compare(key, node.key);
+        if (difference == 0) return node.value == value ? node : new Node<K, V>(key, value, node.left, node.right);
+        if (difference < 0) {
+            Node<K, V> left = insert(comparator, node.left, key, value);
+            return left == node.left ? node : balance(node.key, node.value, left, node.right);
+        }
+        Node<K, V> right = insert(comparator, node.right, key, value);
+        return right == node.right ? node : balance(node.key, node.value, node.left, right);
+    }
+
+    private static <K, V> Node<K, V> delete(Comparator<K> comparator, Node<K, V> node, K key) {
+        if (node == null) return null;
+        int difference = comparator.compare(key, node.key);
+        if (difference == 0) return concat(node.left, node.right);
+        if (difference < 0) {
+            Node<K, V> left = delete(comparator, node.left, key);
+            return left == node.left ? node : balance(node.key, node.value, left, node.right);
+        }
+        Node<K, V> right = delete(comparator, node.right, key);
+        return right == node.right ? node : balance(node.key, node.value, node.left, right);
+    }
+
+    private static <K, V> Node<K, V> first(Node<K, V> node) {
+        while (node.left != null) node = node.left;
+        return node;
+    }
+
+    private static <K, V> Node<K, V> last(Node<K, V> node) {
+        while (node.right != null) node = node.right;
+        return node;
+    }
+
+    private static <K, V> Node<K, V> removeFirst(Node<K, V> node) {
+        if (node.left == null) return node.right;
+        return balance(node.key, node.value, removeFirst(node.left), node.right);
+    }
+
+    private static <K, V> Node<K, V> removeLast(Node<K, V> node) {
+        if (node.right == null) return node.left;
+        return balance(node.key, node.value, node.left, removeLast(node.right));
+    }
+
+    private static <K, V, NewV> Node<K, NewV> map(Node<K, V> node, Callable1<? super V, ? extends NewV> transformer) {
+        if (node == null) return null;
+        return new Node<K, NewV>(node.key, call(transformer, node.value), map(node.left, transformer), map(node.right, transformer));
+    }
+
+    /** Joins two trees where every key on the left is less than every key on the right */
+    private static <K, V> Node<K, V> concat(Node<K, V> left, Node<K, V> right) {
+        if (left == null) return right;
+        if (right == null) return left;
+        Node<K, V> first = first(right);
+        return join(left, first.key, first.value, removeFirst(right));
+    }
+
+    /** Joins two trees of any height around a key that sits between them in O(|height difference|) */
+    private static <K, V> Node<K, V> join(Node<K, V> left, K key, V value, Node<K, V> right) {
+        int leftHeight = height(left);
+        int rightHeight = height(right);
+        if (leftHeight > rightHeight + 1) return balance(left.key, left.value, left.left, join(left.right, key, value, right));
+        if (rightHeight > leftHeight + 1) return balance(right.key, right.value, join(left, key, value, right.left), right.right);
+        return new Node<K, V>(key, value, left, right);
+    }
+
+    /** Children may differ in height by at most two, single and double rotations each allocate only the nodes they return */
+    private static <K, V> Node<K, V> balance(K key, V value, Node<K, V> left, Node<K, V> right) {
+        int difference = height(left) - height(right);
+        if (difference > 1) {
+            if (height(left.left) >= height(left.right))
+                return new Node<K, V>(left.key, left.value, left.left, new Node<K, V>(key, value, left.right, right));
+            Node<K, V> middle = left.right;
+            return new Node<K, V>(middle.key, middle.value, new Node<K, V>(left.key, left.value, left.left, middle.left), new Node<K, V>(key, value, middle.right, right));
+        }
+        if (difference < -1) {
+            if (height(right.right) >= height(right.left))
+                return new Node<K, V>(right.key, right.value, new Node<K, V>(key, value, left, right.left), right.right);
+            Node<K, V> middle = right.left;
+            return new Node<K, V>(middle.key, middle.value, new Node<K, V>(key, value, left, middle.left), new Node<K, V>(right.key, right.value, middle.right, right.right));
+        }
+        return new Node<K, V>(key, value, left, right);
+    }
+
+    private static final class Node<K, V> {
+        private final K key;
+        private final V value;
+        private final Node<K, V> left;
+        private final Node<K, V> right;
+        private final int height;
+        private final int size;
+
+        private Node(K key, V value, Node<K, V> left, Node<K, V> right) {
+            this.key = key;
+            this.value = value;
+            this.left = left;
+            this.right = right;
+            this.height = Math.max(height(left), height(right)) + 1;
+            this.size = size(left) + size(right) + 1;
+        }
+
+        private Pair<K, V> pair() {
+            return Pair.pair(key, value);
+        }
+    }
+
+    /** The keys less than and greater than a split key, and the node holding it if there was one */
+    private static final class Split<K, V> {
+        private final Node<K, V> left;
+        private final Node<K, V> found;
+        private final Node<K, V> right;
+
+        private Split(Node<K, V> left, Node<K, V> found, Node<K, V> right) {
+            this.left = left;
+            this.found = found;
+            this.right = right;
+        }
+    }
+
+    /** Keeps the path to the next node on a stack no deeper than the tree */
+    private static final class InOrder<K, V> extends ReadOnlyIterator<Pair<K, V>> {
+        private final Node<K, V>[] stack;
+        private final boolean descending;
+        private int depth;
+
+        private InOrder(Node<K, V> root, boolean descending) {
+            @SuppressWarnings("unchecked")
+            Node<K, V>[] stack = (Node<K, V>[]) new Node<?, ?>[height(root)];
+            this.stack = stack;
+            this.descending = descending;
+            push(root);
+        }
+
+        private void push(Node<K, V> node) {
+            for (; node != null; node = descending ? node.right : node.left) stack[depth++] = node;
+        }
+
+        /** Restarts from the least key greater than or equal to key, keeping only the ancestors still to come */
+        private InOrder<K, V> seek(Comparator<K> comparator, Node<K, V> root, K key) {
+            depth = 0;
+            for (Node<K, V> node = root; node != null; ) {
+                if (comparator.compare(node.key, key) >= 0) {
+                    stack[depth++] = node;
+                    node = node.left;
+                } else node = node.right;
+            }
+            return this;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return depth > 0;
+        }
+
+        @Override
+        public Pair<K, V> next() {
+            if (depth == 0) throw new NoSuchElementException();
+            Node<K, V> node = stack[--depth];
+            push(descending ? node.left : node.right);
+            return node.pair();
+        }
+    }
+}
@@ -39,6 +39,12 @@ public class HashTreeMap<K, V> extends AbstractMap<K, V> {
         return HashTreeMap.<K,V>factory().map(values);
     }
 
+    /** Buckets are still small persistent maps, but the tree of hashes underneath is updated in place */
+    @Override
+    public TransientMap<K, V> asTransient() {
+        return new Transient<K, V>(hash, size());
+    }
+
     @Override
     public PersistentMap<K, V> empty() {
         return hashTreeMap();
@@ -148,4 +154,66 @@ public class HashTreeMap<K, V> extends AbstractMap<K, V> {
     public String toString() {
         return toSequence().toString("");
     }
+
+    static class Transient<K, V> implements TransientMap<K, V> {
+        private final PersistentMap<K, V> emptyBucket = ListMap.<K, V>emptyListMap();
+        private final TransientSortedMap<Integer, PersistentMap<K, V>> hash;
+        private int size;
+
+        Transient(PersistentSortedMap<Integer, PersistentMap<K, V>> hash, int size) {
+            this.hash = hash.asTransient();
+            this.size = size;
+        }
+
+        @Override
+        public Transient<K, V> insert(K key, V value) {
+            int hashCode = key.hashCode();
+            PersistentMap<K, V> bucket = bucket(hashCode);
+            if (!bucket.contains(key)) size++;
+            hash.insert(hashCode, bucket.insert(key, value));
+            return this;
+        }
+
+        @Override
+        public Transient<K, V> insertAll(Iterable<? extends Pair<? extends K, ? extends V>> pairs) {
+            for (Pair<? extends K, ? extends V> pair : pairs) insert(pair.first(), pair.second());
+            return this;
+        }
+
+        @Override
+        public Transient<K, V> delete(K key) {
+            int hashCode = key.hashCode();
+            PersistentMap<K, V> existing = bucket(hashCode);
+            if (!existing.contains(key)) return this;
+            size--;
+            PersistentMap<K, V> bucket = existing.delete(key);
+            if (bucket.isEmpty()) hash.delete(hashCode);
+            else hash.insert(hashCode, bucket);
+            return this;
+        }
+
+        @Override
+        public Option<V> lookup(K key) {
+            return bucket(key.hashCode()).lookup(key);
+        }
+
+        @Override
+        public boolean contains(Object key) {
+            return hash.lookup(key.hashCode()).map(PersistentMap.functions.<K, V>contains(key)).getOrElse(false);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public HashTreeMap<K, V> persistent() {
+            return hashTreeMap(hash.persistent());
+        }
+
+        private PersistentMap<K, V> bucket(int hashCode) {
+            return hash.lookup(hashCode).getOrElse(emptyBucket);
+        }
+    }
 }
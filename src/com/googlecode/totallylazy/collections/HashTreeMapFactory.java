@@ -1,5 +1,7 @@
 package com.googlecode.totallylazy.collections;
 
+import com.googlecode.totallylazy.Pair;
+
 import static com.googlecode.totallylazy.Unchecked.cast;
 
 public class HashTreeMapFactory<K, V> extends AbstractMapFactory<K, V, HashTreeMap<K, V>> {
@@ -12,4 +14,9 @@ public class HashTreeMapFactory<K, V> extends AbstractMapFactory<K, V, HashTreeM
     public HashTreeMap<K, V> empty() {
         return HashTreeMap.hashTreeMap();
     }
+
+    @Override
+    public HashTreeMap<K, V> map(Iterable<? extends Pair<K, V>> values) {
+        return new HashTreeMap.Transient<K, V>(PersistentSortedMap.constructors.<Integer, PersistentMap<K, V>>sortedMap(), 0).insertAll(values).persistent();
+    }
 }
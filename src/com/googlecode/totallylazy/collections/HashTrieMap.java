@@ -0,0 +1,649 @@
+package com.googlecode.totallylazy.collections;
+
+import com.googlecode.totallylazy.Callable1;
+import com.googlecode.totallylazy.Callable2;
+import com.googlecode.totallylazy.Option;
+import com.googlecode.totallylazy.Pair;
+import com.googlecode.totallylazy.Predicate;
+import com.googlecode.totallylazy.Sequence;
+import com.googlecode.totallylazy.Unchecked;
+import com.googlecode.totallylazy.annotations.multimethod;
+import com.googlecode.totallylazy.iterators.StatefulIterator;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import static com.googlecode.totallylazy.Callers.call;
+import static com.googlecode.totallylazy.Unchecked.cast;
+
+/**
+ * A compressed hash array mapped trie (CHAMP): 32-way branching on 5 bits of the key's hash at each level,
+ * with keys and values stored inline in one array per node and a bitmap each for values and sub-nodes.
+ * Lookups are a handful of array reads, updates copy one path and share everything else.
+ * Nodes are kept canonical on delete so equal maps have the same shape.
+ */
+public class HashTrieMap<K, V> extends AbstractMap<K, V> {
+    private static final HashTrieMap<?, ?> EMPTY = new HashTrieMap<Object, Object>(BitmapNode.EMPTY, 0);
+    static final int BITS = 5;
+    static final int MASK = (1 << BITS) - 1;
+    static final int HASH_LENGTH = 32;
+    static final Object NOT_FOUND = new Object();
+    private final Node root;
+    private final int size;
+
+    private HashTrieMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    public static <K, V> HashTrieMapFactory<K, V> factory() {
+        return HashTrieMapFactory.factory();
+    }
+
+    public static <K, V> HashTrieMap<K, V> hashTrieMap() {
+        return cast(EMPTY);
+    }
+
+    public static <K, V> HashTrieMap<K, V> hashTrieMap(Iterable<? extends Pair<K, V>> values) {
+        return new Transient<K, V>(BitmapNode.EMPTY, 0).insertAll(values).persistent();
+    }
+
+    @Override
+    public HashTrieMap<K, V> empty() {
+        return hashTrieMap();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Pair<K, V> head() throws NoSuchElementException {
+        return iterator().next();
+    }
+
+    @Override
+    public Option<Pair<K, V>> headOption() {
+        return isEmpty() ? Option.<Pair<K, V>>none() : Option.some(head());
+    }
+
+    @Override
+    public HashTrieMap<K, V> cons(Pair<K, V> head) {
+        return insert(head.first(), head.second());
+    }
+
+    @Override
+    public HashTrieMap<K, V> tail() throws NoSuchElementException {
+        return delete(head().first());
+    }
+
+    @Override
+    public Option<V> lookup(K key) {
+        Object value = root.get(key, key.hashCode(), 0);
+        return value == NOT_FOUND ? Option.<V>none() : Option.option(Unchecked.<V>cast(value));
+    }
+
+    @Override
+    public V get(Object key) {
+        Object value = root.get(key, key.hashCode(), 0);
+        return value == NOT_FOUND ? null : Unchecked.<V>cast(value);
+    }
+
+    @Override
+    public boolean contains(Object other) {
+        return root.get(other, other.hashCode(), 0) != NOT_FOUND;
+    }
+
+    @Override
+    public HashTrieMap<K, V> insert(K key, V value) {
+        Change change = new Change();
+        Node newRoot = root.put(null, key, value, key.hashCode(), 0, change);
+        if (newRoot == root) return this;
+        return new HashTrieMap<K, V>(newRoot, change.sizeChanged ? size + 1 : size);
+    }
+
+    @Override
+    public HashTrieMap<K, V> delete(K key) {
+        Change change = new Change();
+        Node newRoot = root.remove(null, key, key.hashCode(), 0, change);
+        if (!change.sizeChanged) return this;
+        return new HashTrieMap<K, V>(newRoot, size - 1);
+    }
+
+    @Override
+    public TransientMap<K, V> asTransient() {
+        return new Transient<K, V>(root, size);
+    }
+
+    @Override
+    public HashTrieMap<K, V> filter(Predicate<? super Pair<K, V>> predicate) {
+        HashTrieMap<K, V> result = this;
+        for (Pair<K, V> pair : this) if (!predicate.matches(pair)) result = result.delete(pair.first());
+        return result;
+    }
+
+    @Override
+    public HashTrieMap<K, V> filterKeys(Predicate<? super K> predicate) {
+        HashTrieMap<K, V> result = this;
+        for (Pair<K, V> pair : this) if (!predicate.matches(pair.first())) result = result.delete(pair.first());
+        return result;
+    }
+
+    @Override
+    public HashTrieMap<K, V> filterValues(Predicate<? super V> predicate) {
+        HashTrieMap<K, V> result = this;
+        for (Pair<K, V> pair : this) if (!predicate.matches(pair.second())) result = result.delete(pair.first());
+        return result;
+    }
+
+    /** Keeps the shape of the trie as only the values change */
+    @Override
+    public <NewV> HashTrieMap<K, NewV> map(Callable1<? super V, ? extends NewV> transformer) {
+        return new HashTrieMap<K, NewV>(root.map(transformer), size);
+    }
+
+    @Override
+    public <S> S fold(S seed, Callable2<? super S, ? super Pair<K, V>, ? extends S> callable) {
+        S accumulator = seed;
+        for (Pair<K, V> pair : this) accumulator = call(callable, accumulator, pair);
+        return accumulator;
+    }
+
+    @Override
+    public boolean exists(Predicate<? super K> predicate) {
+        return keys().exists(predicate);
+    }
+
+    @Override
+    public Sequence<K> keys() {
+        return new Sequence<K>() {
+            @Override
+            public Iterator<K> iterator() {
+                return new EntryIterator<K>(root) {
+                    @Override
+                    K entry(Node node, int index) {
+                        return cast(node.key(index));
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public Sequence<V> values() {
+        return new Sequence<V>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new EntryIterator<V>(root) {
+                    @Override
+                    V entry(Node node, int index) {
+                        return cast(node.value(index));
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public Iterator<Pair<K, V>> iterator() {
+        return new EntryIterator<Pair<K, V>>(root) {
+            @Override
+            Pair<K, V> entry(Node node, int index) {
+                return Pair.pair(Unchecked.<K>cast(node.key(index)), Unchecked.<V>cast(node.value(index)));
+            }
+        };
+    }
+
+    /** Order independent as two equal maps only share iteration order when no hashes collide */
+    @Override
+    public int hashCode() {
+        int hashCode = 0;
+        for (Pair<K, V> pair : this) hashCode += pair.hashCode();
+        return hashCode;
+    }
+
+    @multimethod
+    public boolean equals(HashTrieMap<K, V> other) {
+        if (size != other.size) return false;
+        for (Pair<K, V> pair : this) {
+            Object value = other.root.get(pair.first(), pair.first().hashCode(), 0);
+            if (value == NOT_FOUND || !equal(value, pair.second())) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return toSequence().toString("");
+    }
+
+    static int index(int hash, int shift) {
+        return (hash >>> shift) & MASK;
+    }
+
+    static int bit(int index) {
+        return 1 << index;
+    }
+
+    static boolean equal(Object a, Object b) {
+        return a == b || (a != null && a.equals(b));
+    }
+
+    static class Change {
+        boolean sizeChanged;
+    }
+
+    /** Nodes created by a transient carry its edit token and are updated in place until it is made persistent */
+    static abstract class Node {
+        final Object edit;
+
+        Node(Object edit) {
+            this.edit = edit;
+        }
+
+        boolean ownedBy(Object edit) {
+            return edit != null && this.edit == edit;
+        }
+
+        abstract Object get(Object key, int hash, int shift);
+
+        abstract Node put(Object edit, Object key, Object value, int hash, int shift, Change change);
+
+        abstract Node remove(Object edit, Object key, int hash, int shift, Change change);
+
+        abstract Node map(Callable1<?, ?> transformer);
+
+        abstract int dataArity();
+
+        abstract Object key(int index);
+
+        abstract Object value(int index);
+
+        abstract int nodeArity();
+
+        abstract Node node(int index);
+    }
+
+    /** Entries are stored as [key0, value0, key1, value1, ..., nodeN, ..., node0] */
+    static final class BitmapNode extends Node {
+        static final BitmapNode EMPTY = new BitmapNode(null, 0, 0, new Object[0]);
+        private int dataMap;
+        private int nodeMap;
+        private Object[] content;
+
+        BitmapNode(Object edit, int dataMap, int nodeMap, Object[] content) {
+            super(edit);
+            this.dataMap = dataMap;
+            this.nodeMap = nodeMap;
+            this.content = content;
+        }
+
+        @Override
+        Object get(Object key, int hash, int shift) {
+            int bit = bit(index(hash, shift));
+            if ((dataMap & bit) != 0) {
+                int index = dataIndex(bit);
+                return key.equals(content[2 * index]) ? content[2 * index + 1] : NOT_FOUND;
+            }
+            if ((nodeMap & bit) != 0) return nodeAt(bit).get(key, hash, shift + BITS);
+            return NOT_FOUND;
+        }
+
+        @Override
+        Node put(Object edit, Object key, Object value, int hash, int shift, Change change) {
+            int bit = bit(index(hash, shift));
+            if ((dataMap & bit) != 0) {
+                int index = dataIndex(bit);
+                Object currentKey = content[2 * index];
+                if (key.equals(currentKey)) {
+                    if (content[2 * index + 1] == value) return this;
+                    return set(edit, 2 * index + 1, value);
+                }
+                change.sizeChanged = true;
+                Node node = merge(edit, currentKey, content[2 * index + 1], currentKey.hashCode(), key, value, hash, shift + BITS);
+                return migrateToNode(edit, bit, index, node);
+            }
+            if ((nodeMap & bit) != 0) {
+                Node current = nodeAt(bit);
+                Node node = current.put(edit, key, value, hash, shift + BITS, change);
+                return node == current ? this : set(edit, content.length - 1 - nodeIndex(bit), node);
+            }
+            change.sizeChanged = true;
+            return insertData(edit, bit, key, value);
+        }
+
+        @Override
+        Node remove(Object edit, Object key, int hash, int shift, Change change) {
+            int bit = bit(index(hash, shift));
+            if ((dataMap & bit) != 0) {
+                int index = dataIndex(bit);
+                if (!key.equals(content[2 * index])) return this;
+                change.sizeChanged = true;
+                return removeData(edit, bit, index);
+            }
+            if ((nodeMap & bit) != 0) {
+                Node current = nodeAt(bit);
+                Node node = current.remove(edit, key, hash, shift + BITS, change);
+                if (!change.sizeChanged) return this;
+                if (node.nodeArity() == 0 && node.dataArity() == 1) {
+                    if (dataMap == 0 && Integer.bitCount(nodeMap) == 1) return new BitmapNode(edit, bit, 0, new Object[]{node.key(0), node.value(0)});
+                    return migrateToData(edit, bit, node.key(0), node.value(0));
+                }
+                return node == current ? this : set(edit, content.length - 1 - nodeIndex(bit), node);
+            }
+            return this;
+        }
+
+        @Override
+        Node map(Callable1<?, ?> transformer) {
+            Object[] newContent = content.clone();
+            int data = 2 * dataArity();
+            for (int i = 1; i < data; i += 2) newContent[i] = call(Unchecked.<Callable1<Object, Object>>cast(transformer), content[i]);
+            for (int i = data; i < content.length; i++) newContent[i] = ((Node) content[i]).map(transformer);
+            return new BitmapNode(null, dataMap, nodeMap, newContent);
+        }
+
+        @Override
+        int dataArity() {
+            return Integer.bitCount(dataMap);
+        }
+
+        @Override
+        Object key(int index) {
+            return content[2 * index];
+        }
+
+        @Override
+        Object value(int index) {
+            return content[2 * index + 1];
+        }
+
+        @Override
+        int nodeArity() {
+            return Integer.bitCount(nodeMap);
+        }
+
+        @Override
+        Node node(int index) {
+            return (Node) content[content.length - 1 - index];
+        }
+
+        private int dataIndex(int bit) {
+            return Integer.bitCount(dataMap & (bit - 1));
+        }
+
+        private int nodeIndex(int bit) {
+            return Integer.bitCount(nodeMap & (bit - 1));
+        }
+
+        private Node nodeAt(int bit) {
+            return node(nodeIndex(bit));
+        }
+
+        private Node set(Object edit, int offset, Object value) {
+            if (ownedBy(edit)) {
+                content[offset] = value;
+                return this;
+            }
+            Object[] newContent = content.clone();
+            newContent[offset] = value;
+            return new BitmapNode(edit, dataMap, nodeMap, newContent);
+        }
+
+        private Node update(Object edit, int dataMap, int nodeMap, Object[] content) {
+            if (!ownedBy(edit)) return new BitmapNode(edit, dataMap, nodeMap, content);
+            this.dataMap = dataMap;
+            this.nodeMap = nodeMap;
+            this.content = content;
+            return this;
+        }
+
+        private Node insertData(Object edit, int bit, Object key, Object value) {
+            int offset = 2 * dataIndex(bit);
+            Object[] newContent = new Object[content.length + 2];
+            System.arraycopy(content, 0, newContent, 0, offset);
+            newContent[offset] = key;
+            newContent[offset + 1] = value;
+            System.arraycopy(content, offset, newContent, offset + 2, content.length - offset);
+            return update(edit, dataMap | bit, nodeMap, newContent);
+        }
+
+        private Node removeData(Object edit, int bit, int index) {
+            int offset = 2 * index;
+            Object[] newContent = new Object[content.length - 2];
+            System.arraycopy(content, 0, newContent, 0, offset);
+            System.arraycopy(content, offset + 2, newContent, offset, content.length - offset - 2);
+            return update(edit, dataMap ^ bit, nodeMap, newContent);
+        }
+
+        private Node migrateToNode(Object edit, int bit, int index, Node node) {
+            int oldOffset = 2 * index;
+            int newOffset = content.length - 2 - nodeIndex(bit);
+            Object[] newContent = new Object[content.length - 1];
+            System.arraycopy(content, 0, newContent, 0, oldOffset);
+            System.arraycopy(content, oldOffset + 2, newContent, oldOffset, newOffset - oldOffset);
+            newContent[newOffset] = node;
+            System.arraycopy(content, newOffset + 2, newContent, newOffset + 1, content.length - newOffset - 2);
+            return update(edit, dataMap ^ bit, nodeMap | bit, newContent);
+        }
+
+        private Node migrateToData(Object edit, int bit, Object key, Object value) {
+            int oldOffset = content.length - 1 - nodeIndex(bit);
+            int newOffset = 2 * dataIndex(bit);
+            Object[] newContent = new Object[content.length + 1];
+            System.arraycopy(content, 0, newContent, 0, newOffset);
+            newContent[newOffset] = key;
+            newContent[newOffset + 1] = value;
+            System.arraycopy(content, newOffset, newContent, newOffset + 2, oldOffset - newOffset);
+            System.arraycopy(content, oldOffset + 1, newContent, oldOffset + 2, content.length - oldOffset - 1);
+            return update(edit, dataMap | bit, nodeMap ^ bit, newContent);
+        }
+
+        static Node merge(Object edit, Object key0, Object value0, int hash0, Object key1, Object value1, int hash1, int shift) {
+            if (shift >= HASH_LENGTH) return new CollisionNode(edit, hash0, new Object[]{key0, value0, key1, value1});
+            int index0 = index(hash0, shift);
+            int index1 = index(hash1, shift);
+            if (index0 == index1) return new BitmapNode(edit, 0, bit(index0), new Object[]{merge(edit, key0, value0, hash0, key1, value1, hash1, shift + BITS)});
+            Object[] content = index0 < index1 ? new Object[]{key0, value0, key1, value1} : new Object[]{key1, value1, key0, value0};
+            return new BitmapNode(edit, bit(index0) | bit(index1), 0, content);
+        }
+    }
+
+    /** Keys whose whole hash is the same, stored as [key0, value0, key1, value1, ...] */
+    static final class CollisionNode extends Node {
+        private final int hash;
+        private Object[] content;
+
+        CollisionNode(Object edit, int hash, Object[] content) {
+            super(edit);
+            this.hash = hash;
+            this.content = content;
+        }
+
+        @Override
+        Object get(Object key, int hash, int shift) {
+            int index = indexOf(key);
+            return index < 0 ? NOT_FOUND : content[index + 1];
+        }
+
+        @Override
+        Node put(Object edit, Object key, Object value, int hash, int shift, Change change) {
+            int index = indexOf(key);
+            if (index >= 0) {
+                if (content[index + 1] == value) return this;
+                if (ownedBy(edit)) {
+                    content[index + 1] = value;
+                    return this;
+                }
+                Object[] newContent = content.clone();
+                newContent[index + 1] = value;
+                return new CollisionNode(edit, hash, newContent);
+            }
+            change.sizeChanged = true;
+            Object[] newContent = Arrays.copyOf(content, content.length + 2);
+            newContent[content.length] = key;
+            newContent[content.length + 1] = value;
+            return update(edit, newContent);
+        }
+
+        @Override
+        Node remove(Object edit, Object key, int hash, int shift, Change change) {
+            int index = indexOf(key);
+            if (index < 0) return this;
+            change.sizeChanged = true;
+            if (content.length == 4) {
+                int other = index == 0 ? 2 : 0;
+                return new BitmapNode(edit, 1, 0, new Object[]{content[other], content[other + 1]});
+            }
+            Object[] newContent = new Object[content.length - 2];
+            System.arraycopy(content, 0, newContent, 0, index);
+            System.arraycopy(content, index + 2, newContent, index, content.length - index - 2);
+            return update(edit, newContent);
+        }
+
+        @Override
+        Node map(Callable1<?, ?> transformer) {
+            Object[] newContent = content.clone();
+            for (int i = 1; i < content.length; i += 2) newContent[i] = call(Unchecked.<Callable1<Object, Object>>cast(transformer), content[i]);
+            return new CollisionNode(null, hash, newContent);
+        }
+
+        private Node update(Object edit, Object[] content) {
+            if (!ownedBy(edit)) return new CollisionNode(edit, hash, content);
+            this.content = content;
+            return this;
+        }
+
+        private int indexOf(Object key) {
+            for (int i = 0; i < content.length; i += 2) if (key.equals(content[i])) return i;
+            return -1;
+        }
+
+        @Override
+        int dataArity() {
+            return content.length / 2;
+        }
+
+        @Override
+        Object key(int index) {
+            return content[2 * index];
+        }
+
+        @Override
+        Object value(int index) {
+            return content[2 * index + 1];
+        }
+
+        @Override
+        int nodeArity() {
+            return 0;
+        }
+
+        @Override
+        Node node(int index) {
+            throw new IndexOutOfBoundsException();
+        }
+    }
+
+    private static class Transient<K, V> implements TransientMap<K, V> {
+        private Object edit = new Object();
+        private Node root;
+        private int size;
+
+        private Transient(Node root, int size) {
+            this.root = root;
+            this.size = size;
+        }
+
+        @Override
+        public Transient<K, V> insert(K key, V value) {
+            Change change = new Change();
+            root = root.put(edit(), key, value, key.hashCode(), 0, change);
+            if (change.sizeChanged) size++;
+            return this;
+        }
+
+        @Override
+        public Transient<K, V> insertAll(Iterable<? extends Pair<? extends K, ? extends V>> pairs) {
+            for (Pair<? extends K, ? extends V> pair : pairs) insert(pair.first(), pair.second());
+            return this;
+        }
+
+        @Override
+        public Transient<K, V> delete(K key) {
+            Change change = new Change();
+            root = root.remove(edit(), key, key.hashCode(), 0, change);
+            if (change.sizeChanged) size--;
+            return this;
+        }
+
+        @Override
+        public Option<V> lookup(K key) {
+            edit();
+            Object value = root.get(key, key.hashCode(), 0);
+            return value == NOT_FOUND ? Option.<V>none() : Option.option(Unchecked.<V>cast(value));
+        }
+
+        @Override
+        public boolean contains(Object key) {
+            edit();
+            return root.get(key, key.hashCode(), 0) != NOT_FOUND;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public HashTrieMap<K, V> persistent() {
+            edit();
+            edit = null;
+            return size == 0 ? HashTrieMap.<K, V>hashTrieMap() : new HashTrieMap<K, V>(root, size);
+        }
+
+        private Object edit() {
+            if (edit == null) throw new IllegalStateException("Transient used after persistent()");
+            return edit;
+        }
+    }
+
+    /** Depth first, each node's inline entries before its sub-nodes */
+    static abstract class EntryIterator<T> extends StatefulIterator<T> {
+        private final Node[] nodes = new Node[HASH_LENGTH / BITS + 2];
+        private final int[] nodeIndexes = new int[nodes.length];
+        private int depth = 0;
+        private Node current;
+        private int dataIndex = 0;
+
+        EntryIterator(Node root) {
+            nodes[0] = root;
+            current = root;
+        }
+
+        abstract T entry(Node node, int index);
+
+        @Override
+        protected T getNext() throws Exception {
+            while (true) {
+                if (dataIndex < current.dataArity()) return entry(current, dataIndex++);
+                while (nodeIndexes[depth] >= nodes[depth].nodeArity()) {
+                    if (depth == 0) return finished();
+                    depth--;
+                }
+                Node node = nodes[depth].node(nodeIndexes[depth]++);
+                nodes[++depth] = node;
+                nodeIndexes[depth] = 0;
+                current = node;
+                dataIndex = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.googlecode.totallylazy.collections;
+
+import com.googlecode.totallylazy.Callable1;
+import com.googlecode.totallylazy.Callable2;
+import com.googlecode.totallylazy.Option;
+import com.googlecode.totallylazy.Predicate;
+import com.googlecode.totallylazy.Segment;
+import com.googlecode.totallylazy.Sequence;
+import com.googlecode.totallylazy.Sequences;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import static com.googlecode.totallylazy.Callers.call;
+import static com.googlecode.totallylazy.Option.some;
+import static com.googlecode.totallylazy.Unchecked.cast;
+
+public class HashTrieSet<T> extends AbstractCollection<T> implements PersistentSet<T> {
+    private final HashTrieMap<T, T> map;
+
+    private HashTrieSet(HashTrieMap<T, T> map) {
+        this.map = map;
+    }
+
+    public static <T> HashTrieSet<T> hashTrieSet(HashTrieMap<T, T> map) {
+        return new HashTrieSet<T>(map);
+    }
+
+    public static <T> HashTrieSet<T> hashTrieSet() {
+        return hashTrieSet(HashTrieMap.<T, T>hashTrieMap());
+    }
+
+    @SafeVarargs
+    public static <T> HashTrieSet<T> hashTrieSet(T... values) {
+        return hashTrieSet(Sequences.sequence(values));
+    }
+
+    public static <T> HashTrieSet<T> hashTrieSet(Iterable<? extends T> values) {
+        TransientMap<T, T> map = HashTrieMap.<T, T>hashTrieMap().asTransient();
+        for (T value : values) map.insert(value, value);
+        return hashTrieSet((HashTrieMap<T, T>) map.persistent());
+    }
+
+    @Override
+    public Option<T> lookup(T value) {
+        return map.lookup(value);
+    }
+
+    @Override
+    public Option<T> find(Predicate<? super T> predicate) {
+        return map.keys().find(predicate);
+    }
+
+    @Override
+    public HashTrieSet<T> empty() {
+        return hashTrieSet();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return map.isEmpty();
+    }
+
+    @Override
+    public int size() {
+        return map.size();
+    }
+
+    @Override
+    public T head() throws NoSuchElementException {
+        return iterator().next();
+    }
+
+    @Override
+    public Option<T> headOption() {
+        return isEmpty()
+                ? Option.<T>none()
+                : some(head());
+    }
+
+    @Override
+    public HashTrieSet<T> tail() throws NoSuchElementException {
+        return delete(head());
+    }
+
+    @Override
+    public HashTrieSet<T> cons(T head) {
+        return hashTrieSet(map.insert(head, head));
+    }
+
+    @Override
+    public HashTrieSet<T> delete(T value) {
+        return hashTrieSet(map.delete(value));
+    }
+
+    @Override
+    public HashTrieSet<T> filter(Predicate<? super T> predicate) {
+        return hashTrieSet(map.filterKeys(predicate));
+    }
+
+    @Override
+    public <NewT> HashTrieSet<NewT> map(Callable1<? super T, ? extends NewT> transformer) {
+        return hashTrieSet(toSequence().map(transformer));
+    }
+
+    @Override
+    public <C extends Segment<T>> C joinTo(C rest) {
+        return toSequence().joinTo(rest);
+    }
+
+    @Override
+    public boolean contains(Object other) {
+        return map.contains(other);
+    }
+
+    @Override
+    public boolean exists(Predicate<? super T> predicate) {
+        return map.exists(predicate);
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return map.keys().iterator();
+    }
+
+    @Override
+    public Sequence<T> toSequence() {
+        return map.keys();
+    }
+
+    @Override
+    public PersistentList<T> toPersistentList() {
+        return toSequence().toPersistentList();
+    }
+
+    @Override
+    public TransientSet<T> asTransient() {
+        return TransientSet.constructors.transientSet(map.asTransient(), (PersistentMap<T, T> map) -> hashTrieSet((HashTrieMap<T, T>) map));
+    }
+
+    @Override
+    public Set<T> toSet() {
+        return toSequence().toSet();
+    }
+
+    @Override
+    public <S> S fold(S seed, Callable2<? super S, ? super T, ? extends S> callable) {
+        S accumulator = seed;
+        for (T value : this) accumulator = call(callable, accumulator, value);
+        return accumulator;
+    }
+
+    /** Sets are equal when they hold the same values whatever order they iterate in */
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof HashTrieSet)) return false;
+        HashTrieSet<?> set = cast(other);
+        if (set.size() != size()) return false;
+        for (T value : this) if (!set.contains(value)) return false;
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hashCode = 0;
+        for (T value : this) hashCode += value.hashCode();
+        return hashCode;
+    }
+}
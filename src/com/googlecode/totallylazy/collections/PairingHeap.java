@@ -0,0 +1,182 @@
+package com.googlecode.totallylazy.collections;
+
+import com.googlecode.totallylazy.Option;
+import com.googlecode.totallylazy.Predicate;
+import com.googlecode.totallylazy.Segment;
+import com.googlecode.totallylazy.Sequence;
+import com.googlecode.totallylazy.iterators.SegmentIterator;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A persistent pairing heap. Insert, meld and head are O(1); tail is O(log n) amortised, pairing up the
+ * children of the removed root left to right and then melding the pairs right to left.
+ * Nodes are immutable with first child / next sibling links, so every version shares all untouched subtrees.
+ */
+public class PairingHeap<T> implements PersistentPriorityQueue<T> {
+    private final Comparator<? super T> comparator;
+    private final Node<T> root;
+    private final int size;
+
+    private PairingHeap(Comparator<? super T> comparator, Node<T> root, int size) {
+        this.comparator = comparator;
+        this.root = root;
+        this.size = size;
+    }
+
+    public static <T> PairingHeap<T> pairingHeap(Comparator<? super T> comparator) {
+        return new PairingHeap<T>(comparator, null, 0);
+    }
+
+    public static <T> PairingHeap<T> pairingHeap(Comparator<? super T> comparator, Iterable<? extends T> values) {
+        PairingHeap<T> heap = pairingHeap(comparator);
+        for (T value : values) heap = heap.cons(value);
+        return heap;
+    }
+
+    @Override
+    public Comparator<? super T> comparator() {
+        return comparator;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    @Override
+    public T head() throws NoSuchElementException {
+        if (root == null) throw new NoSuchElementException();
+        return root.value;
+    }
+
+    @Override
+    public Option<T> headOption() {
+        return root == null ? Option.<T>none() : Option.some(root.value);
+    }
+
+    @Override
+    public PairingHeap<T> empty() {
+        return pairingHeap(comparator);
+    }
+
+    @Override
+    public PairingHeap<T> cons(T value) {
+        Node<T> node = new Node<T>(value, null, null);
+        return new PairingHeap<T>(comparator, root == null ? node : meld(comparator, root, node), size + 1);
+    }
+
+    @Override
+    public PairingHeap<T> tail() throws NoSuchElementException {
+        if (root == null) throw new NoSuchElementException();
+        return new PairingHeap<T>(comparator, mergePairs(comparator, root.child), size - 1);
+    }
+
+    @Override
+    public PairingHeap<T> meld(PersistentPriorityQueue<T> other) {
+        if (other.isEmpty()) return this;
+        if (!(other instanceof PairingHeap) || !comparator.equals(other.comparator())) {
+            PairingHeap<T> result = this;
+            for (T value : other) result = result.cons(value);
+            return result;
+        }
+        PairingHeap<T> heap = (PairingHeap<T>) other;
+        if (root == null) return heap;
+        return new PairingHeap<T>(comparator, meld(comparator, root, heap.root), size + heap.size);
+    }
+
+    @Override
+    public <C extends Segment<T>> C joinTo(C rest) {
+        return toSequence().reverse().joinTo(rest);
+    }
+
+    @Override
+    public boolean contains(Object other) {
+        return exists(value -> value == null ? other == null : value.equals(other));
+    }
+
+    /** Visits the values in heap order rather than priority order, which is all a membership test needs */
+    @Override
+    public boolean exists(Predicate<? super T> predicate) {
+        if (root == null) return false;
+        ArrayDeque<Node<T>> pending = new ArrayDeque<Node<T>>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            for (Node<T> node = pending.pop(); node != null; node = node.sibling) {
+                if (predicate.matches(node.value)) return true;
+                if (node.child != null) pending.push(node.child);
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return SegmentIterator.iterator(this);
+    }
+
+    @Override
+    public Sequence<T> toSequence() {
+        return Segment.methods.sequence(this);
+    }
+
+    @Override
+    public int hashCode() {
+        return toSequence().hashCode();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof PairingHeap && size == ((PairingHeap) other).size && toSequence().equals(((PairingHeap) other).toSequence());
+    }
+
+    @Override
+    public String toString() {
+        return toSequence().toString();
+    }
+
+    /** Both nodes must be roots; their siblings are ignored */
+    private static <T> Node<T> meld(Comparator<? super T> comparator, Node<T> a, Node<T> b) {
+        if (comparator.compare(a.value, b.value) <= 0) return new Node<T>(a.value, new Node<T>(b.value, b.child, a.child), null);
+        return new Node<T>(b.value, new Node<T>(a.value, a.child, b.child), null);
+    }
+
+    private static <T> Node<T> mergePairs(Comparator<? super T> comparator, Node<T> first) {
+        if (first == null) return null;
+        List<Node<T>> pairs = new ArrayList<Node<T>>();
+        for (Node<T> node = first; node != null; ) {
+            Node<T> next = node.sibling;
+            if (next == null) {
+                pairs.add(node);
+                break;
+            }
+            pairs.add(meld(comparator, node, next));
+            node = next.sibling;
+        }
+        Node<T> result = pairs.get(pairs.size() - 1);
+        for (int i = pairs.size() - 2; i >= 0; i--) result = meld(comparator, pairs.get(i), result);
+        return result;
+    }
+
+    private static final class Node<T> {
+        private final T value;
+        private final Node<T> child;
+        private final Node<T> sibling;
+
+        private Node(T value, Node<T> child, Node<T> sibling) {
+            this.value = value;
+            this.child = child;
+            this.sibling = sibling;
+        }
+    }
+}
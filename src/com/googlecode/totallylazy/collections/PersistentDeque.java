@@ -0,0 +1,53 @@
+package com.googlecode.totallylazy.collections;
+
+import com.googlecode.totallylazy.Option;
+import com.googlecode.totallylazy.Segment;
+import com.googlecode.totallylazy.Sequence;
+
+import java.util.NoSuchElementException;
+
+import static com.googlecode.totallylazy.Sequences.sequence;
+
+/**
+ * A persistent double ended queue: cons, head and tail work on the front, append, last and init on the back.
+ */
+public interface PersistentDeque<T> extends Iterable<T>, Segment<T>, PersistentContainer<T> {
+    @Override
+    PersistentDeque<T> empty();
+
+    @Override
+    PersistentDeque<T> cons(T head);
+
+    @Override
+    PersistentDeque<T> tail() throws NoSuchElementException;
+
+    PersistentDeque<T> append(T last);
+
+    T last() throws NoSuchElementException;
+
+    Option<T> lastOption();
+
+    PersistentDeque<T> init() throws NoSuchElementException;
+
+    /** This deque followed by the other */
+    PersistentDeque<T> join(PersistentDeque<T> other);
+
+    PersistentDeque<T> reverse();
+
+    Sequence<T> toSequence();
+
+    class constructors {
+        public static <T> PersistentDeque<T> deque() {
+            return BankersDeque.bankersDeque();
+        }
+
+        @SafeVarargs
+        public static <T> PersistentDeque<T> deque(T... values) {
+            return deque(sequence(values));
+        }
+
+        public static <T> PersistentDeque<T> deque(Iterable<? extends T> values) {
+            return BankersDeque.bankersDeque(values);
+        }
+    }
+}
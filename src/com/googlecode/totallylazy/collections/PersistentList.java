@@ -49,6 +49,8 @@ public interface PersistentList<T> extends List<T>, PersistentCollection<T>, Ite
 
     List<T> toMutableList();
 
+    TransientList<T> asTransient();
+
     Sequence<T> toSequence();
 
     Zipper<T> zipper();
@@ -1,6 +1,7 @@
 package com.googlecode.totallylazy.collections;
 
 import com.googlecode.totallylazy.Callable1;
+import com.googlecode.totallylazy.Callable2;
 import com.googlecode.totallylazy.Callables;
 import com.googlecode.totallylazy.Filterable;
 import com.googlecode.totallylazy.Foldable;
@@ -20,6 +21,7 @@ import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.concurrent.ConcurrentMap;
 
+import static com.googlecode.totallylazy.Callers.call;
 import static com.googlecode.totallylazy.Pair.pair;
 import static com.googlecode.totallylazy.Sequences.sequence;
 
@@ -64,6 +66,8 @@ public interface PersistentMap<K, V> extends Map<K, V>, Iterable<Pair<K, V>>, Se
 
     ConcurrentMap<K, V> toConcurrentMap();
 
+    TransientMap<K, V> asTransient();
+
     /**
      * @deprecated Not type safe: Replaced by {@link PersistentMap#delete(K)}
      */
@@ -94,7 +98,7 @@ public interface PersistentMap<K, V> extends Map<K, V>, Iterable<Pair<K, V>>, Se
 
     class constructors {
         public static <K, V> PersistentMap<K, V> map() {
-            return HashTreeMap.hashTreeMap();
+            return HashTrieMap.hashTrieMap();
         }
 
         public static <K, V> PersistentMap<K, V> emptyMap() {
@@ -130,7 +134,7 @@ public interface PersistentMap<K, V> extends Map<K, V>, Iterable<Pair<K, V>>, Se
         }
 
         public static <K, V> PersistentMap<K, V> map(final Iterable<? extends Pair<K, V>> values) {
-            return HashTreeMap.hashTreeMap(values);
+            return HashTrieMap.hashTrieMap(values);
         }
 
         public static <K, V> PersistentMap<K, V> map(final Map<K, V> values) {
@@ -179,5 +183,60 @@ public interface PersistentMap<K, V> extends Map<K, V>, Iterable<Pair<K, V>>, Se
         public static <K, V, M extends PersistentMap<K, V>> Pair<M, Option<V>> remove(M map, K key) {
             return Pair.pair(Unchecked.<M>cast(map.delete(key)), map.lookup(key));
         }
+
+        /** Every entry in either map, the right hand value wins when both have the key */
+        public static <K, V> PersistentMap<K, V> union(PersistentMap<K, V> left, PersistentMap<K, V> right) {
+            return merge(left, right, (V leftValue, V rightValue) -> rightValue);
+        }
+
+        /** Like union but keys in both maps get combiner(leftValue, rightValue), only the smaller map is walked */
+        public static <K, V> PersistentMap<K, V> merge(PersistentMap<K, V> left, PersistentMap<K, V> right, Callable2<? super V, ? super V, ? extends V> combiner) {
+            if (left instanceof PersistentSortedMap && right instanceof PersistentSortedMap)
+                return PersistentSortedMap.methods.merge((PersistentSortedMap<K, V>) left, (PersistentSortedMap<K, V>) right, combiner);
+            if (left.size() >= right.size()) {
+                TransientMap<K, V> result = left.asTransient();
+                for (Pair<K, V> pair : right) {
+                    Option<V> existing = left.lookup(pair.first());
+                    result.insert(pair.first(), existing.isEmpty() ? pair.second() : call(combiner, existing.get(), pair.second()));
+                }
+                return result.persistent();
+            }
+            TransientMap<K, V> result = right.asTransient();
+            for (Pair<K, V> pair : left) {
+                Option<V> existing = right.lookup(pair.first());
+                result.insert(pair.first(), existing.isEmpty() ? pair.second() : call(combiner, pair.second(), existing.get()));
+            }
+            return result.persistent();
+        }
+
+        /** The entries of left whose keys are also in right */
+        public static <K, V> PersistentMap<K, V> intersection(PersistentMap<K, V> left, PersistentMap<K, V> right) {
+            if (left instanceof PersistentSortedMap && right instanceof PersistentSortedMap)
+                return PersistentSortedMap.methods.intersection((PersistentSortedMap<K, V>) left, (PersistentSortedMap<K, V>) right);
+            TransientMap<K, V> result = left.empty().asTransient();
+            if (left.size() <= right.size()) {
+                for (Pair<K, V> pair : left) if (right.contains(pair.first())) result.insert(pair.first(), pair.second());
+            } else {
+                for (K key : right.keys()) {
+                    Option<V> value = left.lookup(key);
+                    if (!value.isEmpty()) result.insert(key, value.get());
+                }
+            }
+            return result.persistent();
+        }
+
+        /** The entries of left whose keys are not in right */
+        public static <K, V> PersistentMap<K, V> difference(PersistentMap<K, V> left, PersistentMap<K, V> right) {
+            if (left instanceof PersistentSortedMap && right instanceof PersistentSortedMap)
+                return PersistentSortedMap.methods.difference((PersistentSortedMap<K, V>) left, (PersistentSortedMap<K, V>) right);
+            if (right.size() < left.size()) {
+                TransientMap<K, V> result = left.asTransient();
+                for (K key : right.keys()) result.delete(key);
+                return result.persistent();
+            }
+            TransientMap<K, V> result = left.empty().asTransient();
+            for (Pair<K, V> pair : left) if (!right.contains(pair.first())) result.insert(pair.first(), pair.second());
+            return result.persistent();
+        }
     }
 }
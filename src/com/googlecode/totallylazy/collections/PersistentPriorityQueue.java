@@ -0,0 +1,55 @@
+package com.googlecode.totallylazy.collections;
+
+import com.googlecode.totallylazy.Segment;
+import com.googlecode.totallylazy.Sequence;
+import com.googlecode.totallylazy.comparators.Comparators;
+
+import java.util.Comparator;
+import java.util.NoSuchElementException;
+
+import static com.googlecode.totallylazy.Sequences.sequence;
+
+/**
+ * A persistent heap: head is the smallest value by the comparator, cons inserts and tail removes the smallest.
+ * Iteration and toSequence yield the values in priority order.
+ */
+public interface PersistentPriorityQueue<T> extends Iterable<T>, Segment<T>, PersistentContainer<T> {
+    Comparator<? super T> comparator();
+
+    @Override
+    PersistentPriorityQueue<T> empty();
+
+    @Override
+    PersistentPriorityQueue<T> cons(T value);
+
+    @Override
+    PersistentPriorityQueue<T> tail() throws NoSuchElementException;
+
+    /** All the values of both queues, ordered by this queue's comparator */
+    PersistentPriorityQueue<T> meld(PersistentPriorityQueue<T> other);
+
+    Sequence<T> toSequence();
+
+    class constructors {
+        public static <T extends Comparable<? super T>> PersistentPriorityQueue<T> priorityQueue() {
+            return PairingHeap.pairingHeap(Comparators.<T>ascending());
+        }
+
+        public static <T> PersistentPriorityQueue<T> priorityQueue(Comparator<? super T> comparator) {
+            return PairingHeap.pairingHeap(comparator);
+        }
+
+        @SafeVarargs
+        public static <T extends Comparable<? super T>> PersistentPriorityQueue<T> priorityQueue(T... values) {
+            return priorityQueue(sequence(values));
+        }
+
+        public static <T extends Comparable<? super T>> PersistentPriorityQueue<T> priorityQueue(Iterable<? extends T> values) {
+            return priorityQueue(Comparators.<T>ascending(), values);
+        }
+
+        public static <T> PersistentPriorityQueue<T> priorityQueue(Comparator<? super T> comparator, Iterable<? extends T> values) {
+            return PairingHeap.pairingHeap(comparator, values);
+        }
+    }
+}
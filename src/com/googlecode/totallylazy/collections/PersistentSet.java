@@ -37,6 +37,8 @@ public interface PersistentSet<T> extends Set<T>, Iterable<T>, Segment<T>, Persi
 
     Set<T> toSet();
 
+    TransientSet<T> asTransient();
+
 
 
     class functions extends Segment.functions {
@@ -1,11 +1,13 @@
 package com.googlecode.totallylazy.collections;
 
 import com.googlecode.totallylazy.Callable1;
-import com.googlecode.totallylazy.Callables;
+import com.googlecode.totallylazy.Callable2;
 import com.googlecode.totallylazy.Function1;
 import com.googlecode.totallylazy.Maps;
+import com.googlecode.totallylazy.Option;
 import com.googlecode.totallylazy.Pair;
 import com.googlecode.totallylazy.Predicate;
+import com.googlecode.totallylazy.Sequence;
 import com.googlecode.totallylazy.comparators.Comparators;
 
 import java.util.Comparator;
@@ -49,9 +51,39 @@ public interface PersistentSortedMap<K, V> extends PersistentMap<K, V>, Sorted<P
     @Override
     Pair<? extends PersistentSortedMap<K, V>, Pair<K, V>> removeLast();
 
-    class constructors {
-        private static TreeFactory factory = AVLTree.constructors.factory;
+    @Override
+    TransientSortedMap<K, V> asTransient();
+
+    Comparator<K> comparator();
+
+    /** Entries from the first key inclusive to the second exclusive, sharing structure with this map where it can */
+    PersistentSortedMap<K, V> subMap(K fromKey, K toKey);
+
+    /** Entries with keys strictly less than toKey */
+    PersistentSortedMap<K, V> headMap(K toKey);
+
+    /** Entries with keys greater than or equal to fromKey */
+    PersistentSortedMap<K, V> tailMap(K fromKey);
+
+    /** The entry with the greatest key less than or equal to key */
+    Option<Pair<K, V>> floor(K key);
+
+    /** The entry with the least key greater than or equal to key */
+    Option<Pair<K, V>> ceiling(K key);
+
+    /** The entry with the greatest key strictly less than key */
+    Option<Pair<K, V>> lower(K key);
+
+    /** The entry with the least key strictly greater than key */
+    Option<Pair<K, V>> higher(K key);
+
+    /** Lazily walks the entries from fromKey inclusive to toKey exclusive, starting with a seek to fromKey */
+    Sequence<Pair<K, V>> range(K fromKey, K toKey);
 
+    /** Lazily walks the entries from the greatest key to the least */
+    Sequence<Pair<K, V>> descending();
+
+    class constructors {
         public static <K extends Comparable<? super K>, V> PersistentSortedMap<K, V> emptySortedMap(Class<K> kClass, Class<V> vClass) {
             return constructors.<K, V>sortedMap();
         }
@@ -96,12 +128,13 @@ public interface PersistentSortedMap<K, V> extends PersistentMap<K, V>, Sorted<P
             return sortedMap(Maps.pairs(values));
         }
 
+        /** Small maps are backed by sorted arrays, see {@link ArraySortedMap} */
         public static <K, V> PersistentSortedMap<K, V> sortedMap(Comparator<K> comparator) {
-            return factory.create(comparator);
+            return ArraySortedMap.arraySortedMap(comparator);
         }
 
         public static <K, V> PersistentSortedMap<K, V> sortedMap(Comparator<K> comparator, K key, V value) {
-            return factory.create(comparator, key, value);
+            return ArraySortedMap.<K, V>arraySortedMap(comparator).insert(key, value);
         }
 
         public static <K, V> PersistentSortedMap<K, V> sortedMap(Comparator<K> comparator, K key1, V value1, K key2, V value2) {
@@ -125,7 +158,7 @@ public interface PersistentSortedMap<K, V> extends PersistentMap<K, V>, Sorted<P
         }
 
         public static <K, V> PersistentSortedMap<K, V> sortedMap(Comparator<K> comparator, final Iterable<? extends Pair<K, V>> values) {
-            return TreeMap.methods.treeMap(factory, comparator, sequence(values).toSortedList(Comparators.<Pair<K, V>, K>by(Callables.<K>first(), comparator)));
+            return ArraySortedMap.sortedMap(comparator, TreeMap.methods.sortedList(comparator, values));
         }
 
         public static <K, V> PersistentSortedMap<K, V> sortedMap(Comparator<K> comparator, final Map<K, V> values) {
@@ -133,6 +166,28 @@ public interface PersistentSortedMap<K, V> extends PersistentMap<K, V>, Sorted<P
         }
     }
 
+    class methods {
+        /** Every entry in either map, the right hand value wins when both have the key */
+        public static <K, V> PersistentSortedMap<K, V> union(PersistentSortedMap<K, V> left, PersistentSortedMap<K, V> right) {
+            return merge(left, right, (V leftValue, V rightValue) -> rightValue);
+        }
+
+        /** Like union but keys in both maps get combiner(leftValue, rightValue) */
+        public static <K, V> PersistentSortedMap<K, V> merge(PersistentSortedMap<K, V> left, PersistentSortedMap<K, V> right, Callable2<? super V, ? super V, ? extends V> combiner) {
+            return CompactAVLTree.merge(left, right, combiner);
+        }
+
+        /** The entries of left whose keys are also in right */
+        public static <K, V> PersistentSortedMap<K, V> intersection(PersistentSortedMap<K, V> left, PersistentSortedMap<K, V> right) {
+            return CompactAVLTree.intersection(left, right);
+        }
+
+        /** The entries of left whose keys are not in right */
+        public static <K, V> PersistentSortedMap<K, V> difference(PersistentSortedMap<K, V> left, PersistentSortedMap<K, V> right) {
+            return CompactAVLTree.difference(left, right);
+        }
+    }
+
     class functions{
         public static <K, V> Function1<PersistentSortedMap<K, V>, PersistentSortedMap<K, V>> remove(final K key) {
             return new Function1<PersistentSortedMap<K, V>, PersistentSortedMap<K, V>>() {
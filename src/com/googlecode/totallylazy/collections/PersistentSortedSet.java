@@ -10,6 +10,7 @@ import java.util.Comparator;
 import java.util.NoSuchElementException;
 import java.util.SortedSet;
 
+import static com.googlecode.totallylazy.Pair.pair;
 import static com.googlecode.totallylazy.Sequences.sequence;
 import static com.googlecode.totallylazy.collections.TreeSet.treeSet;
 
@@ -35,6 +36,8 @@ public interface PersistentSortedSet<T> extends PersistentSet<T>, Sorted<T>, Ind
     @Override
     Pair<PersistentSortedSet<T>, T> removeLast() throws NoSuchElementException;
 
+    Comparator<T> comparator();
+
     class constructors {
         public static <A extends Comparable<? super A>> PersistentSortedSet<A> sortedSet() {
             return constructors.<A>sortedSet(Comparators.<A>ascending());
@@ -100,4 +103,23 @@ public interface PersistentSortedSet<T> extends PersistentSet<T>, Sorted<T>, Ind
             return sequence(values).fold(constructors.<A>sortedSet(comparator), functions.<A, PersistentSortedSet<A>>cons());
         }
     }
+
+    class methods {
+        public static <T> PersistentSortedSet<T> union(PersistentSortedSet<T> left, PersistentSortedSet<T> right) {
+            return treeSet(PersistentSortedMap.methods.union(map(left), map(right)));
+        }
+
+        public static <T> PersistentSortedSet<T> intersection(PersistentSortedSet<T> left, PersistentSortedSet<T> right) {
+            return treeSet(PersistentSortedMap.methods.intersection(map(left), map(right)));
+        }
+
+        public static <T> PersistentSortedSet<T> difference(PersistentSortedSet<T> left, PersistentSortedSet<T> right) {
+            return treeSet(PersistentSortedMap.methods.difference(map(left), map(right)));
+        }
+
+        private static <T> PersistentSortedMap<T, T> map(PersistentSortedSet<T> set) {
+            if (set instanceof TreeSet) return ((TreeSet<T>) set).map();
+            return PersistentSortedMap.constructors.sortedMap(set.comparator(), sequence(set).map(value -> pair(value, value)));
+        }
+    }
 }
@@ -0,0 +1,796 @@
+package com.googlecode.totallylazy.collections;
+
+import com.googlecode.totallylazy.Callable1;
+import com.googlecode.totallylazy.Callable2;
+import com.googlecode.totallylazy.Option;
+import com.googlecode.totallylazy.Pair;
+import com.googlecode.totallylazy.Predicate;
+import com.googlecode.totallylazy.Sequence;
+import com.googlecode.totallylazy.Unchecked;
+import com.googlecode.totallylazy.annotations.multimethod;
+import com.googlecode.totallylazy.iterators.EmptyIterator;
+import com.googlecode.totallylazy.iterators.StatefulIterator;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import static com.googlecode.totallylazy.Callers.call;
+import static com.googlecode.totallylazy.Unchecked.cast;
+
+/**
+ * An adaptive radix tree for string keys. Each node holds a compressed run of characters and then branches on
+ * the next character, choosing its child layout by fan out: a sorted array scanned linearly up to 4 children and
+ * binary searched up to 16, a 256 entry index into 48 slots, then a direct 256 slot table.
+ * Characters above 0xFF always use the sorted layout.
+ * Lookups read the key in place, so any CharSequence (or a byte[] read as ISO-8859-1) can be used without copying.
+ * Iteration is in key order.
+ */
+public class RadixTrie<V> extends AbstractMap<String, V> {
+    static final Object NONE = new Object();
+    private static final RadixTrie<?> EMPTY = new RadixTrie<Object>(Sorted.EMPTY, 0);
+    private final Node root;
+    private final int size;
+
+    private RadixTrie(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    public static <V> RadixTrie<V> radixTrie() {
+        return cast(EMPTY);
+    }
+
+    public static <V> RadixTrie<V> radixTrie(String key, V value) {
+        return RadixTrie.<V>radixTrie().insert(key, value);
+    }
+
+    public static <V> RadixTrie<V> radixTrie(Iterable<? extends Pair<String, V>> values) {
+        return new Transient<V>(Sorted.EMPTY, 0).insertAll(values).persistent();
+    }
+
+    /** A view of the bytes as ISO-8859-1 characters, so byte keys order as unsigned bytes */
+    public static CharSequence latin1(byte[] bytes) {
+        return new Bytes(bytes, 0, bytes.length);
+    }
+
+    @Override
+    public RadixTrie<V> empty() {
+        return radixTrie();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Pair<String, V> head() throws NoSuchElementException {
+        return iterator().next();
+    }
+
+    @Override
+    public Option<Pair<String, V>> headOption() {
+        return isEmpty() ? Option.<Pair<String, V>>none() : Option.some(head());
+    }
+
+    @Override
+    public RadixTrie<V> cons(Pair<String, V> head) {
+        return insert(head.first(), head.second());
+    }
+
+    @Override
+    public RadixTrie<V> tail() throws NoSuchElementException {
+        return delete(head().first());
+    }
+
+    @Override
+    public Option<V> lookup(String key) {
+        return lookup((CharSequence) key);
+    }
+
+    public Option<V> lookup(CharSequence key) {
+        Object value = get(root, key);
+        return value == NONE ? Option.<V>none() : Option.option(Unchecked.<V>cast(value));
+    }
+
+    public Option<V> lookup(byte[] key) {
+        return lookup(latin1(key));
+    }
+
+    @Override
+    public V get(Object key) {
+        if (!(key instanceof CharSequence)) return null;
+        Object value = get(root, (CharSequence) key);
+        return value == NONE ? null : Unchecked.<V>cast(value);
+    }
+
+    @Override
+    public boolean contains(Object other) {
+        return other instanceof CharSequence && get(root, (CharSequence) other) != NONE;
+    }
+
+    @Override
+    public RadixTrie<V> insert(String key, V value) {
+        return insert((CharSequence) key, value);
+    }
+
+    public RadixTrie<V> insert(CharSequence key, V value) {
+        Change change = new Change();
+        Node newRoot = put(null, root, key, 0, value, change);
+        if (newRoot == root) return this;
+        return new RadixTrie<V>(newRoot, change.sizeChanged ? size + 1 : size);
+    }
+
+    public RadixTrie<V> insert(byte[] key, V value) {
+        return insert(latin1(key), value);
+    }
+
+    @Override
+    public RadixTrie<V> delete(String key) {
+        return delete((CharSequence) key);
+    }
+
+    public RadixTrie<V> delete(CharSequence key) {
+        Change change = new Change();
+        Node newRoot = remove(null, root, key, 0, change);
+        if (!change.sizeChanged) return this;
+        return size == 1 ? RadixTrie.<V>radixTrie() : new RadixTrie<V>(newRoot, size - 1);
+    }
+
+    public RadixTrie<V> delete(byte[] key) {
+        return delete(latin1(key));
+    }
+
+    /** Every entry whose key starts with the prefix, in key order */
+    public Sequence<Pair<String, V>> withPrefix(final CharSequence prefix) {
+        return new Sequence<Pair<String, V>>() {
+            @Override
+            public Iterator<Pair<String, V>> iterator() {
+                Node node = root;
+                int depth = 0;
+                while (true) {
+                    String compressed = node.prefix;
+                    int common = common(compressed, prefix, depth);
+                    if (common == prefix.length() - depth) return new Entries<V>(node, prefix.subSequence(0, depth));
+                    if (common < compressed.length()) return new EmptyIterator<Pair<String, V>>();
+                    depth += common;
+                    node = node.child(prefix.charAt(depth++));
+                    if (node == null) return new EmptyIterator<Pair<String, V>>();
+                }
+            }
+        };
+    }
+
+    public Sequence<Pair<String, V>> withPrefix(byte[] prefix) {
+        return withPrefix(latin1(prefix));
+    }
+
+    /** The entry with the longest key that the given key starts with, such as the most specific route for a path */
+    public Option<Pair<String, V>> longestPrefixOf(CharSequence key) {
+        Node node = root;
+        int depth = 0;
+        int found = -1;
+        Object value = null;
+        while (node != null) {
+            String prefix = node.prefix;
+            if (common(prefix, key, depth) < prefix.length()) break;
+            depth += prefix.length();
+            if (node.value != NONE) {
+                found = depth;
+                value = node.value;
+            }
+            if (depth == key.length()) break;
+            node = node.child(key.charAt(depth++));
+        }
+        if (found < 0) return Option.none();
+        return Option.some(Pair.pair(key.subSequence(0, found).toString(), Unchecked.<V>cast(value)));
+    }
+
+    public Option<Pair<String, V>> longestPrefixOf(byte[] key) {
+        return longestPrefixOf(latin1(key));
+    }
+
+    @Override
+    public TransientMap<String, V> asTransient() {
+        return new Transient<V>(root, size);
+    }
+
+    @Override
+    public RadixTrie<V> filter(Predicate<? super Pair<String, V>> predicate) {
+        Transient<V> result = new Transient<V>(root, size);
+        for (Pair<String, V> pair : this) if (!predicate.matches(pair)) result.delete(pair.first());
+        return result.persistent();
+    }
+
+    @Override
+    public RadixTrie<V> filterKeys(Predicate<? super String> predicate) {
+        Transient<V> result = new Transient<V>(root, size);
+        for (Pair<String, V> pair : this) if (!predicate.matches(pair.first())) result.delete(pair.first());
+        return result.persistent();
+    }
+
+    @Override
+    public RadixTrie<V> filterValues(Predicate<? super V> predicate) {
+        Transient<V> result = new Transient<V>(root, size);
+        for (Pair<String, V> pair : this) if (!predicate.matches(pair.second())) result.delete(pair.first());
+        return result.persistent();
+    }
+
+    /** Keeps the shape of the trie as only the values change */
+    @Override
+    public <NewV> RadixTrie<NewV> map(Callable1<? super V, ? extends NewV> transformer) {
+        return new RadixTrie<NewV>(map(root, transformer), size);
+    }
+
+    @Override
+    public <S> S fold(S seed, Callable2<? super S, ? super Pair<String, V>, ? extends S> callable) {
+        S accumulator = seed;
+        for (Pair<String, V> pair : this) accumulator = call(callable, accumulator, pair);
+        return accumulator;
+    }
+
+    @Override
+    public boolean exists(Predicate<? super String> predicate) {
+        return keys().exists(predicate);
+    }
+
+    @Override
+    public Iterator<Pair<String, V>> iterator() {
+        return new Entries<V>(root, "");
+    }
+
+    @Override
+    public int hashCode() {
+        int hashCode = 0;
+        for (Pair<String, V> pair : this) hashCode += pair.hashCode();
+        return hashCode;
+    }
+
+    @multimethod
+    public boolean equals(RadixTrie<V> other) {
+        if (size != other.size) return false;
+        Iterator<Pair<String, V>> mine = iterator(), theirs = other.iterator();
+        while (mine.hasNext()) if (!mine.next().equals(theirs.next())) return false;
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return toSequence().toString("");
+    }
+
+    static Object get(Node node, CharSequence key) {
+        int depth = 0;
+        int length = key.length();
+        while (node != null) {
+            String prefix = node.prefix;
+            int size = prefix.length();
+            if (length - depth < size) return NONE;
+            for (int i = 0; i < size; i++) if (prefix.charAt(i) != key.charAt(depth + i)) return NONE;
+            depth += size;
+            if (depth == length) return node.value;
+            node = node.child(key.charAt(depth++));
+        }
+        return NONE;
+    }
+
+    static Node put(Object edit, Node node, CharSequence key, int depth, Object value, Change change) {
+        String prefix = node.prefix;
+        int common = common(prefix, key, depth);
+        int end = depth + common;
+        if (common < prefix.length()) {
+            change.sizeChanged = true;
+            char split = prefix.charAt(common);
+            Node rest = node.editable(edit);
+            rest.prefix = prefix.substring(common + 1);
+            String shared = prefix.substring(0, common);
+            if (end == key.length()) return node(edit, shared, value, new char[]{split}, new Node[]{rest});
+            return node(edit, shared, NONE, new char[]{split}, new Node[]{rest}).add(edit, key.charAt(end), leaf(edit, key, end + 1, value));
+        }
+        if (end == key.length()) {
+            if (node.value == NONE) change.sizeChanged = true;
+            else if (node.value == value) return node;
+            Node updated = node.editable(edit);
+            updated.value = value;
+            return updated;
+        }
+        char c = key.charAt(end);
+        Node child = node.child(c);
+        if (child == null) {
+            change.sizeChanged = true;
+            return node.add(edit, c, leaf(edit, key, end + 1, value));
+        }
+        Node updated = put(edit, child, key, end + 1, value, change);
+        return updated == child ? node : node.editable(edit).set(c, updated);
+    }
+
+    /** Returns null when the node is left with no value and no children */
+    static Node remove(Object edit, Node node, CharSequence key, int depth, Change change) {
+        String prefix = node.prefix;
+        if (common(prefix, key, depth) < prefix.length()) return node;
+        int end = depth + prefix.length();
+        if (end == key.length()) {
+            if (node.value == NONE) return node;
+            change.sizeChanged = true;
+            Node updated = node.editable(edit);
+            updated.value = NONE;
+            return collapse(edit, updated);
+        }
+        char c = key.charAt(end);
+        Node child = node.child(c);
+        if (child == null) return node;
+        Node updated = remove(edit, child, key, end + 1, change);
+        if (updated == child) return node;
+        if (updated != null) return node.editable(edit).set(c, updated);
+        return collapse(edit, node.remove(edit, c));
+    }
+
+    /** Restores path compression: a node without a value needs at least two children to stay */
+    private static Node collapse(Object edit, Node node) {
+        if (node.value != NONE) return node;
+        int arity = node.arity();
+        if (arity == 0) return null;
+        if (arity > 1) return node;
+        int position = node.next(0);
+        Node child = node.node(position);
+        Node merged = child.editable(edit);
+        merged.prefix = node.prefix + node.key(position) + child.prefix;
+        return merged;
+    }
+
+    private static <V, NewV> Node map(Node node, Callable1<? super V, ? extends NewV> transformer) {
+        int arity = node.arity();
+        char[] keys = new char[arity];
+        Node[] nodes = new Node[arity];
+        int i = 0;
+        for (int position = node.next(0); position >= 0; position = node.next(position + 1), i++) {
+            keys[i] = node.key(position);
+            nodes[i] = map(node.node(position), transformer);
+        }
+        Object value = node.value == NONE ? NONE : call(transformer, Unchecked.<V>cast(node.value));
+        return node(null, node.prefix, value, keys, nodes);
+    }
+
+    static int common(String prefix, CharSequence key, int depth) {
+        int limit = Math.min(prefix.length(), key.length() - depth);
+        int i = 0;
+        while (i < limit && prefix.charAt(i) == key.charAt(depth + i)) i++;
+        return i;
+    }
+
+    private static Node leaf(Object edit, CharSequence key, int from, Object value) {
+        return new Sorted(edit, key.subSequence(from, key.length()).toString(), value, Sorted.NO_KEYS, Sorted.NO_NODES);
+    }
+
+    /** Picks the layout by fan out; keys must be sorted */
+    static Node node(Object edit, String prefix, Object value, char[] keys, Node[] nodes) {
+        int arity = keys.length;
+        if (arity <= Sorted.MAX || keys[arity - 1] > Indexed.RANGE - 1) return new Sorted(edit, prefix, value, keys, nodes);
+        if (arity <= Indexed.MAX) return new Indexed(edit, prefix, value, keys, nodes);
+        return new Direct(edit, prefix, value, keys, nodes);
+    }
+
+    /** Copies the children in key order with c added (or removed when child is null) and picks a new layout */
+    static Node rebuild(Object edit, Node node, char c, Node child) {
+        int arity = node.arity() + (child == null ? -1 : 1);
+        char[] keys = new char[arity];
+        Node[] nodes = new Node[arity];
+        boolean placed = child == null;
+        int i = 0;
+        for (int position = node.next(0); position >= 0; position = node.next(position + 1)) {
+            char key = node.key(position);
+            if (key == c) continue;
+            if (!placed && c < key) {
+                keys[i] = c;
+                nodes[i++] = child;
+                placed = true;
+            }
+            keys[i] = key;
+            nodes[i++] = node.node(position);
+        }
+        if (!placed) {
+            keys[i] = c;
+            nodes[i] = child;
+        }
+        return node(edit, node.prefix, node.value, keys, nodes);
+    }
+
+    static class Change {
+        boolean sizeChanged;
+    }
+
+    /**
+     * Children are visited through positions in key order: next finds the first position at or after the one given.
+     * Nodes owned by a transient's edit token are updated in place, all others are copied first.
+     */
+    static abstract class Node {
+        final Object edit;
+        String prefix;
+        Object value;
+
+        Node(Object edit, String prefix, Object value) {
+            this.edit = edit;
+            this.prefix = prefix;
+            this.value = value;
+        }
+
+        abstract int arity();
+
+        abstract Node child(char c);
+
+        abstract int next(int position);
+
+        abstract char key(int position);
+
+        abstract Node node(int position);
+
+        abstract Node copy(Object edit);
+
+        /** Replaces an existing child, the node must be owned */
+        abstract Node set(char c, Node child);
+
+        Node add(Object edit, char c, Node child) {
+            return rebuild(edit, this, c, child);
+        }
+
+        Node remove(Object edit, char c) {
+            return rebuild(edit, this, c, null);
+        }
+
+        Node editable(Object edit) {
+            return edit != null && this.edit == edit ? this : copy(edit);
+        }
+    }
+
+    /** Node4 and Node16, and any fan out once characters fall outside 0-255 */
+    static final class Sorted extends Node {
+        static final int MAX = 16;
+        static final char[] NO_KEYS = new char[0];
+        static final Node[] NO_NODES = new Node[0];
+        static final Sorted EMPTY = new Sorted(null, "", NONE, NO_KEYS, NO_NODES);
+        private final char[] keys;
+        private final Node[] nodes;
+
+        Sorted(Object edit, String prefix, Object value, char[] keys, Node[] nodes) {
+            super(edit, prefix, value);
+            this.keys = keys;
+            this.nodes = nodes;
+        }
+
+        @Override
+        int arity() {
+            return keys.length;
+        }
+
+        @Override
+        Node child(char c) {
+            int index = index(c);
+            return index < 0 ? null : nodes[index];
+        }
+
+        private int index(char c) {
+            if (keys.length > 4) return Arrays.binarySearch(keys, c);
+            for (int i = 0; i < keys.length; i++) if (keys[i] == c) return i;
+            return -1;
+        }
+
+        @Override
+        int next(int position) {
+            return position < keys.length ? position : -1;
+        }
+
+        @Override
+        char key(int position) {
+            return keys[position];
+        }
+
+        @Override
+        Node node(int position) {
+            return nodes[position];
+        }
+
+        @Override
+        Node copy(Object edit) {
+            return new Sorted(edit, prefix, value, keys, nodes.clone());
+        }
+
+        @Override
+        Node set(char c, Node child) {
+            nodes[index(c)] = child;
+            return this;
+        }
+    }
+
+    /** Node48: a byte per character pointing into up to 48 child slots */
+    static final class Indexed extends Node {
+        static final int MAX = 48;
+        static final int RANGE = 256;
+        private final byte[] index;
+        private final Node[] nodes;
+        private int arity;
+
+        Indexed(Object edit, String prefix, Object value, char[] keys, Node[] nodes) {
+            super(edit, prefix, value);
+            this.index = new byte[RANGE];
+            this.nodes = new Node[MAX];
+            this.arity = keys.length;
+            for (int i = 0; i < arity; i++) {
+                index[keys[i]] = (byte) (i + 1);
+                this.nodes[i] = nodes[i];
+            }
+        }
+
+        private Indexed(Object edit, Indexed other) {
+            super(edit, other.prefix, other.value);
+            this.index = other.index.clone();
+            this.nodes = other.nodes.clone();
+            this.arity = other.arity;
+        }
+
+        @Override
+        int arity() {
+            return arity;
+        }
+
+        @Override
+        Node child(char c) {
+            if (c >= RANGE) return null;
+            int slot = index[c];
+            return slot == 0 ? null : nodes[slot - 1];
+        }
+
+        @Override
+        int next(int position) {
+            for (; position < RANGE; position++) if (index[position] != 0) return position;
+            return -1;
+        }
+
+        @Override
+        char key(int position) {
+            return (char) position;
+        }
+
+        @Override
+        Node node(int position) {
+            return nodes[index[position] - 1];
+        }
+
+        @Override
+        Node copy(Object edit) {
+            return new Indexed(edit, this);
+        }
+
+        @Override
+        Node set(char c, Node child) {
+            nodes[index[c] - 1] = child;
+            return this;
+        }
+
+        @Override
+        Node add(Object edit, char c, Node child) {
+            if (c >= RANGE || arity == MAX) return super.add(edit, c, child);
+            Indexed result = (Indexed) editable(edit);
+            result.nodes[result.arity++] = child;
+            result.index[c] = (byte) result.arity;
+            return result;
+        }
+    }
+
+    /** Node256: children addressed directly by character */
+    static final class Direct extends Node {
+        private final Node[] nodes;
+        private int arity;
+
+        Direct(Object edit, String prefix, Object value, char[] keys, Node[] nodes) {
+            super(edit, prefix, value);
+            this.nodes = new Node[Indexed.RANGE];
+            this.arity = keys.length;
+            for (int i = 0; i < arity; i++) this.nodes[keys[i]] = nodes[i];
+        }
+
+        private Direct(Object edit, Direct other) {
+            super(edit, other.prefix, other.value);
+            this.nodes = other.nodes.clone();
+            this.arity = other.arity;
+        }
+
+        @Override
+        int arity() {
+            return arity;
+        }
+
+        @Override
+        Node child(char c) {
+            return c < Indexed.RANGE ? nodes[c] : null;
+        }
+
+        @Override
+        int next(int position) {
+            for (; position < Indexed.RANGE; position++) if (nodes[position] != null) return position;
+            return -1;
+        }
+
+        @Override
+        char key(int position) {
+            return (char) position;
+        }
+
+        @Override
+        Node node(int position) {
+            return nodes[position];
+        }
+
+        @Override
+        Node copy(Object edit) {
+            return new Direct(edit, this);
+        }
+
+        @Override
+        Node set(char c, Node child) {
+            nodes[c] = child;
+            return this;
+        }
+
+        @Override
+        Node add(Object edit, char c, Node child) {
+            if (c >= Indexed.RANGE) return super.add(edit, c, child);
+            Direct result = (Direct) editable(edit);
+            result.nodes[c] = child;
+            result.arity++;
+            return result;
+        }
+    }
+
+    /** Depth first with each node's own value before its children, building keys in one shared buffer */
+    private static final class Entries<V> extends StatefulIterator<Pair<String, V>> {
+        private final StringBuilder key;
+        private Node[] nodes = new Node[8];
+        private int[] positions = new int[8];
+        private int[] lengths = new int[8];
+        private int depth = -1;
+        private Node pending;
+
+        private Entries(Node root, CharSequence base) {
+            key = new StringBuilder(base);
+            enter(root);
+        }
+
+        private void enter(Node node) {
+            if (++depth == nodes.length) {
+                nodes = Arrays.copyOf(nodes, depth * 2);
+                positions = Arrays.copyOf(positions, depth * 2);
+                lengths = Arrays.copyOf(lengths, depth * 2);
+            }
+            key.append(node.prefix);
+            nodes[depth] = node;
+            positions[depth] = node.next(0);
+            lengths[depth] = key.length();
+            pending = node.value == NONE ? null : node;
+        }
+
+        @Override
+        protected Pair<String, V> getNext() throws Exception {
+            while (true) {
+                if (pending != null) {
+                    Object value = pending.value;
+                    pending = null;
+                    return Pair.pair(key.toString(), Unchecked.<V>cast(value));
+                }
+                if (depth < 0) return finished();
+                Node node = nodes[depth];
+                int position = positions[depth];
+                if (position < 0) {
+                    nodes[depth--] = null;
+                    continue;
+                }
+                positions[depth] = node.next(position + 1);
+                key.setLength(lengths[depth]);
+                key.append(node.key(position));
+                enter(node.node(position));
+            }
+        }
+    }
+
+    private static final class Bytes implements CharSequence {
+        private final byte[] bytes;
+        private final int offset;
+        private final int length;
+
+        private Bytes(byte[] bytes, int offset, int length) {
+            this.bytes = bytes;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (bytes[offset + index] & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new Bytes(bytes, offset + start, end - start);
+        }
+
+        @Override
+        public String toString() {
+            return new String(bytes, offset, length, StandardCharsets.ISO_8859_1);
+        }
+    }
+
+    private static class Transient<V> implements TransientMap<String, V> {
+        private Object edit = new Object();
+        private Node root;
+        private int size;
+
+        private Transient(Node root, int size) {
+            this.root = root;
+            this.size = size;
+        }
+
+        @Override
+        public Transient<V> insert(String key, V value) {
+            Change change = new Change();
+            root = put(edit(), root, key, 0, value, change);
+            if (change.sizeChanged) size++;
+            return this;
+        }
+
+        @Override
+        public Transient<V> insertAll(Iterable<? extends Pair<? extends String, ? extends V>> pairs) {
+            for (Pair<? extends String, ? extends V> pair : pairs) insert(pair.first(), pair.second());
+            return this;
+        }
+
+        @Override
+        public Transient<V> delete(String key) {
+            Change change = new Change();
+            Node newRoot = remove(edit(), root, key, 0, change);
+            root = newRoot == null ? Sorted.EMPTY : newRoot;
+            if (change.sizeChanged) size--;
+            return this;
+        }
+
+        @Override
+        public Option<V> lookup(String key) {
+            edit();
+            Object value = get(root, key);
+            return value == NONE ? Option.<V>none() : Option.option(Unchecked.<V>cast(value));
+        }
+
+        @Override
+        public boolean contains(Object key) {
+            edit();
+            return key instanceof CharSequence && get(root, (CharSequence) key) != NONE;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public RadixTrie<V> persistent() {
+            edit();
+            edit = null;
+            return size == 0 ? RadixTrie.<V>radixTrie() : new RadixTrie<V>(root, size);
+        }
+
+        private Object edit() {
+            if (edit == null) throw new IllegalStateException("Transient used after persistent()");
+            return edit;
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package com.googlecode.totallylazy.collections;
+
+import com.googlecode.totallylazy.Atomic.RetryingAtomic;
+import com.googlecode.totallylazy.Callable1;
+import com.googlecode.totallylazy.Maps;
+import com.googlecode.totallylazy.Option;
+import com.googlecode.totallylazy.Pair;
+import com.googlecode.totallylazy.Unchecked;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+
+import static com.googlecode.totallylazy.Atomic.constructors.atomic;
+import static com.googlecode.totallylazy.Callers.call;
+import static com.googlecode.totallylazy.Pair.pair;
+import static com.googlecode.totallylazy.Unchecked.cast;
+
+/**
+ * A ConcurrentMap whose keys are spread by hash over independent Atomic cells, so writers to different shards
+ * never retry against each other. Lookups and size are weakly consistent like ConcurrentHashMap, snapshot()
+ * briefly holds off writers to return the whole map as of a single point in time.
+ */
+public class ShardedAtomicMap<K, V> implements ConcurrentMap<K, V> {
+    private static final Object FROZEN = new Object();
+    private final RetryingAtomic<Shard<K, V>>[] shards;
+    private final int mask;
+
+    private ShardedAtomicMap(RetryingAtomic<Shard<K, V>>[] shards) {
+        this.shards = shards;
+        this.mask = shards.length - 1;
+    }
+
+    public static <K, V> ShardedAtomicMap<K, V> shardedAtomicMap(PersistentMap<K, V> map) {
+        return shardedAtomicMap(map, 4 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /** The number of shards is rounded up to a power of two, each starts from map.empty() so sorted maps keep their comparator */
+    public static <K, V> ShardedAtomicMap<K, V> shardedAtomicMap(PersistentMap<K, V> map, int shards) {
+        if (shards < 1) throw new IllegalArgumentException("shards must be at least 1");
+        int count = Integer.highestOneBit(shards) == shards ? shards : Integer.highestOneBit(shards) << 1;
+        List<TransientMap<K, V>> transients = new ArrayList<TransientMap<K, V>>(count);
+        for (int i = 0; i < count; i++) transients.add(map.empty().asTransient());
+        for (Pair<K, V> pair : map) transients.get(index(pair.first(), count - 1)).insert(pair.first(), pair.second());
+        @SuppressWarnings("unchecked")
+        RetryingAtomic<Shard<K, V>>[] cells = (RetryingAtomic<Shard<K, V>>[]) new RetryingAtomic<?>[count];
+        for (int i = 0; i < count; i++) cells[i] = atomic(new Shard<K, V>(transients.get(i).persistent(), false));
+        return new ShardedAtomicMap<K, V>(cells);
+    }
+
+    private static int index(Object key, int mask) {
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private RetryingAtomic<Shard<K, V>> shard(Object key) {
+        return shards[index(key, mask)];
+    }
+
+    private PersistentMap<K, V> map(Object key) {
+        return shard(key).value().map;
+    }
+
+    private K key(Object key) {return cast(key);}
+
+    private <R> R modify(Object key, Callable1<? super PersistentMap<K, V>, ? extends Pair<? extends PersistentMap<K, V>, ? extends R>> modification) {
+        return apply(shard(key), modification);
+    }
+
+    /** Writers wait while a snapshot has the shard frozen */
+    private static <K, V, R> R apply(RetryingAtomic<Shard<K, V>> shard, final Callable1<? super PersistentMap<K, V>, ? extends Pair<? extends PersistentMap<K, V>, ? extends R>> modification) {
+        while (true) {
+            Object result = shard.modifyReturn((Shard<K, V> current) -> {
+                if (current.frozen) return pair(current, FROZEN);
+                Pair<? extends PersistentMap<K, V>, ? extends R> modified = call(modification, current.map);
+                return pair(modified.first() == current.map ? current : new Shard<K, V>(modified.first(), false), modified.second());
+            });
+            if (result != FROZEN) return cast(result);
+            Thread.yield();
+        }
+    }
+
+    private Pair<PersistentMap<K, V>, V> put(PersistentMap<K, V> map, K key, V value) {
+        return PersistentMap.methods.put(map, key, value).
+                second(Option.functions.<V>getOrNull());
+    }
+
+    /** Freezes every shard in order, so concurrent snapshots can not deadlock, and merges them into one map */
+    public PersistentMap<K, V> snapshot() {
+        int frozen = 0;
+        try {
+            TransientMap<K, V> result = null;
+            for (; frozen < shards.length; frozen++) {
+                PersistentMap<K, V> map = freeze(shards[frozen]);
+                if (result == null) result = map.asTransient();
+                else result.insertAll(map);
+            }
+            return result.persistent();
+        } finally {
+            for (int i = 0; i < frozen; i++) shards[i].modify((Shard<K, V> shard) -> new Shard<K, V>(shard.map, false));
+        }
+    }
+
+    private static <K, V> PersistentMap<K, V> freeze(RetryingAtomic<Shard<K, V>> shard) {
+        while (true) {
+            PersistentMap<K, V> map = shard.modifyReturn((Shard<K, V> current) -> current.frozen
+                    ? pair(current, (PersistentMap<K, V>) null)
+                    : pair(new Shard<K, V>(current.map, true), current.map));
+            if (map != null) return map;
+            Thread.yield();
+        }
+    }
+
+    /** Total modification attempts across all shards */
+    public long attempts() {
+        long attempts = 0;
+        for (RetryingAtomic<Shard<K, V>> shard : shards) attempts += shard.attempts();
+        return attempts;
+    }
+
+    /** Total attempts across all shards that lost a compareAndSet to another writer */
+    public long failures() {
+        long failures = 0;
+        for (RetryingAtomic<Shard<K, V>> shard : shards) failures += shard.failures();
+        return failures;
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (RetryingAtomic<Shard<K, V>> shard : shards) size += shard.value().map.size();
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        for (RetryingAtomic<Shard<K, V>> shard : shards) if (!shard.value().map.isEmpty()) return false;
+        return true;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return map(key).contains(key(key));
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        for (RetryingAtomic<Shard<K, V>> shard : shards) if (shard.value().map.values().contains(value)) return true;
+        return false;
+    }
+
+    @Override
+    public V get(Object key) {
+        return map(key).lookup(key(key)).getOrNull();
+    }
+
+    @Override
+    public V put(final K key, final V value) {
+        return modify(key, (PersistentMap<K, V> map) -> put(map, key, value));
+    }
+
+    /** Applies each shard's entries in one modification of that shard */
+    @Override
+    public void putAll(final Map<? extends K, ? extends V> m) {
+        List<List<Pair<K, V>>> grouped = new ArrayList<List<Pair<K, V>>>(shards.length);
+        for (int i = 0; i < shards.length; i++) grouped.add(new ArrayList<Pair<K, V>>());
+        for (Pair<K, V> pair : Maps.pairs(m).<Pair<K, V>>unsafeCast()) grouped.get(index(pair.first(), mask)).add(pair);
+        for (int i = 0; i < shards.length; i++) {
+            final List<Pair<K, V>> pairs = grouped.get(i);
+            if (pairs.isEmpty()) continue;
+            apply(shards[i], (PersistentMap<K, V> map) -> pair(map.asTransient().insertAll(pairs).persistent(), null));
+        }
+    }
+
+    @Override
+    public V remove(final Object key) {
+        return modify(key, (PersistentMap<K, V> map) -> PersistentMap.methods.remove(map, key(key)).
+                second(Option.functions.<V>getOrNull()));
+    }
+
+    /** Empties each shard in turn */
+    @Override
+    public void clear() {
+        for (RetryingAtomic<Shard<K, V>> shard : shards) apply(shard, (PersistentMap<K, V> map) -> pair(map.empty(), null));
+    }
+
+    @Override
+    public Set<K> keySet() {
+        return snapshot().keys().toSet();
+    }
+
+    @Override
+    public Collection<V> values() {
+        return snapshot().values().toList();
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return Maps.entrySet(snapshot());
+    }
+
+    @Override
+    public V putIfAbsent(final K key, final V value) {
+        return modify(key, (PersistentMap<K, V> map) -> {
+            if (!map.contains(key)) return put(map, key, value);
+            return pair(map, map.lookup(key).getOrNull());
+        });
+    }
+
+    @Override
+    public boolean remove(final Object rawKey, final Object value) {
+        return modify(rawKey, (PersistentMap<K, V> map) -> {
+            K key = key(rawKey);
+            if (map.lookup(key).contains(Unchecked.<V>cast(value))) return pair(map.delete(key), true);
+            return pair(map, false);
+        });
+    }
+
+    @Override
+    public boolean replace(final K key, final V oldValue, final V newValue) {
+        return modify(key, (PersistentMap<K, V> map) -> {
+            if (map.lookup(key).contains(oldValue)) return pair(map.insert(key, newValue), true);
+            return pair(map, false);
+        });
+    }
+
+    @Override
+    public V replace(final K key, final V value) {
+        return modify(key, (PersistentMap<K, V> map) -> {
+            if (map.contains(key)) return put(map, key, value);
+            return pair(map, (V) null);
+        });
+    }
+
+    /** A new Shard is made for every change, so a snapshot never sees a shard return to an earlier state unnoticed */
+    private static final class Shard<K, V> {
+        private final PersistentMap<K, V> map;
+        private final boolean frozen;
+
+        private Shard(PersistentMap<K, V> map, boolean frozen) {
+            this.map = map;
+            this.frozen = frozen;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.googlecode.totallylazy.collections;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** A batch-mutable view of a PersistentList that appends in place, see {@link TransientMap} */
+public interface TransientList<T> {
+    TransientList<T> append(T value);
+
+    TransientList<T> appendAll(Iterable<? extends T> values);
+
+    int size();
+
+    PersistentList<T> persistent();
+
+    class constructors {
+        /** Buffers appends and rebuilds the list once, back to front, when it is made persistent */
+        public static <T> TransientList<T> transientList(PersistentList<T> list) {
+            return new Appending<T>(list);
+        }
+
+        private static class Appending<T> implements TransientList<T> {
+            private final PersistentList<T> list;
+            private List<T> appended = new ArrayList<T>();
+
+            private Appending(PersistentList<T> list) {
+                this.list = list;
+            }
+
+            @Override
+            public TransientList<T> append(T value) {
+                appended().add(value);
+                return this;
+            }
+
+            @Override
+            public TransientList<T> appendAll(Iterable<? extends T> values) {
+                List<T> appended = appended();
+                for (T value : values) appended.add(value);
+                return this;
+            }
+
+            @Override
+            public int size() {
+                return list.size() + appended().size();
+            }
+
+            @Override
+            public PersistentList<T> persistent() {
+                List<T> values = appended();
+                appended = null;
+                if (values.isEmpty()) return list;
+                List<T> all = new ArrayList<T>(list.size() + values.size());
+                for (T value : list) all.add(value);
+                all.addAll(values);
+                PersistentList<T> result = list.empty();
+                for (int i = all.size() - 1; i >= 0; i--) result = result.cons(all.get(i));
+                return result;
+            }
+
+            private List<T> appended() {
+                if (appended == null) throw new IllegalStateException("Transient used after persistent()");
+                return appended;
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.googlecode.totallylazy.collections;
+
+import com.googlecode.totallylazy.Option;
+import com.googlecode.totallylazy.Pair;
+
+/**
+ * A batch-mutable view of a PersistentMap. Updates happen in place on nodes the transient owns,
+ * and persistent() freezes the result; the transient can not be used after that.
+ * Transients are not thread safe and are meant to be confined to the method building the map.
+ */
+public interface TransientMap<K, V> {
+    TransientMap<K, V> insert(K key, V value);
+
+    TransientMap<K, V> insertAll(Iterable<? extends Pair<? extends K, ? extends V>> pairs);
+
+    TransientMap<K, V> delete(K key);
+
+    Option<V> lookup(K key);
+
+    boolean contains(Object key);
+
+    int size();
+
+    PersistentMap<K, V> persistent();
+
+    class constructors {
+        /** For maps without an in place representation: each update is a normal persistent update */
+        public static <K, V> TransientMap<K, V> transientMap(PersistentMap<K, V> map) {
+            return new Copying<K, V>(map);
+        }
+
+        private static class Copying<K, V> implements TransientMap<K, V> {
+            private PersistentMap<K, V> map;
+
+            private Copying(PersistentMap<K, V> map) {
+                this.map = map;
+            }
+
+            @Override
+            public TransientMap<K, V> insert(K key, V value) {
+                map = map().insert(key, value);
+                return this;
+            }
+
+            @Override
+            public TransientMap<K, V> insertAll(Iterable<? extends Pair<? extends K, ? extends V>> pairs) {
+                for (Pair<? extends K, ? extends V> pair : pairs) insert(pair.first(), pair.second());
+                return this;
+            }
+
+            @Override
+            public TransientMap<K, V> delete(K key) {
+                map = map().delete(key);
+                return this;
+            }
+
+            @Override
+            public Option<V> lookup(K key) {
+                return map().lookup(key);
+            }
+
+            @Override
+            public boolean contains(Object key) {
+                return map().contains(key);
+            }
+
+            @Override
+            public int size() {
+                return map().size();
+            }
+
+            @Override
+            public PersistentMap<K, V> persistent() {
+                PersistentMap<K, V> result = map();
+                map = null;
+                return result;
+            }
+
+            private PersistentMap<K, V> map() {
+                if (map == null) throw new IllegalStateException("Transient used after persistent()");
+                return map;
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.googlecode.totallylazy.collections;
+
+import com.googlecode.totallylazy.Callable1;
+
+import static com.googlecode.totallylazy.Callers.call;
+
+/** A batch-mutable view of a PersistentSet, see {@link TransientMap} */
+public interface TransientSet<T> {
+    TransientSet<T> cons(T value);
+
+    TransientSet<T> consAll(Iterable<? extends T> values);
+
+    TransientSet<T> delete(T value);
+
+    boolean contains(Object value);
+
+    int size();
+
+    PersistentSet<T> persistent();
+
+    class constructors {
+        /** A set stored as a map from each value to itself */
+        public static <T> TransientSet<T> transientSet(TransientMap<T, T> map, Callable1<? super PersistentMap<T, T>, ? extends PersistentSet<T>> freeze) {
+            return new MapBacked<T>(map, freeze);
+        }
+
+        private static class MapBacked<T> implements TransientSet<T> {
+            private final TransientMap<T, T> map;
+            private final Callable1<? super PersistentMap<T, T>, ? extends PersistentSet<T>> freeze;
+
+            private MapBacked(TransientMap<T, T> map, Callable1<? super PersistentMap<T, T>, ? extends PersistentSet<T>> freeze) {
+                this.map = map;
+                this.freeze = freeze;
+            }
+
+            @Override
+            public TransientSet<T> cons(T value) {
+                map.insert(value, value);
+                return this;
+            }
+
+            @Override
+            public TransientSet<T> consAll(Iterable<? extends T> values) {
+                for (T value : values) map.insert(value, value);
+                return this;
+            }
+
+            @Override
+            public TransientSet<T> delete(T value) {
+                map.delete(value);
+                return this;
+            }
+
+            @Override
+            public boolean contains(Object value) {
+                return map.contains(value);
+            }
+
+            @Override
+            public int size() {
+                return map.size();
+            }
+
+            @Override
+            public PersistentSet<T> persistent() {
+                return call(freeze, map.persistent());
+            }
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.googlecode.totallylazy.collections;
+
+import com.googlecode.totallylazy.Pair;
+
+public interface TransientSortedMap<K, V> extends TransientMap<K, V> {
+    @Override
+    TransientSortedMap<K, V> insert(K key, V value);
+
+    @Override
+    TransientSortedMap<K, V> insertAll(Iterable<? extends Pair<? extends K, ? extends V>> pairs);
+
+    @Override
+    TransientSortedMap<K, V> delete(K key);
+
+    @Override
+    PersistentSortedMap<K, V> persistent();
+}
@@ -0,0 +1,121 @@
+package com.googlecode.totallylazy.collections;
+
+import com.googlecode.totallylazy.Callable1;
+import com.googlecode.totallylazy.Option;
+import com.googlecode.totallylazy.Pair;
+import com.googlecode.totallylazy.Unchecked;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+
+import static com.googlecode.totallylazy.Callers.call;
+
+/**
+ * Batches updates to a sorted map in a mutable sorted buffer. When made persistent a small batch is applied
+ * with normal path copying inserts and deletes, a large one is merged with the map in order and the
+ * result bulk loaded in O(n), into a balanced tree by default.
+ */
+class TransientTreeMap<K, V> implements TransientSortedMap<K, V> {
+    private static final Object DELETED = new Object();
+    private final PersistentSortedMap<K, V> tree;
+    private final Callable1<? super List<Pair<K, V>>, ? extends PersistentSortedMap<K, V>> load;
+    private NavigableMap<K, Object> changes;
+    private int size;
+
+    TransientTreeMap(final TreeMap<K, V> tree) {
+        this(tree, sorted -> TreeMap.methods.treeMap(tree.factory(), tree.comparator(), sorted));
+    }
+
+    /** load bulk builds the persistent result from pairs sorted by key without duplicates */
+    TransientTreeMap(PersistentSortedMap<K, V> tree, Callable1<? super List<Pair<K, V>>, ? extends PersistentSortedMap<K, V>> load) {
+        this.tree = tree;
+        this.load = load;
+        this.changes = new java.util.TreeMap<K, Object>(tree.comparator());
+        this.size = tree.size();
+    }
+
+    @Override
+    public TransientSortedMap<K, V> insert(K key, V value) {
+        if (!contains(key)) size++;
+        changes().put(key, value);
+        return this;
+    }
+
+    @Override
+    public TransientSortedMap<K, V> insertAll(Iterable<? extends Pair<? extends K, ? extends V>> pairs) {
+        for (Pair<? extends K, ? extends V> pair : pairs) insert(pair.first(), pair.second());
+        return this;
+    }
+
+    @Override
+    public TransientSortedMap<K, V> delete(K key) {
+        if (contains(key)) size--;
+        changes().put(key, DELETED);
+        return this;
+    }
+
+    @Override
+    public Option<V> lookup(K key) {
+        NavigableMap<K, Object> changes = changes();
+        if (!changes.containsKey(key)) return tree.lookup(key);
+        Object value = changes.get(key);
+        return value == DELETED ? Option.<V>none() : Option.option(Unchecked.<V>cast(value));
+    }
+
+    @Override
+    public boolean contains(Object key) {
+        NavigableMap<K, Object> changes = changes();
+        if (!changes.containsKey(key)) return tree.contains(key);
+        return changes.get(key) != DELETED;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public PersistentSortedMap<K, V> persistent() {
+        NavigableMap<K, Object> changes = changes();
+        this.changes = null;
+        if (changes.size() < tree.size() / 8) return applyEach(changes);
+        return merge(changes);
+    }
+
+    private PersistentSortedMap<K, V> applyEach(NavigableMap<K, Object> changes) {
+        PersistentSortedMap<K, V> result = tree;
+        for (Map.Entry<K, Object> change : changes.entrySet()) {
+            if (change.getValue() == DELETED) result = result.delete(change.getKey());
+            else result = result.insert(change.getKey(), Unchecked.<V>cast(change.getValue()));
+        }
+        return result;
+    }
+
+    private PersistentSortedMap<K, V> merge(NavigableMap<K, Object> changes) {
+        List<Pair<K, V>> merged = new ArrayList<Pair<K, V>>(size);
+        Iterator<Pair<K, V>> existing = tree.iterator();
+        Iterator<Map.Entry<K, Object>> updates = changes.entrySet().iterator();
+        Pair<K, V> current = existing.hasNext() ? existing.next() : null;
+        Map.Entry<K, Object> update = updates.hasNext() ? updates.next() : null;
+        while (current != null || update != null) {
+            int difference = current == null ? 1 : update == null ? -1 : tree.comparator().compare(current.first(), update.getKey());
+            if (difference < 0) {
+                merged.add(current);
+                current = existing.hasNext() ? existing.next() : null;
+                continue;
+            }
+            if (update.getValue() != DELETED) merged.add(Pair.pair(update.getKey(), Unchecked.<V>cast(update.getValue())));
+            if (difference == 0) current = existing.hasNext() ? existing.next() : null;
+            update = updates.hasNext() ? updates.next() : null;
+        }
+        return call(load, merged);
+    }
+
+    private NavigableMap<K, Object> changes() {
+        if (changes == null) throw new IllegalStateException("Transient used after persistent()");
+        return changes;
+    }
+}
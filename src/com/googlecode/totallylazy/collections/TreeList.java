@@ -11,6 +11,8 @@ import com.googlecode.totallylazy.Predicate;
 import com.googlecode.totallylazy.Segment;
 import com.googlecode.totallylazy.Sequence;
 import com.googlecode.totallylazy.Sets;
+import com.googlecode.totallylazy.Splittable;
+import com.googlecode.totallylazy.Unchecked;
 
 import java.util.Iterator;
 import java.util.List;
@@ -24,7 +26,7 @@ import static com.googlecode.totallylazy.Sequences.sequence;
 import static com.googlecode.totallylazy.Sets.set;
 import static com.googlecode.totallylazy.numbers.Numbers.intValue;
 
-public class TreeList<T> extends AbstractList<T> implements PersistentList<T>, RandomAccess {
+public class TreeList<T> extends AbstractList<T> implements PersistentList<T>, RandomAccess, Splittable<T> {
     private final PersistentSortedMap<Integer, T> map;
 
     private TreeList(PersistentSortedMap<Integer, T> map) {this.map = map;}
@@ -169,4 +171,10 @@ public class TreeList<T> extends AbstractList<T> implements PersistentList<T>, R
         return Iterators.map(map.iterator(), Callables.<T>second());
     }
 
+    @Override
+    public Pair<? extends Splittable<T>, ? extends Splittable<T>> split() {
+        if (map instanceof Splittable) return Splittable.constructors.map(Unchecked.<Splittable<Pair<Integer, T>>>cast(map), Callables.<T>second()).split();
+        return Splittable.constructors.slice(this, 0, size()).split();
+    }
+
 }
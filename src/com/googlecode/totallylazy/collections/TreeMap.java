@@ -1,13 +1,18 @@
 package com.googlecode.totallylazy.collections;
 
 import com.googlecode.totallylazy.Callable1;
+import com.googlecode.totallylazy.Callables;
 import com.googlecode.totallylazy.Function1;
 import com.googlecode.totallylazy.Pair;
 import com.googlecode.totallylazy.Predicate;
+import com.googlecode.totallylazy.comparators.Comparators;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.RandomAccess;
 
 import static com.googlecode.totallylazy.Callers.call;
 
@@ -89,14 +94,38 @@ public interface TreeMap<K, V> extends PersistentSortedMap<K, V> {
             return factory.create(treeMap.comparator(), treeMap.key(), call(transformer, treeMap.value()), treeMap.left().map(transformer), treeMap.right().map(transformer));
         }
 
+        /** Builds a balanced tree in O(n) from pairs already sorted by key without duplicates */
         public static <K, V> TreeMap<K, V> treeMap(final TreeFactory factory, final Comparator<K> comparator, final List<Pair<K, V>> sortedList) {
-            if(sortedList.size() == 0) return factory.create(comparator);
-            int middle = sortedList.size() / 2;
+            List<Pair<K, V>> list = sortedList instanceof RandomAccess ? sortedList : new ArrayList<Pair<K, V>>(sortedList);
+            return treeMap(factory, comparator, list, 0, list.size());
+        }
+
+        private static <K, V> TreeMap<K, V> treeMap(final TreeFactory factory, final Comparator<K> comparator, final List<Pair<K, V>> sortedList, int from, int to) {
+            if (from == to) return factory.create(comparator);
+            int middle = (from + to) >>> 1;
             Pair<K, V> pair = sortedList.get(middle);
-            TreeMap<K, V> left = treeMap(factory, comparator, sortedList.subList(0, middle));
-            TreeMap<K, V> right = treeMap(factory, comparator, sortedList.subList(middle + 1, sortedList.size()));
+            TreeMap<K, V> left = treeMap(factory, comparator, sortedList, from, middle);
+            TreeMap<K, V> right = treeMap(factory, comparator, sortedList, middle + 1, to);
             return factory.create(comparator, pair.first(), pair.second(), left, right);
         }
+
+        /** Only sorts when the pairs are not already in order, later pairs win when keys are repeated */
+        public static <K, V> List<Pair<K, V>> sortedList(final Comparator<K> comparator, final Iterable<? extends Pair<K, V>> pairs) {
+            List<Pair<K, V>> list = new ArrayList<Pair<K, V>>();
+            boolean sorted = true;
+            for (Pair<K, V> pair : pairs) {
+                if (sorted && !list.isEmpty() && comparator.compare(list.get(list.size() - 1).first(), pair.first()) >= 0) sorted = false;
+                list.add(pair);
+            }
+            if (sorted) return list;
+            Collections.sort(list, Comparators.<Pair<K, V>, K>by(Callables.<K>first(), comparator));
+            int size = 0;
+            for (Pair<K, V> pair : list) {
+                if (size > 0 && comparator.compare(list.get(size - 1).first(), pair.first()) == 0) size--;
+                list.set(size++, pair);
+            }
+            return list.subList(0, size);
+        }
     }
 
     static class functions {
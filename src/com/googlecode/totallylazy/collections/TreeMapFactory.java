@@ -1,12 +1,10 @@
 package com.googlecode.totallylazy.collections;
 
-import com.googlecode.totallylazy.Callables;
 import com.googlecode.totallylazy.Pair;
 import com.googlecode.totallylazy.comparators.Comparators;
 
 import java.util.Comparator;
 
-import static com.googlecode.totallylazy.Sequences.sequence;
 import static com.googlecode.totallylazy.Unchecked.cast;
 
 public class TreeMapFactory<K, V, T extends TreeMap<K, V>> extends AbstractMapFactory<K, V, T> {
@@ -33,6 +31,6 @@ public class TreeMapFactory<K, V, T extends TreeMap<K, V>> extends AbstractMapFa
 
     @Override
     public T map(Iterable<? extends Pair<K, V>> values) {
-        return cast(TreeMap.methods.treeMap(factory, comparator, sequence(values).toSortedList(Comparators.<Pair<K, V>, K>by(Callables.<K>first(), comparator))));
+        return cast(TreeMap.methods.treeMap(factory, comparator, TreeMap.methods.sortedList(comparator, values)));
     }
 }
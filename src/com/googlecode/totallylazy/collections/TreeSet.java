@@ -13,6 +13,7 @@ import com.googlecode.totallylazy.Sequences;
 import com.googlecode.totallylazy.Unchecked;
 import com.googlecode.totallylazy.iterators.SegmentIterator;
 
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 import java.util.Set;
@@ -31,6 +32,15 @@ public class TreeSet<T> extends AbstractCollection<T> implements PersistentSorte
         return new TreeSet<T>(map);
     }
 
+    PersistentSortedMap<T, T> map() {
+        return map;
+    }
+
+    @Override
+    public Comparator<T> comparator() {
+        return map.comparator();
+    }
+
     private Pair<PersistentSortedSet<T>, T> treeSet(Pair<? extends PersistentSortedMap<T, T>, Pair<T, T>> pair) {
         return Pair.pair(treeSet(pair.first()), pair.second().first());
     }
@@ -85,6 +95,11 @@ public class TreeSet<T> extends AbstractCollection<T> implements PersistentSorte
         return treeSet(map.removeLast());
     }
 
+    @Override
+    public TransientSet<T> asTransient() {
+        return TransientSet.constructors.transientSet(map.asTransient(), (PersistentMap<T, T> map) -> treeSet((PersistentSortedMap<T, T>) map));
+    }
+
     @Override
     public Set<T> toSet() {
         return map.keys().toSet();
@@ -0,0 +1,609 @@
+package com.googlecode.totallylazy.collections;
+
+import com.googlecode.totallylazy.Callable1;
+import com.googlecode.totallylazy.Callable2;
+import com.googlecode.totallylazy.Option;
+import com.googlecode.totallylazy.Pair;
+import com.googlecode.totallylazy.Predicate;
+import com.googlecode.totallylazy.Segment;
+import com.googlecode.totallylazy.Sequence;
+import com.googlecode.totallylazy.Splittable;
+import com.googlecode.totallylazy.Unchecked;
+import com.googlecode.totallylazy.iterators.ReadOnlyIterator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+import static com.googlecode.totallylazy.Callers.call;
+import static com.googlecode.totallylazy.Option.some;
+import static com.googlecode.totallylazy.Pair.pair;
+import static com.googlecode.totallylazy.Sequences.sequence;
+import static com.googlecode.totallylazy.Unchecked.cast;
+
+/**
+ * A persistent vector stored as a relaxed radix balanced (RRB) tree of 32 wide nodes with the last leaf kept
+ * aside as a tail. Index, update and append are O(log32 n), and as nodes only become relaxed (carry a size
+ * table) when sliced or joined, join, take, drop and cons are O(log n) too.
+ */
+public class Vector<T> extends AbstractList<T> implements PersistentList<T>, RandomAccess, Splittable<T> {
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int EXTRAS = 2;
+    private static final Object[] NO_VALUES = new Object[0];
+    private static final Vector<Object> EMPTY = new Vector<Object>(null, 0, 0, NO_VALUES);
+    private final Object root;
+    private final int height;
+    private final int size;
+    private final Object[] tail;
+
+    private Vector(Object root, int height, int size, Object[] tail) {
+        this.root = root;
+        this.height = height;
+        this.size = size;
+        this.tail = tail;
+    }
+
+    public static <T> Vector<T> vector() {
+        return cast(EMPTY);
+    }
+
+    @SafeVarargs
+    public static <T> Vector<T> vector(T... values) {
+        return vector(sequence(values));
+    }
+
+    /** Fills leaves directly and builds each level of the tree once */
+    public static <T> Vector<T> vector(Iterable<? extends T> values) {
+        if (values instanceof Vector) return cast(values);
+        List<Object> level = new ArrayList<Object>();
+        Object[] leaf = new Object[WIDTH];
+        int count = 0;
+        int size = 0;
+        for (T value : values) {
+            if (count == WIDTH) {
+                level.add(leaf);
+                leaf = new Object[WIDTH];
+                count = 0;
+            }
+            leaf[count++] = value;
+            size++;
+        }
+        if (size == 0) return vector();
+        int height = 0;
+        while (level.size() > 1) {
+            List<Object> parents = new ArrayList<Object>();
+            for (int i = 0; i < level.size(); i += WIDTH) parents.add(new Node(level.subList(i, Math.min(i + WIDTH, level.size())).toArray(), null));
+            level = parents;
+            height++;
+        }
+        return new Vector<T>(level.isEmpty() ? null : level.get(0), height, size, count == WIDTH ? leaf : Arrays.copyOf(leaf, count));
+    }
+
+    /** Drops any single child nodes left at the top after slicing */
+    private static <T> Vector<T> vector(Object root, int height, int size, Object[] tail) {
+        if (root == null) return new Vector<T>(null, 0, size, tail);
+        while (height > 0 && ((Node) root).children.length == 1) {
+            root = ((Node) root).children[0];
+            height--;
+        }
+        return new Vector<T>(root, height, size, tail);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public T get(int index) throws IndexOutOfBoundsException {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException(String.valueOf(index));
+        int tailOffset = size - tail.length;
+        if (index >= tailOffset) return cast(tail[index - tailOffset]);
+        Object node = root;
+        for (int level = height; level > 0; level--) {
+            Node parent = (Node) node;
+            int child = parent.child(level, index);
+            index -= parent.offset(level, child);
+            node = parent.children[child];
+        }
+        return cast(((Object[]) node)[index]);
+    }
+
+    public Vector<T> update(int index, T value) throws IndexOutOfBoundsException {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException(String.valueOf(index));
+        int tailOffset = size - tail.length;
+        if (index < tailOffset) return new Vector<T>(update(root, height, index, value), height, size, tail);
+        Object[] newTail = tail.clone();
+        newTail[index - tailOffset] = value;
+        return new Vector<T>(root, height, size, newTail);
+    }
+
+    @Override
+    public T head() throws NoSuchElementException {
+        if (isEmpty()) throw new NoSuchElementException();
+        return get(0);
+    }
+
+    @Override
+    public Option<T> headOption() {
+        return isEmpty()
+                ? Option.<T>none()
+                : some(head());
+    }
+
+    public T last() throws NoSuchElementException {
+        if (isEmpty()) throw new NoSuchElementException();
+        return cast(tail[tail.length - 1]);
+    }
+
+    @Override
+    public Vector<T> tail() throws NoSuchElementException {
+        if (isEmpty()) throw new NoSuchElementException();
+        return drop(1);
+    }
+
+    /** Everything but the last element */
+    public Vector<T> init() throws NoSuchElementException {
+        if (isEmpty()) throw new NoSuchElementException();
+        return take(size - 1);
+    }
+
+    @Override
+    public Vector<T> cons(T head) {
+        return new Vector<T>(null, 0, 1, new Object[]{head}).join(this);
+    }
+
+    @Override
+    public Vector<T> append(T value) {
+        if (tail.length < WIDTH) {
+            Object[] newTail = Arrays.copyOf(tail, tail.length + 1);
+            newTail[tail.length] = value;
+            return new Vector<T>(root, height, size + 1, newTail);
+        }
+        return pushTail(size + 1, new Object[]{value});
+    }
+
+    public Vector<T> join(Vector<T> other) {
+        if (other.isEmpty()) return this;
+        if (isEmpty()) return other;
+        if (other.root == null) {
+            Vector<T> result = this;
+            for (Object value : other.tail) result = result.append(Unchecked.<T>cast(value));
+            return result;
+        }
+        Vector<T> left = pushTail(size, NO_VALUES);
+        Object leftRoot = left.root;
+        Object rightRoot = other.root;
+        int height = Math.max(left.height, other.height);
+        for (int level = left.height; level < height; level++) leftRoot = new Node(new Object[]{leftRoot}, null);
+        for (int level = other.height; level < height; level++) rightRoot = new Node(new Object[]{rightRoot}, null);
+        Object[] merged = merge(leftRoot, rightRoot, height);
+        if (merged.length == 1) return vector(merged[0], height, size + other.size, other.tail);
+        return vector(node(merged, height + 1), height + 1, size + other.size, other.tail);
+    }
+
+    public Vector<T> take(int count) {
+        if (count >= size) return this;
+        if (count <= 0) return vector();
+        int tailOffset = size - tail.length;
+        if (count > tailOffset) return new Vector<T>(root, height, count, Arrays.copyOf(tail, count - tailOffset));
+        Object sliced = sliceRight(root, height, count);
+        return vector(removeLastLeaf(sliced, height), height, count, lastLeaf(sliced, height));
+    }
+
+    public Vector<T> drop(int count) {
+        if (count <= 0) return this;
+        if (count >= size) return vector();
+        int tailOffset = size - tail.length;
+        if (count >= tailOffset) return new Vector<T>(null, 0, size - count, Arrays.copyOfRange(tail, count - tailOffset, tail.length));
+        return vector(sliceLeft(root, height, count), height, size - count, tail);
+    }
+
+    @Override
+    public Vector<T> subList(int fromIndex, int toIndex) {
+        if (fromIndex < 0 || toIndex > size || fromIndex > toIndex) throw new IndexOutOfBoundsException(fromIndex + ".." + toIndex);
+        return drop(fromIndex).take(toIndex - fromIndex);
+    }
+
+    @Override
+    public Vector<T> empty() {
+        return vector();
+    }
+
+    @Override
+    public Vector<T> delete(T value) {
+        int index = indexOf(value);
+        if (index < 0) return this;
+        return take(index).join(drop(index + 1));
+    }
+
+    @Override
+    public Vector<T> filter(Predicate<? super T> predicate) {
+        return vector(toSequence().filter(predicate));
+    }
+
+    @Override
+    public <S> Vector<S> map(Callable1<? super T, ? extends S> callable) {
+        return vector(toSequence().map(callable));
+    }
+
+    @Override
+    public Vector<T> reverse() {
+        List<T> reversed = new ArrayList<T>(size);
+        for (int i = size - 1; i >= 0; i--) reversed.add(get(i));
+        return vector(reversed);
+    }
+
+    @Override
+    public Option<T> find(Predicate<? super T> predicate) {
+        return toSequence().find(predicate);
+    }
+
+    @Override
+    public <S> S fold(S seed, Callable2<? super S, ? super T, ? extends S> callable) {
+        S accumulator = seed;
+        for (T value : this) accumulator = call(callable, accumulator, value);
+        return accumulator;
+    }
+
+    @Override
+    public <C extends Segment<T>> C joinTo(C rest) {
+        return toSequence().joinTo(rest);
+    }
+
+    @Override
+    public boolean contains(Object other) {
+        return indexOf(other) >= 0;
+    }
+
+    @Override
+    public boolean exists(Predicate<? super T> predicate) {
+        return toSequence().exists(predicate);
+    }
+
+    @Override
+    public int indexOf(Object other) {
+        int index = 0;
+        for (T value : this) {
+            if (other == null ? value == null : other.equals(value)) return index;
+            index++;
+        }
+        return -1;
+    }
+
+    @Override
+    public Sequence<T> toSequence() {
+        return sequence(this);
+    }
+
+    @Override
+    public TransientList<T> asTransient() {
+        return new Transient<T>(this);
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new VectorIterator();
+    }
+
+    @Override
+    public Pair<Vector<T>, Vector<T>> split() {
+        return pair(take(size / 2), drop(size / 2));
+    }
+
+    /** Moves a full (or when joining, partial) leaf into the tree, growing it by a level when the right edge is full */
+    private Vector<T> pushTail(int size, Object[] newTail) {
+        if (root == null) return new Vector<T>(tail, 0, size, newTail);
+        Object pushed = push(root, height, tail);
+        if (pushed != null) return new Vector<T>(pushed, height, size, newTail);
+        return new Vector<T>(node(new Object[]{root, path(tail, height)}, height + 1), height + 1, size, newTail);
+    }
+
+    private static Object push(Object node, int height, Object[] leaf) {
+        if (height == 0) return null;
+        Object[] children = ((Node) node).children;
+        int last = children.length - 1;
+        if (height > 1) {
+            Object pushed = push(children[last], height - 1, leaf);
+            if (pushed != null) {
+                Object[] newChildren = children.clone();
+                newChildren[last] = pushed;
+                return node(newChildren, height);
+            }
+        }
+        if (children.length == WIDTH) return null;
+        Object[] newChildren = Arrays.copyOf(children, children.length + 1);
+        newChildren[children.length] = path(leaf, height - 1);
+        return node(newChildren, height);
+    }
+
+    private static Object path(Object[] leaf, int height) {
+        Object node = leaf;
+        for (int level = 0; level < height; level++) node = new Node(new Object[]{node}, null);
+        return node;
+    }
+
+    private static Object update(Object node, int height, int index, Object value) {
+        if (height == 0) {
+            Object[] leaf = ((Object[]) node).clone();
+            leaf[index] = value;
+            return leaf;
+        }
+        Node parent = (Node) node;
+        int child = parent.child(height, index);
+        Object[] children = parent.children.clone();
+        children[child] = update(children[child], height - 1, index - parent.offset(height, child), value);
+        return new Node(children, parent.sizes);
+    }
+
+    private static Object[] lastLeaf(Object node, int height) {
+        for (int level = height; level > 0; level--) {
+            Object[] children = ((Node) node).children;
+            node = children[children.length - 1];
+        }
+        return (Object[]) node;
+    }
+
+    /** Returns null when nothing is left */
+    private static Object removeLastLeaf(Object node, int height) {
+        if (height == 0) return null;
+        Object[] children = ((Node) node).children;
+        int last = children.length - 1;
+        Object child = removeLastLeaf(children[last], height - 1);
+        if (child != null) {
+            Object[] newChildren = children.clone();
+            newChildren[last] = child;
+            return node(newChildren, height);
+        }
+        if (last == 0) return null;
+        return node(Arrays.copyOf(children, last), height);
+    }
+
+    /** The first end elements */
+    private static Object sliceRight(Object node, int height, int end) {
+        if (height == 0) {
+            Object[] leaf = (Object[]) node;
+            return end == leaf.length ? leaf : Arrays.copyOf(leaf, end);
+        }
+        Node parent = (Node) node;
+        int child = parent.child(height, end - 1);
+        Object[] children = Arrays.copyOf(parent.children, child + 1);
+        children[child] = sliceRight(children[child], height - 1, end - parent.offset(height, child));
+        return node(children, height);
+    }
+
+    /** Everything from start onwards */
+    private static Object sliceLeft(Object node, int height, int start) {
+        if (start == 0) return node;
+        if (height == 0) {
+            Object[] leaf = (Object[]) node;
+            return Arrays.copyOfRange(leaf, start, leaf.length);
+        }
+        Node parent = (Node) node;
+        int child = parent.child(height, start);
+        Object[] children = Arrays.copyOfRange(parent.children, child, parent.children.length);
+        children[0] = sliceLeft(children[0], height - 1, start - parent.offset(height, child));
+        return node(children, height);
+    }
+
+    /** Joins two trees of the same height into one or two nodes of that height */
+    private static Object[] merge(Object left, Object right, int height) {
+        if (height == 0) {
+            Object[] leftLeaf = (Object[]) left;
+            Object[] rightLeaf = (Object[]) right;
+            if (leftLeaf.length + rightLeaf.length > WIDTH) return new Object[]{leftLeaf, rightLeaf};
+            Object[] leaf = Arrays.copyOf(leftLeaf, leftLeaf.length + rightLeaf.length);
+            System.arraycopy(rightLeaf, 0, leaf, leftLeaf.length, rightLeaf.length);
+            return new Object[]{leaf};
+        }
+        Object[] leftChildren = ((Node) left).children;
+        Object[] rightChildren = ((Node) right).children;
+        Object[] middle = merge(leftChildren[leftChildren.length - 1], rightChildren[0], height - 1);
+        Object[] all = new Object[leftChildren.length - 1 + middle.length + rightChildren.length - 1];
+        System.arraycopy(leftChildren, 0, all, 0, leftChildren.length - 1);
+        System.arraycopy(middle, 0, all, leftChildren.length - 1, middle.length);
+        System.arraycopy(rightChildren, 1, all, leftChildren.length - 1 + middle.length, rightChildren.length - 1);
+        all = rebalance(all, height - 1);
+        if (all.length <= WIDTH) return new Object[]{node(all, height)};
+        return new Object[]{node(Arrays.copyOf(all, WIDTH), height), node(Arrays.copyOfRange(all, WIDTH, all.length), height)};
+    }
+
+    /**
+     * Redistributes the contents of nodes that are too sparse so there are at most EXTRAS more nodes than
+     * the minimum, which bounds how far a lookup has to scan past its radix guess.
+     */
+    private static Object[] rebalance(Object[] nodes, int height) {
+        int[] counts = new int[nodes.length];
+        int total = 0;
+        for (int i = 0; i < nodes.length; i++) {
+            counts[i] = contents(nodes[i], height).length;
+            total += counts[i];
+        }
+        int optimal = (total + WIDTH - 1) / WIDTH;
+        int length = nodes.length;
+        if (length <= optimal + EXTRAS) return nodes;
+        int i = 0;
+        while (length > optimal + EXTRAS) {
+            while (counts[i] > WIDTH - EXTRAS / 2) i++;
+            int remaining = counts[i];
+            do {
+                int count = Math.min(remaining + counts[i + 1], WIDTH);
+                remaining = remaining + counts[i + 1] - count;
+                counts[i] = count;
+                i++;
+            } while (remaining > 0);
+            for (int j = i; j < length - 1; j++) counts[j] = counts[j + 1];
+            i--;
+            length--;
+        }
+        Object[] items = new Object[total];
+        int offset = 0;
+        for (Object node : nodes) {
+            Object[] contents = contents(node, height);
+            System.arraycopy(contents, 0, items, offset, contents.length);
+            offset += contents.length;
+        }
+        Object[] result = new Object[length];
+        offset = 0;
+        for (int j = 0; j < length; j++) {
+            Object[] contents = Arrays.copyOfRange(items, offset, offset + counts[j]);
+            offset += counts[j];
+            result[j] = height == 0 ? contents : node(contents, height);
+        }
+        return result;
+    }
+
+    private static Object[] contents(Object node, int height) {
+        return height == 0 ? (Object[]) node : ((Node) node).children;
+    }
+
+    /** Only keeps a size table when some child other than the last is not full */
+    private static Node node(Object[] children, int height) {
+        int last = children.length - 1;
+        boolean strict = true;
+        for (int i = 0; i < last && strict; i++) strict = full(children[i], height - 1);
+        if (strict) return new Node(children, null);
+        int[] sizes = new int[children.length];
+        int total = 0;
+        for (int i = 0; i < children.length; i++) {
+            total += size(children[i], height - 1);
+            sizes[i] = total;
+        }
+        return new Node(children, sizes);
+    }
+
+    private static int size(Object node, int height) {
+        if (height == 0) return ((Object[]) node).length;
+        Node parent = (Node) node;
+        int last = parent.children.length - 1;
+        if (parent.sizes != null) return parent.sizes[last];
+        return (last << (BITS * height)) + size(parent.children[last], height - 1);
+    }
+
+    private static boolean full(Object node, int height) {
+        if (height == 0) return ((Object[]) node).length == WIDTH;
+        Node parent = (Node) node;
+        return parent.sizes == null && parent.children.length == WIDTH && full(parent.children[WIDTH - 1], height - 1);
+    }
+
+    /** Leaves are plain arrays, sizes holds cumulative child sizes or is null when the radix index can be used directly */
+    private static final class Node {
+        private final Object[] children;
+        private final int[] sizes;
+
+        private Node(Object[] children, int[] sizes) {
+            this.children = children;
+            this.sizes = sizes;
+        }
+
+        private int child(int height, int index) {
+            int child = index >>> (BITS * height);
+            if (sizes == null) return child;
+            while (sizes[child] <= index) child++;
+            return child;
+        }
+
+        private int offset(int height, int child) {
+            if (sizes == null) return child << (BITS * height);
+            return child == 0 ? 0 : sizes[child - 1];
+        }
+    }
+
+    /** Walks the leaves left to right with a stack of positions, then the tail */
+    private class VectorIterator extends ReadOnlyIterator<T> {
+        private final Object[][] path = new Object[height][];
+        private final int[] positions = new int[height];
+        private Object[] leaf;
+        private int index;
+        private boolean inTail;
+
+        private VectorIterator() {
+            if (root == null) {
+                leaf = tail;
+                inTail = true;
+            } else descend(root, 0);
+        }
+
+        private void descend(Object node, int depth) {
+            for (; depth < height; depth++) {
+                path[depth] = ((Node) node).children;
+                positions[depth] = 0;
+                node = path[depth][0];
+            }
+            leaf = (Object[]) node;
+            index = 0;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (index < leaf.length) return true;
+            if (inTail) return false;
+            int depth = height - 1;
+            while (depth >= 0 && positions[depth] + 1 >= path[depth].length) depth--;
+            if (depth < 0) {
+                leaf = tail;
+                index = 0;
+                inTail = true;
+            } else {
+                positions[depth]++;
+                descend(path[depth][positions[depth]], depth + 1);
+            }
+            return index < leaf.length;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            return cast(leaf[index++]);
+        }
+    }
+
+    /** Buffers appends and joins them on as one bulk built vector */
+    private static class Transient<T> implements TransientList<T> {
+        private final Vector<T> vector;
+        private List<T> appended = new ArrayList<T>();
+
+        private Transient(Vector<T> vector) {
+            this.vector = vector;
+        }
+
+        @Override
+        public TransientList<T> append(T value) {
+            appended().add(value);
+            return this;
+        }
+
+        @Override
+        public TransientList<T> appendAll(Iterable<? extends T> values) {
+            List<T> appended = appended();
+            for (T value : values) appended.add(value);
+            return this;
+        }
+
+        @Override
+        public int size() {
+            return vector.size() + appended().size();
+        }
+
+        @Override
+        public Vector<T> persistent() {
+            List<T> values = appended();
+            appended = null;
+            return vector.join(vector(values));
+        }
+
+        private List<T> appended() {
+            if (appended == null) throw new IllegalStateException("Transient used after persistent()");
+            return appended;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.googlecode.totallylazy.iterators;
+
+import com.googlecode.totallylazy.Callable1;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import static com.googlecode.totallylazy.Closeables.safeClose;
+
+/**
+ * Maps on an Executor with at most 'concurrency' tasks submitted but not yet consumed.
+ * The source is only pulled as results are consumed, so memory stays bounded however long the source is.
+ * Results come back in source order or, when unordered, in completion order.
+ * Closing the iterator (or a failing task) cancels everything still in flight.
+ */
+public class ConcurrentMapIterator<T, S> extends StatefulIterator<S> implements Closeable {
+    private final Iterator<? extends T> iterator;
+    private final Callable1<? super T, ? extends S> callable;
+    private final Executor executor;
+    private final int concurrency;
+    private final boolean ordered;
+    private final Deque<Future<S>> inFlight = new ArrayDeque<Future<S>>();
+    private final BlockingQueue<Future<S>> completed = new LinkedBlockingQueue<Future<S>>();
+    private boolean closed = false;
+
+    public ConcurrentMapIterator(Iterator<? extends T> iterator, Callable1<? super T, ? extends S> callable, Executor executor, int concurrency, boolean ordered) {
+        if (concurrency < 1) throw new IllegalArgumentException("concurrency must be at least 1");
+        this.iterator = iterator;
+        this.callable = callable;
+        this.executor = executor;
+        this.concurrency = concurrency;
+        this.ordered = ordered;
+    }
+
+    /** Closes as soon as the results run out or anything fails, so no task is left running */
+    @Override
+    protected S getNext() throws Exception {
+        if (closed) return finished();
+        boolean more = false;
+        try {
+            fill();
+            if (inFlight.isEmpty()) return finished();
+            Future<S> future = ordered ? inFlight.poll() : completed.take();
+            if (!ordered) inFlight.remove(future);
+            S result = get(future);
+            more = true;
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw e;
+        } finally {
+            if (!more) close();
+        }
+    }
+
+    private void fill() {
+        while (inFlight.size() < concurrency && iterator.hasNext()) {
+            final T value = iterator.next();
+            FutureTask<S> task = new FutureTask<S>(() -> callable.call(value)) {
+                @Override
+                protected void done() {
+                    if (!ordered) completed.add(this);
+                }
+            };
+            inFlight.add(task);
+            executor.execute(task);
+        }
+    }
+
+    private S get(Future<S> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) throw (Exception) cause;
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        for (Future<S> future : inFlight) future.cancel(true);
+        inFlight.clear();
+        completed.clear();
+        if (iterator instanceof Closeable) safeClose((Closeable) iterator);
+    }
+}
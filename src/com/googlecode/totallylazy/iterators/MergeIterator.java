@@ -0,0 +1,56 @@
+package com.googlecode.totallylazy.iterators;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Merges iterators that are each already sorted by the comparator into one sorted iterator.
+ * Equal elements come out in the order of the iterators they came from, so merging the runs of a stable sort
+ * keeps it stable.
+ */
+public class MergeIterator<T> extends StatefulIterator<T> {
+    private final PriorityQueue<Head<T>> heads;
+
+    public MergeIterator(List<? extends Iterator<? extends T>> iterators, final Comparator<? super T> comparator) {
+        heads = new PriorityQueue<Head<T>>(Math.max(iterators.size(), 1), new Comparator<Head<T>>() {
+            @Override
+            public int compare(Head<T> a, Head<T> b) {
+                int result = comparator.compare(a.value, b.value);
+                return result != 0 ? result : Integer.compare(a.index, b.index);
+            }
+        });
+        for (int i = 0; i < iterators.size(); i++) {
+            Iterator<? extends T> iterator = iterators.get(i);
+            if (iterator.hasNext()) heads.add(new Head<T>(iterator, i));
+        }
+    }
+
+    @Override
+    protected T getNext() throws Exception {
+        Head<T> head = heads.poll();
+        if (head == null) return finished();
+        T value = head.value;
+        if (head.advance()) heads.add(head);
+        return value;
+    }
+
+    private static class Head<T> {
+        private final Iterator<? extends T> iterator;
+        private final int index;
+        private T value;
+
+        private Head(Iterator<? extends T> iterator, int index) {
+            this.iterator = iterator;
+            this.index = index;
+            advance();
+        }
+
+        private boolean advance() {
+            if (!iterator.hasNext()) return false;
+            value = iterator.next();
+            return true;
+        }
+    }
+}
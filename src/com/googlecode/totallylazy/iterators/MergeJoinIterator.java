@@ -0,0 +1,52 @@
+package com.googlecode.totallylazy.iterators;
+
+import com.googlecode.totallylazy.Callable1;
+import com.googlecode.totallylazy.Pair;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+import static com.googlecode.totallylazy.Callers.call;
+import static com.googlecode.totallylazy.Pair.pair;
+
+/**
+ * Joins two iterators that are both sorted by key, pairing every left element with every right element of the same key.
+ * Only the right elements sharing the current key are buffered, so both sides are read once and lazily.
+ */
+public class MergeJoinIterator<T, S, K> extends StatefulIterator<Pair<T, S>> {
+    private final Iterator<? extends T> left;
+    private final PeekingIterator<S> right;
+    private final Callable1<? super T, ? extends K> leftKey;
+    private final Callable1<? super S, ? extends K> rightKey;
+    private final Comparator<? super K> comparator;
+    private final List<S> matches = new ArrayList<S>();
+    private K matchesKey;
+    private T current;
+    private int index = 0;
+
+    public MergeJoinIterator(Iterator<? extends T> left, Iterator<? extends S> right, Callable1<? super T, ? extends K> leftKey, Callable1<? super S, ? extends K> rightKey, Comparator<? super K> comparator) {
+        this.left = left;
+        this.right = new PeekingIterator<S>(right);
+        this.leftKey = leftKey;
+        this.rightKey = rightKey;
+        this.comparator = comparator;
+    }
+
+    @Override
+    protected Pair<T, S> getNext() throws Exception {
+        while (index == matches.size()) {
+            if (!left.hasNext()) return finished();
+            current = left.next();
+            index = 0;
+            K key = call(leftKey, current);
+            if (!matches.isEmpty() && comparator.compare(matchesKey, key) == 0) continue;
+            matches.clear();
+            while (right.hasNext() && comparator.compare(call(rightKey, right.peek()), key) < 0) right.next();
+            while (right.hasNext() && comparator.compare(call(rightKey, right.peek()), key) == 0) matches.add(right.next());
+            matchesKey = key;
+        }
+        return pair(current, matches.get(index++));
+    }
+}
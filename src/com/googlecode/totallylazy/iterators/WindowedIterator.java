@@ -1,26 +1,72 @@
 package com.googlecode.totallylazy.iterators;
 
+import com.googlecode.totallylazy.ArraySequence;
 import com.googlecode.totallylazy.Sequence;
-import com.googlecode.totallylazy.Sequences;
 
 import java.util.Iterator;
 
+/**
+ * Windows of size elements starting every step elements, optionally followed by a shorter final window.
+ * Elements are appended to a buffer that is never overwritten, so each window is just a slice of it and stays valid
+ * after the iterator moves on. When the buffer is full the unfinished window is copied to a new one, doubling the
+ * capacity until it reaches twice the window size, which keeps the work per element O(1) amortised.
+ */
 public class WindowedIterator<T> extends StatefulIterator<Sequence<T>> {
-    private Sequence<T> sequence;
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int MAXIMUM_CAPACITY = Integer.MAX_VALUE - 8;
+    private final Iterator<? extends T> iterator;
     private final int size;
+    private final int step;
+    private final boolean partial;
+    private final int capacity;
+    private Object[] buffer;
+    private int start = 0;
+    private int end = 0;
 
     public WindowedIterator(Iterator<? extends T> iterator, int size) {
-        this.sequence = Sequences.memorise(iterator);
+        this(iterator, size, 1, false);
+    }
+
+    public WindowedIterator(Iterator<? extends T> iterator, int size, int step, boolean partial) {
+        if (size < 1) throw new IllegalArgumentException("Window size must be positive but was " + size);
+        if (step < 1) throw new IllegalArgumentException("Window step must be positive but was " + step);
+        this.iterator = iterator;
         this.size = size;
+        this.step = step;
+        this.partial = partial;
+        this.capacity = (int) Math.min(2L * size, MAXIMUM_CAPACITY);
+        this.buffer = new Object[Math.min(capacity, INITIAL_CAPACITY)];
     }
 
     @Override
     protected Sequence<T> getNext() throws Exception {
-        Sequence<T> take = sequence.take(size);
-        if (take.size() == size) {
-            sequence = sequence.tail();
-            return take;
+        while (end - start < size && iterator.hasNext()) append(iterator.next());
+        int available = end - start;
+        if (available == 0 || (available < size && !partial)) return finished();
+        Sequence<T> window = ArraySequence.arraySequence(buffer, start, (int) Math.min((long) start + size, end));
+        skip();
+        return window;
+    }
+
+    private void append(T value) {
+        if (end == buffer.length) {
+            Object[] newBuffer = new Object[(int) Math.min(2L * buffer.length, capacity)];
+            System.arraycopy(buffer, start, newBuffer, 0, end - start);
+            buffer = newBuffer;
+            end -= start;
+            start = 0;
+        }
+        buffer[end++] = value;
+    }
+
+    /** Steps past the end of the buffer read and drop the elements between windows */
+    private void skip() {
+        long overshoot = (long) start + step - end;
+        if (overshoot <= 0) {
+            start += step;
+            return;
         }
-        return finished();
+        for (long i = 0; i < overshoot && iterator.hasNext(); i++) iterator.next();
+        start = end;
     }
 }
@@ -0,0 +1,351 @@
+package com.googlecode.totallylazy.numbers;
+
+import com.googlecode.totallylazy.Option;
+import com.googlecode.totallylazy.Sequence;
+import com.googlecode.totallylazy.iterators.ReadOnlyIterator;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleConsumer;
+import java.util.function.DoubleFunction;
+import java.util.function.DoublePredicate;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.ToDoubleFunction;
+
+import static com.googlecode.totallylazy.Option.none;
+import static com.googlecode.totallylazy.Option.some;
+
+/**
+ * A lazy sequence of unboxed doubles. Stages and terminal operations never allocate per element,
+ * only iterating it as an Iterable<Double> or calling boxed() boxes.
+ */
+public abstract class DoubleSequence implements Iterable<Double> {
+    @Override
+    public abstract PrimitiveIterator.OfDouble iterator();
+
+    public static DoubleSequence doubleSequence(final double... values) {
+        return new DoubleSequence() {
+            @Override
+            public PrimitiveIterator.OfDouble iterator() {
+                return Arrays.stream(values).iterator();
+            }
+        };
+    }
+
+    public static DoubleSequence doubleSequence(final Iterable<? extends Number> numbers) {
+        return doubleSequence(numbers, Number::doubleValue);
+    }
+
+    public static <T> DoubleSequence doubleSequence(final Iterable<? extends T> iterable, final ToDoubleFunction<? super T> callable) {
+        return new DoubleSequence() {
+            @Override
+            public PrimitiveIterator.OfDouble iterator() {
+                final Iterator<? extends T> iterator = iterable.iterator();
+                return new PrimitiveIterator.OfDouble() {
+                    @Override
+                    public boolean hasNext() {
+                        return iterator.hasNext();
+                    }
+
+                    @Override
+                    public double nextDouble() {
+                        return callable.applyAsDouble(iterator.next());
+                    }
+                };
+            }
+        };
+    }
+
+    /** Inclusive of end, like Numbers.range */
+    public static DoubleSequence range(final double start, final double end) {
+        return range(start, end, end < start ? -1 : 1);
+    }
+
+    public static DoubleSequence range(final double start, final double end, final double step) {
+        if (step == 0) throw new IllegalArgumentException("step can not be zero");
+        return new DoubleSequence() {
+            @Override
+            public PrimitiveIterator.OfDouble iterator() {
+                return new PrimitiveIterator.OfDouble() {
+                    private double next = start;
+
+                    @Override
+                    public boolean hasNext() {
+                        return step > 0 ? next <= end : next >= end;
+                    }
+
+                    @Override
+                    public double nextDouble() {
+                        if (!hasNext()) throw new NoSuchElementException();
+                        double result = next;
+                        next += step;
+                        return result;
+                    }
+                };
+            }
+        };
+    }
+
+    public static DoubleSequence iterate(final DoubleUnaryOperator callable, final double seed) {
+        return new DoubleSequence() {
+            @Override
+            public PrimitiveIterator.OfDouble iterator() {
+                return new PrimitiveIterator.OfDouble() {
+                    private double next = seed;
+
+                    @Override
+                    public boolean hasNext() {
+                        return true;
+                    }
+
+                    @Override
+                    public double nextDouble() {
+                        double result = next;
+                        next = callable.applyAsDouble(next);
+                        return result;
+                    }
+                };
+            }
+        };
+    }
+
+    public DoubleSequence map(final DoubleUnaryOperator callable) {
+        return new DoubleSequence() {
+            @Override
+            public PrimitiveIterator.OfDouble iterator() {
+                final PrimitiveIterator.OfDouble iterator = DoubleSequence.this.iterator();
+                return new PrimitiveIterator.OfDouble() {
+                    @Override
+                    public boolean hasNext() {
+                        return iterator.hasNext();
+                    }
+
+                    @Override
+                    public double nextDouble() {
+                        return callable.applyAsDouble(iterator.nextDouble());
+                    }
+                };
+            }
+        };
+    }
+
+    public <T> Sequence<T> mapToObj(final DoubleFunction<? extends T> callable) {
+        return new Sequence<T>() {
+            @Override
+            public Iterator<T> iterator() {
+                final PrimitiveIterator.OfDouble iterator = DoubleSequence.this.iterator();
+                return new ReadOnlyIterator<T>() {
+                    @Override
+                    public boolean hasNext() {
+                        return iterator.hasNext();
+                    }
+
+                    @Override
+                    public T next() {
+                        return callable.apply(iterator.nextDouble());
+                    }
+                };
+            }
+        };
+    }
+
+    public Sequence<Double> boxed() {
+        return mapToObj(Double::valueOf);
+    }
+
+    public DoubleSequence filter(final DoublePredicate predicate) {
+        return new DoubleSequence() {
+            @Override
+            public PrimitiveIterator.OfDouble iterator() {
+                final PrimitiveIterator.OfDouble iterator = DoubleSequence.this.iterator();
+                return new Lookahead() {
+                    @Override
+                    protected boolean load() {
+                        while (iterator.hasNext()) {
+                            double value = iterator.nextDouble();
+                            if (predicate.test(value)) return found(value);
+                        }
+                        return false;
+                    }
+                };
+            }
+        };
+    }
+
+    public DoubleSequence takeWhile(final DoublePredicate predicate) {
+        return new DoubleSequence() {
+            @Override
+            public PrimitiveIterator.OfDouble iterator() {
+                final PrimitiveIterator.OfDouble iterator = DoubleSequence.this.iterator();
+                return new Lookahead() {
+                    @Override
+                    protected boolean load() {
+                        if (!iterator.hasNext()) return false;
+                        double value = iterator.nextDouble();
+                        return predicate.test(value) && found(value);
+                    }
+                };
+            }
+        };
+    }
+
+    public DoubleSequence take(final int count) {
+        return new DoubleSequence() {
+            @Override
+            public PrimitiveIterator.OfDouble iterator() {
+                final PrimitiveIterator.OfDouble iterator = DoubleSequence.this.iterator();
+                return new PrimitiveIterator.OfDouble() {
+                    private int remaining = count;
+
+                    @Override
+                    public boolean hasNext() {
+                        return remaining > 0 && iterator.hasNext();
+                    }
+
+                    @Override
+                    public double nextDouble() {
+                        if (!hasNext()) throw new NoSuchElementException();
+                        remaining--;
+                        return iterator.nextDouble();
+                    }
+                };
+            }
+        };
+    }
+
+    public DoubleSequence drop(final int count) {
+        return new DoubleSequence() {
+            @Override
+            public PrimitiveIterator.OfDouble iterator() {
+                PrimitiveIterator.OfDouble iterator = DoubleSequence.this.iterator();
+                for (int i = 0; i < count && iterator.hasNext(); i++) iterator.nextDouble();
+                return iterator;
+            }
+        };
+    }
+
+    public double fold(final double seed, final DoubleBinaryOperator callable) {
+        double accumulator = seed;
+        PrimitiveIterator.OfDouble iterator = iterator();
+        while (iterator.hasNext()) accumulator = callable.applyAsDouble(accumulator, iterator.nextDouble());
+        return accumulator;
+    }
+
+    public double reduce(final DoubleBinaryOperator callable) {
+        PrimitiveIterator.OfDouble iterator = iterator();
+        if (!iterator.hasNext()) throw new NoSuchElementException();
+        double accumulator = iterator.nextDouble();
+        while (iterator.hasNext()) accumulator = callable.applyAsDouble(accumulator, iterator.nextDouble());
+        return accumulator;
+    }
+
+    public void each(final DoubleConsumer consumer) {
+        PrimitiveIterator.OfDouble iterator = iterator();
+        while (iterator.hasNext()) consumer.accept(iterator.nextDouble());
+    }
+
+    /** Uses Kahan summation to limit the rounding error over long sequences */
+    public double sum() {
+        double sum = 0;
+        double compensation = 0;
+        PrimitiveIterator.OfDouble iterator = iterator();
+        while (iterator.hasNext()) {
+            double value = iterator.nextDouble() - compensation;
+            double total = sum + value;
+            compensation = (total - sum) - value;
+            sum = total;
+        }
+        return sum;
+    }
+
+    public Option<Double> min() {
+        PrimitiveIterator.OfDouble iterator = iterator();
+        if (!iterator.hasNext()) return none();
+        double min = iterator.nextDouble();
+        while (iterator.hasNext()) min = Math.min(min, iterator.nextDouble());
+        return some(min);
+    }
+
+    public Option<Double> max() {
+        PrimitiveIterator.OfDouble iterator = iterator();
+        if (!iterator.hasNext()) return none();
+        double max = iterator.nextDouble();
+        while (iterator.hasNext()) max = Math.max(max, iterator.nextDouble());
+        return some(max);
+    }
+
+    /** One pass, with the same compensated sum as sum() */
+    public Option<Double> average() {
+        double sum = 0;
+        double compensation = 0;
+        int size = 0;
+        PrimitiveIterator.OfDouble iterator = iterator();
+        while (iterator.hasNext()) {
+            double value = iterator.nextDouble() - compensation;
+            double total = sum + value;
+            compensation = (total - sum) - value;
+            sum = total;
+            size++;
+        }
+        return size == 0 ? Option.<Double>none() : some(sum / size);
+    }
+
+    public int size() {
+        int size = 0;
+        PrimitiveIterator.OfDouble iterator = iterator();
+        while (iterator.hasNext()) {
+            iterator.nextDouble();
+            size++;
+        }
+        return size;
+    }
+
+    public double[] toArray() {
+        double[] result = new double[16];
+        int size = 0;
+        PrimitiveIterator.OfDouble iterator = iterator();
+        while (iterator.hasNext()) {
+            if (size == result.length) result = Arrays.copyOf(result, size * 2);
+            result[size++] = iterator.nextDouble();
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    @Override
+    public String toString() {
+        return boxed().toString();
+    }
+
+    private static abstract class Lookahead implements PrimitiveIterator.OfDouble {
+        private boolean loaded;
+        private boolean finished;
+        private double current;
+
+        /** Calls found(value) and returns true when there is another value, otherwise returns false */
+        protected abstract boolean load();
+
+        protected boolean found(double value) {
+            current = value;
+            return true;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (!loaded && !finished) {
+                if (load()) loaded = true;
+                else finished = true;
+            }
+            return loaded;
+        }
+
+        @Override
+        public double nextDouble() {
+            if (!hasNext()) throw new NoSuchElementException();
+            loaded = false;
+            return current;
+        }
+    }
+}
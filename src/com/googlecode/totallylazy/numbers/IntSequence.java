@@ -0,0 +1,394 @@
+package com.googlecode.totallylazy.numbers;
+
+import com.googlecode.totallylazy.Option;
+import com.googlecode.totallylazy.Sequence;
+import com.googlecode.totallylazy.iterators.ReadOnlyIterator;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+import java.util.function.IntToDoubleFunction;
+import java.util.function.IntToLongFunction;
+import java.util.function.IntUnaryOperator;
+import java.util.function.ToIntFunction;
+
+import static com.googlecode.totallylazy.Option.none;
+import static com.googlecode.totallylazy.Option.some;
+
+/**
+ * A lazy sequence of unboxed ints. Stages and terminal operations never allocate per element,
+ * only iterating it as an Iterable<Integer> or calling boxed() boxes.
+ */
+public abstract class IntSequence implements Iterable<Integer> {
+    @Override
+    public abstract PrimitiveIterator.OfInt iterator();
+
+    public static IntSequence intSequence(final int... values) {
+        return new IntSequence() {
+            @Override
+            public PrimitiveIterator.OfInt iterator() {
+                return Arrays.stream(values).iterator();
+            }
+        };
+    }
+
+    public static IntSequence intSequence(final Iterable<? extends Number> numbers) {
+        return intSequence(numbers, Number::intValue);
+    }
+
+    public static <T> IntSequence intSequence(final Iterable<? extends T> iterable, final ToIntFunction<? super T> callable) {
+        return new IntSequence() {
+            @Override
+            public PrimitiveIterator.OfInt iterator() {
+                final Iterator<? extends T> iterator = iterable.iterator();
+                return new PrimitiveIterator.OfInt() {
+                    @Override
+                    public boolean hasNext() {
+                        return iterator.hasNext();
+                    }
+
+                    @Override
+                    public int nextInt() {
+                        return callable.applyAsInt(iterator.next());
+                    }
+                };
+            }
+        };
+    }
+
+    public static IntSequence range(final int start) {
+        return iterate(value -> value + 1, start);
+    }
+
+    /** Inclusive of end, like Numbers.range */
+    public static IntSequence range(final int start, final int end) {
+        return range(start, end, end < start ? -1 : 1);
+    }
+
+    public static IntSequence range(final int start, final int end, final int step) {
+        if (step == 0) throw new IllegalArgumentException("step can not be zero");
+        return new IntSequence() {
+            @Override
+            public PrimitiveIterator.OfInt iterator() {
+                return new PrimitiveIterator.OfInt() {
+                    private long next = start;
+
+                    @Override
+                    public boolean hasNext() {
+                        return step > 0 ? next <= end : next >= end;
+                    }
+
+                    @Override
+                    public int nextInt() {
+                        if (!hasNext()) throw new NoSuchElementException();
+                        int result = (int) next;
+                        next += step;
+                        return result;
+                    }
+                };
+            }
+        };
+    }
+
+    public static IntSequence iterate(final IntUnaryOperator callable, final int seed) {
+        return new IntSequence() {
+            @Override
+            public PrimitiveIterator.OfInt iterator() {
+                return new PrimitiveIterator.OfInt() {
+                    private int next = seed;
+
+                    @Override
+                    public boolean hasNext() {
+                        return true;
+                    }
+
+                    @Override
+                    public int nextInt() {
+                        int result = next;
+                        next = callable.applyAsInt(next);
+                        return result;
+                    }
+                };
+            }
+        };
+    }
+
+    public IntSequence map(final IntUnaryOperator callable) {
+        return new IntSequence() {
+            @Override
+            public PrimitiveIterator.OfInt iterator() {
+                final PrimitiveIterator.OfInt iterator = IntSequence.this.iterator();
+                return new PrimitiveIterator.OfInt() {
+                    @Override
+                    public boolean hasNext() {
+                        return iterator.hasNext();
+                    }
+
+                    @Override
+                    public int nextInt() {
+                        return callable.applyAsInt(iterator.nextInt());
+                    }
+                };
+            }
+        };
+    }
+
+    public LongSequence mapToLong(final IntToLongFunction callable) {
+        return new LongSequence() {
+            @Override
+            public PrimitiveIterator.OfLong iterator() {
+                final PrimitiveIterator.OfInt iterator = IntSequence.this.iterator();
+                return new PrimitiveIterator.OfLong() {
+                    @Override
+                    public boolean hasNext() {
+                        return iterator.hasNext();
+                    }
+
+                    @Override
+                    public long nextLong() {
+                        return callable.applyAsLong(iterator.nextInt());
+                    }
+                };
+            }
+        };
+    }
+
+    public DoubleSequence mapToDouble(final IntToDoubleFunction callable) {
+        return new DoubleSequence() {
+            @Override
+            public PrimitiveIterator.OfDouble iterator() {
+                final PrimitiveIterator.OfInt iterator = IntSequence.this.iterator();
+                return new PrimitiveIterator.OfDouble() {
+                    @Override
+                    public boolean hasNext() {
+                        return iterator.hasNext();
+                    }
+
+                    @Override
+                    public double nextDouble() {
+                        return callable.applyAsDouble(iterator.nextInt());
+                    }
+                };
+            }
+        };
+    }
+
+    public <T> Sequence<T> mapToObj(final IntFunction<? extends T> callable) {
+        return new Sequence<T>() {
+            @Override
+            public Iterator<T> iterator() {
+                final PrimitiveIterator.OfInt iterator = IntSequence.this.iterator();
+                return new ReadOnlyIterator<T>() {
+                    @Override
+                    public boolean hasNext() {
+                        return iterator.hasNext();
+                    }
+
+                    @Override
+                    public T next() {
+                        return callable.apply(iterator.nextInt());
+                    }
+                };
+            }
+        };
+    }
+
+    public LongSequence asLongSequence() {
+        return mapToLong(value -> value);
+    }
+
+    public DoubleSequence asDoubleSequence() {
+        return mapToDouble(value -> value);
+    }
+
+    public Sequence<Integer> boxed() {
+        return mapToObj(Integer::valueOf);
+    }
+
+    public IntSequence filter(final IntPredicate predicate) {
+        return new IntSequence() {
+            @Override
+            public PrimitiveIterator.OfInt iterator() {
+                final PrimitiveIterator.OfInt iterator = IntSequence.this.iterator();
+                return new Lookahead() {
+                    @Override
+                    protected boolean load() {
+                        while (iterator.hasNext()) {
+                            int value = iterator.nextInt();
+                            if (predicate.test(value)) return found(value);
+                        }
+                        return false;
+                    }
+                };
+            }
+        };
+    }
+
+    public IntSequence takeWhile(final IntPredicate predicate) {
+        return new IntSequence() {
+            @Override
+            public PrimitiveIterator.OfInt iterator() {
+                final PrimitiveIterator.OfInt iterator = IntSequence.this.iterator();
+                return new Lookahead() {
+                    @Override
+                    protected boolean load() {
+                        if (!iterator.hasNext()) return false;
+                        int value = iterator.nextInt();
+                        return predicate.test(value) && found(value);
+                    }
+                };
+            }
+        };
+    }
+
+    public IntSequence take(final int count) {
+        return new IntSequence() {
+            @Override
+            public PrimitiveIterator.OfInt iterator() {
+                final PrimitiveIterator.OfInt iterator = IntSequence.this.iterator();
+                return new PrimitiveIterator.OfInt() {
+                    private int remaining = count;
+
+                    @Override
+                    public boolean hasNext() {
+                        return remaining > 0 && iterator.hasNext();
+                    }
+
+                    @Override
+                    public int nextInt() {
+                        if (!hasNext()) throw new NoSuchElementException();
+                        remaining--;
+                        return iterator.nextInt();
+                    }
+                };
+            }
+        };
+    }
+
+    public IntSequence drop(final int count) {
+        return new IntSequence() {
+            @Override
+            public PrimitiveIterator.OfInt iterator() {
+                PrimitiveIterator.OfInt iterator = IntSequence.this.iterator();
+                for (int i = 0; i < count && iterator.hasNext(); i++) iterator.nextInt();
+                return iterator;
+            }
+        };
+    }
+
+    public int fold(final int seed, final IntBinaryOperator callable) {
+        int accumulator = seed;
+        PrimitiveIterator.OfInt iterator = iterator();
+        while (iterator.hasNext()) accumulator = callable.applyAsInt(accumulator, iterator.nextInt());
+        return accumulator;
+    }
+
+    public int reduce(final IntBinaryOperator callable) {
+        PrimitiveIterator.OfInt iterator = iterator();
+        if (!iterator.hasNext()) throw new NoSuchElementException();
+        int accumulator = iterator.nextInt();
+        while (iterator.hasNext()) accumulator = callable.applyAsInt(accumulator, iterator.nextInt());
+        return accumulator;
+    }
+
+    public void each(final IntConsumer consumer) {
+        PrimitiveIterator.OfInt iterator = iterator();
+        while (iterator.hasNext()) consumer.accept(iterator.nextInt());
+    }
+
+    /** Accumulates into a long so large ranges do not overflow */
+    public long sum() {
+        long sum = 0;
+        PrimitiveIterator.OfInt iterator = iterator();
+        while (iterator.hasNext()) sum += iterator.nextInt();
+        return sum;
+    }
+
+    public Option<Integer> min() {
+        PrimitiveIterator.OfInt iterator = iterator();
+        if (!iterator.hasNext()) return none();
+        int min = iterator.nextInt();
+        while (iterator.hasNext()) min = Math.min(min, iterator.nextInt());
+        return some(min);
+    }
+
+    public Option<Integer> max() {
+        PrimitiveIterator.OfInt iterator = iterator();
+        if (!iterator.hasNext()) return none();
+        int max = iterator.nextInt();
+        while (iterator.hasNext()) max = Math.max(max, iterator.nextInt());
+        return some(max);
+    }
+
+    public Option<Double> average() {
+        long sum = 0;
+        int size = 0;
+        PrimitiveIterator.OfInt iterator = iterator();
+        while (iterator.hasNext()) {
+            sum += iterator.nextInt();
+            size++;
+        }
+        return size == 0 ? Option.<Double>none() : some((double) sum / size);
+    }
+
+    public int size() {
+        int size = 0;
+        PrimitiveIterator.OfInt iterator = iterator();
+        while (iterator.hasNext()) {
+            iterator.nextInt();
+            size++;
+        }
+        return size;
+    }
+
+    public int[] toArray() {
+        int[] result = new int[16];
+        int size = 0;
+        PrimitiveIterator.OfInt iterator = iterator();
+        while (iterator.hasNext()) {
+            if (size == result.length) result = Arrays.copyOf(result, size * 2);
+            result[size++] = iterator.nextInt();
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    @Override
+    public String toString() {
+        return boxed().toString();
+    }
+
+    private static abstract class Lookahead implements PrimitiveIterator.OfInt {
+        private boolean loaded;
+        private boolean finished;
+        private int current;
+
+        /** Calls found(value) and returns true when there is another value, otherwise returns false */
+        protected abstract boolean load();
+
+        protected boolean found(int value) {
+            current = value;
+            return true;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (!loaded && !finished) {
+                if (load()) loaded = true;
+                else finished = true;
+            }
+            return loaded;
+        }
+
+        @Override
+        public int nextInt() {
+            if (!hasNext()) throw new NoSuchElementException();
+            loaded = false;
+            return current;
+        }
+    }
+}
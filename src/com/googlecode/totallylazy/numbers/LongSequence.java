@@ -0,0 +1,374 @@
+package com.googlecode.totallylazy.numbers;
+
+import com.googlecode.totallylazy.Option;
+import com.googlecode.totallylazy.Sequence;
+import com.googlecode.totallylazy.iterators.ReadOnlyIterator;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.LongBinaryOperator;
+import java.util.function.LongConsumer;
+import java.util.function.LongFunction;
+import java.util.function.LongPredicate;
+import java.util.function.LongToDoubleFunction;
+import java.util.function.LongUnaryOperator;
+import java.util.function.ToLongFunction;
+
+import static com.googlecode.totallylazy.Option.none;
+import static com.googlecode.totallylazy.Option.some;
+
+/**
+ * A lazy sequence of unboxed longs. Stages and terminal operations never allocate per element,
+ * only iterating it as an Iterable<Long> or calling boxed() boxes.
+ */
+public abstract class LongSequence implements Iterable<Long> {
+    @Override
+    public abstract PrimitiveIterator.OfLong iterator();
+
+    public static LongSequence longSequence(final long... values) {
+        return new LongSequence() {
+            @Override
+            public PrimitiveIterator.OfLong iterator() {
+                return Arrays.stream(values).iterator();
+            }
+        };
+    }
+
+    public static LongSequence longSequence(final Iterable<? extends Number> numbers) {
+        return longSequence(numbers, Number::longValue);
+    }
+
+    public static <T> LongSequence longSequence(final Iterable<? extends T> iterable, final ToLongFunction<? super T> callable) {
+        return new LongSequence() {
+            @Override
+            public PrimitiveIterator.OfLong iterator() {
+                final Iterator<? extends T> iterator = iterable.iterator();
+                return new PrimitiveIterator.OfLong() {
+                    @Override
+                    public boolean hasNext() {
+                        return iterator.hasNext();
+                    }
+
+                    @Override
+                    public long nextLong() {
+                        return callable.applyAsLong(iterator.next());
+                    }
+                };
+            }
+        };
+    }
+
+    public static LongSequence range(final long start) {
+        return iterate(value -> value + 1, start);
+    }
+
+    /** Inclusive of end, like Numbers.range */
+    public static LongSequence range(final long start, final long end) {
+        return range(start, end, end < start ? -1 : 1);
+    }
+
+    public static LongSequence range(final long start, final long end, final long step) {
+        if (step == 0) throw new IllegalArgumentException("step can not be zero");
+        return new LongSequence() {
+            @Override
+            public PrimitiveIterator.OfLong iterator() {
+                return new PrimitiveIterator.OfLong() {
+                    private long next = start;
+                    private boolean finished = step > 0 ? start > end : start < end;
+
+                    @Override
+                    public boolean hasNext() {
+                        return !finished;
+                    }
+
+                    @Override
+                    public long nextLong() {
+                        if (!hasNext()) throw new NoSuchElementException();
+                        long result = next;
+                        try {
+                            next = Math.addExact(next, step);
+                            finished = step > 0 ? next > end : next < end;
+                        } catch (ArithmeticException e) {
+                            finished = true;
+                        }
+                        return result;
+                    }
+                };
+            }
+        };
+    }
+
+    public static LongSequence iterate(final LongUnaryOperator callable, final long seed) {
+        return new LongSequence() {
+            @Override
+            public PrimitiveIterator.OfLong iterator() {
+                return new PrimitiveIterator.OfLong() {
+                    private long next = seed;
+
+                    @Override
+                    public boolean hasNext() {
+                        return true;
+                    }
+
+                    @Override
+                    public long nextLong() {
+                        long result = next;
+                        next = callable.applyAsLong(next);
+                        return result;
+                    }
+                };
+            }
+        };
+    }
+
+    public LongSequence map(final LongUnaryOperator callable) {
+        return new LongSequence() {
+            @Override
+            public PrimitiveIterator.OfLong iterator() {
+                final PrimitiveIterator.OfLong iterator = LongSequence.this.iterator();
+                return new PrimitiveIterator.OfLong() {
+                    @Override
+                    public boolean hasNext() {
+                        return iterator.hasNext();
+                    }
+
+                    @Override
+                    public long nextLong() {
+                        return callable.applyAsLong(iterator.nextLong());
+                    }
+                };
+            }
+        };
+    }
+
+    public DoubleSequence mapToDouble(final LongToDoubleFunction callable) {
+        return new DoubleSequence() {
+            @Override
+            public PrimitiveIterator.OfDouble iterator() {
+                final PrimitiveIterator.OfLong iterator = LongSequence.this.iterator();
+                return new PrimitiveIterator.OfDouble() {
+                    @Override
+                    public boolean hasNext() {
+                        return iterator.hasNext();
+                    }
+
+                    @Override
+                    public double nextDouble() {
+                        return callable.applyAsDouble(iterator.nextLong());
+                    }
+                };
+            }
+        };
+    }
+
+    public <T> Sequence<T> mapToObj(final LongFunction<? extends T> callable) {
+        return new Sequence<T>() {
+            @Override
+            public Iterator<T> iterator() {
+                final PrimitiveIterator.OfLong iterator = LongSequence.this.iterator();
+                return new ReadOnlyIterator<T>() {
+                    @Override
+                    public boolean hasNext() {
+                        return iterator.hasNext();
+                    }
+
+                    @Override
+                    public T next() {
+                        return callable.apply(iterator.nextLong());
+                    }
+                };
+            }
+        };
+    }
+
+    public DoubleSequence asDoubleSequence() {
+        return mapToDouble(value -> value);
+    }
+
+    public Sequence<Long> boxed() {
+        return mapToObj(Long::valueOf);
+    }
+
+    public LongSequence filter(final LongPredicate predicate) {
+        return new LongSequence() {
+            @Override
+            public PrimitiveIterator.OfLong iterator() {
+                final PrimitiveIterator.OfLong iterator = LongSequence.this.iterator();
+                return new Lookahead() {
+                    @Override
+                    protected boolean load() {
+                        while (iterator.hasNext()) {
+                            long value = iterator.nextLong();
+                            if (predicate.test(value)) return found(value);
+                        }
+                        return false;
+                    }
+                };
+            }
+        };
+    }
+
+    public LongSequence takeWhile(final LongPredicate predicate) {
+        return new LongSequence() {
+            @Override
+            public PrimitiveIterator.OfLong iterator() {
+                final PrimitiveIterator.OfLong iterator = LongSequence.this.iterator();
+                return new Lookahead() {
+                    @Override
+                    protected boolean load() {
+                        if (!iterator.hasNext()) return false;
+                        long value = iterator.nextLong();
+                        return predicate.test(value) && found(value);
+                    }
+                };
+            }
+        };
+    }
+
+    public LongSequence take(final int count) {
+        return new LongSequence() {
+            @Override
+            public PrimitiveIterator.OfLong iterator() {
+                final PrimitiveIterator.OfLong iterator = LongSequence.this.iterator();
+                return new PrimitiveIterator.OfLong() {
+                    private int remaining = count;
+
+                    @Override
+                    public boolean hasNext() {
+                        return remaining > 0 && iterator.hasNext();
+                    }
+
+                    @Override
+                    public long nextLong() {
+                        if (!hasNext()) throw new NoSuchElementException();
+                        remaining--;
+                        return iterator.nextLong();
+                    }
+                };
+            }
+        };
+    }
+
+    public LongSequence drop(final int count) {
+        return new LongSequence() {
+            @Override
+            public PrimitiveIterator.OfLong iterator() {
+                PrimitiveIterator.OfLong iterator = LongSequence.this.iterator();
+                for (int i = 0; i < count && iterator.hasNext(); i++) iterator.nextLong();
+                return iterator;
+            }
+        };
+    }
+
+    public long fold(final long seed, final LongBinaryOperator callable) {
+        long accumulator = seed;
+        PrimitiveIterator.OfLong iterator = iterator();
+        while (iterator.hasNext()) accumulator = callable.applyAsLong(accumulator, iterator.nextLong());
+        return accumulator;
+    }
+
+    public long reduce(final LongBinaryOperator callable) {
+        PrimitiveIterator.OfLong iterator = iterator();
+        if (!iterator.hasNext()) throw new NoSuchElementException();
+        long accumulator = iterator.nextLong();
+        while (iterator.hasNext()) accumulator = callable.applyAsLong(accumulator, iterator.nextLong());
+        return accumulator;
+    }
+
+    public void each(final LongConsumer consumer) {
+        PrimitiveIterator.OfLong iterator = iterator();
+        while (iterator.hasNext()) consumer.accept(iterator.nextLong());
+    }
+
+    public long sum() {
+        long sum = 0;
+        PrimitiveIterator.OfLong iterator = iterator();
+        while (iterator.hasNext()) sum += iterator.nextLong();
+        return sum;
+    }
+
+    public Option<Long> min() {
+        PrimitiveIterator.OfLong iterator = iterator();
+        if (!iterator.hasNext()) return none();
+        long min = iterator.nextLong();
+        while (iterator.hasNext()) min = Math.min(min, iterator.nextLong());
+        return some(min);
+    }
+
+    public Option<Long> max() {
+        PrimitiveIterator.OfLong iterator = iterator();
+        if (!iterator.hasNext()) return none();
+        long max = iterator.nextLong();
+        while (iterator.hasNext()) max = Math.max(max, iterator.nextLong());
+        return some(max);
+    }
+
+    public Option<Double> average() {
+        double sum = 0;
+        int size = 0;
+        PrimitiveIterator.OfLong iterator = iterator();
+        while (iterator.hasNext()) {
+            sum += iterator.nextLong();
+            size++;
+        }
+        return size == 0 ? Option.<Double>none() : some(sum / size);
+    }
+
+    public int size() {
+        int size = 0;
+        PrimitiveIterator.OfLong iterator = iterator();
+        while (iterator.hasNext()) {
+            iterator.nextLong();
+            size++;
+        }
+        return size;
+    }
+
+    public long[] toArray() {
+        long[] result = new long[16];
+        int size = 0;
+        PrimitiveIterator.OfLong iterator = iterator();
+        while (iterator.hasNext()) {
+            if (size == result.length) result = Arrays.copyOf(result, size * 2);
+            result[size++] = iterator.nextLong();
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    @Override
+    public String toString() {
+        return boxed().toString();
+    }
+
+    private static abstract class Lookahead implements PrimitiveIterator.OfLong {
+        private boolean loaded;
+        private boolean finished;
+        private long current;
+
+        /** Calls found(value) and returns true when there is another value, otherwise returns false */
+        protected abstract boolean load();
+
+        protected boolean found(long value) {
+            current = value;
+            return true;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (!loaded && !finished) {
+                if (load()) loaded = true;
+                else finished = true;
+            }
+            return loaded;
+        }
+
+        @Override
+        public long nextLong() {
+            if (!hasNext()) throw new NoSuchElementException();
+            loaded = false;
+            return current;
+        }
+    }
+}
@@ -70,10 +70,12 @@ public class Numbers {
 
     public static Sequence<Number> range(final Number start, final Number end) {
         if (lessThan(end, start)) return range(start, end, -1);
+        if (Range.supports(start, end, 1)) return Range.range(start, end, 1);
         return range(start).takeWhile(lessThanOrEqualTo(end));
     }
 
     public static Sequence<Number> range(final Number start, final Number end, final Number step) {
+        if (Range.supports(start, end, step)) return Range.range(start, end, step);
         if (lessThan(end, start)) return iterate(add(step), start).takeWhile(greaterThanOrEqualTo(end));
         return iterate(add(step), start).takeWhile(lessThanOrEqualTo(end));
     }
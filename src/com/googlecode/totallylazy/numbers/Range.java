@@ -0,0 +1,83 @@
+package com.googlecode.totallylazy.numbers;
+
+import com.googlecode.totallylazy.Pair;
+import com.googlecode.totallylazy.Sequence;
+import com.googlecode.totallylazy.Splittable;
+import com.googlecode.totallylazy.iterators.ReadOnlyIterator;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import static com.googlecode.totallylazy.Pair.pair;
+
+/**
+ * A finite integral range with a known size, so it can be sized and split without being iterated.
+ * Values are produced by repeatedly adding the step, exactly as iterate(add(step), start) does.
+ */
+public class Range extends Sequence<Number> implements Splittable<Number> {
+    private final Number start;
+    private final Number step;
+    private final int size;
+
+    private Range(Number start, Number step, int size) {
+        this.start = start;
+        this.step = step;
+        this.size = size;
+    }
+
+    static boolean supports(Number start, Number end, Number step) {
+        return size(start, end, step) >= 0;
+    }
+
+    static Range range(Number start, Number end, Number step) {
+        return new Range(start, step, size(start, end, step));
+    }
+
+    private static int size(Number start, Number end, Number step) {
+        if (!integral(start) || !integral(end) || !integral(step) || step.longValue() == 0) return -1;
+        try {
+            long difference = Math.subtractExact(end.longValue(), start.longValue());
+            if (difference != 0 && Long.signum(difference) != Long.signum(step.longValue())) return -1;
+            long size = difference / step.longValue() + 1;
+            return size > Integer.MAX_VALUE ? -1 : (int) size;
+        } catch (ArithmeticException e) {
+            return -1;
+        }
+    }
+
+    private static boolean integral(Number number) {
+        return number instanceof Integer || number instanceof Long || number instanceof Short || number instanceof Byte;
+    }
+
+    @Override
+    public Iterator<Number> iterator() {
+        return new ReadOnlyIterator<Number>() {
+            private Number current = start;
+            private int remaining = size;
+
+            @Override
+            public boolean hasNext() {
+                return remaining > 0;
+            }
+
+            @Override
+            public Number next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                Number result = current;
+                if (--remaining > 0) current = Numbers.add(current, step);
+                return result;
+            }
+        };
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Pair<Range, Range> split() {
+        int middle = size / 2;
+        return pair(new Range(start, step, middle), new Range(Numbers.add(start, Numbers.multiply(middle, step)), step, size - middle));
+    }
+}
@@ -3,7 +3,16 @@ package com.googlecode.totallylazy;
 import com.googlecode.totallylazy.collections.PersistentSortedMap;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
 import static com.googlecode.totallylazy.Atomic.constructors.atomic;
+import static com.googlecode.totallylazy.Atomic.constructors.combining;
+import static com.googlecode.totallylazy.Callables.returns;
 import static com.googlecode.totallylazy.Pair.functions.toPairWithFirst;
 import static com.googlecode.totallylazy.Pair.pair;
 import static com.googlecode.totallylazy.collections.PersistentSortedMap.constructors;
@@ -25,4 +34,65 @@ public class AtomicTest {
         assertThat(reference.modifyReturn(functions.<Integer, String>remove(5).then(Pair.functions.<PersistentSortedMap<Integer, String>, String>toPairWithSecond("Removed"))), is("Removed"));
         assertThat(reference.value(), is(emptySortedMap(Integer.class, String.class)));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void countsAttemptsAndFailures() throws Exception {
+        final Atomic.RetryingAtomic<Integer> atomic = atomic(0, Backoff.constructors.yielding());
+        assertThat(atomic.modifyReturn((Integer value) -> {
+            if (value == 0) atomic.modify(other -> other + 10);
+            return pair(value + 1, value);
+        }), is(10));
+        assertThat(atomic.value(), is(11));
+        assertThat(atomic.attempts(), is(3L));
+        assertThat(atomic.failures(), is(1L));
+        assertThat(atomic.maxRetries(), is(1L));
+    }
+
+    @Test
+    public void rejectsOnceTheRetryPredicateStopsMatching() throws Exception {
+        final Atomic.RetryingAtomic<Integer> atomic = atomic(0, returns(Predicates.<Integer>lessThan(2)), Backoff.constructors.exponential(1000, 100000));
+        try {
+            atomic.modify(value -> {
+                atomic.modify(other -> other + 1);
+                return value;
+            });
+        } catch (RejectedExecutionException e) {
+            assertThat(atomic.rejections(), is(1L));
+            return;
+        }
+        throw new AssertionError("Expected RejectedExecutionException");
+    }
+
+    @Test
+    public void combiningAppliesEveryConcurrentModificationOnce() throws Exception {
+        final Atomic.RetryingAtomic<Integer> atomic = combining(0, Backoff.constructors.spinning(10));
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<Future<?>>();
+            for (int thread = 0; thread < 4; thread++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 1000; i++) atomic.modify(value -> value + 1);
+                }));
+            }
+            for (Future<?> future : futures) future.get();
+        } finally {
+            executor.shutdown();
+        }
+        assertThat(atomic.value(), is(4000));
+        assertThat(atomic.combined(), is(4000L));
+    }
+
+    @Test
+    public void combiningOnlyFailsTheModificationThatThrew() throws Exception {
+        Atomic.RetryingAtomic<Integer> atomic = combining(1, Backoff.constructors.none());
+        try {
+            atomic.modify(value -> {
+                throw new IllegalStateException();
+            });
+            throw new AssertionError("Expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            assertThat(atomic.modifyReturn(value -> pair(value + 1, value)), is(1));
+            assertThat(atomic.value(), is(2));
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.googlecode.totallylazy;
+
+import org.junit.Test;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.concurrent.ForkJoinPool;
+
+import static com.googlecode.totallylazy.comparators.Comparators.ascending;
+import static com.googlecode.totallylazy.comparators.Comparators.descending;
+import static com.googlecode.totallylazy.ExternalSort.externalSort;
+import static com.googlecode.totallylazy.Files.emptyTemporaryDirectory;
+import static com.googlecode.totallylazy.Files.files;
+import static com.googlecode.totallylazy.Sequences.sequence;
+import static com.googlecode.totallylazy.matchers.IterableMatcher.hasExactly;
+import static com.googlecode.totallylazy.matchers.Matchers.is;
+import static com.googlecode.totallylazy.numbers.Numbers.range;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
+
+public class ExternalSortTest {
+    private final Sequence<String> words = sequence("the quick brown fox jumps over the lazy dog and then some more words".split(" "));
+
+    @Test
+    public void sortsLikeAnInMemorySortWhateverTheRunSize() throws Exception {
+        for (int runSize : sequence(1, 2, 3, 7, 100)) {
+            assertThat(words.sortBy(ascending(), runSize, Serializer.constructors.strings()), is(words.sortBy(ascending())));
+        }
+    }
+
+    @Test
+    public void isStable() throws Exception {
+        Sequence<String> sorted = words.sortBy(Callables.ascending(String::length), 3, Serializer.constructors.strings());
+        assertThat(sorted, is(words.sortBy(Callables.ascending(String::length))));
+    }
+
+    @Test
+    public void mergesMoreRunsThanTheFanInAndDeletesTheFiles() throws Exception {
+        File directory = emptyTemporaryDirectory(getClass().getSimpleName());
+        Sequence<Integer> numbers = range(0, 999).map(n -> (n.intValue() * 7919) % 1000).realise();
+        Sequence<Integer> sorted = externalSort(descending(), 5, Serializer.constructors.<Integer>serializable(), directory, Option.<ForkJoinPool>none()).sort(numbers);
+        assertThat(sorted, is(numbers.sortBy(descending())));
+        assertThat(files(directory).isEmpty(), is(true));
+    }
+
+    @Test
+    public void generatesRunsInParallel() throws Exception {
+        Sequence<String> many = range(0, 49).flatMap(n -> words.map(word -> word + n.intValue() % 7)).realise();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            assertThat(many.parallel(pool).sortBy(ascending(), 16, Serializer.constructors.strings()), is(many.sortBy(ascending())));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void closingTheResultPartWayThroughDeletesTheRuns() throws Exception {
+        File directory = emptyTemporaryDirectory(getClass().getSimpleName());
+        Sequence<Integer> numbers = range(0, 99).map(n -> (n.intValue() * 7919) % 100).realise();
+        Iterator<Integer> sorted = externalSort(ascending(), 5, Serializer.constructors.<Integer>serializable(), directory, Option.<ForkJoinPool>none()).sort(numbers).iterator();
+        assertThat(sorted.next(), is(0));
+        assertThat(files(directory).isEmpty(), is(false));
+        ((Closeable) sorted).close();
+        assertThat(files(directory).isEmpty(), is(true));
+    }
+
+    @Test
+    public void smallSourcesNeverTouchTheDisk() throws Exception {
+        File directory = emptyTemporaryDirectory(getClass().getSimpleName());
+        assertThat(externalSort(ascending(), 10, Serializer.constructors.strings(), directory, Option.<ForkJoinPool>none()).sort(sequence("c", "a", "b")), hasExactly("a", "b", "c"));
+        assertThat(files(directory).isEmpty(), is(true));
+    }
+
+    @Test
+    public void onlyAllocatesTheRunAsElementsArrive() throws Exception {
+        assertThat(externalSort(ascending(), Integer.MAX_VALUE, Serializer.constructors.strings()).sort(sequence("c", "a", "b")), hasExactly("a", "b", "c"));
+    }
+
+    @Test
+    public void deletesTheRunsAlreadyWrittenWhenTheSourceFails() throws Exception {
+        File directory = emptyTemporaryDirectory(getClass().getSimpleName());
+        Sequence<Integer> failing = range(0, 99).map(n -> {
+            if (n.intValue() == 42) throw new IllegalStateException("source failed");
+            return n.intValue();
+        });
+        try {
+            externalSort(ascending(), 5, Serializer.constructors.<Integer>serializable(), directory, Option.<ForkJoinPool>none()).sort(failing).iterator();
+            fail("Should have thrown IllegalStateException");
+        } catch (IllegalStateException e) {
+            assertThat(files(directory).isEmpty(), is(true));
+        }
+    }
+
+    @Test
+    public void deletesTheRunsAlreadyWrittenWhenARunFailsToWrite() throws Exception {
+        File directory = emptyTemporaryDirectory(getClass().getSimpleName());
+        Serializer<String> failing = new Serializer<String>() {
+            @Override
+            public void write(String value, DataOutputStream output) throws IOException {
+                if (value.equals("failing")) throw new IOException("write failed");
+                Serializer.constructors.strings().write(value, output);
+            }
+
+            @Override
+            public String read(DataInputStream input) throws IOException {
+                return Serializer.constructors.strings().read(input);
+            }
+        };
+        Sequence<String> many = range(0, 49).flatMap(n -> words.map(word -> word + n.intValue())).append("failing").realise();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (Option<ForkJoinPool> parallel : sequence(Option.<ForkJoinPool>none(), Option.some(pool))) {
+                try {
+                    externalSort(ascending(), 16, failing, directory, parallel).sort(many).iterator();
+                    fail("Should have thrown LazyException");
+                } catch (LazyException e) {
+                    assertThat(files(directory).isEmpty(), is(true));
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.googlecode.totallylazy;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.googlecode.totallylazy.Files.emptyTemporaryDirectory;
+import static com.googlecode.totallylazy.Files.files;
+import static com.googlecode.totallylazy.HashAggregate.hashAggregate;
+import static com.googlecode.totallylazy.Pair.pair;
+import static com.googlecode.totallylazy.Sequences.sequence;
+import static com.googlecode.totallylazy.callables.Count.count;
+import static com.googlecode.totallylazy.matchers.IterableMatcher.hasExactly;
+import static com.googlecode.totallylazy.matchers.Matchers.is;
+import static com.googlecode.totallylazy.numbers.Numbers.range;
+import static com.googlecode.totallylazy.numbers.Numbers.sum;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class HashAggregateTest {
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @After
+    public void shutdownPool() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void foldsEachGroupInTheOrderItsKeyWasFirstSeen() throws Exception {
+        Sequence<String> words = sequence("one", "two", "three", "four", "five", "six");
+        assertThat(words.aggregateBy(String::length, count()), hasExactly(
+                Pair.<Integer, Number>pair(3, 3), pair(5, 1), pair(4, 2)));
+    }
+
+    @Test
+    public void isLazyAndCanBeIteratedAgain() throws Exception {
+        Sequence<Integer> numbers = sequence(1, 2, 3, 4);
+        Sequence<Pair<Boolean, Number>> sums = numbers.map(i -> i * 10).aggregateBy(i -> i % 20 == 0, sum());
+        assertThat(sums, hasExactly(Pair.<Boolean, Number>pair(false, 40), pair(true, 60)));
+        assertThat(sums, hasExactly(Pair.<Boolean, Number>pair(false, 40), pair(true, 60)));
+    }
+
+    @Test
+    public void spillsPartialResultsWhenThereAreTooManyKeys() throws Exception {
+        File directory = emptyTemporaryDirectory(getClass().getSimpleName());
+        Sequence<Number> numbers = range(1, 1000).cycle().take(5000).realise();
+        Sequence<Pair<String, Number>> spilled = hashAggregate((Number n) -> "key" + n.intValue() % 300, count(), 50,
+                Serializer.constructors.strings(), Serializer.constructors.<Number>serializable(), directory).aggregate(numbers);
+        Sequence<Pair<String, Number>> inMemory = numbers.aggregateBy(n -> "key" + n.intValue() % 300, count());
+        assertThat(spilled.size(), is(300));
+        assertThat(spilled.sortBy(Callables.<String>first()), is(inMemory.sortBy(Callables.<String>first())));
+        assertThat(files(directory).isEmpty(), is(true));
+    }
+
+    @Test
+    public void doesNotSpillWhenTheKeysFit() throws Exception {
+        File directory = emptyTemporaryDirectory(getClass().getSimpleName());
+        Sequence<Pair<Integer, Number>> counts = hashAggregate(String::length, count(), 2,
+                Serializer.constructors.<Integer>serializable(), Serializer.constructors.<Number>serializable(), directory).aggregate(sequence("a", "bb", "c"));
+        assertThat(counts, hasExactly(Pair.<Integer, Number>pair(1, 2), pair(2, 1)));
+        assertThat(files(directory).isEmpty(), is(true));
+    }
+
+    @Test
+    public void aggregatesChunksInParallelAndCombinesThem() throws Exception {
+        Sequence<Number> numbers = range(1, 10000).realise();
+        Sequence<Pair<Integer, Number>> parallel = numbers.parallel(pool).aggregateBy(n -> n.intValue() % 7, sum());
+        assertThat(parallel, is(numbers.aggregateBy(n -> n.intValue() % 7, sum())));
+    }
+
+    @Test
+    public void parallelAggregationOnlyRunsWhenIterated() throws Exception {
+        final AtomicInteger pulled = new AtomicInteger();
+        Sequence<Pair<Integer, Number>> counts = range(1, 1000).parallel(pool).map(n -> {
+            pulled.incrementAndGet();
+            return n;
+        }).aggregateBy(n -> n.intValue() % 2, count());
+        assertThat(pulled.get(), is(0));
+        assertThat(counts, hasExactly(Pair.<Integer, Number>pair(1, 500), pair(0, 500)));
+        assertThat(pulled.get(), is(1000));
+    }
+}
@@ -0,0 +1,104 @@
+package com.googlecode.totallylazy;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.googlecode.totallylazy.Option.none;
+import static com.googlecode.totallylazy.Option.some;
+import static com.googlecode.totallylazy.Pair.pair;
+import static com.googlecode.totallylazy.Sequences.sequence;
+import static com.googlecode.totallylazy.matchers.IterableMatcher.hasExactly;
+import static com.googlecode.totallylazy.matchers.Matchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+
+public class IndexedSequenceTest {
+    @Test
+    public void sizeGetAndLastOfAMappedArrayOnlyCallTheFunctionForTheElementsAsked() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        Sequence<Integer> mapped = sequence(1, 2, 3, 4, 5).map(i -> {
+            calls.incrementAndGet();
+            return i * 10;
+        });
+        assertThat(mapped.size(), is(5));
+        assertThat(mapped.isEmpty(), is(false));
+        assertThat(mapped.last(), is(50));
+        assertThat(mapped.get(1), is(20));
+        assertThat(mapped.drop(3).head(), is(40));
+        assertThat(calls.get(), is(3));
+        assertThat(mapped, hasExactly(10, 20, 30, 40, 50));
+    }
+
+    @Test
+    public void takeDropReverseAndZipKeepIndexedAccess() throws Exception {
+        Sequence<Integer> numbers = sequence(1, 2, 3, 4, 5);
+        assertThat(numbers.drop(1).take(3), hasExactly(2, 3, 4));
+        assertThat(numbers.drop(1).take(3).size(), is(3));
+        assertThat(numbers.take(10).size(), is(5));
+        assertThat(numbers.drop(10).isEmpty(), is(true));
+        assertThat(numbers.drop(-1).size(), is(5));
+        assertThat(numbers.take(-1).isEmpty(), is(true));
+        assertThat(numbers.reverse(), hasExactly(5, 4, 3, 2, 1));
+        assertThat(numbers.reverse().last(), is(1));
+        assertThat(numbers.zip(sequence("a", "b")).size(), is(2));
+        assertThat(numbers.zip(sequence("a", "b")).last(), is(pair(2, "b")));
+        assertThat(numbers.zipWithIndex().get(2), is(Pair.<Number, Integer>pair(2, 3)));
+        assertThat(numbers.drop(2), instanceOf(IndexedSequence.class));
+    }
+
+    @Test
+    public void outOfRangeIndexesBehaveAsBefore() throws Exception {
+        try {
+            sequence(1, 2).get(2);
+            throw new AssertionError("Should have thrown");
+        } catch (java.util.NoSuchElementException expected) {
+        }
+        assertThat(sequence(1, 2).drop(2).lastOption(), is(none(Integer.class)));
+        assertThat(sequence(1, 2).lastOption(), is(some(2)));
+    }
+
+    @Test
+    public void chainedTakesAndDropsWithExtremeCountsDoNotOverflow() throws Exception {
+        assertThat(sequence(1, 2, 3).drop(1).drop(Integer.MAX_VALUE).isEmpty(), is(true));
+        assertThat(sequence(1, 2, 3).drop(1).drop(Integer.MAX_VALUE).size(), is(0));
+        assertThat(sequence(1, 2, 3).drop(2).drop(Integer.MAX_VALUE - 1), hasExactly());
+        assertThat(sequence(1, 2, 3).drop(1).take(Integer.MAX_VALUE), hasExactly(2, 3));
+        assertThat(sequence(1, 2, 3).drop(1).take(Integer.MAX_VALUE).drop(1), hasExactly(3));
+        assertThat(sequence(1, 2, 3).take(Integer.MAX_VALUE).drop(Integer.MAX_VALUE).lastOption(), is(none(Integer.class)));
+        List<Integer> list = new ArrayList<Integer>(sequence(1, 2, 3, 4, 5, 6, 7).toList());
+        assertThat(sequence(list).drop(5).drop(Integer.MAX_VALUE), hasExactly());
+        assertThat(sequence(list).drop(5).drop(Integer.MAX_VALUE).size(), is(0));
+        assertThat(sequence(list).drop(2).take(Integer.MAX_VALUE).drop(Integer.MAX_VALUE - 1).isEmpty(), is(true));
+        assertThat(sequence(list).drop(2).drop(1).take(2), hasExactly(4, 5));
+    }
+
+    @Test
+    public void viewsOverListsSeeLaterChanges() throws Exception {
+        List<Integer> list = new ArrayList<Integer>();
+        list.add(1);
+        Sequence<Integer> rest = sequence(list).drop(1);
+        assertThat(rest.size(), is(0));
+        list.add(2);
+        list.add(3);
+        assertThat(rest.size(), is(2));
+        assertThat(rest.last(), is(3));
+    }
+
+    @Test
+    public void collectionsReportTheirSizeWithoutIterating() throws Exception {
+        HashSet<String> set = new HashSet<String>() {
+            @Override
+            public Iterator<String> iterator() {
+                throw new AssertionError("Should not iterate");
+            }
+        };
+        set.add("a");
+        assertThat(sequence(set).size(), is(1));
+        assertThat(sequence(set).isEmpty(), is(false));
+    }
+}
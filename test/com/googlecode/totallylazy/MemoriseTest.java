@@ -4,6 +4,8 @@ import com.googlecode.totallylazy.callables.CountingCallable;
 import com.googlecode.totallylazy.matchers.NumberMatcher;
 import org.junit.Test;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static com.googlecode.totallylazy.Callables.call;
 import static com.googlecode.totallylazy.Callers.callConcurrently;
 import static com.googlecode.totallylazy.Runnables.doNothing;
@@ -12,9 +14,11 @@ import static com.googlecode.totallylazy.Sequences.repeat;
 import static com.googlecode.totallylazy.Sequences.sequence;
 import static com.googlecode.totallylazy.callables.CountingCallable.counting;
 import static com.googlecode.totallylazy.matchers.IterableMatcher.hasExactly;
+import static com.googlecode.totallylazy.numbers.Numbers.increment;
 import static java.util.Arrays.asList;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
 public class MemoriseTest {
     @Test
     public void supportsGetWithIndex() throws Exception {
@@ -91,4 +95,74 @@ public class MemoriseTest {
         assertThat(sequence.size(), NumberMatcher.is(1));
         assertThat(counting.count(), is(1));
     }
+
+    @Test
+    public void memorisesNullValues() throws Exception {
+        CountingCallable<Integer> counting = counting();
+        Sequence<Integer> sequence = sequence(counting).map(call(Integer.class)).map(ignore -> (Integer) null).memorise();
+        assertThat(sequence.head(), is((Integer) null));
+        assertThat(sequence.head(), is((Integer) null));
+        assertThat(counting.count(), is(1));
+    }
+
+    @Test
+    public void canForgetLongChains() throws Exception {
+        Computation<Number> memory = Computation.iterate(increment, 1);
+        assertThat(memory.drop(99999).head(), is((Number) 100000));
+        memory.forget();
+        assertThat(memory.head(), is((Number) 1));
+    }
+
+    @Test
+    public void supportsChunkedMemorise() throws Exception {
+        final AtomicInteger count = new AtomicInteger();
+        Sequence<Integer> chunked = sequence(0, 1, 2, 3, 4, 5, 6, 7, 8, 9).map(value -> {
+            count.incrementAndGet();
+            return value;
+        }).memorise(4);
+        assertThat(chunked, hasExactly(0, 1, 2, 3, 4, 5, 6, 7, 8, 9));
+        assertThat(chunked, hasExactly(0, 1, 2, 3, 4, 5, 6, 7, 8, 9));
+        assertThat(count.get(), is(10));
+    }
+
+    @Test
+    public void chunkedMemoriseOnlyRealisesTheChunksItNeeds() throws Exception {
+        CountingCallable<Integer> counting = counting();
+        Sequence<Integer> chunked = repeat(counting).memorise(4);
+        assertThat(chunked.take(5).toList(), is(asList(0, 1, 2, 3, 4)));
+        assertThat(counting.count(), is(8));
+        assertThat(memorise(asList(1, 2, 3, 4).iterator(), 4), hasExactly(1, 2, 3, 4));
+        assertThat(Sequences.<Integer>empty().memorise(4).isEmpty(), is(true));
+    }
+
+    @Test
+    public void forgettingAChunkedMemoriseReadsTheSourceAgain() throws Exception {
+        CountingCallable<Integer> counting = counting();
+        Computation.Chunked<Integer> chunked = Computation.memorise(repeat(counting), 4);
+        assertThat(chunked.take(3).toList(), is(asList(0, 1, 2)));
+        chunked.forget();
+        assertThat(chunked.take(3).toList(), is(asList(4, 5, 6)));
+        Computation.Chunked<Integer> restarted = Computation.memorise(sequence(1, 2, 3), 2);
+        assertThat(restarted.toList(), is(asList(1, 2, 3)));
+        restarted.forget();
+        assertThat(restarted.toList(), is(asList(1, 2, 3)));
+    }
+
+    @Test
+    public void chunkedMemoriseKeepsTheValuesReadBeforeAFailure() throws Exception {
+        final AtomicInteger count = new AtomicInteger();
+        Sequence<Integer> chunked = sequence(1, 2, 3, 4, 5).map(value -> {
+            count.incrementAndGet();
+            if (value == 3) throw new IllegalStateException();
+            return value;
+        }).memorise(4);
+        try {
+            chunked.toList();
+            fail("Should have thrown IllegalStateException");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        assertThat(chunked.take(2).toList(), is(asList(1, 2)));
+        assertThat(count.get(), is(3));
+    }
 }
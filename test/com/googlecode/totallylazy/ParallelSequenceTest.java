@@ -0,0 +1,113 @@
+package com.googlecode.totallylazy;
+
+import com.googlecode.totallylazy.collections.PersistentSortedMap;
+import com.googlecode.totallylazy.collections.TreeList;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.googlecode.totallylazy.Lists.list;
+import static com.googlecode.totallylazy.Sequences.sequence;
+import static com.googlecode.totallylazy.matchers.Matchers.is;
+import static com.googlecode.totallylazy.numbers.Numbers.add;
+import static com.googlecode.totallylazy.numbers.Numbers.ascending;
+import static com.googlecode.totallylazy.numbers.Numbers.even;
+import static com.googlecode.totallylazy.numbers.Numbers.increment;
+import static com.googlecode.totallylazy.numbers.Numbers.intValue;
+import static com.googlecode.totallylazy.numbers.Numbers.range;
+import static com.googlecode.totallylazy.numbers.Numbers.remainder;
+import static com.googlecode.totallylazy.numbers.Numbers.sum;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ParallelSequenceTest {
+    private final Sequence<Number> numbers = range(1, 10000);
+
+    @Test
+    public void foldsWithACombinerInParallel() throws Exception {
+        assertThat(numbers.parallel().map(increment).filter(even).fold(0, sum), is(numbers.map(increment).filter(even).fold(0, sum)));
+        assertThat(numbers.parallel().reduce(sum), is((Number) 50005000));
+    }
+
+    @Test
+    public void foldsTheSeedIntoTheFirstChunkOnly() throws Exception {
+        assertThat(numbers.parallel().fold(100, sum), is((Number) 50005100));
+        assertThat(numbers.parallel().fold(list((Number) 0), Lists.functions.<Number>add()), is(numbers.cons(0).toList()));
+    }
+
+    @Test
+    public void keepsEncounterOrder() throws Exception {
+        assertThat(numbers.parallel().map(increment).filter(even).toList(), is(numbers.map(increment).filter(even).toList()));
+        assertThat(numbers.parallel().fold(list(), Lists.functions.<Number>add()), is(numbers.toList()));
+    }
+
+    @Test
+    public void supportsSize() throws Exception {
+        assertThat(numbers.parallel().filter(even).size(), is(5000));
+        assertThat(Sequences.<Number>empty().parallel().size(), is(0));
+    }
+
+    @Test
+    public void groupsInParallel() throws Exception {
+        Sequence<Group<Number, Number>> groups = numbers.parallel().groupBy(value -> remainder(value, 3));
+        assertThat(groups.map(Group.functions.<Number, Number>key()).toList(), is(list((Number) 1, 2, 0)));
+        assertThat(groups.head().toList(), is(numbers.filter(value -> remainder(value, 3).intValue() == 1).toList()));
+    }
+
+    @Test
+    public void sortsInParallel() throws Exception {
+        assertThat(numbers.reverse().parallel().sortBy(ascending()).toList(), is(numbers.toList()));
+    }
+
+    @Test
+    public void mergesTheBoundedHeapsOfEachChunk() throws Exception {
+        Sequence<Number> shuffled = numbers.map(value -> remainder(value, 1000)).realise();
+        assertThat(shuffled.parallel().bottomK(5, ascending()).toList(), is(shuffled.sortBy(ascending()).take(5).toList()));
+        assertThat(shuffled.parallel().topK(3, ascending()).toList(), is(list((Number) 999, 999, 999)));
+    }
+
+    @Test
+    public void bottomKAndTopKOnlyRunWhenIterated() throws Exception {
+        final AtomicInteger pulled = new AtomicInteger();
+        Sequence<Number> counted = numbers.parallel().map(value -> {
+            pulled.incrementAndGet();
+            return value;
+        });
+        Sequence<Number> bottom = counted.bottomK(3, ascending());
+        Sequence<Number> top = counted.topK(3, ascending());
+        assertThat(pulled.get(), is(0));
+        assertThat(bottom.toList(), is(list((Number) 1, 2, 3)));
+        assertThat(top.toList(), is(list((Number) 10000, 9999, 9998)));
+        assertThat(pulled.get(), is(20000));
+    }
+
+    @Test
+    public void splitsArraysListsAndTrees() throws Exception {
+        Number[] array = numbers.toArray(Number.class);
+        assertThat(sequence(array).parallel().reduce(sum), is((Number) 50005000));
+        assertThat(sequence(numbers.toList()).parallel().reduce(sum), is((Number) 50005000));
+        TreeList<Number> treeList = TreeList.treeList(numbers);
+        assertThat(treeList.toSequence().parallel().toList(), is(numbers.toList()));
+        Sequence<Integer> integers = numbers.map(intValue);
+        PersistentSortedMap<Integer, Integer> map = PersistentSortedMap.constructors.sortedMap(integers.zip(integers));
+        assertThat(map.toSequence().parallel().map(Callables.<Integer>first()).toList(), is(integers.toList()));
+    }
+
+    @Test
+    public void canUseASuppliedPool() throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            List<Number> result = numbers.parallel(pool).map(increment).toList();
+            assertThat(result, is(numbers.map(increment).toList()));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void otherOperationsStaySequential() throws Exception {
+        assertThat(numbers.parallel().take(3).toList(), is(list((Number) 1, 2, 3)));
+        assertThat(numbers.parallel().fold(0, (Number a, Number b) -> add(a, b)), is((Number) 50005000));
+    }
+}
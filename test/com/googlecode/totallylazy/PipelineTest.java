@@ -0,0 +1,156 @@
+package com.googlecode.totallylazy;
+
+import com.googlecode.totallylazy.iterators.ReadOnlyIterator;
+import org.junit.Test;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.googlecode.totallylazy.Lists.list;
+import static com.googlecode.totallylazy.Sequences.repeat;
+import static com.googlecode.totallylazy.Sequences.sequence;
+import static com.googlecode.totallylazy.matchers.Matchers.is;
+import static com.googlecode.totallylazy.numbers.Numbers.even;
+import static com.googlecode.totallylazy.numbers.Numbers.increment;
+import static com.googlecode.totallylazy.numbers.Numbers.lessThan;
+import static com.googlecode.totallylazy.numbers.Numbers.range;
+import static com.googlecode.totallylazy.numbers.Numbers.sum;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.Assert.fail;
+
+public class PipelineTest {
+    @Test
+    public void chainedStagesShareOnePipeline() throws Exception {
+        Sequence<Number> chain = range(1, 10).map(increment).filter(even).take(3);
+        assertThat(chain, instanceOf(Pipeline.class));
+        assertThat(chain.toList(), is(list((Number) 2, 4, 6)));
+    }
+
+    @Test
+    public void mapsOverAListKeepTheIndexAndFuseIntoLaterStages() throws Exception {
+        final AtomicInteger mapped = new AtomicInteger();
+        final AtomicInteger insideAnIterator = new AtomicInteger();
+        Sequence<Integer> squares = sequence(list(1, 2, 3, 4, 5, 6, 7, 8, 9, 10)).map(value -> {
+            mapped.incrementAndGet();
+            if (sequence(Thread.currentThread().getStackTrace()).exists(frame -> frame.getMethodName().equals("next"))) insideAnIterator.incrementAndGet();
+            return value * value;
+        }).map(value -> value + 1);
+        assertThat(squares.size(), is(10));
+        assertThat(squares.get(3), is(17));
+        assertThat(mapped.get(), is(1));
+        Sequence<Integer> chain = squares.filter(value -> value % 2 == 0).take(3);
+        assertThat(chain, instanceOf(Pipeline.class));
+        assertThat(chain.toList(), is(list(2, 10, 26)));
+        assertThat(mapped.get(), is(6));
+        assertThat(insideAnIterator.get(), is(0));
+    }
+
+    @Test
+    public void terminalOperationsMatchIteration() throws Exception {
+        Sequence<Number> chain = range(1, 100).map(increment).filter(even).dropWhile(lessThan(10)).drop(2).takeWhile(lessThan(90));
+        Sequence<Number> iterated = Sequences.memorise(chain.iterator());
+        assertThat(chain.toList(), is(iterated.toList()));
+        assertThat(chain.size(), is(iterated.size()));
+        assertThat(chain.fold(0, sum), is(iterated.fold(0, sum)));
+        assertThat(chain.reduce(sum), is(iterated.reduce(sum)));
+        assertThat(chain.find(even), is(iterated.find(even)));
+        assertThat(chain.forAll(even), is(true));
+        assertThat(chain.exists(lessThan(0)), is(false));
+    }
+
+    @Test
+    public void stopsPullingFromTheSourceOnceTakeIsSatisfied() throws Exception {
+        final AtomicInteger pulled = new AtomicInteger();
+        Sequence<Integer> infinite = repeat(1).map(value -> {
+            pulled.incrementAndGet();
+            return value;
+        });
+        assertThat(infinite.take(5).size(), is(5));
+        assertThat(pulled.get(), is(5));
+    }
+
+    @Test
+    public void closesTheSourceIteratorWhenAStageFails() throws Exception {
+        final AtomicInteger closed = new AtomicInteger();
+        Sequence<Integer> source = new Sequence<Integer>() {
+            @Override
+            public Iterator<Integer> iterator() {
+                return new ClosingIterator<Integer>(sequence(1, 2, 3).iterator(), closed);
+            }
+        };
+        try {
+            source.map(value -> {
+                if (value == 2) throw new IllegalStateException();
+                return value;
+            }).toList();
+            fail("Should have thrown IllegalStateException");
+        } catch (IllegalStateException e) {
+            assertThat(closed.get(), is(1));
+        }
+        assertThat(source.map(increment).size(), is(3));
+        assertThat(closed.get(), is(2));
+    }
+
+    @Test
+    public void takeZeroDoesNotPullFromTheSource() throws Exception {
+        final AtomicInteger pulled = new AtomicInteger();
+        Sequence<Integer> infinite = repeat(1).map(value -> {
+            pulled.incrementAndGet();
+            return value;
+        });
+        assertThat(infinite.take(0).size(), is(0));
+        assertThat(infinite.filter(value -> true).take(0).toList().isEmpty(), is(true));
+        assertThat(infinite.take(-1).size(), is(0));
+        assertThat(pulled.get(), is(0));
+    }
+
+    @Test
+    public void statefulStagesStartAfreshOnEveryRun() throws Exception {
+        Sequence<Number> firstTwo = range(1).take(2);
+        assertThat(firstTwo.size(), is(2));
+        assertThat(firstTwo.size(), is(2));
+        assertThat(firstTwo.toList(), is(list((Number) 1, 2)));
+    }
+
+    @Test
+    public void takeWhileStoppingEarlyDoesNotShortCircuitForAll() throws Exception {
+        assertThat(range(1).takeWhile(lessThan(5)).forAll(lessThan(5)), is(true));
+        assertThat(range(1).takeWhile(lessThan(5)).exists(lessThan(0)), is(false));
+    }
+
+    @Test
+    public void remainsLazy() throws Exception {
+        final AtomicInteger called = new AtomicInteger();
+        Sequence<Integer> mapped = sequence(1, 2, 3).map(value -> called.incrementAndGet());
+        assertThat(called.get(), is(0));
+        assertThat(mapped.head(), is(1));
+        assertThat(called.get(), is(1));
+    }
+
+    private static class ClosingIterator<T> extends ReadOnlyIterator<T> implements Closeable {
+        private final Iterator<T> iterator;
+        private final AtomicInteger closed;
+
+        private ClosingIterator(Iterator<T> iterator, AtomicInteger closed) {
+            this.iterator = iterator;
+            this.closed = closed;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return iterator.hasNext();
+        }
+
+        @Override
+        public T next() {
+            return iterator.next();
+        }
+
+        @Override
+        public void close() {
+            closed.incrementAndGet();
+        }
+    }
+}
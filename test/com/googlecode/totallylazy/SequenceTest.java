@@ -15,7 +15,9 @@ import java.util.Deque;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.googlecode.totallylazy.Arrays.list;
@@ -659,6 +661,75 @@ public class SequenceTest {
         executorService.shutdown();
     }
 
+    @Test
+    public void boundedConcurrentMapKeepsOrderAndLimitsWorkInFlight() throws Exception {
+        final AtomicInteger pulled = new AtomicInteger();
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger mostRunning = new AtomicInteger();
+        Sequence<Number> result = range(1).tap(value -> pulled.incrementAndGet()).mapConcurrently(value -> {
+            mostRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Thread.sleep(1);
+            running.decrementAndGet();
+            return value;
+        }, 4).take(20);
+        assertThat(result.toList(), is(range(1, 20).toList()));
+        assertThat(pulled.get() <= 24, is(true));
+        assertThat(mostRunning.get() <= 4, is(true));
+    }
+
+    @Test
+    public void unorderedConcurrentMapYieldsEveryResult() throws Exception {
+        assertThat(range(1, 100).mapConcurrentlyUnordered(Numbers.increment, 8).toSet(), is(range(2, 101).toSet()));
+    }
+
+    @Test
+    public void stoppingEarlyCancelsConcurrentWorkInFlight() throws Exception {
+        ExecutorService executorService = NamedExecutors.newFixedThreadPool(3, getClass());
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger finished = new AtomicInteger();
+        Sequence<Number> result = range(1).mapConcurrently(value -> {
+            if (value.intValue() == 1) return value;
+            release.await();
+            finished.incrementAndGet();
+            return value;
+        }, executorService, 3);
+        assertThat(result.take(1).toList(), is(sequence((Number) 1).toList()));
+        release.countDown();
+        executorService.shutdown();
+        assertThat(executorService.awaitTermination(5, TimeUnit.SECONDS), is(true));
+        assertThat(finished.get(), is(0));
+    }
+
+    @Test
+    public void interruptingAConcurrentMapKeepsTheInterruptFlag() throws Exception {
+        ExecutorService executorService = NamedExecutors.newFixedThreadPool(2, getClass());
+        final CountDownLatch release = new CountDownLatch(1);
+        Sequence<Number> result = range(1, 3).mapConcurrentlyUnordered(value -> {
+            release.await();
+            return value;
+        }, executorService, 2);
+        Thread.currentThread().interrupt();
+        try {
+            result.toList();
+            fail("Should have thrown InterruptedException");
+        } catch (LazyException e) {
+            assertThat(e.getCause() instanceof InterruptedException, is(true));
+        } finally {
+            release.countDown();
+            executorService.shutdown();
+        }
+        assertThat(Thread.interrupted(), is(true));
+        assertThat(executorService.awaitTermination(5, TimeUnit.SECONDS), is(true));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void boundedConcurrentMapRethrowsFailures() throws Exception {
+        sequence(1, 2, 3).mapConcurrently(value -> {
+            if (value == 2) throw new IllegalStateException();
+            return value;
+        }, 2).toList();
+    }
+
     @Test
     public void mapIsLazy() throws Exception {
         Iterable<Integer> result = sequence(returns(1), callThrows(new Exception(), Integer.class)).
@@ -811,6 +882,77 @@ public class SequenceTest {
         assertThat(sequence(1, 2, 3, 4, 5).windowed(3), is(sequence(sequence(1, 2, 3), sequence(2, 3, 4), sequence(3, 4, 5))));
     }
 
+    @Test
+    public void supportsSlidingWithAStep() throws Exception {
+        assertThat(sequence(1, 2, 3, 4, 5, 6).sliding(3, 2), is(sequence(sequence(1, 2, 3), sequence(3, 4, 5))));
+        assertThat(sequence(1, 2, 3, 4, 5, 6, 7).sliding(2, 3), is(sequence(sequence(1, 2), sequence(4, 5))));
+        assertThat(sequence(1, 2).sliding(3, 1).isEmpty(), is(true));
+    }
+
+    @Test
+    public void windowsCanBeKeptAfterIteratingPastThem() throws Exception {
+        List<Sequence<Number>> windows = range(1, 1000).windowed(20).toList();
+        assertThat(windows.size(), is(981));
+        assertThat(windows.get(0), is(numbers(1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19, 20)));
+        assertThat(windows.get(980).head(), NumberMatcher.is(981));
+        assertThat(windows.get(980).last(), NumberMatcher.is(1000));
+        assertThat(range(1, 1000).grouped(300).map(Sequence::size), hasExactly(300, 300, 300, 100));
+    }
+
+    @Test
+    public void supportsTopAndBottomK() throws Exception {
+        Sequence<String> names = sequence("Matt", "Dan", "Bob", "Raymond", "Al", "Tom");
+        assertThat(names.bottomK(3, length()), hasExactly("Al", "Dan", "Bob"));
+        assertThat(names.bottomK(3, length()), is(names.sortBy(length()).take(3)));
+        assertThat(names.topK(2, length()), hasExactly("Raymond", "Matt"));
+        assertThat(names.topK(10, Comparators.<String>ascending()), hasExactly("Tom", "Raymond", "Matt", "Dan", "Bob", "Al"));
+        assertThat(names.bottomK(0, length()).isEmpty(), is(true));
+    }
+
+    @Test
+    public void topKIsLazy() throws Exception {
+        CountingCallable<Integer> counting = counting();
+        Sequence<Integer> top = repeat(counting).take(100).topK(2, Comparators.<Integer>ascending());
+        assertThat(counting.count(), is(0));
+        assertThat(top, hasExactly(99, 98));
+    }
+
+    @Test
+    public void supportsHashJoinInProbeOrder() throws Exception {
+        Sequence<Pair<Integer, String>> customers = sequence(pair(1, "Dan"), pair(2, "Matt"), pair(3, "Raymond"));
+        Sequence<Pair<Integer, String>> orders = sequence(pair(2, "book"), pair(1, "pen"), pair(2, "lamp"), pair(4, "cup"));
+        assertThat(orders.join(customers, Callables.<Integer>first(), Callables.<Integer>first()).map(p -> p.second().second() + " " + p.first().second()),
+                hasExactly("Matt book", "Dan pen", "Matt lamp"));
+        assertThat(repeat(2).join(customers, Integer::intValue, Callables.<Integer>first()).take(2).map(p -> p.second().second()), hasExactly("Matt", "Matt"));
+    }
+
+    @Test
+    public void supportsSemiAndAntiJoins() throws Exception {
+        Sequence<Integer> wanted = sequence(2, 4, 4);
+        assertThat(range(1, 5).semiJoin(wanted, Number::intValue, Integer::intValue), hasExactly((Number) 2, 4));
+        assertThat(range(1, 5).antiJoin(wanted, Number::intValue, Integer::intValue), hasExactly((Number) 1, 3, 5));
+        assertThat(repeat(1).antiJoin(wanted, Integer::intValue, Integer::intValue).take(2), hasExactly(1, 1));
+    }
+
+    @Test
+    public void supportsMergeJoinOfSortedSequences() throws Exception {
+        Sequence<Pair<Integer, String>> left = sequence(pair(1, "a"), pair(2, "b"), pair(2, "c"), pair(5, "d"));
+        Sequence<Pair<Integer, String>> right = sequence(pair(0, "w"), pair(2, "x"), pair(2, "y"), pair(5, "z"), pair(6, "!"));
+        assertThat(left.mergeJoin(right, Callables.<Integer>first(), Callables.<Integer>first()).map(p -> p.first().second() + p.second().second()),
+                hasExactly("bx", "by", "cx", "cy", "dz"));
+        assertThat(left.mergeJoin(right, Callables.<Integer>first(), Callables.<Integer>first()),
+                is(left.join(right, Callables.<Integer>first(), Callables.<Integer>first())));
+        assertThat(range(1).map(Number::intValue).mergeJoin(range(10).map(n -> n.intValue() * 2), i -> i, i -> i).take(3).map(Callables.<Integer>first()), hasExactly(20, 22, 24));
+    }
+
+    @Test
+    public void windowsLargerThanTheSequenceDoNotAllocateTheirFullSize() throws Exception {
+        assertThat(sequence(1, 2, 3).grouped(Integer.MAX_VALUE), is(one(sequence(1, 2, 3))));
+        assertThat(sequence(1, 2, 3).grouped(300000000), is(one(sequence(1, 2, 3))));
+        assertThat(sequence(1, 2, 3).windowed(Integer.MAX_VALUE).isEmpty(), is(true));
+        assertThat(sequence(1, 2, 3, 4).sliding(1, Integer.MAX_VALUE), is(one(sequence(1))));
+    }
+
     @Test
     public void windowedIsLazyAndDoesNotBlowStack() throws Exception {
         assertThat(range(1).windowed(3), startsWith(sequence(numbers(1, 2, 3), numbers(2, 3, 4), numbers(3, 4, 5))));
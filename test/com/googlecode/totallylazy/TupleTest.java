@@ -2,6 +2,8 @@ package com.googlecode.totallylazy;
 
 import org.junit.Test;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static com.googlecode.totallylazy.Pair.pair;
 import static com.googlecode.totallylazy.Quadruple.quadruple;
 import static com.googlecode.totallylazy.Triple.triple;
@@ -37,4 +39,37 @@ public class TupleTest {
         assertThat(Triple.leftShift(triple(1, 2, 3), 4), is(triple(2, 3, 4)));
     }
 
+    @Test
+    public void lazyTuplesOnlyComputeValuesOnceWhenAskedFor() throws Exception {
+        final AtomicInteger count = new AtomicInteger();
+        Pair<Integer, String> pair = pair(count::incrementAndGet, () -> "Blah");
+        assertThat(pair instanceof LazyPair, is(true));
+        assertThat(count.get(), is(0));
+        assertThat(pair.first(), is(1));
+        assertThat(pair.first(), is(1));
+        assertThat(pair.map(value -> value * 10).equals(pair(10, "Blah")), is(true));
+        assertThat(count.get(), is(1));
+        assertThat(triple(count::incrementAndGet, () -> "Blah", () -> 3L).equals(triple(2, "Blah", 3L)), is(true));
+    }
+
+    @Test
+    public void mappingLazyTuplesDoesNotComputeTheirValues() throws Exception {
+        final AtomicInteger count = new AtomicInteger();
+        Pair<Integer, Integer> triple = triple(count::incrementAndGet, count::incrementAndGet, count::incrementAndGet).first(value -> value * 10).second(value -> value * 10);
+        Pair<Integer, Integer> quadruple = quadruple(count::incrementAndGet, count::incrementAndGet, count::incrementAndGet, count::incrementAndGet).map(value -> value * 10);
+        Pair<Integer, Integer> quintuple = Quintuple.quintuple(count::incrementAndGet, count::incrementAndGet, count::incrementAndGet, count::incrementAndGet, count::incrementAndGet).second(value -> value * 10);
+        assertThat(count.get(), is(0));
+        assertThat(triple.second(), is(10));
+        assertThat(quadruple.first(), is(20));
+        assertThat(quintuple.second(), is(30));
+        assertThat(count.get(), is(3));
+    }
+
+    @Test
+    public void strictTuplesMapEagerly() throws Exception {
+        assertThat(pair(1, "Blah").first(value -> value + 1).equals(pair(2, "Blah")), is(true));
+        assertThat(pair(1, "Blah").second(String::length).equals(pair(1, 4)), is(true));
+        assertThat(quadruple(1, "Blah", 3L, 'C').fourth(), is('C'));
+    }
+
 }
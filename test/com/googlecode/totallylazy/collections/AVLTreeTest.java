@@ -2,12 +2,14 @@ package com.googlecode.totallylazy.collections;
 
 import com.googlecode.totallylazy.Option;
 import com.googlecode.totallylazy.Pair;
+import com.googlecode.totallylazy.Unchecked;
 import org.junit.Test;
 
 import static com.googlecode.totallylazy.Option.some;
 import static com.googlecode.totallylazy.Pair.pair;
 import static com.googlecode.totallylazy.collections.AVLTree.constructors.avlTree;
 import static com.googlecode.totallylazy.matchers.Matchers.is;
+import static com.googlecode.totallylazy.numbers.Numbers.range;
 import static org.hamcrest.MatcherAssert.assertThat;
 
 public class AVLTreeTest extends MapContract {
@@ -54,4 +56,27 @@ public class AVLTreeTest extends MapContract {
                 empty(Integer.class, String.class).headOption(),
                 is(Option.<Pair<Integer, String>>none()));
     }
+
+    @Test
+    public void rangeViewsStayBalancedAndShareUntouchedSubtrees() throws Exception {
+        AVLTree<Integer, Integer> tree = AVLTree.constructors.<Integer, Integer>factory().map(range(0, 1023).map(n -> pair(n.intValue(), n.intValue())));
+        for (int from = 0; from < 1024; from += 97) {
+            for (int to = from + 1; to <= 1100; to += 89) {
+                AVLTree<Integer, Integer> range = Unchecked.cast(tree.subMap(from, to));
+                assertThat(range.keys(), is(range(from, Math.min(to, 1024) - 1).map(Number::intValue).toSequence()));
+                assertBalanced(range);
+            }
+        }
+        assertThat(tree.headMap(2000) == tree, is(true));
+        assertThat(tree.tailMap(0) == tree, is(true));
+        AVLTree<Integer, Integer> head = Unchecked.cast(tree.headMap(1000));
+        assertThat(head.left() == tree.left(), is(true));
+    }
+
+    private static void assertBalanced(AVLTree<Integer, Integer> tree) {
+        if (tree.isEmpty()) return;
+        assertThat(Math.abs(tree.balance()) <= 1, is(true));
+        assertBalanced(tree.left());
+        assertBalanced(tree.right());
+    }
 }
@@ -0,0 +1,69 @@
+package com.googlecode.totallylazy.collections;
+
+import com.googlecode.totallylazy.Pair;
+import com.googlecode.totallylazy.Predicates;
+import com.googlecode.totallylazy.comparators.Comparators;
+import org.junit.Test;
+
+import static com.googlecode.totallylazy.Pair.pair;
+import static com.googlecode.totallylazy.collections.PersistentSortedMap.constructors.sortedMap;
+import static com.googlecode.totallylazy.matchers.IterableMatcher.hasExactly;
+import static com.googlecode.totallylazy.matchers.Matchers.is;
+import static com.googlecode.totallylazy.numbers.Numbers.range;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+
+public class ArraySortedMapTest extends MapContract {
+    @Override
+    protected <K extends Comparable<K>, V> MapFactory<K, V, ? extends PersistentMap<K, V>> factory() {
+        return new AbstractMapFactory<K, V, PersistentSortedMap<K, V>>() {
+            @Override
+            public PersistentSortedMap<K, V> empty() {
+                return ArraySortedMap.arraySortedMap(Comparators.<K>ascending());
+            }
+
+            @Override
+            public PersistentSortedMap<K, V> map(Iterable<? extends Pair<K, V>> values) {
+                return sortedMap(values);
+            }
+        };
+    }
+
+    @Test
+    public void smallMapsAreBackedByArrays() throws Exception {
+        assertThat(sortedMap(3, "Three", 1, "One", 2, "Two"), instanceOf(ArraySortedMap.class));
+        assertThat(PersistentSortedMap.constructors.<Integer, String>sortedMap(), instanceOf(ArraySortedMap.class));
+    }
+
+    @Test
+    public void promotesToATreeWhenItGrowsPastTheThreshold() throws Exception {
+        PersistentSortedMap<Integer, Integer> map = PersistentSortedMap.constructors.sortedMap();
+        for (int i = ArraySortedMap.THRESHOLD; i >= 0; i--) {
+            assertThat(map, instanceOf(ArraySortedMap.class));
+            map = map.insert(i, i);
+        }
+        assertThat(map, instanceOf(CompactAVLTree.class));
+        assertThat(map.keys(), hasExactly(range(0, ArraySortedMap.THRESHOLD).safeCast(Integer.class).toArray(Integer.class)));
+    }
+
+    @Test
+    public void filterAndMapStayBackedByArrays() throws Exception {
+        PersistentSortedMap<Integer, Integer> map = sortedMap(1, 1, 2, 2, 3, 3, 4, 4);
+        PersistentSortedMap<Integer, Integer> filtered = map.filterKeys(Predicates.is(2).or(Predicates.is(4)));
+        assertThat(filtered, instanceOf(ArraySortedMap.class));
+        assertThat(filtered, hasExactly(pair(2, 2), pair(4, 4)));
+        PersistentSortedMap<Integer, String> mapped = map.map(Object::toString);
+        assertThat(mapped, instanceOf(ArraySortedMap.class));
+        assertThat(mapped.lookup(3).get(), is("3"));
+    }
+
+    @Test
+    public void transientPicksArraysOrATreeByTheFinalSize() throws Exception {
+        PersistentSortedMap<Integer, Integer> small = sortedMap(1, 1).asTransient().insert(2, 2).delete(1).persistent();
+        assertThat(small, instanceOf(ArraySortedMap.class));
+        assertThat(small, hasExactly(pair(2, 2)));
+        PersistentSortedMap<Integer, Integer> large = sortedMap(1, 1).asTransient().insertAll(range(1, 100).map(i -> pair((Integer) i, (Integer) i)).toList()).persistent();
+        assertThat(large, instanceOf(CompactAVLTree.class));
+        assertThat(large.size(), is(100));
+    }
+}
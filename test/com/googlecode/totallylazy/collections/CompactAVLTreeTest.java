@@ -0,0 +1,79 @@
+package com.googlecode.totallylazy.collections;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static com.googlecode.totallylazy.Pair.pair;
+import static com.googlecode.totallylazy.Sequences.sequence;
+import static com.googlecode.totallylazy.numbers.Numbers.range;
+import static com.googlecode.totallylazy.collections.CompactAVLTree.constructors.compactAVLTree;
+import static com.googlecode.totallylazy.matchers.Matchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class CompactAVLTreeTest extends MapContract {
+    @Override
+    protected <K extends Comparable<K>, V> MapFactory<K, V, ? extends PersistentMap<K, V>> factory() {
+        return CompactAVLTree.constructors.<K, V>factory();
+    }
+
+    @Test
+    public void balancesTheSameWayAsAVLTree() throws Exception {
+        assertThat(map(3, null, 4, null, 5, null).toString(), is("(( 3=null ) 4=null ( 5=null ))"));
+        assertThat(map(3, null, 5, null, 4, null).toString(), is("(( 3=null ) 4=null ( 5=null ))"));
+        assertThat(map(5, null, 4, null, 3, null).toString(), is("(( 3=null ) 4=null ( 5=null ))"));
+        assertThat(compactAVLTree(5, null).insert(3, null).insert(4, null).toString(), is("(( 3=null ) 4=null ( 5=null ))"));
+        PersistentMap<Integer, Object> map = map(0, null, 1, null, 2, null, 3, null, 4, null).insert(5, null).insert(6, null);
+        assertThat(map.delete(3).toString(), is("((( 0=null ) 1=null ) 2=null (( 4=null ) 5=null ( 6=null )))"));
+    }
+
+    @Test
+    public void staysBalancedAndIndexedForManyRandomUpdates() throws Exception {
+        Random random = new Random(42);
+        java.util.TreeMap<Integer, Integer> expected = new java.util.TreeMap<Integer, Integer>();
+        CompactAVLTree<Integer, Integer> actual = compactAVLTree();
+        for (int i = 0; i < 20000; i++) {
+            int key = random.nextInt(5000);
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                actual = actual.delete(key);
+            } else {
+                expected.put(key, i);
+                actual = actual.insert(key, i);
+            }
+        }
+        assertThat(actual.size(), is(expected.size()));
+        assertThat(actual.height() <= 1.45 * (Math.log(expected.size() + 2) / Math.log(2)), is(true));
+        int index = 0;
+        for (java.util.Map.Entry<Integer, Integer> entry : expected.entrySet()) {
+            assertThat(actual.get(index), is(pair(entry.getKey(), entry.getValue())));
+            assertThat(actual.indexOf(pair(entry.getKey(), entry.getValue())), is(index));
+            index++;
+        }
+    }
+
+    @Test
+    public void equalsAnArrayBackedMapWithTheSameEntries() throws Exception {
+        PersistentSortedMap<Integer, String> array = PersistentSortedMap.constructors.sortedMap(1, "Dan", 2, "Matt");
+        CompactAVLTree<Integer, String> tree = CompactAVLTree.constructors.<Integer, String>compactAVLTree().insert(2, "Matt").insert(1, "Dan");
+        assertThat(tree.equals(array), is(true));
+        assertThat(array.equals(tree), is(true));
+        assertThat(tree.hashCode(), is(array.hashCode()));
+    }
+
+    @Test
+    public void filterAndMapHandSmallResultsBackToArrays() throws Exception {
+        CompactAVLTree<Integer, Integer> tree = CompactAVLTree.constructors.<Integer, Integer>factory().map(
+                range(0, ArraySortedMap.THRESHOLD * 2).map(n -> pair(n.intValue(), n.intValue())));
+        assertThat(tree.filterKeys(key -> key < 3) instanceof ArraySortedMap, is(true));
+        assertThat(tree.filterKeys(key -> key < 3).keys(), is(sequence(0, 1, 2)));
+        assertThat(tree.filterKeys(key -> key >= 0) == tree, is(true));
+        assertThat(tree.map(value -> value + 1) instanceof CompactAVLTree, is(true));
+        TransientSortedMap<Integer, Integer> shrinking = tree.asTransient();
+        for (int key = 3; key < ArraySortedMap.THRESHOLD * 2; key++) shrinking.delete(key);
+        assertThat(shrinking.persistent() instanceof ArraySortedMap, is(true));
+        CompactAVLTree<Integer, Integer> shrunk = CompactAVLTree.constructors.<Integer, Integer>compactAVLTree().insert(1, 1).insert(2, 2);
+        assertThat(shrunk.map(value -> value + 1) instanceof ArraySortedMap, is(true));
+        assertThat(shrunk.map(value -> value + 1).values(), is(sequence(2, 3)));
+    }
+}
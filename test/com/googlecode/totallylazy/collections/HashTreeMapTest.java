@@ -1,9 +1,32 @@
 package com.googlecode.totallylazy.collections;
 
+import org.junit.Test;
+
+import static com.googlecode.totallylazy.Option.none;
+import static com.googlecode.totallylazy.Option.some;
+import static com.googlecode.totallylazy.Pair.pair;
+import static com.googlecode.totallylazy.Sequences.sequence;
+import static com.googlecode.totallylazy.matchers.Matchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
 public class HashTreeMapTest extends MapContract {
 
     @Override
     protected <K extends Comparable<K>, V> MapFactory<K, V, ? extends PersistentMap<K, V>> factory() {
         return HashTreeMap.<K, V>factory();
     }
+
+    @Test
+    public void transientsKeepCollidingKeysAndLeaveTheOriginalAlone() throws Exception {
+        PersistentMap<String, Integer> original = HashTreeMap.hashTreeMap(sequence(pair("Aa", 1), pair("c", 3)));
+        TransientMap<String, Integer> map = original.asTransient().insert("BB", 2).insert("Aa", 10).delete("c").delete("missing");
+        assertThat(map.size(), is(2));
+        assertThat(map.lookup("BB"), is(some(2)));
+        PersistentMap<String, Integer> result = map.persistent();
+        assertThat(result.lookup("Aa"), is(some(10)));
+        assertThat(result.lookup("BB"), is(some(2)));
+        assertThat(result.lookup("c"), is(none(Integer.class)));
+        assertThat(original.lookup("Aa"), is(some(1)));
+        assertThat(original.size(), is(2));
+    }
 }
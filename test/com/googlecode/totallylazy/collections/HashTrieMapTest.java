@@ -0,0 +1,127 @@
+package com.googlecode.totallylazy.collections;
+
+import com.googlecode.totallylazy.Pair;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static com.googlecode.totallylazy.Option.none;
+import static com.googlecode.totallylazy.Option.some;
+import static com.googlecode.totallylazy.matchers.Matchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class HashTrieMapTest extends MapContract {
+    @Override
+    protected <K extends Comparable<K>, V> MapFactory<K, V, ? extends PersistentMap<K, V>> factory() {
+        return HashTrieMap.<K, V>factory();
+    }
+
+    @Test
+    public void supportsKeysWithTheSameHashCode() throws Exception {
+        HashTrieMap<Collision, String> map = HashTrieMap.<Collision, String>hashTrieMap().
+                insert(new Collision("a"), "A").insert(new Collision("b"), "B").insert(new Collision("c"), "C");
+        assertThat(map.size(), is(3));
+        assertThat(map.lookup(new Collision("b")), is(some("B")));
+        assertThat(map.lookup(new Collision("d")), is(none(String.class)));
+        HashTrieMap<Collision, String> deleted = map.delete(new Collision("a")).delete(new Collision("c"));
+        assertThat(deleted.size(), is(1));
+        assertThat(deleted.head().second(), is("B"));
+        assertThat(deleted.delete(new Collision("b")).isEmpty(), is(true));
+    }
+
+    @Test
+    public void behavesLikeAHashMapForManyRandomUpdates() throws Exception {
+        Random random = new Random(42);
+        Map<Integer, Integer> expected = new HashMap<Integer, Integer>();
+        HashTrieMap<Integer, Integer> actual = HashTrieMap.hashTrieMap();
+        for (int i = 0; i < 20000; i++) {
+            int key = random.nextInt(5000) * (random.nextBoolean() ? 1 : -65536);
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                actual = actual.delete(key);
+            } else {
+                expected.put(key, i);
+                actual = actual.insert(key, i);
+            }
+        }
+        assertThat(actual.size(), is(expected.size()));
+        for (Map.Entry<Integer, Integer> entry : expected.entrySet()) assertThat(actual.get(entry.getKey()), is(entry.getValue()));
+        int count = 0;
+        for (Pair<Integer, Integer> pair : actual) {
+            assertThat(expected.get(pair.first()), is(pair.second()));
+            count++;
+        }
+        assertThat(count, is(expected.size()));
+    }
+
+    @Test
+    public void equalMapsHaveTheSameShapeWhateverTheHistory() throws Exception {
+        HashTrieMap<Integer, Integer> map = HashTrieMap.hashTrieMap();
+        for (int i = 0; i < 1000; i++) map = map.insert(i * 33, i);
+        HashTrieMap<Integer, Integer> other = map;
+        for (int i = 0; i < 1000; i += 2) other = other.delete(i * 33);
+        for (int i = 0; i < 1000; i += 2) other = other.insert(i * 33, i);
+        assertThat(other.equals(map), is(true));
+        assertThat(other.hashCode(), is(map.hashCode()));
+        assertThat(other.toSequence(), is(map.toSequence()));
+    }
+
+    @Test
+    public void mappingValuesKeepsKeys() throws Exception {
+        HashTrieMap<String, Integer> map = HashTrieMap.<String, Integer>hashTrieMap().insert("Dan", 1).insert("Ray", 2);
+        HashTrieMap<String, Integer> mapped = map.map(value -> value * 10);
+        assertThat(mapped.lookup("Ray"), is(some(20)));
+        assertThat(mapped.keys(), is(map.keys()));
+    }
+
+    @Test
+    public void transientUpdatesInPlaceWithoutChangingTheOriginal() throws Exception {
+        HashTrieMap<Integer, Integer> original = HashTrieMap.<Integer, Integer>hashTrieMap().insert(1, 1).insert(2, 2);
+        TransientMap<Integer, Integer> map = original.asTransient();
+        for (int i = 0; i < 1000; i++) map.insert(i, i * 2);
+        map.delete(0).delete(500);
+        assertThat(map.size(), is(998));
+        assertThat(map.lookup(2), is(some(4)));
+        assertThat(original.size(), is(2));
+        assertThat(original.lookup(2), is(some(2)));
+        HashTrieMap<Integer, Integer> expected = HashTrieMap.hashTrieMap();
+        for (int i = 1; i < 1000; i++) if (i != 500) expected = expected.insert(i, i * 2);
+        assertThat(map.persistent().equals(expected), is(true));
+    }
+
+    @Test
+    public void nullValuesLookUpAsNone() throws Exception {
+        HashTrieMap<String, String> map = HashTrieMap.<String, String>hashTrieMap().insert("a", null);
+        assertThat(map.lookup("a"), is(none(String.class)));
+        assertThat(map.contains("a"), is(true));
+        assertThat(map.asTransient().lookup("a"), is(none(String.class)));
+        assertThat(PersistentMap.constructors.<String, String>map().insert("a", null).lookup("a"), is(none(String.class)));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void transientCanNotBeUsedAfterBeingMadePersistent() throws Exception {
+        TransientMap<Integer, Integer> map = HashTrieMap.<Integer, Integer>hashTrieMap().asTransient();
+        map.persistent();
+        map.insert(1, 1);
+    }
+
+    private static class Collision {
+        private final String value;
+
+        private Collision(String value) {
+            this.value = value;
+        }
+
+        @Override
+        public int hashCode() {
+            return 7;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Collision && ((Collision) other).value.equals(value);
+        }
+    }
+}
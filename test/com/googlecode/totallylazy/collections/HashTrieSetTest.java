@@ -0,0 +1,43 @@
+package com.googlecode.totallylazy.collections;
+
+import org.junit.Test;
+
+import static com.googlecode.totallylazy.Option.none;
+import static com.googlecode.totallylazy.Option.some;
+import static com.googlecode.totallylazy.collections.HashTrieSet.hashTrieSet;
+import static com.googlecode.totallylazy.matchers.Matchers.is;
+import static com.googlecode.totallylazy.numbers.Numbers.even;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+
+public class HashTrieSetTest {
+    @Test
+    public void ignoresDuplicates() throws Exception {
+        HashTrieSet<Integer> set = hashTrieSet(3, 1, 2, 1, 3);
+        assertThat(set.size(), is(3));
+        assertThat(set, containsInAnyOrder(1, 2, 3));
+    }
+
+    @Test
+    public void supportsLookupContainsAndDelete() throws Exception {
+        HashTrieSet<String> set = hashTrieSet("Dan", "Ray", "Stu");
+        assertThat(set.lookup("Ray"), is(some("Ray")));
+        assertThat(set.lookup("Matt"), is(none(String.class)));
+        assertThat(set.delete("Ray").contains("Ray"), is(false));
+        assertThat(set.delete("Matt"), is(set));
+    }
+
+    @Test
+    public void equalityIgnoresInsertionOrder() throws Exception {
+        assertThat(hashTrieSet(1, 2, 3).equals(hashTrieSet(3, 2, 1)), is(true));
+        assertThat(hashTrieSet(1, 2, 3).hashCode(), is(hashTrieSet(3, 2, 1).hashCode()));
+        assertThat(hashTrieSet(1, 2).equals(hashTrieSet(1, 2, 3)), is(false));
+    }
+
+    @Test
+    public void supportsFilterAndMap() throws Exception {
+        HashTrieSet<Integer> set = hashTrieSet(1, 2, 3, 4);
+        assertThat(set.filter(even), is(hashTrieSet(2, 4)));
+        assertThat(set.map(value -> value % 2), is(hashTrieSet(0, 1)));
+    }
+}
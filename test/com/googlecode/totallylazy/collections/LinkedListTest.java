@@ -30,6 +30,15 @@ public class LinkedListTest {
         assertThat(list("Dan", "Matt").fold(0, count()).intValue(), is(2));
     }
 
+    @Test
+    public void transientAppendsWithoutChangingTheOriginal() throws Exception {
+        PersistentList<String> original = list("Dan", "Matt");
+        TransientList<String> transientList = original.asTransient().append("Ray").appendAll(sequence("Stu", "Chris"));
+        assertThat(transientList.size(), is(5));
+        assertThat(transientList.persistent(), hasExactly("Dan", "Matt", "Ray", "Stu", "Chris"));
+        assertThat(original, hasExactly("Dan", "Matt"));
+    }
+
     @Test
     public void canLookupIndexOf() throws Exception {
         assertThat(list("Dan", "Matt").indexOf("Dan"), is(0));
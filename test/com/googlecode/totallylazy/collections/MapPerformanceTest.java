@@ -41,6 +41,7 @@ public class MapPerformanceTest {
         for (int i = 0; i < 10; i++) {
             System.out.println(TimeReport.time(NUMBER_OF_CALLS, persistentGet(createPersistent(range))));
             System.out.println(TimeReport.time(NUMBER_OF_CALLS, persistentGet(createHash(range))));
+            System.out.println(TimeReport.time(NUMBER_OF_CALLS, persistentGet(createHashTrie(range))));
             System.out.println(TimeReport.time(NUMBER_OF_CALLS, mutableGet(createMutable(range, new HashMap<Integer, Integer>()))));
             System.out.println(TimeReport.time(NUMBER_OF_CALLS, mutableGet(createMutable(range, new java.util.TreeMap<Integer, Integer>()))));
             System.out.println(TimeReport.time(NUMBER_OF_CALLS, mutableGet(createMutable(range, new ConcurrentSkipListMap<Integer, Integer>(), "CSLMap "))));
@@ -234,6 +235,12 @@ public class MapPerformanceTest {
         return map;
     }
 
+    public static PersistentMap<Integer, Integer> createHashTrie(final Sequence<Integer> range) throws Exception {
+        HashTrieMap<Integer, Integer> map = HashTrieMap.hashTrieMap(range.map(asPair()));
+        System.out.print("HashTrieMap:\t");
+        return map;
+    }
+
 
 
 }
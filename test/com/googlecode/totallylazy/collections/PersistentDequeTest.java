@@ -0,0 +1,73 @@
+package com.googlecode.totallylazy.collections;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.Random;
+
+import static com.googlecode.totallylazy.Option.none;
+import static com.googlecode.totallylazy.Option.some;
+import static com.googlecode.totallylazy.collections.PersistentDeque.constructors.deque;
+import static com.googlecode.totallylazy.matchers.IterableMatcher.hasExactly;
+import static com.googlecode.totallylazy.matchers.Matchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class PersistentDequeTest {
+    @Test
+    public void supportsBothEnds() throws Exception {
+        PersistentDeque<Integer> deque = deque(2, 3).cons(1).append(4);
+        assertThat(deque, hasExactly(1, 2, 3, 4));
+        assertThat(deque.head(), is(1));
+        assertThat(deque.last(), is(4));
+        assertThat(deque.tail(), hasExactly(2, 3, 4));
+        assertThat(deque.init(), hasExactly(1, 2, 3));
+        assertThat(deque.size(), is(4));
+        assertThat(deque().lastOption(), is(none()));
+        assertThat(deque(1).init().isEmpty(), is(true));
+        assertThat(deque(1).lastOption(), is(some(1)));
+    }
+
+    @Test
+    public void canBeUsedAsAQueueFromOneEndOnly() throws Exception {
+        PersistentDeque<Integer> deque = deque();
+        for (int i = 0; i < 100; i++) deque = deque.append(i);
+        for (int i = 0; i < 100; i++) {
+            assertThat(deque.head(), is(i));
+            deque = deque.tail();
+        }
+        assertThat(deque.isEmpty(), is(true));
+    }
+
+    @Test
+    public void supportsJoinAndReverse() throws Exception {
+        assertThat(deque(1, 2, 3).join(deque(4)), hasExactly(1, 2, 3, 4));
+        assertThat(deque(1).join(deque(2, 3, 4)), hasExactly(1, 2, 3, 4));
+        assertThat(deque(1, 2, 3).reverse(), hasExactly(3, 2, 1));
+        assertThat(deque(1, 2, 3).reverse().append(0).head(), is(3));
+        assertThat(deque(1, 2).join(deque()), is(deque(1, 2)));
+    }
+
+    @Test
+    public void isASegment() throws Exception {
+        assertThat(deque(3, 4).joinTo(PersistentList.constructors.list(5)), hasExactly(3, 4, 5));
+        assertThat(deque(3, 4).contains(4), is(true));
+        assertThat(deque(3, 4).exists(i -> i > 4), is(false));
+    }
+
+    @Test
+    public void agreesWithArrayDequeForManyRandomOperations() throws Exception {
+        Random random = new Random(42);
+        ArrayDeque<Integer> expected = new ArrayDeque<Integer>();
+        PersistentDeque<Integer> actual = deque();
+        for (int i = 0; i < 20000; i++) {
+            switch (random.nextInt(4)) {
+                case 0: expected.addFirst(i); actual = actual.cons(i); break;
+                case 1: expected.addLast(i); actual = actual.append(i); break;
+                case 2: if (!expected.isEmpty()) { assertThat(actual.head(), is(expected.pollFirst())); actual = actual.tail(); } break;
+                default: if (!expected.isEmpty()) { assertThat(actual.last(), is(expected.pollLast())); actual = actual.init(); }
+            }
+            assertThat(actual.size(), is(expected.size()));
+        }
+        assertThat(actual, hasExactly(expected.toArray(new Integer[0])));
+    }
+}
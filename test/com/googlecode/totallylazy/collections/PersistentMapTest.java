@@ -150,4 +150,18 @@ public class PersistentMapTest {
     public void supportsMappingValues() throws Exception {
         assertThat(map("Dan", 2).map(add(2)), is(map("Dan", (Number) 4)));
     }
+
+    @Test
+    public void supportsUnionMergeIntersectionAndDifference() throws Exception {
+        PersistentMap<String, Integer> left = map("a", 1, "b", 2, "c", 3);
+        PersistentMap<String, Integer> right = map("b", 20, "d", 40);
+        assertThat(PersistentMap.methods.union(left, right), is(map("a", 1, "b", 20, "c", 3, "d", 40)));
+        assertThat(PersistentMap.methods.union(right, left), is(map("a", 1, "b", 2, "c", 3, "d", 40)));
+        assertThat(PersistentMap.methods.merge(right, left, (Integer a, Integer b) -> a + b), is(map("a", 1, "b", 22, "c", 3, "d", 40)));
+        assertThat(PersistentMap.methods.intersection(left, right), is(map("b", 2)));
+        assertThat(PersistentMap.methods.intersection(right, left), is(map("b", 20)));
+        assertThat(PersistentMap.methods.difference(left, right), is(map("a", 1, "c", 3)));
+        assertThat(PersistentMap.methods.difference(right, left), is(map("d", 40)));
+    }
+
 }
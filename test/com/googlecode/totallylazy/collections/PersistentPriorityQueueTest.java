@@ -0,0 +1,78 @@
+package com.googlecode.totallylazy.collections;
+
+import com.googlecode.totallylazy.comparators.Comparators;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static com.googlecode.totallylazy.Option.none;
+import static com.googlecode.totallylazy.Option.some;
+import static com.googlecode.totallylazy.collections.PersistentPriorityQueue.constructors.priorityQueue;
+import static com.googlecode.totallylazy.matchers.IterableMatcher.hasExactly;
+import static com.googlecode.totallylazy.matchers.Matchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class PersistentPriorityQueueTest {
+    @Test
+    public void headIsTheSmallestValueAndTailRemovesIt() throws Exception {
+        PersistentPriorityQueue<Integer> queue = priorityQueue(5, 3, 8, 1, 3);
+        assertThat(queue.head(), is(1));
+        assertThat(queue.tail().head(), is(3));
+        assertThat(queue.size(), is(5));
+        assertThat(queue.tail().size(), is(4));
+        assertThat(queue, hasExactly(1, 3, 3, 5, 8));
+        assertThat(priorityQueue().headOption(), is(none()));
+        assertThat(queue.headOption(), is(some(1)));
+    }
+
+    @Test
+    public void isPersistent() throws Exception {
+        PersistentPriorityQueue<Integer> queue = priorityQueue(2, 4);
+        PersistentPriorityQueue<Integer> withOne = queue.cons(1);
+        assertThat(withOne.tail().tail(), hasExactly(4));
+        assertThat(queue, hasExactly(2, 4));
+        assertThat(withOne, hasExactly(1, 2, 4));
+    }
+
+    @Test
+    public void supportsMeld() throws Exception {
+        PersistentPriorityQueue<Integer> melded = priorityQueue(1, 7, 4).meld(priorityQueue(6, 2));
+        assertThat(melded, hasExactly(1, 2, 4, 6, 7));
+        assertThat(melded.size(), is(5));
+        PersistentPriorityQueue<Integer> descending = priorityQueue(Comparators.<Integer>descending()).cons(3);
+        assertThat(descending.meld(priorityQueue(5, 1)), hasExactly(5, 3, 1));
+    }
+
+    @Test
+    public void supportsComparatorsAndContains() throws Exception {
+        PersistentPriorityQueue<String> queue = priorityQueue(Comparators.ascending(String::length), PersistentList.constructors.list("ccc", "a", "bb"));
+        assertThat(queue.toSequence(), hasExactly("a", "bb", "ccc"));
+        assertThat(queue.contains("bb"), is(true));
+        assertThat(queue.contains("d"), is(false));
+        assertThat(queue.exists(s -> s.startsWith("c")), is(true));
+        assertThat(queue.joinTo(PersistentList.constructors.list("dddd")), hasExactly("a", "bb", "ccc", "dddd"));
+    }
+
+    @Test
+    public void popsInOrderForManyRandomUpdates() throws Exception {
+        Random random = new Random(42);
+        java.util.PriorityQueue<Integer> expected = new java.util.PriorityQueue<Integer>();
+        PersistentPriorityQueue<Integer> actual = priorityQueue();
+        for (int i = 0; i < 20000; i++) {
+            if (random.nextInt(3) == 0 && !expected.isEmpty()) {
+                assertThat(actual.head(), is(expected.poll()));
+                actual = actual.tail();
+            } else {
+                int value = random.nextInt(1000);
+                expected.add(value);
+                actual = actual.cons(value);
+            }
+        }
+        assertThat(actual.size(), is(expected.size()));
+        while (!expected.isEmpty()) {
+            assertThat(actual.head(), is(expected.poll()));
+            actual = actual.tail();
+        }
+        assertThat(actual.isEmpty(), is(true));
+    }
+}
@@ -1,11 +1,13 @@
 package com.googlecode.totallylazy.collections;
 
 import com.googlecode.totallylazy.Callable1;
+import com.googlecode.totallylazy.Callables;
 import com.googlecode.totallylazy.Option;
 import com.googlecode.totallylazy.Pair;
 import com.googlecode.totallylazy.Predicates;
 import com.googlecode.totallylazy.Sequence;
 import com.googlecode.totallylazy.callables.TimeReport;
+import com.googlecode.totallylazy.comparators.Comparators;
 import org.junit.Ignore;
 import org.junit.Test;
 
@@ -33,6 +35,39 @@ public class PersistentSortedMapTest {
         assertThat(result.second().get(), is("Four"));
     }
 
+    @Test
+    public void sortedMapKeepsTheLastValueForRepeatedKeys() throws Exception {
+        PersistentSortedMap<Integer, String> map = sortedMap(1, "One", 2, "Two", 1, "Uno", 3, "Three");
+        assertThat(map.size(), is(3));
+        assertThat(map.lookup(1), is(some("Uno")));
+        assertThat(map.keys(), hasExactly(1, 2, 3));
+    }
+
+    @Test
+    public void transientBatchesUpdatesIntoANewMap() throws Exception {
+        PersistentSortedMap<Integer, Integer> original = sortedMap(range(1, 100).map(i -> pair((Integer) i, (Integer) i)).toList());
+        TransientSortedMap<Integer, Integer> map = original.asTransient();
+        for (int i = 0; i < 200; i += 2) map.insert(i, -i);
+        for (int i = 1; i < 100; i += 4) map.delete(i);
+        assertThat(map.size(), is(125));
+        assertThat(map.lookup(4), is(some(-4)));
+        assertThat(map.contains(5), is(false));
+        PersistentSortedMap<Integer, Integer> result = map.persistent();
+        assertThat(result.size(), is(125));
+        assertThat(result.keys(), is(result.keys().sortBy(Comparators.<Integer>ascending())));
+        assertThat(result.lookup(3), is(some(3)));
+        assertThat(result.lookup(198), is(some(-198)));
+        assertThat(original.size(), is(100));
+        assertThat(original.lookup(4), is(some(4)));
+    }
+
+    @Test
+    public void transientWithAFewChangesMatchesInserts() throws Exception {
+        PersistentSortedMap<Integer, Integer> original = sortedMap(range(1, 100).map(i -> pair((Integer) i, (Integer) i)).toList());
+        PersistentSortedMap<Integer, Integer> result = original.asTransient().insert(50, 0).delete(7).persistent();
+        assertThat(result, is(original.insert(50, 0).delete(7)));
+    }
+
     @Test
     public void canRemoveAndReturnOldValue() throws Exception {
         PersistentSortedMap<Integer, String> pairs = sortedMap(4, "Four", 5, "Five", 3, "Three", 2, "Two", 6, "Six");
@@ -195,4 +230,78 @@ public class PersistentSortedMapTest {
     public void supportsMappingValues() throws Exception {
         assertThat(sortedMap("Dan", 2).map(add(2)), is(sortedMap("Dan", (Number) 4)));
     }
+
+    private static PersistentSortedMap<Integer, Integer> squares(int from, int to, int step) {
+        PersistentSortedMap<Integer, Integer> map = emptySortedMap();
+        for (int i = from; i <= to; i += step) map = map.insert(i, i * i);
+        return map;
+    }
+
+    @Test
+    public void supportsSetAlgebraOnLargeAndSmallMaps() throws Exception {
+        PersistentSortedMap<Integer, Integer> evens = squares(0, 1000, 2);
+        PersistentSortedMap<Integer, Integer> threes = squares(0, 1000, 3);
+        PersistentSortedMap<Integer, Integer> union = PersistentSortedMap.methods.union(evens, threes);
+        assertThat(union.size(), is(501 + 334 - 167));
+        assertThat(union.lookup(9), is(some(81)));
+        assertThat(union.keys().toList(), is(union.keys().sortBy(Comparators.<Integer>ascending()).toList()));
+        PersistentSortedMap<Integer, Integer> intersection = PersistentSortedMap.methods.intersection(evens, threes);
+        assertThat(intersection.size(), is(167));
+        assertThat(intersection.keys().forAll(i -> i % 6 == 0), is(true));
+        PersistentSortedMap<Integer, Integer> difference = PersistentSortedMap.methods.difference(evens, threes);
+        assertThat(difference.size(), is(501 - 167));
+        assertThat(difference.contains(6), is(false));
+        assertThat(difference.contains(4), is(true));
+        assertThat(PersistentSortedMap.methods.intersection(evens, sortedMap(4, 0, 5, 0)), is(sortedMap(4, 16)));
+    }
+
+    @Test
+    public void mergeCombinesValuesForKeysInBothMaps() throws Exception {
+        PersistentSortedMap<String, Integer> merged = PersistentSortedMap.methods.merge(sortedMap("a", 1, "b", 2), sortedMap("b", 10, "c", 20), (Integer a, Integer b) -> a + b);
+        assertThat(merged, is(sortedMap("a", 1, "b", 12, "c", 20)));
+        assertThat(PersistentSortedMap.methods.union(sortedMap("a", 1, "b", 2), sortedMap("b", 10)), is(sortedMap("a", 1, "b", 10)));
+    }
+
+    @Test
+    public void supportsRangeViews() throws Exception {
+        for (PersistentSortedMap<Integer, Integer> map : sequence(squares(0, 10, 1), squares(0, 1000, 1))) {
+            assertThat(map.subMap(3, 6).keys(), hasExactly(3, 4, 5));
+            assertThat(map.headMap(3).keys(), hasExactly(0, 1, 2));
+            assertThat(map.tailMap(8).keys().take(3), hasExactly(8, 9, 10));
+            assertThat(map.subMap(6, 3).isEmpty(), is(true));
+            assertThat(map.tailMap(5).subMap(2, 7).lookup(6), is(some(36)));
+        }
+    }
+
+    private static Sequence<PersistentSortedMap<Integer, Integer>> tensUpTo(int last) {
+        Sequence<Pair<Integer, Integer>> pairs = range(0, last / 10).map(i -> pair((Integer) i * 10, (Integer) i));
+        return sequence(sortedMap(pairs), AVLTree.constructors.<Integer, Integer>factory().map(pairs));
+    }
+
+    @Test
+    public void supportsFloorCeilingLowerAndHigher() throws Exception {
+        for (PersistentSortedMap<Integer, Integer> map : tensUpTo(100).join(tensUpTo(1000))) {
+            assertThat(map.floor(25), is(some(pair(20, 2))));
+            assertThat(map.floor(20), is(some(pair(20, 2))));
+            assertThat(map.lower(20), is(some(pair(10, 1))));
+            assertThat(map.ceiling(25), is(some(pair(30, 3))));
+            assertThat(map.ceiling(30), is(some(pair(30, 3))));
+            assertThat(map.higher(30), is(some(pair(40, 4))));
+            assertThat(map.floor(-1).isEmpty(), is(true));
+            assertThat(map.lower(0).isEmpty(), is(true));
+            assertThat(map.higher(map.last().first()).isEmpty(), is(true));
+            assertThat(map.ceiling(map.last().first() + 1).isEmpty(), is(true));
+        }
+    }
+
+    @Test
+    public void canIterateARangeOfKeysAndInReverse() throws Exception {
+        for (PersistentSortedMap<Integer, Integer> map : tensUpTo(100).join(tensUpTo(1000))) {
+            assertThat(map.range(15, 50).map(Callables.<Integer>first()), hasExactly(20, 30, 40));
+            assertThat(map.range(20, 21).map(Callables.<Integer>first()), hasExactly(20));
+            assertThat(map.range(50, 15).isEmpty(), is(true));
+            assertThat(map.descending().map(Callables.<Integer>first()).take(3), hasExactly(map.last().first(), map.last().first() - 10, map.last().first() - 20));
+            assertThat(map.descending().size(), is(map.size()));
+        }
+    }
 }
@@ -71,4 +71,14 @@ public class PersistentSortedSetTest {
         assertThat(get(1).call(sortedSet(1, 2, 3)), is(some(1)));
         assertThat(get(5).call(sortedSet(1, 2, 3)), is(none(Integer.class)));
     }
+
+    @Test
+    public void supportsUnionIntersectionAndDifference() throws Exception {
+        PersistentSortedSet<Integer> left = sortedSet(1, 2, 3, 4);
+        PersistentSortedSet<Integer> right = sortedSet(3, 4, 5);
+        assertThat(PersistentSortedSet.methods.union(left, right), hasExactly(1, 2, 3, 4, 5));
+        assertThat(PersistentSortedSet.methods.intersection(left, right), hasExactly(3, 4));
+        assertThat(PersistentSortedSet.methods.difference(left, right), hasExactly(1, 2));
+    }
+
 }
@@ -0,0 +1,134 @@
+package com.googlecode.totallylazy.collections;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static com.googlecode.totallylazy.Option.none;
+import static com.googlecode.totallylazy.Option.some;
+import static com.googlecode.totallylazy.Pair.pair;
+import static com.googlecode.totallylazy.Sequences.sequence;
+import static com.googlecode.totallylazy.collections.RadixTrie.radixTrie;
+import static com.googlecode.totallylazy.matchers.IterableMatcher.hasExactly;
+import static com.googlecode.totallylazy.matchers.IterableMatcher.isEmpty;
+import static com.googlecode.totallylazy.matchers.Matchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class RadixTrieTest {
+    private final RadixTrie<String> routes = RadixTrie.<String>radixTrie().
+            insert("/", "root").
+            insert("/users", "users").
+            insert("/users/admin", "admin").
+            insert("/user", "user").
+            insert("/orders", "orders");
+
+    @Test
+    public void supportsLookupAndIteratesInKeyOrder() throws Exception {
+        assertThat(routes.lookup("/users"), is(some("users")));
+        assertThat(routes.lookup(new StringBuilder("/user")), is(some("user")));
+        assertThat(routes.lookup("/use"), is(none(String.class)));
+        assertThat(routes.lookup("/users/"), is(none(String.class)));
+        assertThat(routes.size(), is(5));
+        assertThat(routes.keys(), hasExactly("/", "/orders", "/user", "/users", "/users/admin"));
+        assertThat(radixTrie("", "empty").lookup(""), is(some("empty")));
+    }
+
+    @Test
+    public void nullValuesLookUpAsNone() throws Exception {
+        RadixTrie<String> trie = routes.insert("/nothing", null);
+        assertThat(trie.lookup("/nothing"), is(none(String.class)));
+        assertThat(trie.lookup(new StringBuilder("/nothing")), is(none(String.class)));
+        assertThat(trie.contains("/nothing"), is(true));
+        assertThat(trie.asTransient().lookup("/nothing"), is(none(String.class)));
+    }
+
+    @Test
+    public void supportsPrefixSearch() throws Exception {
+        assertThat(routes.withPrefix("/us").map(p -> p.second()), hasExactly("user", "users", "admin"));
+        assertThat(routes.withPrefix("/users/").map(p -> p.first()), hasExactly("/users/admin"));
+        assertThat(routes.withPrefix("/x"), isEmpty());
+        assertThat(routes.withPrefix("/users/admin/more"), isEmpty());
+        assertThat(routes.withPrefix("").size(), is(5));
+    }
+
+    @Test
+    public void supportsLongestPrefixMatch() throws Exception {
+        assertThat(routes.longestPrefixOf("/users/admin/settings"), is(some(pair("/users/admin", "admin"))));
+        assertThat(routes.longestPrefixOf("/users/bob"), is(some(pair("/users", "users"))));
+        assertThat(routes.longestPrefixOf("/usr"), is(some(pair("/", "root"))));
+        assertThat(routes.longestPrefixOf("orders").isEmpty(), is(true));
+    }
+
+    @Test
+    public void deletingRestoresPathCompression() throws Exception {
+        RadixTrie<String> trie = routes.delete("/users").delete("/user").delete("/nothing");
+        assertThat(trie.keys(), hasExactly("/", "/orders", "/users/admin"));
+        assertThat(trie.lookup("/users/admin"), is(some("admin")));
+        assertThat(trie, is(RadixTrie.<String>radixTrie().insert("/users/admin", "admin").insert("/orders", "orders").insert("/", "root")));
+        assertThat(routes.size(), is(5));
+        assertThat(trie.delete("/").delete("/orders").delete("/users/admin").isEmpty(), is(true));
+    }
+
+    @Test
+    public void growsAndShrinksThroughEachNodeLayout() throws Exception {
+        RadixTrie<Integer> trie = radixTrie();
+        for (int c = 0; c < 300; c++) {
+            trie = trie.insert("x" + (char) c, c);
+            for (int check = 0; check <= c; check += 37) assertThat(trie.lookup("x" + (char) check), is(some(check)));
+        }
+        assertThat(trie.size(), is(300));
+        int expected = 0;
+        for (Integer value : trie.values()) assertThat(value, is(expected++));
+        for (int c = 299; c >= 0; c--) {
+            trie = trie.delete("x" + (char) c);
+            assertThat(trie.size(), is(c));
+            if (c > 0) assertThat(trie.lookup("x" + (char) (c - 1)), is(some(c - 1)));
+        }
+    }
+
+    @Test
+    public void byteKeysAreReadAsLatin1() throws Exception {
+        byte[] key = {1, (byte) 0xFF, 2};
+        RadixTrie<String> trie = RadixTrie.<String>radixTrie().insert(key, "bytes").insert(new byte[]{1}, "one");
+        assertThat(trie.lookup(new byte[]{1, (byte) 0xFF, 2}), is(some("bytes")));
+        assertThat(trie.lookup(new String(key, StandardCharsets.ISO_8859_1)), is(some("bytes")));
+        assertThat(trie.longestPrefixOf(new byte[]{1, (byte) 0xFF}), is(some(pair("\u0001", "one"))));
+        assertThat(trie.withPrefix(new byte[]{1, (byte) 0xFF}).map(p -> p.second()), hasExactly("bytes"));
+    }
+
+    @Test
+    public void transientUpdatesInPlaceWithoutChangingTheOriginal() throws Exception {
+        TransientMap<String, String> builder = routes.asTransient();
+        builder.insert("/users/guest", "guest").delete("/").insert("/orders", "all orders");
+        RadixTrie<String> updated = (RadixTrie<String>) builder.persistent();
+        assertThat(updated.keys(), hasExactly("/orders", "/user", "/users", "/users/admin", "/users/guest"));
+        assertThat(updated.lookup("/orders"), is(some("all orders")));
+        assertThat(routes.lookup("/orders"), is(some("orders")));
+        assertThat(routes.lookup("/users/guest"), is(none(String.class)));
+        assertThat(routes.lookup("/"), is(some("root")));
+    }
+
+    @Test
+    public void agreesWithATreeMapForManyRandomUpdates() throws Exception {
+        Random random = new Random(42);
+        java.util.TreeMap<String, Integer> expected = new java.util.TreeMap<String, Integer>();
+        RadixTrie<Integer> persistent = radixTrie();
+        TransientMap<String, Integer> builder = RadixTrie.<Integer>radixTrie().asTransient();
+        for (int i = 0; i < 20000; i++) {
+            String key = Integer.toString(random.nextInt(3000), random.nextBoolean() ? 4 : 36);
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                persistent = persistent.delete(key);
+                builder.delete(key);
+            } else {
+                expected.put(key, i);
+                persistent = persistent.insert(key, i);
+                builder.insert(key, i);
+            }
+        }
+        assertThat(persistent.size(), is(expected.size()));
+        assertThat(persistent.toSequence().toList(), is(sequence(expected.entrySet()).map(e -> pair(e.getKey(), e.getValue())).toList()));
+        assertThat(builder.persistent(), is((PersistentMap<String, Integer>) persistent));
+    }
+}
@@ -0,0 +1,84 @@
+package com.googlecode.totallylazy.collections;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.googlecode.totallylazy.collections.PersistentSortedMap.constructors.sortedMap;
+import static com.googlecode.totallylazy.collections.ShardedAtomicMap.shardedAtomicMap;
+import static com.googlecode.totallylazy.matchers.Matchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ShardedAtomicMapTest {
+    @Test
+    public void supportsConcurrentMapOperations() throws Exception {
+        ShardedAtomicMap<Integer, String> map = shardedAtomicMap(sortedMap(1, "Dan"), 3);
+        assertThat(map.get(1), is("Dan"));
+        assertThat(map.put(2, "Matt"), is((String) null));
+        assertThat(map.putIfAbsent(2, "Ray"), is("Matt"));
+        assertThat(map.replace(2, "Matt", "Ray"), is(true));
+        assertThat(map.remove(1, "Matt"), is(false));
+        assertThat(map.remove(1), is("Dan"));
+        assertThat(map.size(), is(1));
+        map.clear();
+        assertThat(map.isEmpty(), is(true));
+    }
+
+    @Test
+    public void snapshotContainsEveryShardInKeyOrderOfTheOriginalMap() throws Exception {
+        ShardedAtomicMap<Integer, Integer> map = shardedAtomicMap(PersistentSortedMap.constructors.<Integer, Integer>emptySortedMap(), 8);
+        Map<Integer, Integer> values = new HashMap<Integer, Integer>();
+        for (int i = 0; i < 100; i++) values.put(i, i * 2);
+        map.putAll(values);
+        PersistentMap<Integer, Integer> snapshot = map.snapshot();
+        assertThat(snapshot.size(), is(100));
+        assertThat(snapshot.keys().head(), is(0));
+        assertThat(snapshot.lookup(99).get(), is(198));
+    }
+
+    @Test
+    public void concurrentWritersDoNotLoseUpdates() throws Exception {
+        final ShardedAtomicMap<Integer, Integer> map = shardedAtomicMap(PersistentMap.constructors.<Integer, Integer>map(), 16);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<Future<?>>();
+            for (int thread = 0; thread < 4; thread++) {
+                final int offset = thread * 1000;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 1000; i++) map.put(offset + i, i);
+                }));
+            }
+            for (Future<?> future : futures) future.get();
+        } finally {
+            executor.shutdown();
+        }
+        assertThat(map.size(), is(4000));
+        assertThat(map.attempts() >= 4000, is(true));
+    }
+
+    @Test
+    public void snapshotsSeeAConsistentPrefixOfSequentialWrites() throws Exception {
+        final ShardedAtomicMap<Integer, Integer> map = shardedAtomicMap(PersistentMap.constructors.<Integer, Integer>map(), 16);
+        final AtomicBoolean running = new AtomicBoolean(true);
+        Thread writer = new Thread(() -> {
+            for (int i = 0; running.get() && i < 20000; i++) map.put(i, i);
+        });
+        writer.start();
+        try {
+            for (int attempt = 0; attempt < 50; attempt++) {
+                PersistentMap<Integer, Integer> snapshot = map.snapshot();
+                for (int i = 0; i < snapshot.size(); i++) assertThat(snapshot.contains(i), is(true));
+            }
+        } finally {
+            running.set(false);
+            writer.join();
+        }
+    }
+}
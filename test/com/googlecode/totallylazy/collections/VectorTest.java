@@ -0,0 +1,138 @@
+package com.googlecode.totallylazy.collections;
+
+import com.googlecode.totallylazy.Option;
+import com.googlecode.totallylazy.Pair;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static com.googlecode.totallylazy.Sequences.sequence;
+import static com.googlecode.totallylazy.callables.Count.count;
+import static com.googlecode.totallylazy.collections.Vector.vector;
+import static com.googlecode.totallylazy.matchers.IterableMatcher.hasExactly;
+import static com.googlecode.totallylazy.matchers.Matchers.is;
+import static com.googlecode.totallylazy.numbers.Numbers.range;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class VectorTest {
+    @Test
+    public void supportsEqualityHashcodeAndToString() throws Exception {
+        assertThat(vector("Dan", "Matt"), is(vector("Dan", "Matt")));
+        assertThat(vector("Dan", "Matt").hashCode(), is(vector("Dan", "Matt").hashCode()));
+        assertThat(vector("Dan", "Matt").toString(), is("(Dan,Matt)"));
+    }
+
+    @Test
+    public void canFold() throws Exception {
+        assertThat(vector("Dan", "Matt").fold(0, count()).intValue(), is(2));
+    }
+
+    @Test
+    public void canConsAppendAndLookupByIndex() throws Exception {
+        Vector<String> vector = Vector.<String>vector().append("Matt").cons("Dan").append("Ray");
+        assertThat(vector, hasExactly("Dan", "Matt", "Ray"));
+        assertThat(vector.get(1), is("Matt"));
+        assertThat(vector.headOption(), is(Option.some("Dan")));
+        assertThat(vector.last(), is("Ray"));
+        assertThat(Vector.<String>vector().headOption(), is(Option.none(String.class)));
+    }
+
+    @Test
+    public void canUpdateWithoutChangingTheOriginal() throws Exception {
+        Vector<Integer> original = vector(range(0, 999).safeCast(Integer.class));
+        Vector<Integer> updated = original.update(10, -10).update(999, -999);
+        assertThat(updated.get(10), is(-10));
+        assertThat(updated.get(999), is(-999));
+        assertThat(original.get(10), is(10));
+        assertThat(original.get(999), is(999));
+    }
+
+    @Test
+    public void canAppendManyValues() throws Exception {
+        Vector<Integer> vector = vector();
+        for (int i = 0; i < 40000; i++) vector = vector.append(i);
+        assertThat(vector.size(), is(40000));
+        for (int i = 0; i < 40000; i += 37) assertThat(vector.get(i), is(i));
+        assertThat(vector, is(vector(range(0, 39999).safeCast(Integer.class))));
+    }
+
+    @Test
+    public void canJoinSliceAndRemoveFromTheEnd() throws Exception {
+        Vector<Integer> left = vector(range(0, 1999).safeCast(Integer.class));
+        Vector<Integer> right = vector(range(2000, 4999).safeCast(Integer.class));
+        Vector<Integer> joined = left.join(right);
+        assertThat(joined, is(vector(range(0, 4999).safeCast(Integer.class))));
+        assertThat(joined.subList(1500, 2600), is(vector(range(1500, 2599).safeCast(Integer.class))));
+        assertThat(joined.init().last(), is(4998));
+        assertThat(joined.tail().head(), is(1));
+    }
+
+    @Test
+    public void behavesLikeAnArrayListForManyRandomOperations() throws Exception {
+        Random random = new Random(42);
+        List<Integer> expected = new ArrayList<Integer>();
+        Vector<Integer> actual = vector();
+        for (int i = 0; i < 3000; i++) {
+            int operation = random.nextInt(8);
+            if (operation == 0) {
+                expected.add(0, i);
+                actual = actual.cons(i);
+            } else if (operation == 1 && !expected.isEmpty()) {
+                int count = random.nextInt(expected.size());
+                expected = new ArrayList<Integer>(expected.subList(count, expected.size()));
+                actual = actual.drop(count);
+            } else if (operation == 2 && !expected.isEmpty()) {
+                int count = expected.size() - random.nextInt(Math.min(expected.size(), 100));
+                expected = new ArrayList<Integer>(expected.subList(0, count));
+                actual = actual.take(count);
+            } else if (operation == 3) {
+                int count = random.nextInt(2000);
+                Vector<Integer> other = vector();
+                for (int j = 0; j < count; j++) {
+                    expected.add(j);
+                    other = other.append(j);
+                }
+                actual = actual.join(other);
+            } else if (operation == 4 && !expected.isEmpty()) {
+                int index = random.nextInt(expected.size());
+                expected.set(index, -i);
+                actual = actual.update(index, -i);
+            } else if (operation == 5 && !expected.isEmpty()) {
+                expected.remove(expected.size() - 1);
+                actual = actual.init();
+            } else {
+                expected.add(i);
+                actual = actual.append(i);
+            }
+            assertThat(actual.size(), is(expected.size()));
+            if (!expected.isEmpty()) {
+                int index = random.nextInt(expected.size());
+                assertThat(actual.get(index), is(expected.get(index)));
+            }
+        }
+        assertThat(actual, hasExactly(expected.toArray(new Integer[0])));
+    }
+
+    @Test
+    public void splitsIntoTwoHalves() throws Exception {
+        Pair<Vector<Integer>, Vector<Integer>> halves = vector(range(1, 100).safeCast(Integer.class)).split();
+        assertThat(halves.first().size(), is(50));
+        assertThat(halves.first().join(halves.second()), is(vector(range(1, 100).safeCast(Integer.class))));
+    }
+
+    @Test
+    public void transientAppendsInBulk() throws Exception {
+        Vector<Integer> original = vector(1, 2, 3);
+        PersistentList<Integer> result = original.asTransient().appendAll(range(4, 1000).safeCast(Integer.class)).persistent();
+        assertThat(result, is((PersistentList<Integer>) vector(range(1, 1000).safeCast(Integer.class))));
+        assertThat(original, hasExactly(1, 2, 3));
+    }
+
+    @Test
+    public void supportsRemoveAll() throws Exception {
+        assertThat(vector(1, 2, 3, 4, 5, 6).deleteAll(sequence(3, 4)), hasExactly(1, 2, 5, 6));
+        assertThat(vector(1, 2, 3).delete(2), hasExactly(1, 3));
+    }
+}
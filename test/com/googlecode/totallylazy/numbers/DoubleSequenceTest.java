@@ -0,0 +1,47 @@
+package com.googlecode.totallylazy.numbers;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.googlecode.totallylazy.Lists.list;
+import static com.googlecode.totallylazy.Option.none;
+import static com.googlecode.totallylazy.Option.some;
+import static com.googlecode.totallylazy.Sequences.sequence;
+import static com.googlecode.totallylazy.matchers.Matchers.is;
+import static com.googlecode.totallylazy.numbers.DoubleSequence.doubleSequence;
+import static com.googlecode.totallylazy.numbers.DoubleSequence.range;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class DoubleSequenceTest {
+    @Test
+    public void supportsRanges() throws Exception {
+        assertThat(range(0, 1, 0.25).toArray(), is(new double[]{0, 0.25, 0.5, 0.75, 1}));
+        assertThat(range(2, 0).toArray(), is(new double[]{2, 1, 0}));
+    }
+
+    @Test
+    public void sumsWithCompensation() throws Exception {
+        assertThat(DoubleSequence.iterate(value -> value, 0.1).take(10).sum(), is(1.0));
+        assertThat(doubleSequence(1, 2, 3, 4).average(), is(some(2.5)));
+        assertThat(doubleSequence().average(), is(none(Double.class)));
+    }
+
+    @Test
+    public void averagesInOnePass() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        assertThat(range(1, 4).map(value -> {
+            calls.incrementAndGet();
+            return value;
+        }).average(), is(some(2.5)));
+        assertThat(calls.get(), is(4));
+    }
+
+    @Test
+    public void supportsStagesAndInterop() throws Exception {
+        assertThat(range(1, 5).map(Math::sqrt).filter(value -> value == Math.floor(value)).toArray(), is(new double[]{1, 2}));
+        assertThat(doubleSequence(3, 1.5).max(), is(some(3.0)));
+        assertThat(doubleSequence(1.5, 2.5).boxed().toList(), is(list(1.5, 2.5)));
+        assertThat(doubleSequence(sequence(1, 2L, 3.5)).sum(), is(6.5));
+    }
+}
@@ -0,0 +1,58 @@
+package com.googlecode.totallylazy.numbers;
+
+import org.junit.Test;
+
+import java.util.NoSuchElementException;
+
+import static com.googlecode.totallylazy.Lists.list;
+import static com.googlecode.totallylazy.Option.none;
+import static com.googlecode.totallylazy.Option.some;
+import static com.googlecode.totallylazy.Sequences.sequence;
+import static com.googlecode.totallylazy.matchers.Matchers.is;
+import static com.googlecode.totallylazy.numbers.IntSequence.intSequence;
+import static com.googlecode.totallylazy.numbers.IntSequence.iterate;
+import static com.googlecode.totallylazy.numbers.IntSequence.range;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class IntSequenceTest {
+    @Test
+    public void rangesAreInclusiveLikeNumbersRange() throws Exception {
+        assertThat(range(1, 5).toArray(), is(new int[]{1, 2, 3, 4, 5}));
+        assertThat(range(5, 1).toArray(), is(new int[]{5, 4, 3, 2, 1}));
+        assertThat(range(0, 10, 5).toArray(), is(new int[]{0, 5, 10}));
+        assertThat(range(Integer.MAX_VALUE - 1, Integer.MAX_VALUE).size(), is(2));
+    }
+
+    @Test
+    public void supportsStages() throws Exception {
+        assertThat(range(1).map(value -> value * 2).filter(value -> value % 3 == 0).drop(1).take(3).toArray(), is(new int[]{12, 18, 24}));
+        assertThat(iterate(value -> value * 2, 1).takeWhile(value -> value < 100).toArray(), is(new int[]{1, 2, 4, 8, 16, 32, 64}));
+    }
+
+    @Test
+    public void supportsAggregates() throws Exception {
+        assertThat(range(1, 100).sum(), is(5050L));
+        assertThat(range(1, 100).fold(0, (a, b) -> a + b), is(5050));
+        assertThat(range(1, 4).reduce((a, b) -> a * b), is(24));
+        assertThat(intSequence(3, 1, 2).min(), is(some(1)));
+        assertThat(intSequence(3, 1, 2).max(), is(some(3)));
+        assertThat(intSequence(1, 2).average(), is(some(1.5)));
+        assertThat(intSequence().max(), is(none(Integer.class)));
+        assertThat(intSequence().average(), is(none(Double.class)));
+        assertThat(range(Integer.MAX_VALUE - 1, Integer.MAX_VALUE).sum(), is(2L * Integer.MAX_VALUE - 1));
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void reduceOfEmptyThrows() throws Exception {
+        intSequence().reduce((a, b) -> a + b);
+    }
+
+    @Test
+    public void interoperatesWithSequence() throws Exception {
+        assertThat(range(1, 3).boxed().toList(), is(list(1, 2, 3)));
+        assertThat(sequence("a", "bb", "ccc").mapToInt(String::length).sum(), is(6L));
+        assertThat(intSequence(Numbers.range(1, 3)).toArray(), is(new int[]{1, 2, 3}));
+        assertThat(range(1, 3).asLongSequence().toArray(), is(new long[]{1, 2, 3}));
+        assertThat(range(1, 3).mapToObj(String::valueOf).toString(""), is("123"));
+    }
+}
@@ -0,0 +1,30 @@
+package com.googlecode.totallylazy.numbers;
+
+import org.junit.Test;
+
+import static com.googlecode.totallylazy.Lists.list;
+import static com.googlecode.totallylazy.Option.some;
+import static com.googlecode.totallylazy.matchers.Matchers.is;
+import static com.googlecode.totallylazy.numbers.LongSequence.longSequence;
+import static com.googlecode.totallylazy.numbers.LongSequence.range;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class LongSequenceTest {
+    @Test
+    public void rangesStopAtTheEdgesOfLong() throws Exception {
+        assertThat(range(Long.MAX_VALUE - 2, Long.MAX_VALUE).toArray(), is(new long[]{Long.MAX_VALUE - 2, Long.MAX_VALUE - 1, Long.MAX_VALUE}));
+        assertThat(range(Long.MIN_VALUE + 1, Long.MIN_VALUE).toArray(), is(new long[]{Long.MIN_VALUE + 1, Long.MIN_VALUE}));
+        assertThat(range(1, 10, 4).toArray(), is(new long[]{1, 5, 9}));
+    }
+
+    @Test
+    public void supportsStagesAndAggregates() throws Exception {
+        LongSequence squares = range(1, 1000000).map(value -> value * value);
+        assertThat(squares.filter(value -> value % 2 == 0).take(2).toArray(), is(new long[]{4, 16}));
+        assertThat(range(1, 1000000).sum(), is(500000500000L));
+        assertThat(longSequence(5, 7).average(), is(some(6.0)));
+        assertThat(longSequence(5, 7, 3).min(), is(some(3L)));
+        assertThat(range(1, 3).boxed().toList(), is(list(1L, 2L, 3L)));
+        assertThat(range(1, 2).asDoubleSequence().toArray(), is(new double[]{1, 2}));
+    }
+}